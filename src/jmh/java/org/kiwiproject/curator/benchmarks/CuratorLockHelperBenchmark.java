@@ -0,0 +1,169 @@
+package org.kiwiproject.curator.benchmarks;
+
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.CuratorFrameworkFactory;
+import org.apache.curator.framework.recipes.locks.InterProcessLock;
+import org.apache.curator.retry.RetryOneTime;
+import org.apache.curator.test.TestingCluster;
+import org.apache.curator.test.TestingServer;
+import org.kiwiproject.curator.CuratorLockHelper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures acquire/release throughput and latency of Curator locks against an embedded ZooKeeper, both directly and
+ * through the {@link CuratorLockHelper} wrappers.
+ * <p>
+ * All threads contend for the same lock path. Each thread has its own lock instance, created using one of the
+ * benchmark's clients (assigned round-robin by thread index), so that threads contend through ZooKeeper rather than
+ * through a shared in-process lock. The number of threads is set by {@link LockBenchmarkRunner}.
+ * <p>
+ * Every combination of parameters is a separate trial of every benchmark method and mode, about 65 seconds each, so
+ * the defaults are kept small: a single server, 1 or 4 clients, and {@code InterProcessMutex} only. The full matrix
+ * (servers 1 and 3, clients 1, 2, 4 and 8, both lock types, at 4 thread counts) takes over 11 hours. Parameters can be
+ * widened using the {@link LockBenchmarkRunner} system properties.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class CuratorLockHelperBenchmark {
+
+    private static final String LOCK_PATH = "/benchmarks/locks/shared";
+    private static final Duration TIMEOUT = Duration.ofSeconds(60);
+
+    /**
+     * The type of lock being measured.
+     */
+    public enum LockType {
+        MUTEX, SEMAPHORE_MUTEX
+    }
+
+    /**
+     * The embedded ZooKeeper, and the Curator clients shared by all benchmark threads.
+     */
+    @State(Scope.Benchmark)
+    public static class ZooKeeperState {
+
+        /**
+         * The number of ZooKeeper servers. A single server uses {@link TestingServer}; more use {@link TestingCluster}.
+         */
+        @Param({"1"})
+        int servers;
+
+        @Param({"1", "4"})
+        int clients;
+
+        @Param({"MUTEX"})
+        LockType lockType;
+
+        final CuratorLockHelper lockHelper = new CuratorLockHelper();
+        final List<CuratorFramework> curatorClients = new ArrayList<>();
+        Closeable zooKeeper;
+
+        @Setup(Level.Trial)
+        public void startZooKeeper() throws Exception {
+            String connectString;
+            if (servers == 1) {
+                var server = new TestingServer();
+                zooKeeper = server;
+                connectString = server.getConnectString();
+            } else {
+                var cluster = new TestingCluster(servers);
+                cluster.start();
+                zooKeeper = cluster;
+                connectString = cluster.getConnectString();
+            }
+
+            for (var i = 0; i < clients; i++) {
+                var client = CuratorFrameworkFactory.newClient(connectString, new RetryOneTime(100));
+                client.start();
+                client.blockUntilConnected();
+                curatorClients.add(client);
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void stopZooKeeper() throws IOException {
+            curatorClients.forEach(CuratorFramework::close);
+            curatorClients.clear();
+            zooKeeper.close();
+        }
+
+        InterProcessLock newLock(int threadIndex) {
+            var client = curatorClients.get(threadIndex % curatorClients.size());
+            return switch (lockType) {
+                case MUTEX -> lockHelper.createInterProcessMutex(client, LOCK_PATH);
+                case SEMAPHORE_MUTEX -> lockHelper.createInterProcessSemaphoreMutex(client, LOCK_PATH);
+            };
+        }
+    }
+
+    /**
+     * The lock instance of one benchmark thread.
+     */
+    @State(Scope.Thread)
+    public static class LockState {
+
+        InterProcessLock lock;
+
+        @Setup(Level.Trial)
+        public void createLock(ZooKeeperState zooKeeperState, ThreadParams threadParams) {
+            lock = zooKeeperState.newLock(threadParams.getThreadIndex());
+        }
+    }
+
+    @Benchmark
+    public void acquireRelease(LockState lockState) throws Exception {
+        var lock = lockState.lock;
+        if (!lock.acquire(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)) {
+            throw new IllegalStateException("Timed out acquiring lock");
+        }
+        lock.release();
+    }
+
+    @Benchmark
+    public void useLock(ZooKeeperState zooKeeperState, LockState lockState, Blackhole blackhole) {
+        zooKeeperState.lockHelper.useLock(lockState.lock, TIMEOUT, () -> blackhole.consume(lockState));
+    }
+
+    @Benchmark
+    public Object withLock(ZooKeeperState zooKeeperState, LockState lockState) {
+        return zooKeeperState.lockHelper.withLock(lockState.lock, TIMEOUT, () -> lockState);
+    }
+
+    @Benchmark
+    public void useLockWithErrorHandler(ZooKeeperState zooKeeperState, LockState lockState, Blackhole blackhole) {
+        zooKeeperState.lockHelper.useLock(lockState.lock, TIMEOUT,
+                () -> blackhole.consume(lockState),
+                (errorType, e) -> blackhole.consume(e));
+    }
+
+    @Benchmark
+    public Object withLockWithErrorHandler(ZooKeeperState zooKeeperState, LockState lockState) {
+        return zooKeeperState.lockHelper.withLock(lockState.lock, TIMEOUT,
+                () -> lockState,
+                (errorType, e) -> e);
+    }
+}
@@ -0,0 +1,60 @@
+package org.kiwiproject.curator.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Runs the lock benchmarks once for each configured number of threads, writing the results of each run as JSON to
+ * {@code <resultDir>/lock-benchmarks-<threads>-threads.json}, so that results can be compared between releases.
+ * <p>
+ * Configured using system properties:
+ * <ul>
+ *     <li>{@code jmh.threads} - comma-separated thread counts (default {@code 1,16})</li>
+ *     <li>{@code jmh.include} - regular expression selecting the benchmarks to run (default all)</li>
+ *     <li>{@code jmh.resultDir} - the directory in which to write results (default {@code target/jmh})</li>
+ *     <li>{@code jmh.servers}, {@code jmh.clients}, {@code jmh.lockTypes} - comma-separated values of the
+ *     benchmark parameters, overriding the {@code @Param} defaults of {@link CuratorLockHelperBenchmark}</li>
+ * </ul>
+ * <p>
+ * The defaults take about 45 minutes. For example, {@code -Djmh.servers=1,3 -Djmh.clients=1,2,4,8
+ * -Djmh.lockTypes=MUTEX,SEMAPHORE_MUTEX -Djmh.threads=1,4,16,64} runs the full matrix, which takes over 11 hours.
+ */
+public class LockBenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        var threadCounts = Arrays.stream(System.getProperty("jmh.threads", "1,16").split(","))
+                .map(String::strip)
+                .mapToInt(Integer::parseInt)
+                .toArray();
+        var include = System.getProperty("jmh.include", ".*");
+        var resultDir = Files.createDirectories(Path.of(System.getProperty("jmh.resultDir", "target/jmh")));
+
+        for (var threads : threadCounts) {
+            var resultFile = resultDir.resolve("lock-benchmarks-" + threads + "-threads.json");
+            var options = new OptionsBuilder()
+                    .include(CuratorLockHelperBenchmark.class.getName() + "\\." + include)
+                    .threads(threads)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(resultFile.toString());
+            overrideParam(options, "servers", "jmh.servers");
+            overrideParam(options, "clients", "jmh.clients");
+            overrideParam(options, "lockType", "jmh.lockTypes");
+            new Runner(options.build()).run();
+        }
+    }
+
+    private static void overrideParam(ChainedOptionsBuilder options, String param, String property) {
+        var values = System.getProperty(property, "");
+        if (!values.isBlank()) {
+            options.param(param, Arrays.stream(values.split(",")).map(String::strip).toArray(String[]::new));
+        }
+    }
+}
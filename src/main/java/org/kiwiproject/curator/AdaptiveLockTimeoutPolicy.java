@@ -0,0 +1,150 @@
+package org.kiwiproject.curator;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static org.kiwiproject.base.KiwiPreconditions.requireNotNull;
+
+import com.codahale.metrics.Clock;
+import com.codahale.metrics.ExponentiallyDecayingReservoir;
+import com.google.common.annotations.VisibleForTesting;
+import org.kiwiproject.curator.config.AdaptiveLockTimeoutConfig;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chooses lock acquisition timeouts from recently observed acquisition latencies, so that waits track actual
+ * contention instead of a fixed worst-case guess.
+ * <p>
+ * Latencies are kept per lock path template (normalized lock path) in an exponentially decaying reservoir, which
+ * favors the last few minutes of samples. The timeout for a template is the configured percentile of its latencies
+ * multiplied by the configured headroom, bounded by the configured minimum and maximum timeouts. Until a template has
+ * the configured minimum number of samples, its timeout is the maximum timeout.
+ * <p>
+ * Since an acquisition never waits longer than the timeout, no successful acquisition is observed above it. The
+ * headroom leaves room for latencies above the percentile to be observed. An acquisition that times out is recorded
+ * as a sample equal to the timeout multiplied by the configured growth factor, so that timeouts under increased
+ * contention push the percentile above the current timeout, and the timeout grows until acquisitions succeed again.
+ * <p>
+ * Since computing a percentile requires sorting the reservoir, the timeout of each template is computed at most once
+ * per second, and cached in between.
+ *
+ * @see InstrumentedCuratorLockHelper
+ */
+public class AdaptiveLockTimeoutPolicy {
+
+    private static final long REFRESH_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final int RESERVOIR_SIZE = 1028;
+    private static final double RESERVOIR_ALPHA = 0.015;
+
+    private final double percentile;
+    private final double headroom;
+    private final double timeoutGrowthFactor;
+    private final long minTimeoutMicros;
+    private final long maxTimeoutMicros;
+    private final int minSamples;
+    private final Clock clock;
+    private final ConcurrentMap<String, TemplateLatencies> latenciesByTemplate = new ConcurrentHashMap<>();
+
+    private static class TemplateLatencies {
+        final ExponentiallyDecayingReservoir reservoir;
+        volatile long timeoutMicros;
+        volatile long computedAtTick;
+        volatile boolean stale = true;
+
+        TemplateLatencies(Clock clock) {
+            reservoir = new ExponentiallyDecayingReservoir(RESERVOIR_SIZE, RESERVOIR_ALPHA, clock);
+        }
+    }
+
+    /**
+     * Create a new instance using the default configuration.
+     */
+    public AdaptiveLockTimeoutPolicy() {
+        this(new AdaptiveLockTimeoutConfig());
+    }
+
+    /**
+     * Create a new instance.
+     *
+     * @param config the adaptive timeout configuration
+     */
+    public AdaptiveLockTimeoutPolicy(AdaptiveLockTimeoutConfig config) {
+        this(config, Clock.defaultClock());
+    }
+
+    @VisibleForTesting
+    AdaptiveLockTimeoutPolicy(AdaptiveLockTimeoutConfig config, Clock clock) {
+        requireNotNull(config, "config must not be null");
+        checkArgument(config.getPercentile() >= 0.0 && config.getPercentile() <= 1.0,
+                "percentile must be between 0.0 and 1.0");
+        checkArgument(config.getMinSamples() > 0, "minSamples must be positive");
+        checkArgument(config.getHeadroom() >= 1.0, "headroom must be at least 1.0");
+        checkArgument(config.getTimeoutGrowthFactor() >= 1.0, "timeoutGrowthFactor must be at least 1.0");
+
+        this.percentile = config.getPercentile();
+        this.headroom = config.getHeadroom();
+        this.timeoutGrowthFactor = config.getTimeoutGrowthFactor();
+        this.minTimeoutMicros = config.getMinTimeout().toMicroseconds();
+        this.maxTimeoutMicros = config.getMaxTimeout().toMicroseconds();
+        checkArgument(minTimeoutMicros > 0, "minTimeout must be positive");
+        checkArgument(minTimeoutMicros <= maxTimeoutMicros, "minTimeout must not be greater than maxTimeout");
+
+        this.minSamples = config.getMinSamples();
+        this.clock = requireNotNull(clock, "clock must not be null");
+    }
+
+    /**
+     * Get the current timeout for the given lock path template.
+     *
+     * @param pathTemplate the normalized lock path
+     * @return the timeout to use when acquiring locks of the template
+     */
+    public Duration timeoutFor(String pathTemplate) {
+        var latencies = latenciesFor(pathTemplate);
+        var now = clock.getTick();
+        if (latencies.stale || now - latencies.computedAtTick >= REFRESH_INTERVAL_NANOS) {
+            latencies.timeoutMicros = computeTimeoutMicros(latencies.reservoir);
+            latencies.computedAtTick = now;
+            latencies.stale = false;
+        }
+        return Duration.ofNanos(TimeUnit.MICROSECONDS.toNanos(latencies.timeoutMicros));
+    }
+
+    private long computeTimeoutMicros(ExponentiallyDecayingReservoir reservoir) {
+        if (reservoir.size() < minSamples) {
+            return maxTimeoutMicros;
+        }
+
+        var timeoutMicros = (long) Math.ceil(reservoir.getSnapshot().getValue(percentile) * headroom);
+        return Math.max(minTimeoutMicros, Math.min(maxTimeoutMicros, timeoutMicros));
+    }
+
+    /**
+     * Record the latency of a successful lock acquisition.
+     *
+     * @param pathTemplate the normalized lock path
+     * @param latency      the time taken to acquire the lock
+     */
+    public void recordLatency(String pathTemplate, Duration latency) {
+        latenciesFor(pathTemplate).reservoir.update(TimeUnit.NANOSECONDS.toMicros(latency.toNanos()));
+    }
+
+    /**
+     * Record a lock acquisition that timed out. The actual latency is unknown, but is at least the timeout, so it is
+     * recorded as the timeout multiplied by the growth factor.
+     *
+     * @param pathTemplate the normalized lock path
+     * @param timeout      the timeout that expired
+     */
+    public void recordTimeout(String pathTemplate, Duration timeout) {
+        var timeoutMicros = TimeUnit.NANOSECONDS.toMicros(timeout.toNanos());
+        var grownMicros = (long) Math.ceil(timeoutMicros * timeoutGrowthFactor);
+        latenciesFor(pathTemplate).reservoir.update(Math.min(grownMicros, maxTimeoutMicros));
+    }
+
+    private TemplateLatencies latenciesFor(String pathTemplate) {
+        return latenciesByTemplate.computeIfAbsent(pathTemplate, ignored -> new TemplateLatencies(clock));
+    }
+}
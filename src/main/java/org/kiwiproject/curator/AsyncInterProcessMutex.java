@@ -0,0 +1,307 @@
+package org.kiwiproject.curator;
+
+import static org.kiwiproject.base.KiwiPreconditions.checkArgumentNotBlank;
+import static org.kiwiproject.base.KiwiPreconditions.requireNotNull;
+
+import com.google.common.base.MoreObjects;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.api.CuratorEvent;
+import org.apache.curator.framework.api.CuratorWatcher;
+import org.apache.curator.framework.recipes.locks.StandardLockInternalsDriver;
+import org.apache.curator.utils.PathUtils;
+import org.apache.curator.utils.ZKPaths;
+import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.KeeperException;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A distributed mutex whose acquisition never blocks a thread. Acquiring returns a {@link CompletableFuture} that is
+ * completed from Curator background callbacks and ZooKeeper watches, so the number of threads does not grow with the
+ * number of waiters.
+ * <p>
+ * The lock node layout is the same as {@link org.apache.curator.framework.recipes.locks.InterProcessMutex} uses
+ * (protected, ephemeral-sequential {@code lock-} nodes under the base path), so an {@code AsyncInterProcessMutex} and an
+ * {@code InterProcessMutex} on the same path exclude each other. Unlike {@code InterProcessMutex}, this lock is
+ * <em>not</em> re-entrant: every acquisition waits its turn in the queue, and each {@link Lease} must be released.
+ * <p>
+ * Callbacks run on Curator's event thread, so callers should not perform blocking work directly in stages that
+ * depend on the returned futures; use the {@code *Async} variants with an executor instead.
+ */
+@Slf4j
+public class AsyncInterProcessMutex {
+
+    private static final String LOCK_NAME = "lock-";
+
+    private final CuratorFramework client;
+    private final String basePath;
+
+    /**
+     * Create a new instance.
+     *
+     * @param client   Curator client
+     * @param basePath the ZooKeeper base lock path
+     */
+    public AsyncInterProcessMutex(CuratorFramework client, String basePath) {
+        this.client = requireNotNull(client, "client must not be null");
+        checkArgumentNotBlank(basePath, "basePath must not be blank");
+        this.basePath = PathUtils.validatePath(basePath);
+    }
+
+    /**
+     * @return the ZooKeeper base lock path
+     */
+    public String getBasePath() {
+        return basePath;
+    }
+
+    /**
+     * Acquire the lock asynchronously, waiting as long as necessary.
+     * <p>
+     * If the returned future is cancelled, the lock node is deleted. If the lock was acquired after the future was
+     * already completed, it is released immediately.
+     *
+     * @return a future that completes with a {@link Lease} once the lock is held, or completes exceptionally with the
+     * exception thrown by ZooKeeper
+     */
+    public CompletableFuture<Lease> acquire() {
+        var attempt = new Attempt();
+        attempt.future.whenComplete((lease, error) -> {
+            if (error != null) {
+                attempt.abandon();
+            }
+        });
+        attempt.start();
+        return attempt.future;
+    }
+
+    /**
+     * Acquire the lock asynchronously.
+     *
+     * @param timeout the maximum time to wait
+     * @return a future that completes with a {@link Lease} once the lock is held, or completes exceptionally with a
+     * {@link java.util.concurrent.TimeoutException} if the timeout expires, or with the exception thrown by ZooKeeper
+     * @see #acquire(long, TimeUnit)
+     */
+    public CompletableFuture<Lease> acquire(Duration timeout) {
+        return acquire(timeout.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Acquire the lock asynchronously.
+     * <p>
+     * If the returned future is cancelled, or times out, the lock node is deleted. If the lock was acquired after
+     * the future was already completed, it is released immediately.
+     *
+     * @param time the maximum time to wait
+     * @param unit the unit of {@code time}
+     * @return a future that completes with a {@link Lease} once the lock is held, or completes exceptionally with a
+     * {@link java.util.concurrent.TimeoutException} if the timeout expires, or with the exception thrown by ZooKeeper
+     */
+    public CompletableFuture<Lease> acquire(long time, TimeUnit unit) {
+        var future = acquire();
+        future.orTimeout(time, unit);
+        return future;
+    }
+
+    private class Attempt {
+
+        final CompletableFuture<Lease> future = new CompletableFuture<>();
+        final AtomicBoolean nodeDeleted = new AtomicBoolean();
+        volatile String ourPath;
+
+        void start() {
+            try {
+                client.create()
+                        .creatingParentContainersIfNeeded()
+                        .withProtection()
+                        .withMode(CreateMode.EPHEMERAL_SEQUENTIAL)
+                        .inBackground((theClient, event) -> onCreated(event))
+                        .forPath(ZKPaths.makePath(basePath, LOCK_NAME));
+            } catch (Exception e) {
+                future.completeExceptionally(e);
+            }
+        }
+
+        private void onCreated(CuratorEvent event) {
+            if (failedWith(event)) {
+                return;
+            }
+
+            ourPath = event.getName();
+            if (future.isDone()) {
+                abandon();
+                return;
+            }
+
+            checkPosition();
+        }
+
+        private void checkPosition() {
+            if (future.isDone()) {
+                return;
+            }
+
+            try {
+                client.getChildren()
+                        .inBackground((theClient, event) -> onChildren(event))
+                        .forPath(basePath);
+            } catch (Exception e) {
+                future.completeExceptionally(e);
+            }
+        }
+
+        private void onChildren(CuratorEvent event) {
+            if (failedWith(event) || future.isDone()) {
+                return;
+            }
+
+            var ourNode = ZKPaths.getNodeFromPath(ourPath);
+            var sortedChildren = sorted(event.getChildren());
+            var ourIndex = sortedChildren.indexOf(ourNode);
+
+            if (ourIndex < 0) {
+                // most likely the session expired and our ephemeral node went with it
+                future.completeExceptionally(new KeeperException.NoNodeException(ourPath));
+            } else if (ourIndex == 0) {
+                var lease = new Lease(ourPath);
+                if (!future.complete(lease)) {
+                    lease.releaseAsync();
+                }
+            } else {
+                watchPredecessor(ZKPaths.makePath(basePath, sortedChildren.get(ourIndex - 1)));
+            }
+        }
+
+        private void watchPredecessor(String predecessorPath) {
+            CuratorWatcher watcher = watchedEvent -> checkPosition();
+            try {
+                client.checkExists()
+                        .usingWatcher(watcher)
+                        .inBackground((theClient, event) -> onPredecessorChecked(event))
+                        .forPath(predecessorPath);
+            } catch (Exception e) {
+                future.completeExceptionally(e);
+            }
+        }
+
+        private void onPredecessorChecked(CuratorEvent event) {
+            // NONODE means the predecessor went away between listing the children and setting the watch
+            if (event.getResultCode() == KeeperException.Code.NONODE.intValue()) {
+                checkPosition();
+            } else {
+                failedWith(event);
+            }
+        }
+
+        private boolean failedWith(CuratorEvent event) {
+            var resultCode = event.getResultCode();
+            if (resultCode == KeeperException.Code.OK.intValue()) {
+                return false;
+            }
+
+            future.completeExceptionally(KeeperException.create(KeeperException.Code.get(resultCode), event.getPath()));
+            return true;
+        }
+
+        void abandon() {
+            var path = ourPath;
+            if (path != null && nodeDeleted.compareAndSet(false, true)) {
+                LOG.trace("Deleting abandoned lock node {}", path);
+                deleteQuietly(path);
+            }
+        }
+    }
+
+    private static List<String> sorted(List<String> children) {
+        return children.stream()
+                .sorted(Comparator.comparing(child -> StandardLockInternalsDriver.standardFixForSorting(child, LOCK_NAME)))
+                .toList();
+    }
+
+    private CompletableFuture<Void> deleteQuietly(String path) {
+        var deleted = new CompletableFuture<Void>();
+        try {
+            client.delete()
+                    .guaranteed()
+                    .inBackground((theClient, event) -> deleted.complete(null))
+                    .forPath(path);
+        } catch (Exception e) {
+            LOG.warn("Unable to delete lock node {}", path, e);
+            deleted.complete(null);
+        }
+        return deleted;
+    }
+
+    /**
+     * Represents a held {@link AsyncInterProcessMutex}. Closing the lease releases the lock.
+     */
+    public class Lease implements AutoCloseable {
+
+        private final String nodePath;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Lease(String nodePath) {
+            this.nodePath = nodePath;
+        }
+
+        /**
+         * @return the full path of the lock node that represents this lease
+         */
+        public String getNodePath() {
+            return nodePath;
+        }
+
+        /**
+         * @return true if this lease has not been released
+         */
+        public boolean isHeld() {
+            return !released.get();
+        }
+
+        /**
+         * Release the lock. Releasing more than once has no effect.
+         * <p>
+         * The lock node is deleted using Curator's guaranteed delete, so it is retried in the background if the
+         * connection is lost.
+         *
+         * @return a future that completes once the lock node has been deleted
+         */
+        public CompletableFuture<Void> releaseAsync() {
+            if (released.compareAndSet(false, true)) {
+                return deleteQuietly(nodePath);
+            }
+
+            return CompletableFuture.completedFuture(null);
+        }
+
+        /**
+         * Release the lock without waiting for the lock node to be deleted.
+         */
+        @Override
+        public void close() {
+            releaseAsync();
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this)
+                    .add("nodePath", nodePath)
+                    .add("held", isHeld())
+                    .toString();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("basePath", basePath)
+                .toString();
+    }
+}
@@ -0,0 +1,427 @@
+package org.kiwiproject.curator;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static org.kiwiproject.base.KiwiPreconditions.requireNotBlank;
+import static org.kiwiproject.base.KiwiPreconditions.requireNotNull;
+
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.dropwizard.lifecycle.Managed;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.api.transaction.CuratorOp;
+import org.apache.curator.framework.api.transaction.CuratorTransactionResult;
+import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.OpResult;
+import org.apache.zookeeper.data.Stat;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Groups independent writes into ZooKeeper {@code multi} transactions, so that a burst of small writes pays for one
+ * quorum commit per batch instead of one per write.
+ * <p>
+ * Writes are queued, and a single background thread submits them in batches. A batch starts with the first queued
+ * write, and is submitted once the flush window has elapsed since then, or once it has the maximum number of
+ * operations, whichever comes first. Each caller gets a future that completes with the result of its own write.
+ * <p>
+ * Because a transaction fails as a whole when any of its operations fails, a batch that fails because of some of its
+ * operations is resubmitted without them, as identified by the results ZooKeeper reports for each operation. Their
+ * futures complete exceptionally, while the futures of the other operations complete normally. Since ZooKeeper stops
+ * checking a transaction at its first failed operation, a resubmitted batch may fail again because of a later one;
+ * each attempt removes at least one operation. If the results do not identify the failed operations, the batch is
+ * split in two instead, and each half is retried. A batch that fails without results, e.g. because of connection
+ * loss, fails all of its futures.
+ * <p>
+ * Writes that are queued while the writer stops are either submitted or failed with an
+ * {@link IllegalStateException}; their futures always complete.
+ * <p>
+ * Writes in the same batch must be independent of each other, e.g. a create of a path and a create of its child
+ * may be submitted in either order after a split.
+ * <p>
+ * The following metrics are registered, with names starting with {@code org.kiwiproject.curator.BatchingWriter}:
+ * <ul>
+ *     <li>{@code transactions} - timer of submitted transactions, including resubmissions of failed batches</li>
+ *     <li>{@code batch-size} - histogram of the number of operations per batch</li>
+ *     <li>{@code batch-splits} - meter of batches resubmitted, or split, because some of their operations failed</li>
+ *     <li>{@code failed-ops} - meter of operations whose futures completed exceptionally</li>
+ * </ul>
+ */
+@Slf4j
+public class BatchingWriter implements Managed {
+
+    private static final long IDLE_POLL_MILLIS = 100;
+    private static final Duration DEFAULT_STOP_TIMEOUT = Duration.ofSeconds(30);
+
+    private final CuratorFramework client;
+    private final long flushWindowNanos;
+    private final int maxBatchSize;
+    private final Duration stopTimeout;
+    private final BlockingQueue<PendingOp<?>> queue = new LinkedBlockingQueue<>();
+    private final Timer transactions;
+    private final Histogram batchSizes;
+    private final Meter batchSplits;
+    private final Meter failedOps;
+
+    private volatile boolean running;
+    private ExecutorService flusher;
+
+    private record PendingOp<T>(CuratorOp op,
+                                Function<CuratorTransactionResult, T> resultMapper,
+                                CompletableFuture<T> future) {
+
+        void complete(CuratorTransactionResult result) {
+            future.complete(resultMapper.apply(result));
+        }
+    }
+
+    /**
+     * Create a new instance.
+     *
+     * @param client       Curator client
+     * @param flushWindow  the maximum time a write waits for other writes to join its batch
+     * @param maxBatchSize the maximum number of operations in a batch
+     * @param metrics      the registry in which to register metrics
+     */
+    public BatchingWriter(CuratorFramework client, Duration flushWindow, int maxBatchSize, MetricRegistry metrics) {
+        this(client, flushWindow, maxBatchSize, metrics, DEFAULT_STOP_TIMEOUT);
+    }
+
+    @VisibleForTesting
+    BatchingWriter(CuratorFramework client,
+                   Duration flushWindow,
+                   int maxBatchSize,
+                   MetricRegistry metrics,
+                   Duration stopTimeout) {
+        this.client = requireNotNull(client, "client must not be null");
+        checkArgument(!flushWindow.isNegative(), "flushWindow must not be negative");
+        this.flushWindowNanos = flushWindow.toNanos();
+        checkArgument(maxBatchSize > 0, "maxBatchSize must be positive");
+        this.maxBatchSize = maxBatchSize;
+        this.stopTimeout = requireNotNull(stopTimeout, "stopTimeout must not be null");
+
+        requireNotNull(metrics, "metrics must not be null");
+        transactions = metrics.timer(name(BatchingWriter.class, "transactions"));
+        batchSizes = metrics.histogram(name(BatchingWriter.class, "batch-size"));
+        batchSplits = metrics.meter(name(BatchingWriter.class, "batch-splits"));
+        failedOps = metrics.meter(name(BatchingWriter.class, "failed-ops"));
+    }
+
+    /**
+     * Queue a create of a persistent znode.
+     *
+     * @param path the path of the znode
+     * @param data the data of the znode
+     * @return a future that completes with the path of the created znode
+     * @throws IllegalStateException if the writer is not running
+     */
+    public CompletableFuture<String> create(String path, byte[] data) {
+        return create(path, data, CreateMode.PERSISTENT);
+    }
+
+    /**
+     * Queue a create of a znode.
+     *
+     * @param path the path of the znode
+     * @param data the data of the znode
+     * @param mode the create mode; for sequential modes, the future's value contains the sequence number
+     * @return a future that completes with the path of the created znode
+     * @throws IllegalStateException if the writer is not running
+     */
+    public CompletableFuture<String> create(String path, byte[] data, CreateMode mode) {
+        requireNotBlank(path, "path must not be blank");
+        requireNotNull(mode, "mode must not be null");
+        return enqueue(() -> client.transactionOp().create().withMode(mode).forPath(path, data),
+                CuratorTransactionResult::getResultPath);
+    }
+
+    /**
+     * Queue a set of the data of a znode, whatever its version.
+     *
+     * @param path the path of the znode
+     * @param data the new data
+     * @return a future that completes with the stat of the znode after the write
+     * @throws IllegalStateException if the writer is not running
+     */
+    public CompletableFuture<Stat> setData(String path, byte[] data) {
+        return setData(path, data, -1);
+    }
+
+    /**
+     * Queue a set of the data of a znode, if it has the expected version.
+     *
+     * @param path    the path of the znode
+     * @param data    the new data
+     * @param version the expected version, or -1 to match any version
+     * @return a future that completes with the stat of the znode after the write
+     * @throws IllegalStateException if the writer is not running
+     */
+    public CompletableFuture<Stat> setData(String path, byte[] data, int version) {
+        requireNotBlank(path, "path must not be blank");
+        return enqueue(() -> client.transactionOp().setData().withVersion(version).forPath(path, data),
+                CuratorTransactionResult::getResultStat);
+    }
+
+    /**
+     * Queue a delete of a znode, whatever its version.
+     *
+     * @param path the path of the znode
+     * @return a future that completes when the znode is deleted
+     * @throws IllegalStateException if the writer is not running
+     */
+    public CompletableFuture<Void> delete(String path) {
+        return delete(path, -1);
+    }
+
+    /**
+     * Queue a delete of a znode, if it has the expected version.
+     *
+     * @param path    the path of the znode
+     * @param version the expected version, or -1 to match any version
+     * @return a future that completes when the znode is deleted
+     * @throws IllegalStateException if the writer is not running
+     */
+    public CompletableFuture<Void> delete(String path, int version) {
+        requireNotBlank(path, "path must not be blank");
+        return enqueue(() -> client.transactionOp().delete().withVersion(version).forPath(path),
+                result -> null);
+    }
+
+    @FunctionalInterface
+    private interface OpFactory {
+        CuratorOp create() throws Exception;
+    }
+
+    private <T> CompletableFuture<T> enqueue(OpFactory opFactory,
+                                             Function<CuratorTransactionResult, T> resultMapper) {
+        checkState(running, "BatchingWriter is not running");
+
+        var future = new CompletableFuture<T>();
+        PendingOp<T> pendingOp;
+        try {
+            pendingOp = new PendingOp<>(opFactory.create(), resultMapper, future);
+        } catch (Exception e) {
+            future.completeExceptionally(e);
+            return future;
+        }
+
+        queue.add(pendingOp);
+
+        // If stop() ran since the check above, the write may have been queued after the final drain. Whoever
+        // removes it from the queue owns it: the flusher or stop() submits or fails it, otherwise we fail it here.
+        if (!running && queue.remove(pendingOp)) {
+            failAll(List.of(pendingOp),
+                    new IllegalStateException("BatchingWriter was stopped before the write was queued"));
+        }
+        return future;
+    }
+
+    /**
+     * @return the number of queued writes that have not been submitted yet
+     */
+    public int queuedCount() {
+        return queue.size();
+    }
+
+    /**
+     * Start submitting batches in a dedicated background thread.
+     */
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+
+        var threadFactory = new ThreadFactoryBuilder()
+                .setNameFormat("batching-writer-%d")
+                .setDaemon(true)
+                .build();
+        flusher = Executors.newSingleThreadExecutor(threadFactory);
+        running = true;
+        flusher.execute(this::flushLoop);
+    }
+
+    /**
+     * Stop accepting writes, submit the writes already queued, and stop the background thread.
+     *
+     * @throws InterruptedException if interrupted while waiting for queued writes to be submitted
+     */
+    @Override
+    public synchronized void stop() throws InterruptedException {
+        if (!running) {
+            return;
+        }
+
+        running = false;
+        flusher.shutdown();
+        if (!flusher.awaitTermination(stopTimeout.toNanos(), TimeUnit.NANOSECONDS)) {
+            LOG.warn("Timed out submitting {} queued writes", queue.size());
+            flusher.shutdownNow();
+        }
+
+        var unsubmitted = new ArrayList<PendingOp<?>>();
+        queue.drainTo(unsubmitted);
+        if (!unsubmitted.isEmpty()) {
+            failAll(unsubmitted,
+                    new IllegalStateException("BatchingWriter was stopped before the write was submitted"));
+        }
+    }
+
+    private void flushLoop() {
+        while (running || !queue.isEmpty()) {
+            try {
+                var batch = nextBatch();
+                if (!batch.isEmpty()) {
+                    batchSizes.update(batch.size());
+                    submit(batch);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                var unsubmitted = new ArrayList<PendingOp<?>>();
+                queue.drainTo(unsubmitted);
+                failAll(unsubmitted, e);
+                return;
+            } catch (Exception e) {
+                LOG.error("Unexpected error submitting batch", e);
+            }
+        }
+    }
+
+    private List<PendingOp<?>> nextBatch() throws InterruptedException {
+        var batch = new ArrayList<PendingOp<?>>();
+        var first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return batch;
+        }
+
+        batch.add(first);
+        var deadlineNanos = System.nanoTime() + flushWindowNanos;
+        try {
+            while (batch.size() < maxBatchSize) {
+                var remainingNanos = deadlineNanos - System.nanoTime();
+                var next = remainingNanos > 0 ? queue.poll(remainingNanos, TimeUnit.NANOSECONDS) : queue.poll();
+                if (next == null) {
+                    break;
+                }
+                batch.add(next);
+            }
+        } catch (InterruptedException e) {
+            failAll(batch, e);
+            throw e;
+        }
+        return batch;
+    }
+
+    private void submit(List<PendingOp<?>> batch) {
+        var remaining = batch;
+        while (!remaining.isEmpty()) {
+            remaining = submitOnce(remaining);
+        }
+    }
+
+    /**
+     * Submit a batch as one transaction.
+     *
+     * @return the operations to resubmit, which are empty unless the transaction failed because of some of its
+     * operations
+     */
+    private List<PendingOp<?>> submitOnce(List<PendingOp<?>> batch) {
+        List<CuratorTransactionResult> results;
+        try (var ignored = transactions.time()) {
+            results = client.transaction().forOperations(batch.stream().map(PendingOp::op).toList());
+        } catch (KeeperException e) {
+            // Without results, the transaction failed as a whole, e.g. on connection loss, not because of an operation
+            return e.getResults() != null && batch.size() > 1 ? withoutFailedOps(batch, e) : failAll(batch, e);
+        } catch (Exception e) {
+            return failAll(batch, e);
+        }
+
+        for (var i = 0; i < batch.size(); i++) {
+            batch.get(i).complete(results.get(i));
+        }
+        return List.of();
+    }
+
+    /**
+     * Fail the operations that caused a transaction to fail, using the results reported by ZooKeeper, and return the
+     * others, which only failed because the transaction did. If the results do not identify the failed operations,
+     * the batch is split in two instead, and each half is submitted separately.
+     */
+    private List<PendingOp<?>> withoutFailedOps(List<PendingOp<?>> batch, KeeperException e) {
+        batchSplits.mark();
+        var failureCodes = failureCodes(batch, e);
+        if (failureCodes.isEmpty()) {
+            LOG.debug("Batch of {} operations failed ({}) without identified failures; splitting it",
+                    batch.size(), e.code());
+            var middle = batch.size() / 2;
+            submit(batch.subList(0, middle));
+            return batch.subList(middle, batch.size());
+        }
+
+        var toResubmit = new ArrayList<PendingOp<?>>();
+        for (var i = 0; i < batch.size(); i++) {
+            var pendingOp = batch.get(i);
+            var code = failureCodes.get(i);
+            if (code == null) {
+                toResubmit.add(pendingOp);
+            } else {
+                pendingOp.future().completeExceptionally(KeeperException.create(code, pendingOp.op().get().getPath()));
+            }
+        }
+        LOG.debug("Batch of {} operations failed ({}); resubmitting it without the {} failed operations",
+                batch.size(), e.code(), failureCodes.size());
+        failedOps.mark(failureCodes.size());
+        return toResubmit;
+    }
+
+    /**
+     * @return the error codes of the operations that caused the transaction to fail, keyed by index in the batch;
+     * empty if the results reported by ZooKeeper do not identify them
+     */
+    private static Map<Integer, KeeperException.Code> failureCodes(List<PendingOp<?>> batch, KeeperException e) {
+        var opResults = e.getResults();
+        if (opResults.size() != batch.size()) {
+            return Map.of();
+        }
+
+        var failed = new HashMap<Integer, KeeperException.Code>();
+        for (var i = 0; i < opResults.size(); i++) {
+            var code = errorCodeOf(opResults.get(i));
+            if (code != KeeperException.Code.OK && code != KeeperException.Code.RUNTIMEINCONSISTENCY) {
+                failed.put(i, code);
+            }
+        }
+        return failed;
+    }
+
+    private static KeeperException.Code errorCodeOf(OpResult opResult) {
+        return opResult instanceof OpResult.ErrorResult errorResult
+                ? KeeperException.Code.get(errorResult.getErr())
+                : KeeperException.Code.OK;
+    }
+
+    private List<PendingOp<?>> failAll(List<PendingOp<?>> batch, Exception e) {
+        LOG.debug("Failing {} operations", batch.size(), e);
+        failedOps.mark(batch.size());
+        batch.forEach(pendingOp -> pendingOp.future().completeExceptionally(e));
+        return List.of();
+    }
+}
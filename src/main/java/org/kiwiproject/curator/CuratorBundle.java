@@ -1,16 +1,45 @@
 package org.kiwiproject.curator;
 
+import static com.google.common.base.Preconditions.checkState;
+import static java.util.Objects.nonNull;
+
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import io.dropwizard.core.Configuration;
 import io.dropwizard.core.ConfiguredBundle;
 import io.dropwizard.core.setup.Environment;
+import io.dropwizard.lifecycle.AutoCloseableManager;
+import io.dropwizard.lifecycle.ExecutorServiceManager;
+import io.dropwizard.util.Duration;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.recipes.leader.LeaderLatchListener;
+import org.apache.curator.framework.recipes.leader.LeaderSelectorListener;
+import org.kiwiproject.curator.cache.CuratorCacheManager;
+import org.kiwiproject.curator.cache.TypedZnodeCache;
+import org.kiwiproject.curator.cache.ZnodeMirror;
+import org.kiwiproject.curator.chunked.ChunkedValueStore;
+import org.kiwiproject.curator.config.CuratorConfig;
 import org.kiwiproject.curator.config.CuratorConfigured;
+import org.kiwiproject.curator.config.LeaderElectionConfig;
+import org.kiwiproject.curator.config.LockMetricsConfig;
 import org.kiwiproject.curator.exception.CuratorStartupFailureException;
+import org.kiwiproject.curator.health.CuratorCacheHealthCheck;
 import org.kiwiproject.curator.health.CuratorHealthCheck;
+import org.kiwiproject.curator.health.LeaderElectionHealthCheck;
+import org.kiwiproject.curator.leader.ManagedLeaderElection;
+import org.kiwiproject.curator.leader.ManagedLeaderLatch;
+import org.kiwiproject.curator.leader.ManagedLeaderSelector;
+import org.kiwiproject.curator.partition.ManagedWorkPartitioner;
+import org.kiwiproject.curator.partition.PartitionRebalanceListener;
+import org.kiwiproject.curator.scheduler.ClusterSingletonScheduler;
+import org.kiwiproject.curator.tasks.LockQueuesTask;
 
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * A Dropwizard bundle that creates a {@link CuratorFramework} instance, wrapped in a Dropwizard
@@ -18,6 +47,13 @@ import java.util.Optional;
  * <p>
  * Starts the {@link CuratorFramework} immediately, i.e. does not wait for Dropwizard to do it. Also, adds a
  * health check ({@link CuratorHealthCheck}).
+ * <p>
+ * After the bundle has run, leader elections tied to the application lifecycle can be added using
+ * {@link #manageLeaderLatch(Environment, String, LeaderLatchListener)} and
+ * {@link #manageLeaderSelector(Environment, String, LeaderSelectorListener)}, and jobs that run on exactly one node
+ * can be scheduled using a scheduler created by {@link #manageClusterSingletonScheduler(Environment, String)}.
+ * Work can be divided among the nodes of a group using
+ * {@link #manageWorkPartitioner(Environment, String, int, PartitionRebalanceListener)}.
  *
  * @param <C> configuration class type
  */
@@ -26,6 +62,13 @@ public class CuratorBundle<C extends Configuration & CuratorConfigured> implemen
 
     private final CuratorFrameworkHelper curatorFrameworkHelper = new CuratorFrameworkHelper();
     private ManagedCuratorFramework managedClient;
+    private CuratorLockHelper lockHelper;
+    private LockParticipantsView lockParticipantsView;
+    private LeaderElectionConfig leaderElectionConfig;
+    private CuratorCacheManager cacheManager;
+    private SingleFlightReader singleFlightReader;
+    private BatchingWriter batchingWriter;
+    private ChunkedValueStore chunkedValueStore;
 
     @Override
     public void run(C configuration, Environment environment) {
@@ -45,10 +88,196 @@ public class CuratorBundle<C extends Configuration & CuratorConfigured> implemen
                 curatorConfig.getHealthCheckName(),
                 new CuratorHealthCheck(client, curatorConfig.getZkConnectString()));
 
+        lockHelper = newLockHelper(curatorConfig, environment);
+
+        singleFlightReader = new SingleFlightReader(client, environment.metrics());
+
+        lockParticipantsView = new LockParticipantsView(client);
+        environment.lifecycle().manage(new AutoCloseableManager(lockParticipantsView));
+
+        var lockReaperConfig = curatorConfig.getLockReaper();
+        if (lockReaperConfig.isEnabled()) {
+            environment.lifecycle().manage(new LockPathReaper(client, lockReaperConfig, environment.metrics()));
+        }
+
+        var lockQueuesTaskConfig = curatorConfig.getLockQueuesTask();
+        if (lockQueuesTaskConfig.isEnabled()) {
+            environment.admin().addTask(new LockQueuesTask(client, lockHelper,
+                    lockQueuesTaskConfig.getLockRoots(), lockQueuesTaskConfig.getTimeout().toJavaDuration()));
+        }
+
+        var batchingWriterConfig = curatorConfig.getBatchingWriter();
+        if (batchingWriterConfig.isEnabled()) {
+            batchingWriter = new BatchingWriter(client, batchingWriterConfig.getFlushWindow().toJavaDuration(),
+                    batchingWriterConfig.getMaxBatchSize(), environment.metrics());
+            environment.lifecycle().manage(batchingWriter);
+        }
+
+        var chunkedValuesConfig = curatorConfig.getChunkedValues();
+        if (chunkedValuesConfig.isEnabled()) {
+            chunkedValueStore = new ChunkedValueStore(client,
+                    Ints.checkedCast(chunkedValuesConfig.getChunkSize().toBytes()),
+                    chunkedValuesConfig.getReadAhead(),
+                    chunkedValuesConfig.getGarbageGracePeriod().toJavaDuration(),
+                    chunkedValuesConfig.getGarbageSweepInterval().toJavaDuration(),
+                    environment.metrics());
+            environment.lifecycle().manage(chunkedValueStore);
+        }
+
+        leaderElectionConfig = curatorConfig.getLeaderElection();
+
+        var cacheConfig = curatorConfig.getCaches();
+        cacheManager = new CuratorCacheManager(client, environment.metrics(),
+                cacheConfig.getInitialLoadTimeout().toJavaDuration(), curatorConfig.getCompression().isEnabled());
+        cacheConfig.getSubtrees().forEach(cacheManager::mirrorSubtree);
+        environment.lifecycle().manage(cacheManager);
+        environment.healthChecks().register("curator-caches", new CuratorCacheHealthCheck(cacheManager));
+
         LOG.info("Started Curator, registered managed Curator client [ {} ], and registered health check with name '{}'",
                 managedClient, curatorConfig.getHealthCheckName());
     }
 
+    private static CuratorLockHelper newLockHelper(CuratorConfig curatorConfig, Environment environment) {
+        var lockMetricsConfig = curatorConfig.getLockMetrics();
+        if (!lockMetricsConfig.isEnabled()) {
+            return new CuratorLockHelper();
+        }
+
+        var pathNormalizer = new LockPathNormalizer(
+                lockMetricsConfig.getPathTemplates(), lockMetricsConfig.getMaxDistinctPaths());
+        return new InstrumentedCuratorLockHelper(environment.metrics(), pathNormalizer,
+                newLockHoldWatchdog(lockMetricsConfig, environment),
+                new AdaptiveLockTimeoutPolicy(curatorConfig.getAdaptiveLockTimeout()));
+    }
+
+    private static LockHoldWatchdog newLockHoldWatchdog(LockMetricsConfig lockMetricsConfig, Environment environment) {
+        if (!lockMetricsConfig.isWatchdogEnabled()) {
+            return null;
+        }
+
+        var watchdog = new LockHoldWatchdog(environment.metrics(),
+                lockMetricsConfig.getLongHoldThreshold().toJavaDuration(),
+                lockMetricsConfig.getWatchdogCheckInterval().toJavaDuration());
+        environment.lifecycle().manage(watchdog);
+        return watchdog;
+    }
+
+    /**
+     * Create a {@link ManagedLeaderLatch} using the bundle's client, and tie it to the application lifecycle. It
+     * starts after, and stops before, the Curator client. A {@link LeaderElectionHealthCheck} named
+     * {@code curator-leader:<latchPath>} is registered for it, and the listener is called on a dedicated executor
+     * with the configured number of threads.
+     * <p>
+     * This must be called after the bundle has been run, e.g. from the application's {@code run} method.
+     *
+     * @param environment the Dropwizard environment
+     * @param latchPath   the ZooKeeper path of the election
+     * @param listener    called when this participant gains or loses leadership
+     * @return the managed leader latch
+     * @throws IllegalStateException if the bundle has not been run
+     */
+    public ManagedLeaderLatch manageLeaderLatch(Environment environment, String latchPath, LeaderLatchListener listener) {
+        var executor = newLeaderCallbackExecutor(environment, latchPath);
+        var latch = new ManagedLeaderLatch(getClient(), latchPath, participantId(), listener, executor,
+                environment.metrics());
+        return manageLeaderElection(environment, latch);
+    }
+
+    /**
+     * Create a {@link ManagedLeaderSelector} using the bundle's client, and tie it to the application lifecycle. It
+     * starts after, and stops before, the Curator client. A {@link LeaderElectionHealthCheck} named
+     * {@code curator-leader:<leaderPath>} is registered for it, and the listener takes leadership on a dedicated
+     * executor with the configured number of threads.
+     * <p>
+     * This must be called after the bundle has been run, e.g. from the application's {@code run} method.
+     *
+     * @param environment the Dropwizard environment
+     * @param leaderPath  the ZooKeeper path of the election
+     * @param listener    takes leadership when this participant is selected
+     * @return the managed leader selector
+     * @throws IllegalStateException if the bundle has not been run
+     */
+    public ManagedLeaderSelector manageLeaderSelector(Environment environment,
+                                                      String leaderPath,
+                                                      LeaderSelectorListener listener) {
+        var executor = newLeaderCallbackExecutor(environment, leaderPath);
+        var selector = new ManagedLeaderSelector(getClient(), leaderPath, participantId(), listener, executor,
+                environment.metrics());
+        return manageLeaderElection(environment, selector);
+    }
+
+    /**
+     * Create a {@link ClusterSingletonScheduler} using the bundle's client and lock helper, and tie it to the
+     * application lifecycle. It starts after, and stops before, the Curator client, and uses the configured leader
+     * election participant ID.
+     * <p>
+     * This must be called after the bundle has been run, e.g. from the application's {@code run} method. Jobs can
+     * be registered with the returned scheduler before or after it starts.
+     *
+     * @param environment the Dropwizard environment
+     * @param rootPath    the ZooKeeper path under which the scheduler keeps its nodes
+     * @return the managed scheduler
+     * @throws IllegalStateException if the bundle has not been run
+     */
+    public ClusterSingletonScheduler manageClusterSingletonScheduler(Environment environment, String rootPath) {
+        checkState(nonNull(managedClient), "The bundle must be run before managing a scheduler");
+
+        var scheduler = new ClusterSingletonScheduler(getClient(), lockHelper, rootPath, participantId(),
+                ClusterSingletonScheduler.DEFAULT_THREADS, environment.metrics());
+        environment.lifecycle().manage(scheduler);
+        return scheduler;
+    }
+
+    /**
+     * Create a {@link ManagedWorkPartitioner} using the bundle's client, and tie it to the application lifecycle. It
+     * starts after, and stops before, the Curator client, and uses the configured leader election participant ID as
+     * its member ID.
+     * <p>
+     * This must be called after the bundle has been run, e.g. from the application's {@code run} method.
+     *
+     * @param environment    the Dropwizard environment
+     * @param groupPath      the ZooKeeper path of the group
+     * @param partitionCount the number of partitions
+     * @param listener       called when the partitions owned by this node change
+     * @return the managed partitioner
+     * @throws IllegalStateException if the bundle has not been run
+     */
+    public ManagedWorkPartitioner manageWorkPartitioner(Environment environment,
+                                                        String groupPath,
+                                                        int partitionCount,
+                                                        PartitionRebalanceListener listener) {
+        checkState(nonNull(managedClient), "The bundle must be run before managing a work partitioner");
+
+        var partitioner = new ManagedWorkPartitioner(getClient(), groupPath, participantId(), partitionCount, listener);
+        environment.lifecycle().manage(partitioner);
+        return partitioner;
+    }
+
+    private ExecutorService newLeaderCallbackExecutor(Environment environment, String leaderPath) {
+        checkState(nonNull(managedClient), "The bundle must be run before managing leader elections");
+
+        var name = "curator-leader" + leaderPath.replace('/', '-');
+        var threadFactory = new ThreadFactoryBuilder()
+                .setNameFormat(name + "-%d")
+                .setDaemon(true)
+                .build();
+        var executor = Executors.newFixedThreadPool(leaderElectionConfig.getCallbackThreads(), threadFactory);
+        environment.lifecycle().manage(new ExecutorServiceManager(executor, Duration.seconds(5), name));
+        return executor;
+    }
+
+    private String participantId() {
+        return Optional.ofNullable(leaderElectionConfig.getParticipantId())
+                .orElseGet(ManagedLeaderElection::defaultParticipantId);
+    }
+
+    private <E extends ManagedLeaderElection> E manageLeaderElection(Environment environment, E election) {
+        environment.lifecycle().manage(election);
+        environment.healthChecks().register("curator-leader:" + election.getLeaderPath(),
+                new LeaderElectionHealthCheck(election));
+        return election;
+    }
+
     private void tryStartCurator() {
         try {
             managedClient.start();
@@ -66,6 +295,110 @@ public class CuratorBundle<C extends Configuration & CuratorConfigured> implemen
         return managedClient;
     }
 
+    /**
+     * Once the bundle has been run, this will return a {@link CuratorLockHelper}. Unless lock metrics are disabled
+     * in the configuration, it is an {@link InstrumentedCuratorLockHelper} that records metrics in the
+     * application's {@link com.codahale.metrics.MetricRegistry}.
+     *
+     * @return the {@link CuratorLockHelper} if run has been called, otherwise {@code null}
+     */
+    public CuratorLockHelper getLockHelper() {
+        return lockHelper;
+    }
+
+    /**
+     * Once the bundle has been run, this will return a {@link LockParticipantsView} for use with the
+     * {@code tryWithLock} and {@code tryUseLock} methods of {@link CuratorLockHelper}. It is closed when the
+     * application stops.
+     *
+     * @return the {@link LockParticipantsView} if run has been called, otherwise {@code null}
+     */
+    public LockParticipantsView getLockParticipantsView() {
+        return lockParticipantsView;
+    }
+
+    /**
+     * Once the bundle has been run, this will return the {@link CuratorCacheManager}, which mirrors the configured
+     * subtrees in memory. More znodes or subtrees can be mirrored using it. It starts after the Curator client, and
+     * application startup waits for the initial load of its caches. When compression is enabled, mirrored data is
+     * decompressed.
+     *
+     * @return the {@link CuratorCacheManager} if run has been called, otherwise {@code null}
+     */
+    public CuratorCacheManager getCacheManager() {
+        return cacheManager;
+    }
+
+    /**
+     * Create a {@link TypedZnodeCache} that decodes JSON znodes using the environment's {@code ObjectMapper}. The
+     * znodes are read from the existing mirror that covers the path, or else from a new mirror of the subtree at the
+     * path.
+     * <p>
+     * This must be called after the bundle has been run, e.g. from the application's {@code run} method.
+     *
+     * @param environment the Dropwizard environment
+     * @param path        the path of the znode or subtree to decode
+     * @param type        the class of the decoded objects
+     * @param <T>         the type of the decoded objects
+     * @return the typed cache
+     * @throws IllegalStateException if the bundle has not been run
+     */
+    public <T> TypedZnodeCache<T> newTypedZnodeCache(Environment environment, String path, Class<T> type) {
+        return new TypedZnodeCache<>(mirrorFor(path), environment.getObjectMapper(), type, environment.metrics());
+    }
+
+    /**
+     * Create a {@link TypedZnodeCache} that decodes JSON znodes into a generic type using the environment's
+     * {@code ObjectMapper}.
+     *
+     * @param environment the Dropwizard environment
+     * @param path        the path of the znode or subtree to decode
+     * @param type        the type of the decoded objects
+     * @param <T>         the type of the decoded objects
+     * @return the typed cache
+     * @throws IllegalStateException if the bundle has not been run
+     * @see #newTypedZnodeCache(Environment, String, Class)
+     */
+    public <T> TypedZnodeCache<T> newTypedZnodeCache(Environment environment, String path, TypeReference<T> type) {
+        return new TypedZnodeCache<>(mirrorFor(path), environment.getObjectMapper(), type, environment.metrics());
+    }
+
+    private ZnodeMirror mirrorFor(String path) {
+        checkState(nonNull(cacheManager), "The bundle must be run before creating typed caches");
+        return cacheManager.findMirror(path).orElseGet(() -> cacheManager.mirrorSubtree(path));
+    }
+
+    /**
+     * Once the bundle has been run, this will return a {@link SingleFlightReader} using the bundle's client, which
+     * merges concurrent identical reads into a single ZooKeeper request.
+     *
+     * @return the {@link SingleFlightReader} if run has been called, otherwise {@code null}
+     */
+    public SingleFlightReader getSingleFlightReader() {
+        return singleFlightReader;
+    }
+
+    /**
+     * Once the bundle has been run, and if it is enabled in the configuration, this will return a
+     * {@link BatchingWriter} using the bundle's client. It starts after, and stops before, the Curator client.
+     *
+     * @return the {@link BatchingWriter} if run has been called and it is enabled, otherwise {@code null}
+     */
+    public BatchingWriter getBatchingWriter() {
+        return batchingWriter;
+    }
+
+    /**
+     * Once the bundle has been run, and if it is enabled in the configuration, this will return a
+     * {@link ChunkedValueStore} using the bundle's client, which stores values larger than ZooKeeper's maximum znode
+     * size. It sweeps garbage while it is started, and starts after, and stops before, the Curator client.
+     *
+     * @return the {@link ChunkedValueStore} if run has been called and it is enabled, otherwise {@code null}
+     */
+    public ChunkedValueStore getChunkedValueStore() {
+        return chunkedValueStore;
+    }
+
     /**
      * Once the bundle has been run, this will return the {@link CuratorFramework}.
      *
@@ -9,6 +9,8 @@ import org.apache.curator.framework.CuratorFramework;
 import org.apache.curator.framework.CuratorFrameworkFactory;
 import org.apache.curator.framework.imps.CuratorFrameworkState;
 import org.apache.curator.retry.BoundedExponentialBackoffRetry;
+import org.kiwiproject.curator.compression.ZnodeCompressionProvider;
+import org.kiwiproject.curator.config.CompressionConfig;
 import org.kiwiproject.curator.config.CuratorConfig;
 
 /**
@@ -20,6 +22,8 @@ public class CuratorFrameworkHelper {
     /**
      * Creates a new {@link CuratorFramework} instance. It is in {@link CuratorFrameworkState#LATENT} state, meaning
      * not yet started.
+     * <p>
+     * If compression is enabled in the configuration, the client uses a {@link ZnodeCompressionProvider}.
      *
      * @param curatorConfig Curator configuration
      * @return a Curator client
@@ -34,10 +38,24 @@ public class CuratorFrameworkHelper {
                 toMilliseconds(curatorConfig.getMaxSleepTime()),
                 curatorConfig.getMaxRetries());
 
-        return CuratorFrameworkFactory.newClient(curatorConfig.getZkConnectString(),
-                toMilliseconds(curatorConfig.getSessionTimeout()),
-                toMilliseconds(curatorConfig.getConnectionTimeout()),
-                retryPolicy);
+        var builder = CuratorFrameworkFactory.builder()
+                .connectString(curatorConfig.getZkConnectString())
+                .sessionTimeoutMs(toMilliseconds(curatorConfig.getSessionTimeout()))
+                .connectionTimeoutMs(toMilliseconds(curatorConfig.getConnectionTimeout()))
+                .retryPolicy(retryPolicy);
+
+        var compressionConfig = curatorConfig.getCompression();
+        if (compressionConfig.isEnabled()) {
+            builder.compressionProvider(newCompressionProvider(compressionConfig));
+        }
+
+        return builder.build();
+    }
+
+    private static ZnodeCompressionProvider newCompressionProvider(CompressionConfig compressionConfig) {
+        return new ZnodeCompressionProvider(compressionConfig.getAlgorithm(),
+                Ints.checkedCast(compressionConfig.getMinSize().toBytes()),
+                compressionConfig.getPathAlgorithms());
     }
 
     private static int toMilliseconds(Duration duration) {
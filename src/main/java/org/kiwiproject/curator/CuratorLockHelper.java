@@ -1,22 +1,54 @@
 package org.kiwiproject.curator;
 
+import static java.util.Comparator.comparing;
 import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static org.kiwiproject.base.KiwiPreconditions.checkArgumentNotNull;
+import static org.kiwiproject.base.KiwiPreconditions.checkArgumentNotEmpty;
 import static org.kiwiproject.base.KiwiStrings.f;
 
 import lombok.extern.slf4j.Slf4j;
 import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.api.BackgroundCallback;
+import org.apache.curator.framework.api.CuratorEvent;
 import org.apache.curator.framework.recipes.locks.InterProcessLock;
+import org.apache.curator.framework.recipes.locks.InterProcessMultiLock;
 import org.apache.curator.framework.recipes.locks.InterProcessMutex;
+import org.apache.curator.framework.recipes.locks.InterProcessReadWriteLock;
 import org.apache.curator.framework.recipes.locks.InterProcessSemaphoreMutex;
+import org.apache.curator.framework.state.ConnectionState;
+import org.apache.curator.framework.state.ConnectionStateListener;
+import org.apache.curator.utils.ZKPaths;
+import org.apache.zookeeper.KeeperException;
 import org.kiwiproject.curator.exception.LockAcquisitionException;
 import org.kiwiproject.curator.exception.LockAcquisitionFailureException;
 import org.kiwiproject.curator.exception.LockAcquisitionTimeoutException;
+import org.kiwiproject.curator.exception.LockLostException;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
+import java.util.function.LongConsumer;
+import java.util.function.LongFunction;
 import java.util.function.Supplier;
+import java.util.regex.Pattern;
 
 /**
  * Helper class for creating and managing Curator locks, and converting timeouts and exceptions thrown by Curator
@@ -25,6 +57,14 @@ import java.util.function.Supplier;
 @Slf4j
 public class CuratorLockHelper {
 
+    private static final int SEQUENCE_LENGTH = 10;
+
+    /**
+     * Matches the names of lock nodes created by {@link InterProcessMutex} and {@link InterProcessReadWriteLock}.
+     */
+    private static final Pattern LOCK_NODE_NAME =
+            Pattern.compile(".*(lock-|__READ__|__WRIT__)\\d{" + SEQUENCE_LENGTH + "}");
+
     /**
      * Creates a Curator lock instance for the given path.
      * <p>
@@ -54,6 +94,123 @@ public class CuratorLockHelper {
         return new InterProcessSemaphoreMutex(client, lockPath);
     }
 
+    /**
+     * Creates a re-entrant mutex for the given path that provides a fencing token while it is held.
+     *
+     * @param client   Curator client
+     * @param lockPath the ZooKeeper base lock path
+     * @return a lock instance ({@link FencedInterProcessMutex})
+     * @see FencedInterProcessMutex
+     * @see #withFencedLock(FencedInterProcessMutex, Duration, LongFunction)
+     */
+    public FencedInterProcessMutex createFencedInterProcessMutex(CuratorFramework client, String lockPath) {
+        return new FencedInterProcessMutex(client, lockPath);
+    }
+
+    /**
+     * Creates a Curator read/write lock instance for the given path.
+     * <p>
+     * Use this when many threads or processes only need to read the guarded resource, so that readers can hold the
+     * lock at the same time, while writers have exclusive access. Both the read and write locks are re-entrant, and
+     * a thread holding the write lock can also acquire the read lock.
+     *
+     * @param client   Curator client
+     * @param lockPath the ZooKeeper base lock path
+     * @return a Curator read/write lock instance ({@link InterProcessReadWriteLock})
+     * @see InterProcessReadWriteLock
+     * @see #useReadLock(InterProcessReadWriteLock, Duration, Runnable)
+     * @see #useWriteLock(InterProcessReadWriteLock, Duration, Runnable)
+     */
+    public InterProcessReadWriteLock createInterProcessReadWriteLock(CuratorFramework client, String lockPath) {
+        return new InterProcessReadWriteLock(client, lockPath);
+    }
+
+    /**
+     * Creates a Curator multi-lock that acquires a re-entrant mutex ({@link InterProcessMutex}) for each of the
+     * given paths.
+     * <p>
+     * The paths are de-duplicated and sorted in their natural (lexicographic) order, so any two multi-locks created
+     * by this method that share paths acquire those paths in the same order, and therefore cannot deadlock with each
+     * other. Creating the multi-lock does not write to ZooKeeper; each mutex creates its parent nodes as needed.
+     * <p>
+     * Note that lock nodes are <em>not</em> created concurrently: queueing for several locks at once would
+     * reintroduce the possibility of deadlock that the canonical ordering prevents.
+     *
+     * @param client    Curator client
+     * @param lockPaths the ZooKeeper base lock paths
+     * @return a Curator lock instance ({@link InterProcessMultiLock})
+     * @see InterProcessMultiLock
+     */
+    public InterProcessMultiLock createInterProcessMultiLock(CuratorFramework client, Collection<String> lockPaths) {
+        checkArgumentNotEmpty(lockPaths, "lockPaths must not be empty");
+        var sortedPaths = new TreeSet<>(lockPaths);
+
+        List<InterProcessLock> locks = sortedPaths.stream()
+                .map(lockPath -> (InterProcessLock) createInterProcessMutex(client, lockPath))
+                .toList();
+        return new InterProcessMultiLock(locks);
+    }
+
+    /**
+     * Creates a "local-first" lock instance for the given path, using
+     * {@link LocalFirstInterProcessLock#DEFAULT_FAIRNESS_BUDGET} as the fairness budget.
+     * <p>
+     * Use this when many threads in the same JVM contend for the same lock path. Only one thread at a time competes
+     * for the ZooKeeper lock, and the ZooKeeper lock is handed between local threads without being released. All
+     * threads must share the returned instance for this to be effective.
+     *
+     * @param client   Curator client
+     * @param lockPath the ZooKeeper base lock path
+     * @return a Curator lock instance ({@link LocalFirstInterProcessLock})
+     * @see LocalFirstInterProcessLock
+     */
+    public LocalFirstInterProcessLock createLocalFirstLock(CuratorFramework client, String lockPath) {
+        return new LocalFirstInterProcessLock(client, lockPath);
+    }
+
+    /**
+     * Creates a "local-first" lock instance for the given path.
+     *
+     * @param client         Curator client
+     * @param lockPath       the ZooKeeper base lock path
+     * @param fairnessBudget the maximum number of consecutive local hand-offs before the ZooKeeper lock is released
+     * @return a Curator lock instance ({@link LocalFirstInterProcessLock})
+     * @see #createLocalFirstLock(CuratorFramework, String)
+     */
+    public LocalFirstInterProcessLock createLocalFirstLock(CuratorFramework client,
+                                                           String lockPath,
+                                                           int fairnessBudget) {
+        return new LocalFirstInterProcessLock(client, lockPath, fairnessBudget);
+    }
+
+    /**
+     * Creates a re-entrant Curator lock instance for the given path that does not wait inside a {@code synchronized}
+     * block, and therefore does not pin the carrier thread when used from a virtual thread.
+     * <p>
+     * Use this instead of {@link #createInterProcessMutex(CuratorFramework, String)} when the {@code useLock} and
+     * {@code withLock} methods are called from virtual threads.
+     *
+     * @param client   Curator client
+     * @param lockPath the ZooKeeper base lock path
+     * @return a Curator lock instance ({@link NonPinningInterProcessMutex})
+     * @see NonPinningInterProcessMutex
+     */
+    public NonPinningInterProcessMutex createNonPinningInterProcessMutex(CuratorFramework client, String lockPath) {
+        return new NonPinningInterProcessMutex(client, lockPath);
+    }
+
+    /**
+     * Creates a lock instance for the given path that can be acquired without blocking a thread.
+     *
+     * @param client   Curator client
+     * @param lockPath the ZooKeeper base lock path
+     * @return a lock instance ({@link AsyncInterProcessMutex})
+     * @see AsyncInterProcessMutex
+     */
+    public AsyncInterProcessMutex createAsyncInterProcessMutex(CuratorFramework client, String lockPath) {
+        return new AsyncInterProcessMutex(client, lockPath);
+    }
+
     /**
      * Tries to acquire the specified {@code lock}, waiting up to the specified timeout period. If Curator throws any
      * exception, or if the timeout expires, the appropriate exception is thrown.
@@ -93,6 +250,169 @@ public class CuratorLockHelper {
         }
     }
 
+    /**
+     * Tries to acquire the specified {@code lock} without blocking the calling thread, waiting up to the specified
+     * timeout period.
+     *
+     * @param lock    the lock to acquire
+     * @param timeout the timeout duration
+     * @return a future that completes with the lease when the lock is acquired
+     * @see #acquireAsync(AsyncInterProcessMutex, long, TimeUnit)
+     */
+    public CompletableFuture<AsyncInterProcessMutex.Lease> acquireAsync(AsyncInterProcessMutex lock, Duration timeout) {
+        var nanos = timeout.toNanos();
+        return acquireAsync(lock, nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Tries to acquire the specified {@code lock} without blocking the calling thread, waiting up to the specified
+     * timeout period.
+     * <p>
+     * If the timeout expires, the returned future completes exceptionally with a
+     * {@link LockAcquisitionTimeoutException}. If Curator or ZooKeeper reports any error, it completes exceptionally
+     * with a {@link LockAcquisitionFailureException}. Cancelling the returned future abandons the acquisition, and
+     * releases the lock if it was acquired concurrently with the cancellation.
+     *
+     * @param lock the lock to acquire
+     * @param time the timeout quantity
+     * @param unit the timeout unit
+     * @return a future that completes with the lease when the lock is acquired
+     */
+    public CompletableFuture<AsyncInterProcessMutex.Lease> acquireAsync(AsyncInterProcessMutex lock,
+                                                                         long time,
+                                                                         TimeUnit unit) {
+        var result = new CompletableFuture<AsyncInterProcessMutex.Lease>();
+        var attempt = lock.acquire(time, unit);
+
+        attempt.whenComplete((lease, error) -> {
+            if (error == null) {
+                if (!result.complete(lease)) {
+                    lease.releaseAsync();
+                }
+            } else {
+                result.completeExceptionally(toLockAcquisitionException(error, time, unit));
+            }
+        });
+
+        result.whenComplete((lease, error) -> {
+            if (result.isCancelled()) {
+                attempt.cancel(false);
+            }
+        });
+
+        return result;
+    }
+
+    private static Throwable toLockAcquisitionException(Throwable error, long time, TimeUnit unit) {
+        var cause = (error instanceof CompletionException && error.getCause() != null) ? error.getCause() : error;
+
+        if (cause instanceof TimeoutException) {
+            var msg = f("Failed to acquire lock; timed out after {} {}", time, unit);
+            LOG.warn(msg);
+            return new LockAcquisitionTimeoutException(msg, cause);
+        } else if (cause instanceof CancellationException) {
+            return cause;
+        }
+
+        return new LockAcquisitionFailureException("Failed to acquire lock", cause);
+    }
+
+    /**
+     * Tries to acquire the specified {@code lock} without blocking the calling thread, waiting up to the specified
+     * timeout period. Once the lock is acquired, executes the specified {@code action} using the given executor,
+     * then releases the lock.
+     * <p>
+     * If the lock cannot be acquired, the returned future completes exceptionally with a
+     * {@link LockAcquisitionTimeoutException} or {@link LockAcquisitionFailureException}. If the action throws an
+     * exception, the lock is released, and the returned future completes exceptionally with that exception.
+     * Cancelling the returned future abandons the acquisition, as for
+     * {@link #withLockAsync(AsyncInterProcessMutex, Duration, Supplier, Executor)}.
+     *
+     * @param lock     the distributed lock to acquire
+     * @param timeout  the timeout duration
+     * @param action   the action to execute while holding the lock
+     * @param executor the executor on which to run the action
+     * @return a future that completes when the action has run and the lock has been released
+     */
+    public CompletableFuture<Void> useLockAsync(AsyncInterProcessMutex lock,
+                                                Duration timeout,
+                                                Runnable action,
+                                                Executor executor) {
+        return withLockAsync(lock, timeout, () -> {
+            action.run();
+            return null;
+        }, executor);
+    }
+
+    /**
+     * Tries to acquire the specified {@code lock} without blocking the calling thread, waiting up to the specified
+     * timeout period. Once the lock is acquired, calls the {@code supplier} using the given executor, then releases
+     * the lock and completes the returned future with the result of its computation.
+     * <p>
+     * If the lock cannot be acquired, the returned future completes exceptionally with a
+     * {@link LockAcquisitionTimeoutException} or {@link LockAcquisitionFailureException}. If the supplier throws an
+     * exception, or if the executor rejects it, the lock is released, and the returned future completes exceptionally
+     * with that exception.
+     * <p>
+     * Cancelling the returned future, or completing it in any other way, e.g. using
+     * {@link CompletableFuture#orTimeout(long, TimeUnit)}, abandons the acquisition. If the lock is acquired anyway,
+     * it is released without calling the supplier.
+     *
+     * @param <R>      the type of the result produced by the supplier
+     * @param lock     the distributed lock to acquire
+     * @param timeout  the timeout duration
+     * @param supplier the supplier providing the computation to be executed while holding the lock
+     * @param executor the executor on which to call the supplier
+     * @return a future that completes with the result of the computation provided by the supplier
+     */
+    public <R> CompletableFuture<R> withLockAsync(AsyncInterProcessMutex lock,
+                                                  Duration timeout,
+                                                  Supplier<R> supplier,
+                                                  Executor executor) {
+        var result = new CompletableFuture<R>();
+        var acquisition = acquireAsync(lock, timeout);
+
+        acquisition.whenComplete((lease, error) -> {
+            if (error != null) {
+                result.completeExceptionally(error);
+            } else if (result.isDone()) {
+                lease.releaseAsync();
+            } else {
+                try {
+                    executor.execute(() -> callHoldingLease(lease, supplier, result));
+                } catch (RejectedExecutionException e) {
+                    lease.releaseAsync();
+                    result.completeExceptionally(e);
+                }
+            }
+        });
+
+        // Abandon the acquisition if the caller cancels the result, or completes it, e.g. using orTimeout
+        result.whenComplete((ignoredResult, ignoredError) -> acquisition.cancel(false));
+
+        return result;
+    }
+
+    private static <R> void callHoldingLease(AsyncInterProcessMutex.Lease lease,
+                                             Supplier<R> supplier,
+                                             CompletableFuture<R> result) {
+        if (result.isDone()) {
+            lease.releaseAsync();
+            return;
+        }
+
+        R value;
+        try {
+            value = supplier.get();
+        } catch (Throwable e) {
+            lease.releaseAsync();
+            result.completeExceptionally(e);
+            return;
+        }
+        lease.releaseAsync();
+        result.complete(value);
+    }
+
     /**
      * Release the given lock, ignoring if {@code null} or if any exception occurs releasing the lock.
      *
@@ -188,7 +508,14 @@ public class CuratorLockHelper {
          * Represents an error related to a executing function or operation, e.g.
          * executing a {@link Runnable} or getting a value from a {@link Supplier}.
          */
-        OPERATION
+        OPERATION,
+
+        /**
+         * Represents the lock being lost, because the ZooKeeper connection was suspended or lost while the
+         * lock was held. Only reported by the "guarded" methods, e.g.
+         * {@link #useGuardedLock(CuratorFramework, InterProcessLock, Duration, Runnable, BiConsumer)}.
+         */
+        LOCK_LOST
     }
 
     /**
@@ -234,6 +561,8 @@ public class CuratorLockHelper {
             useLock(lock, time, unit, action);
         } catch(LockAcquisitionException e) {
             errorHandler.accept(ErrorType.LOCK_ACQUISITION, e);
+        } catch (LockLostException e) {
+            errorHandler.accept(ErrorType.LOCK_LOST, e);
         } catch (RuntimeException e) {
             errorHandler.accept(ErrorType.OPERATION, e);
         }
@@ -341,8 +670,945 @@ public class CuratorLockHelper {
             return withLock(lock, time, unit, supplier) ;
         } catch(LockAcquisitionException e) {
             return errorHandler.apply(ErrorType.LOCK_ACQUISITION, e);
+        } catch (LockLostException e) {
+            return errorHandler.apply(ErrorType.LOCK_LOST, e);
         } catch (RuntimeException e) {
             return errorHandler.apply(ErrorType.OPERATION, e);
         }
     }
+
+    /**
+     * Tries to acquire the specified {@code lock}, waiting up to the specified timeout period. Once the lock is
+     * acquired, executes the specified {@code action} while guarding against loss of the ZooKeeper session, then
+     * releases the lock.
+     * <p>
+     * While the action runs, a {@link ConnectionStateListener} is registered with the {@code client}. If the
+     * connection becomes SUSPENDED or LOST, the lock can no longer be assumed to be held, so the thread running the
+     * action is interrupted. The action should respond to interruption, e.g. by using interruptible I/O or by
+     * checking {@link Thread#isInterrupted()}, so that it stops working without the lock. Whether the action stops
+     * or finishes anyway, a {@link LockLostException} is thrown. The listener is always removed before returning, and
+     * the interrupt caused by this method is cleared. If the thread was already interrupted when the connection was
+     * suspended or lost, it is not interrupted again, and its interrupt status is left as is.
+     *
+     * @param client  the Curator client used to create the lock
+     * @param lock    the distributed lock to acquire
+     * @param timeout the timeout duration
+     * @param action  the action to execute while holding the lock
+     * @throws LockAcquisitionFailureException if the lock throws any exception during acquisition
+     * @throws LockAcquisitionTimeoutException if the lock acquisition times out
+     * @throws LockLostException               if the connection was suspended or lost while the action was running
+     */
+    public void useGuardedLock(CuratorFramework client, InterProcessLock lock, Duration timeout, Runnable action) {
+        useLock(lock, timeout, () -> callGuarded(client, () -> {
+            action.run();
+            return null;
+        }));
+    }
+
+    /**
+     * Tries to acquire the specified {@code lock}, waiting up to the specified timeout period. Once the lock is
+     * acquired, executes the specified {@code action} while guarding against loss of the ZooKeeper session, then
+     * releases the lock.
+     * <p>
+     * If the lock cannot be obtained, the connection is suspended or lost while the action is running, or the action
+     * throws an exception, the lock is released, and the {@code errorHandler} is called with
+     * {@link ErrorType#LOCK_ACQUISITION}, {@link ErrorType#LOCK_LOST}, or {@link ErrorType#OPERATION} respectively.
+     *
+     * @param client       the Curator client used to create the lock
+     * @param lock         the distributed lock to acquire
+     * @param timeout      the timeout duration
+     * @param action       the action to execute while holding the lock
+     * @param errorHandler the action to take if the lock cannot be obtained or is lost, or if the action throws
+     *                     any exception
+     * @see #useGuardedLock(CuratorFramework, InterProcessLock, Duration, Runnable)
+     */
+    public void useGuardedLock(CuratorFramework client,
+                               InterProcessLock lock,
+                               Duration timeout,
+                               Runnable action,
+                               BiConsumer<ErrorType, RuntimeException> errorHandler) {
+        useLock(lock, timeout, () -> callGuarded(client, () -> {
+            action.run();
+            return null;
+        }), errorHandler);
+    }
+
+    /**
+     * Tries to acquire the specified {@code lock}, waiting up to the specified timeout period. Once the lock is
+     * acquired, calls the {@code supplier} while guarding against loss of the ZooKeeper session, and returns the
+     * result of its computation, then releases the lock.
+     *
+     * @param <R>      the type of the result produced by the supplier
+     * @param client   the Curator client used to create the lock
+     * @param lock     the distributed lock to acquire
+     * @param timeout  the timeout duration
+     * @param supplier the supplier providing the computation to be executed while holding the lock
+     * @return the result of the computation provided by the supplier
+     * @throws LockAcquisitionFailureException if the lock throws any exception during acquisition
+     * @throws LockAcquisitionTimeoutException if the lock acquisition times out
+     * @throws LockLostException               if the connection was suspended or lost while the supplier was running
+     * @see #useGuardedLock(CuratorFramework, InterProcessLock, Duration, Runnable)
+     */
+    public <R> R withGuardedLock(CuratorFramework client,
+                                 InterProcessLock lock,
+                                 Duration timeout,
+                                 Supplier<R> supplier) {
+        return withLock(lock, timeout, () -> callGuarded(client, supplier));
+    }
+
+    /**
+     * Tries to acquire the specified {@code lock}, waiting up to the specified timeout period. Once the lock is
+     * acquired, calls the {@code supplier} while guarding against loss of the ZooKeeper session, and returns the
+     * result of its computation, then releases the lock.
+     * <p>
+     * If the lock cannot be obtained, the connection is suspended or lost while the supplier is running, or the
+     * supplier throws an exception, the lock is released, and the {@code errorHandler} is called with
+     * {@link ErrorType#LOCK_ACQUISITION}, {@link ErrorType#LOCK_LOST}, or {@link ErrorType#OPERATION} respectively,
+     * and must provide the result.
+     *
+     * @param <R>          the type of the result produced by the supplier
+     * @param client       the Curator client used to create the lock
+     * @param lock         the distributed lock to acquire
+     * @param timeout      the timeout duration
+     * @param supplier     the supplier providing the computation to be executed while holding the lock
+     * @param errorHandler the action to take if the lock cannot be obtained or is lost, or if the supplier throws
+     *                     any exception
+     * @return the result of the computation provided by the supplier, or by the error handler
+     * @see #useGuardedLock(CuratorFramework, InterProcessLock, Duration, Runnable)
+     */
+    public <R> R withGuardedLock(CuratorFramework client,
+                                 InterProcessLock lock,
+                                 Duration timeout,
+                                 Supplier<R> supplier,
+                                 BiFunction<ErrorType, RuntimeException, R> errorHandler) {
+        return withLock(lock, timeout, () -> callGuarded(client, supplier), errorHandler);
+    }
+
+    private static <R> R callGuarded(CuratorFramework client, Supplier<R> supplier) {
+        var guard = new HolderGuard(Thread.currentThread());
+
+        client.getConnectionStateListenable().addListener(guard);
+        try {
+            if (!client.getZookeeperClient().isConnected()) {
+                throw new LockLostException("ZooKeeper connection is not connected; the lock may have been lost");
+            }
+
+            var result = supplier.get();
+            checkNotLost(guard.lostState(), null);
+            return result;
+        } catch (RuntimeException e) {
+            checkNotLost(guard.lostState(), e);
+            throw e;
+        } finally {
+            client.getConnectionStateListenable().removeListener(guard);
+            guard.finish();
+        }
+    }
+
+    /**
+     * Interrupts the lock holder when the connection is suspended or lost, until {@link #finish()} is called.
+     * <p>
+     * Delivering the interrupt and finishing are mutually exclusive, so a callback that is still running when the
+     * listener is removed cannot interrupt the holder after it finished. Finishing clears only an interrupt that this
+     * guard delivered; if the holder was already interrupted, the guard does not interrupt it, and leaves it as is.
+     */
+    private static class HolderGuard implements ConnectionStateListener {
+
+        private final Thread holderThread;
+
+        // guarded by this
+        private ConnectionState lostState;
+        private boolean interruptDelivered;
+        private boolean finished;
+
+        HolderGuard(Thread holderThread) {
+            this.holderThread = holderThread;
+        }
+
+        @Override
+        public synchronized void stateChanged(CuratorFramework client, ConnectionState newState) {
+            if (newState.isConnected() || finished || nonNull(lostState)) {
+                return;
+            }
+
+            lostState = newState;
+            if (!holderThread.isInterrupted()) {
+                LOG.warn("ZooKeeper connection is {}; interrupting lock holder {}", newState, holderThread.getName());
+                holderThread.interrupt();
+                interruptDelivered = true;
+            }
+        }
+
+        synchronized ConnectionState lostState() {
+            return lostState;
+        }
+
+        synchronized void finish() {
+            finished = true;
+            if (interruptDelivered) {
+                // clear the interrupt delivered by stateChanged
+                Thread.interrupted();
+            }
+        }
+    }
+
+    private static void checkNotLost(ConnectionState state, RuntimeException cause) {
+        if (state == null || cause instanceof LockLostException) {
+            return;
+        }
+
+        throw new LockLostException(f("ZooKeeper connection was {} while holding the lock", state), cause);
+    }
+
+    /**
+     * Tries to acquire the specified {@code lock}, waiting up to the specified timeout period. Once the lock is
+     * acquired, calls the {@code function} with a fencing token and returns the result of its computation, then
+     * releases the lock.
+     * <p>
+     * The fencing token, described in {@link FencedInterProcessMutex}, increases with each successive holder of the
+     * lock. Pass it along with writes to a downstream store that records the highest token it has seen and rejects
+     * writes with a lower one. A holder whose lock has been lost, e.g. after a long GC pause, then cannot overwrite
+     * data written by the next holder, even if it does not know yet that it lost the lock.
+     *
+     * @param <R>      the type of the result produced by the function
+     * @param lock     the distributed lock to acquire
+     * @param timeout  the timeout duration
+     * @param function the function to call with the fencing token while holding the lock
+     * @return the result of the computation provided by the function
+     * @throws LockAcquisitionFailureException if the lock throws any exception during acquisition, or the fencing
+     *                                         token cannot be read
+     * @throws LockAcquisitionTimeoutException if the lock acquisition times out
+     * @throws LockLostException               if the lock node no longer exists when reading the fencing token
+     */
+    public <R> R withFencedLock(FencedInterProcessMutex lock, Duration timeout, LongFunction<R> function) {
+        return withLock(lock, timeout, () -> function.apply(lock.getFencingToken()));
+    }
+
+    /**
+     * Tries to acquire the specified {@code lock}, waiting up to the specified timeout period. Once the lock is
+     * acquired, calls the {@code function} with a fencing token and returns the result of its computation, then
+     * releases the lock.
+     * <p>
+     * If the lock cannot be obtained for any reason, or the function throws an exception, the lock is released, and
+     * the {@code errorHandler} is called and must provide the result.
+     *
+     * @param <R>          the type of the result produced by the function
+     * @param lock         the distributed lock to acquire
+     * @param timeout      the timeout duration
+     * @param function     the function to call with the fencing token while holding the lock
+     * @param errorHandler the action to take if the lock cannot be obtained, or if the function throws any exception
+     * @return the result of the computation provided by the function, or by the error handler
+     * @see #withFencedLock(FencedInterProcessMutex, Duration, LongFunction)
+     */
+    public <R> R withFencedLock(FencedInterProcessMutex lock,
+                                Duration timeout,
+                                LongFunction<R> function,
+                                BiFunction<ErrorType, RuntimeException, R> errorHandler) {
+        return withLock(lock, timeout, () -> function.apply(lock.getFencingToken()), errorHandler);
+    }
+
+    /**
+     * Tries to acquire the specified {@code lock}, waiting up to the specified timeout period. Once the lock is
+     * acquired, executes the specified {@code action} with a fencing token, then releases the lock.
+     *
+     * @param lock    the distributed lock to acquire
+     * @param timeout the timeout duration
+     * @param action  the action to execute with the fencing token while holding the lock
+     * @throws LockAcquisitionFailureException if the lock throws any exception during acquisition, or the fencing
+     *                                         token cannot be read
+     * @throws LockAcquisitionTimeoutException if the lock acquisition times out
+     * @throws LockLostException               if the lock node no longer exists when reading the fencing token
+     * @see #withFencedLock(FencedInterProcessMutex, Duration, LongFunction)
+     */
+    public void useFencedLock(FencedInterProcessMutex lock, Duration timeout, LongConsumer action) {
+        useLock(lock, timeout, () -> action.accept(lock.getFencingToken()));
+    }
+
+    /**
+     * Tries to acquire the specified {@code lock}, waiting up to the specified timeout period. Once the lock is
+     * acquired, executes the specified {@code action} with a fencing token, then releases the lock.
+     * <p>
+     * If the lock cannot be obtained for any reason, or the action throws an exception, the lock is released, and
+     * the {@code errorHandler} is called.
+     *
+     * @param lock         the distributed lock to acquire
+     * @param timeout      the timeout duration
+     * @param action       the action to execute with the fencing token while holding the lock
+     * @param errorHandler the action to take if the lock cannot be obtained, or if the action throws any exception
+     * @see #withFencedLock(FencedInterProcessMutex, Duration, LongFunction)
+     */
+    public void useFencedLock(FencedInterProcessMutex lock,
+                              Duration timeout,
+                              LongConsumer action,
+                              BiConsumer<ErrorType, RuntimeException> errorHandler) {
+        useLock(lock, timeout, () -> action.accept(lock.getFencingToken()), errorHandler);
+    }
+
+    /**
+     * Tries to acquire the specified {@code lock} without waiting. If acquired, calls the {@code supplier} and returns
+     * the result of its computation, then releases the lock.
+     * <p>
+     * Use this for work that should be skipped when another thread or process is already doing it. Unlike
+     * {@link #withLock(InterProcessLock, Duration, Supplier)}, not acquiring the lock is not considered an error.
+     *
+     * @param <R>      the type of the result produced by the supplier
+     * @param lock     the distributed lock to acquire
+     * @param supplier the supplier providing the computation to be executed while holding the lock
+     * @return an Optional containing the result of the computation provided by the supplier, or an empty Optional
+     * if the lock was not acquired or the supplier returned {@code null}
+     * @throws LockAcquisitionFailureException if the lock throws any exception during acquisition
+     */
+    public <R> Optional<R> tryWithLock(InterProcessLock lock, Supplier<R> supplier) {
+        if (!tryAcquire(lock)) {
+            return Optional.empty();
+        }
+
+        try {
+            return Optional.ofNullable(supplier.get());
+        } finally {
+            releaseQuietly(lock);
+        }
+    }
+
+    /**
+     * Tries to acquire the specified {@code lock} without waiting. If acquired, executes the specified
+     * {@code action}, then releases the lock.
+     *
+     * @param lock   the distributed lock to acquire
+     * @param action the action to execute while holding the lock
+     * @return true if the lock was acquired and the action executed, false if the lock was not acquired
+     * @throws LockAcquisitionFailureException if the lock throws any exception during acquisition
+     * @see #tryWithLock(InterProcessLock, Supplier)
+     */
+    public boolean tryUseLock(InterProcessLock lock, Runnable action) {
+        if (!tryAcquire(lock)) {
+            return false;
+        }
+
+        try {
+            action.run();
+            return true;
+        } finally {
+            releaseQuietly(lock);
+        }
+    }
+
+    /**
+     * Tries to acquire a re-entrant mutex for the given {@code lockPath} without waiting. If acquired, calls the
+     * {@code supplier} and returns the result of its computation, then releases the lock.
+     * <p>
+     * Before trying to acquire the lock, checks the {@code participantsView}. If it shows any participants on the
+     * lock path, the lock is assumed to be held, and this returns immediately without creating a lock node. This
+     * avoids a create and a delete in ZooKeeper for every attempt while the lock is busy. Since the view includes
+     * participants in this process, this should not be used to re-acquire a lock the current thread already holds.
+     *
+     * @param <R>              the type of the result produced by the supplier
+     * @param participantsView the view of lock participants, which also provides the Curator client
+     * @param lockPath         the ZooKeeper base lock path
+     * @param supplier         the supplier providing the computation to be executed while holding the lock
+     * @return an Optional containing the result of the computation provided by the supplier, or an empty Optional
+     * if the lock was not acquired or the supplier returned {@code null}
+     * @throws LockAcquisitionFailureException if the lock throws any exception during acquisition
+     */
+    public <R> Optional<R> tryWithLock(LockParticipantsView participantsView, String lockPath, Supplier<R> supplier) {
+        if (participantsView.hasParticipants(lockPath)) {
+            LOG.trace("Skipping lock {}; it has participants", lockPath);
+            return Optional.empty();
+        }
+
+        return tryWithLock(createInterProcessMutex(participantsView.getClient(), lockPath), supplier);
+    }
+
+    /**
+     * Tries to acquire a re-entrant mutex for the given {@code lockPath} without waiting. If acquired, executes the
+     * specified {@code action}, then releases the lock.
+     *
+     * @param participantsView the view of lock participants, which also provides the Curator client
+     * @param lockPath         the ZooKeeper base lock path
+     * @param action           the action to execute while holding the lock
+     * @return true if the lock was acquired and the action executed, false if the lock was not acquired
+     * @throws LockAcquisitionFailureException if the lock throws any exception during acquisition
+     * @see #tryWithLock(LockParticipantsView, String, Supplier)
+     */
+    public boolean tryUseLock(LockParticipantsView participantsView, String lockPath, Runnable action) {
+        if (participantsView.hasParticipants(lockPath)) {
+            LOG.trace("Skipping lock {}; it has participants", lockPath);
+            return false;
+        }
+
+        return tryUseLock(createInterProcessMutex(participantsView.getClient(), lockPath), action);
+    }
+
+    private static boolean tryAcquire(InterProcessLock lock) {
+        try {
+            return lock.acquire(0, TimeUnit.NANOSECONDS);
+        } catch (Exception e) {
+            throw new LockAcquisitionFailureException("Failed to acquire lock", e);
+        }
+    }
+
+    /**
+     * Tries to acquire re-entrant mutexes for all the given {@code lockPaths}, waiting up to the specified timeout
+     * for each one. Once all the locks are acquired, executes the specified {@code action}, then releases all the
+     * locks.
+     * <p>
+     * The locks are always acquired in the canonical order described in
+     * {@link #createInterProcessMultiLock(CuratorFramework, Collection)}, so callers do not need to worry about
+     * deadlocks caused by nesting lock acquisition. If any lock cannot be acquired, the locks that were already
+     * acquired are released. Note that, as with {@link InterProcessMultiLock}, the timeout applies to each lock
+     * individually.
+     *
+     * @param client    Curator client
+     * @param lockPaths the ZooKeeper base lock paths
+     * @param timeout   the timeout duration for acquiring each lock
+     * @param action    the action to execute while holding all the locks
+     * @throws LockAcquisitionFailureException if any lock throws an exception during acquisition
+     * @throws LockAcquisitionTimeoutException if any lock acquisition times out
+     */
+    public void useLocks(CuratorFramework client, Collection<String> lockPaths, Duration timeout, Runnable action) {
+        useLock(createInterProcessMultiLock(client, lockPaths), timeout, action);
+    }
+
+    /**
+     * Tries to acquire re-entrant mutexes for all the given {@code lockPaths}, waiting up to the specified timeout
+     * for each one. Once all the locks are acquired, executes the specified {@code action}, then releases all the
+     * locks.
+     * <p>
+     * If the locks cannot be obtained for any reason, or the action throws an exception, the locks are released,
+     * and the {@code errorHandler} is called.
+     *
+     * @param client       Curator client
+     * @param lockPaths    the ZooKeeper base lock paths
+     * @param timeout      the timeout duration for acquiring each lock
+     * @param action       the action to execute while holding all the locks
+     * @param errorHandler the action to take if the locks cannot be obtained, or if the action throws any exception
+     * @see #useLocks(CuratorFramework, Collection, Duration, Runnable)
+     */
+    public void useLocks(CuratorFramework client,
+                         Collection<String> lockPaths,
+                         Duration timeout,
+                         Runnable action,
+                         BiConsumer<ErrorType, RuntimeException> errorHandler) {
+        useLock(createInterProcessMultiLock(client, lockPaths), timeout, action, errorHandler);
+    }
+
+    /**
+     * Tries to acquire re-entrant mutexes for all the given {@code lockPaths}, waiting up to the specified timeout
+     * for each one. Once all the locks are acquired, calls the {@code supplier} and returns the result of its
+     * computation, then releases all the locks.
+     *
+     * @param <R>       the type of the result produced by the supplier
+     * @param client    Curator client
+     * @param lockPaths the ZooKeeper base lock paths
+     * @param timeout   the timeout duration for acquiring each lock
+     * @param supplier  the supplier providing the computation to be executed while holding all the locks
+     * @return the result of the computation provided by the supplier
+     * @throws LockAcquisitionFailureException if any lock throws an exception during acquisition
+     * @throws LockAcquisitionTimeoutException if any lock acquisition times out
+     * @see #useLocks(CuratorFramework, Collection, Duration, Runnable)
+     */
+    public <R> R withLocks(CuratorFramework client,
+                           Collection<String> lockPaths,
+                           Duration timeout,
+                           Supplier<R> supplier) {
+        return withLock(createInterProcessMultiLock(client, lockPaths), timeout, supplier);
+    }
+
+    /**
+     * Tries to acquire re-entrant mutexes for all the given {@code lockPaths}, waiting up to the specified timeout
+     * for each one. Once all the locks are acquired, calls the {@code supplier} and returns the result of its
+     * computation, then releases all the locks.
+     * <p>
+     * If the locks cannot be obtained for any reason, or the supplier throws an exception, the locks are released,
+     * and the {@code errorHandler} is called and must provide the result.
+     *
+     * @param <R>          the type of the result produced by the supplier
+     * @param client       Curator client
+     * @param lockPaths    the ZooKeeper base lock paths
+     * @param timeout      the timeout duration for acquiring each lock
+     * @param supplier     the supplier providing the computation to be executed while holding all the locks
+     * @param errorHandler the action to take if the locks cannot be obtained, or if the supplier throws any exception
+     * @return the result of the computation provided by the supplier, or by the error handler
+     * @see #useLocks(CuratorFramework, Collection, Duration, Runnable)
+     */
+    public <R> R withLocks(CuratorFramework client,
+                           Collection<String> lockPaths,
+                           Duration timeout,
+                           Supplier<R> supplier,
+                           BiFunction<ErrorType, RuntimeException, R> errorHandler) {
+        return withLock(createInterProcessMultiLock(client, lockPaths), timeout, supplier, errorHandler);
+    }
+
+    /**
+     * Tries to acquire the shared read lock of the specified {@code readWriteLock}, waiting up to the specified timeout
+     * period. Once the lock is acquired, executes the specified {@code action}, then releases the lock.
+     *
+     * @param readWriteLock the distributed read/write lock
+     * @param timeout       the timeout duration
+     * @param action        the action to execute while holding the read lock
+     * @throws LockAcquisitionFailureException if the lock throws any exception during acquisition
+     * @throws LockAcquisitionTimeoutException if the lock acquisition times out
+     * @see #useLock(InterProcessLock, Duration, Runnable)
+     */
+    public void useReadLock(InterProcessReadWriteLock readWriteLock, Duration timeout, Runnable action) {
+        useLock(readWriteLock.readLock(), timeout, action);
+    }
+
+    /**
+     * Tries to acquire the shared read lock of the specified {@code readWriteLock}, waiting up to the specified timeout
+     * period. Once the lock is acquired, executes the specified {@code action}, then releases the lock.
+     *
+     * @param readWriteLock the distributed read/write lock
+     * @param time          the timeout quantity
+     * @param unit          the timeout unit
+     * @param action        the action to execute while holding the read lock
+     * @throws LockAcquisitionFailureException if the lock throws any exception during acquisition
+     * @throws LockAcquisitionTimeoutException if the lock acquisition times out
+     * @see #useLock(InterProcessLock, long, TimeUnit, Runnable)
+     */
+    public void useReadLock(InterProcessReadWriteLock readWriteLock, long time, TimeUnit unit, Runnable action) {
+        useLock(readWriteLock.readLock(), time, unit, action);
+    }
+
+    /**
+     * Tries to acquire the shared read lock of the specified {@code readWriteLock}, waiting up to the specified timeout
+     * period. Once the lock is acquired, executes the specified {@code action}, then releases the lock.
+     * <p>
+     * If the lock cannot be obtained for any reason, or the action throws an exception, the lock is released, and
+     * the {@code errorHandler} is called.
+     *
+     * @param readWriteLock the distributed read/write lock
+     * @param timeout       the timeout duration
+     * @param action        the action to execute while holding the read lock
+     * @param errorHandler  the action to take if the lock cannot be obtained, or if the action throws any exception
+     * @see #useLock(InterProcessLock, Duration, Runnable, BiConsumer)
+     */
+    public void useReadLock(InterProcessReadWriteLock readWriteLock,
+                             Duration timeout,
+                             Runnable action,
+                             BiConsumer<ErrorType, RuntimeException> errorHandler) {
+        useLock(readWriteLock.readLock(), timeout, action, errorHandler);
+    }
+
+    /**
+     * Tries to acquire the shared read lock of the specified {@code readWriteLock}, waiting up to the specified timeout
+     * period. Once the lock is acquired, executes the specified {@code action}, then releases the lock.
+     * <p>
+     * If the lock cannot be obtained for any reason, or the action throws an exception, the lock is released, and
+     * the {@code errorHandler} is called.
+     *
+     * @param readWriteLock the distributed read/write lock
+     * @param time          the timeout quantity
+     * @param unit          the timeout unit
+     * @param action        the action to execute while holding the read lock
+     * @param errorHandler  the action to take if the lock cannot be obtained, or if the action throws any exception
+     * @see #useLock(InterProcessLock, long, TimeUnit, Runnable, BiConsumer)
+     */
+    public void useReadLock(InterProcessReadWriteLock readWriteLock,
+                             long time, TimeUnit unit,
+                             Runnable action,
+                             BiConsumer<ErrorType, RuntimeException> errorHandler) {
+        useLock(readWriteLock.readLock(), time, unit, action, errorHandler);
+    }
+
+    /**
+     * Tries to acquire the shared read lock of the specified {@code readWriteLock}, waiting up to the specified timeout
+     * period. Once the lock is acquired, calls the {@code supplier} and returns the result of its computation,
+     * then releases the lock.
+     *
+     * @param <R>           the type of the result produced by the supplier
+     * @param readWriteLock the distributed read/write lock
+     * @param timeout       the timeout duration
+     * @param supplier      the supplier providing the computation to be executed while holding the read lock
+     * @return the result of the computation provided by the supplier
+     * @throws LockAcquisitionFailureException if the lock throws any exception during acquisition
+     * @throws LockAcquisitionTimeoutException if the lock acquisition times out
+     * @see #withLock(InterProcessLock, Duration, Supplier)
+     */
+    public <R> R withReadLock(InterProcessReadWriteLock readWriteLock, Duration timeout, Supplier<R> supplier) {
+        return withLock(readWriteLock.readLock(), timeout, supplier);
+    }
+
+    /**
+     * Tries to acquire the shared read lock of the specified {@code readWriteLock}, waiting up to the specified timeout
+     * period. Once the lock is acquired, calls the {@code supplier} and returns the result of its computation,
+     * then releases the lock.
+     *
+     * @param <R>           the type of the result produced by the supplier
+     * @param readWriteLock the distributed read/write lock
+     * @param time          the timeout quantity
+     * @param unit          the timeout unit
+     * @param supplier      the supplier providing the computation to be executed while holding the read lock
+     * @return the result of the computation provided by the supplier
+     * @throws LockAcquisitionFailureException if the lock throws any exception during acquisition
+     * @throws LockAcquisitionTimeoutException if the lock acquisition times out
+     * @see #withLock(InterProcessLock, long, TimeUnit, Supplier)
+     */
+    public <R> R withReadLock(InterProcessReadWriteLock readWriteLock,
+                              long time, TimeUnit unit,
+                              Supplier<R> supplier) {
+        return withLock(readWriteLock.readLock(), time, unit, supplier);
+    }
+
+    /**
+     * Tries to acquire the shared read lock of the specified {@code readWriteLock}, waiting up to the specified timeout
+     * period. Once the lock is acquired, calls the {@code supplier} and returns the result of its computation,
+     * then releases the lock.
+     * <p>
+     * If the lock cannot be obtained for any reason, or the supplier throws an exception, the lock is released, and
+     * the {@code errorHandler} is called and must provide the result.
+     *
+     * @param <R>           the type of the result produced by the supplier
+     * @param readWriteLock the distributed read/write lock
+     * @param timeout       the timeout duration
+     * @param supplier      the supplier providing the computation to be executed while holding the read lock
+     * @param errorHandler  the action to take if the lock cannot be obtained, or if the supplier throws any exception
+     * @return the result of the computation provided by the supplier, or by the error handler
+     * @see #withLock(InterProcessLock, Duration, Supplier, BiFunction)
+     */
+    public <R> R withReadLock(InterProcessReadWriteLock readWriteLock,
+                              Duration timeout,
+                              Supplier<R> supplier,
+                              BiFunction<ErrorType, RuntimeException, R> errorHandler) {
+        return withLock(readWriteLock.readLock(), timeout, supplier, errorHandler);
+    }
+
+    /**
+     * Tries to acquire the shared read lock of the specified {@code readWriteLock}, waiting up to the specified timeout
+     * period. Once the lock is acquired, calls the {@code supplier} and returns the result of its computation,
+     * then releases the lock.
+     * <p>
+     * If the lock cannot be obtained for any reason, or the supplier throws an exception, the lock is released, and
+     * the {@code errorHandler} is called and must provide the result.
+     *
+     * @param <R>           the type of the result produced by the supplier
+     * @param readWriteLock the distributed read/write lock
+     * @param time          the timeout quantity
+     * @param unit          the timeout unit
+     * @param supplier      the supplier providing the computation to be executed while holding the read lock
+     * @param errorHandler  the action to take if the lock cannot be obtained, or if the supplier throws any exception
+     * @return the result of the computation provided by the supplier, or by the error handler
+     * @see #withLock(InterProcessLock, long, TimeUnit, Supplier, BiFunction)
+     */
+    public <R> R withReadLock(InterProcessReadWriteLock readWriteLock,
+                              long time, TimeUnit unit,
+                              Supplier<R> supplier,
+                              BiFunction<ErrorType, RuntimeException, R> errorHandler) {
+        return withLock(readWriteLock.readLock(), time, unit, supplier, errorHandler);
+    }
+
+    /**
+     * Tries to acquire the exclusive write lock of the specified {@code readWriteLock}, waiting up to the specified
+     * timeout period. Once the lock is acquired, executes the specified {@code action}, then releases the lock.
+     *
+     * @param readWriteLock the distributed read/write lock
+     * @param timeout       the timeout duration
+     * @param action        the action to execute while holding the write lock
+     * @throws LockAcquisitionFailureException if the lock throws any exception during acquisition
+     * @throws LockAcquisitionTimeoutException if the lock acquisition times out
+     * @see #useLock(InterProcessLock, Duration, Runnable)
+     */
+    public void useWriteLock(InterProcessReadWriteLock readWriteLock, Duration timeout, Runnable action) {
+        useLock(readWriteLock.writeLock(), timeout, action);
+    }
+
+    /**
+     * Tries to acquire the exclusive write lock of the specified {@code readWriteLock}, waiting up to the specified
+     * timeout period. Once the lock is acquired, executes the specified {@code action}, then releases the lock.
+     *
+     * @param readWriteLock the distributed read/write lock
+     * @param time          the timeout quantity
+     * @param unit          the timeout unit
+     * @param action        the action to execute while holding the write lock
+     * @throws LockAcquisitionFailureException if the lock throws any exception during acquisition
+     * @throws LockAcquisitionTimeoutException if the lock acquisition times out
+     * @see #useLock(InterProcessLock, long, TimeUnit, Runnable)
+     */
+    public void useWriteLock(InterProcessReadWriteLock readWriteLock, long time, TimeUnit unit, Runnable action) {
+        useLock(readWriteLock.writeLock(), time, unit, action);
+    }
+
+    /**
+     * Tries to acquire the exclusive write lock of the specified {@code readWriteLock}, waiting up to the specified
+     * timeout period. Once the lock is acquired, executes the specified {@code action}, then releases the lock.
+     * <p>
+     * If the lock cannot be obtained for any reason, or the action throws an exception, the lock is released, and
+     * the {@code errorHandler} is called.
+     *
+     * @param readWriteLock the distributed read/write lock
+     * @param timeout       the timeout duration
+     * @param action        the action to execute while holding the write lock
+     * @param errorHandler  the action to take if the lock cannot be obtained, or if the action throws any exception
+     * @see #useLock(InterProcessLock, Duration, Runnable, BiConsumer)
+     */
+    public void useWriteLock(InterProcessReadWriteLock readWriteLock,
+                              Duration timeout,
+                              Runnable action,
+                              BiConsumer<ErrorType, RuntimeException> errorHandler) {
+        useLock(readWriteLock.writeLock(), timeout, action, errorHandler);
+    }
+
+    /**
+     * Tries to acquire the exclusive write lock of the specified {@code readWriteLock}, waiting up to the specified
+     * timeout period. Once the lock is acquired, executes the specified {@code action}, then releases the lock.
+     * <p>
+     * If the lock cannot be obtained for any reason, or the action throws an exception, the lock is released, and
+     * the {@code errorHandler} is called.
+     *
+     * @param readWriteLock the distributed read/write lock
+     * @param time          the timeout quantity
+     * @param unit          the timeout unit
+     * @param action        the action to execute while holding the write lock
+     * @param errorHandler  the action to take if the lock cannot be obtained, or if the action throws any exception
+     * @see #useLock(InterProcessLock, long, TimeUnit, Runnable, BiConsumer)
+     */
+    public void useWriteLock(InterProcessReadWriteLock readWriteLock,
+                              long time, TimeUnit unit,
+                              Runnable action,
+                              BiConsumer<ErrorType, RuntimeException> errorHandler) {
+        useLock(readWriteLock.writeLock(), time, unit, action, errorHandler);
+    }
+
+    /**
+     * Tries to acquire the exclusive write lock of the specified {@code readWriteLock}, waiting up to the specified
+     * timeout period. Once the lock is acquired, calls the {@code supplier} and returns the result of its computation,
+     * then releases the lock.
+     *
+     * @param <R>           the type of the result produced by the supplier
+     * @param readWriteLock the distributed read/write lock
+     * @param timeout       the timeout duration
+     * @param supplier      the supplier providing the computation to be executed while holding the write lock
+     * @return the result of the computation provided by the supplier
+     * @throws LockAcquisitionFailureException if the lock throws any exception during acquisition
+     * @throws LockAcquisitionTimeoutException if the lock acquisition times out
+     * @see #withLock(InterProcessLock, Duration, Supplier)
+     */
+    public <R> R withWriteLock(InterProcessReadWriteLock readWriteLock, Duration timeout, Supplier<R> supplier) {
+        return withLock(readWriteLock.writeLock(), timeout, supplier);
+    }
+
+    /**
+     * Tries to acquire the exclusive write lock of the specified {@code readWriteLock}, waiting up to the specified
+     * timeout period. Once the lock is acquired, calls the {@code supplier} and returns the result of its computation,
+     * then releases the lock.
+     *
+     * @param <R>           the type of the result produced by the supplier
+     * @param readWriteLock the distributed read/write lock
+     * @param time          the timeout quantity
+     * @param unit          the timeout unit
+     * @param supplier      the supplier providing the computation to be executed while holding the write lock
+     * @return the result of the computation provided by the supplier
+     * @throws LockAcquisitionFailureException if the lock throws any exception during acquisition
+     * @throws LockAcquisitionTimeoutException if the lock acquisition times out
+     * @see #withLock(InterProcessLock, long, TimeUnit, Supplier)
+     */
+    public <R> R withWriteLock(InterProcessReadWriteLock readWriteLock,
+                               long time, TimeUnit unit,
+                               Supplier<R> supplier) {
+        return withLock(readWriteLock.writeLock(), time, unit, supplier);
+    }
+
+    /**
+     * Tries to acquire the exclusive write lock of the specified {@code readWriteLock}, waiting up to the specified
+     * timeout period. Once the lock is acquired, calls the {@code supplier} and returns the result of its computation,
+     * then releases the lock.
+     * <p>
+     * If the lock cannot be obtained for any reason, or the supplier throws an exception, the lock is released, and
+     * the {@code errorHandler} is called and must provide the result.
+     *
+     * @param <R>           the type of the result produced by the supplier
+     * @param readWriteLock the distributed read/write lock
+     * @param timeout       the timeout duration
+     * @param supplier      the supplier providing the computation to be executed while holding the write lock
+     * @param errorHandler  the action to take if the lock cannot be obtained, or if the supplier throws any exception
+     * @return the result of the computation provided by the supplier, or by the error handler
+     * @see #withLock(InterProcessLock, Duration, Supplier, BiFunction)
+     */
+    public <R> R withWriteLock(InterProcessReadWriteLock readWriteLock,
+                               Duration timeout,
+                               Supplier<R> supplier,
+                               BiFunction<ErrorType, RuntimeException, R> errorHandler) {
+        return withLock(readWriteLock.writeLock(), timeout, supplier, errorHandler);
+    }
+
+    /**
+     * Tries to acquire the exclusive write lock of the specified {@code readWriteLock}, waiting up to the specified
+     * timeout period. Once the lock is acquired, calls the {@code supplier} and returns the result of its computation,
+     * then releases the lock.
+     * <p>
+     * If the lock cannot be obtained for any reason, or the supplier throws an exception, the lock is released, and
+     * the {@code errorHandler} is called and must provide the result.
+     *
+     * @param <R>           the type of the result produced by the supplier
+     * @param readWriteLock the distributed read/write lock
+     * @param time          the timeout quantity
+     * @param unit          the timeout unit
+     * @param supplier      the supplier providing the computation to be executed while holding the write lock
+     * @param errorHandler  the action to take if the lock cannot be obtained, or if the supplier throws any exception
+     * @return the result of the computation provided by the supplier, or by the error handler
+     * @see #withLock(InterProcessLock, long, TimeUnit, Supplier, BiFunction)
+     */
+    public <R> R withWriteLock(InterProcessReadWriteLock readWriteLock,
+                               long time, TimeUnit unit,
+                               Supplier<R> supplier,
+                               BiFunction<ErrorType, RuntimeException, R> errorHandler) {
+        return withLock(readWriteLock.writeLock(), time, unit, supplier, errorHandler);
+    }
+
+    /**
+     * Inspect the wait queues of all locks under the given lock roots.
+     * <p>
+     * The lock roots are walked breadth-first, and every znode with lock nodes as children is reported as a lock
+     * path, along with its participants in lock order, as {@link InterProcessMutex#getParticipantNodes()} would report
+     * them, and the owner recorded in each lock node (by default, the IP address of the participant's host).
+     * Read/write locks are reported as a single lock path containing both readers and writers. All
+     * {@code getChildren} calls of each level of the tree, and all {@code getData} calls of the lock nodes, are
+     * issued in parallel in the background, so that large lock roots can be inspected quickly.
+     * <p>
+     * If the timeout expires, the results gathered so far are returned: deeper levels of the tree are not walked, and
+     * lock paths whose znodes were not read in time are not reported. If it expires before the lock nodes are read,
+     * participants are reported without their owners. Lock paths whose participants all released the lock while
+     * being inspected are not reported.
+     *
+     * @param client    Curator client
+     * @param lockRoots the znodes under which to look for lock paths
+     * @param timeout   the maximum time to spend inspecting
+     * @return information about each lock path that has participants, ordered by lock path
+     */
+    public List<LockQueueInfo> inspectLockQueues(CuratorFramework client,
+                                                 Collection<String> lockRoots,
+                                                 Duration timeout) {
+        checkArgumentNotNull(client, "client must not be null");
+        checkArgumentNotEmpty(lockRoots, "lockRoots must not be empty");
+        var deadlineNanos = System.nanoTime() + timeout.toNanos();
+
+        var lockNodesByPath = new TreeMap<String, List<String>>();
+        Collection<String> level = new TreeSet<>(lockRoots);
+        while (!level.isEmpty()) {
+            if (isPast(deadlineNanos)) {
+                LOG.warn("Timed out inspecting lock queues; {} znodes and their descendants were not read",
+                        level.size());
+                break;
+            }
+
+            var results = inBackground(level, deadlineNanos,
+                    (path, callback) -> client.getChildren().inBackground(callback).forPath(path));
+
+            var nextLevel = new ArrayList<String>();
+            results.forEach((path, event) -> {
+                var lockNodes = new ArrayList<String>();
+                for (var child : event.getChildren()) {
+                    if (LOCK_NODE_NAME.matcher(child).matches()) {
+                        lockNodes.add(child);
+                    } else {
+                        nextLevel.add(ZKPaths.makePath(path, child));
+                    }
+                }
+                if (!lockNodes.isEmpty()) {
+                    lockNodes.sort(comparing(CuratorLockHelper::sequenceOf));
+                    lockNodesByPath.put(path, lockNodes);
+                }
+            });
+            level = nextLevel;
+        }
+
+        if (isPast(deadlineNanos)) {
+            LOG.warn("Timed out inspecting lock queues; owners of lock nodes were not read");
+            return lockNodesByPath.entrySet().stream()
+                    .map(entry -> newLockQueueInfo(entry.getKey(), entry.getValue(), null))
+                    .toList();
+        }
+
+        var lockNodePaths = lockNodesByPath.entrySet().stream()
+                .flatMap(entry -> entry.getValue().stream().map(node -> ZKPaths.makePath(entry.getKey(), node)))
+                .toList();
+        var lockNodeData = inBackground(lockNodePaths, deadlineNanos,
+                (path, callback) -> client.getData().inBackground(callback).forPath(path));
+
+        return lockNodesByPath.entrySet().stream()
+                .map(entry -> newLockQueueInfo(entry.getKey(), entry.getValue(), lockNodeData))
+                .filter(info -> !info.participants().isEmpty())
+                .toList();
+    }
+
+    private static boolean isPast(long deadlineNanos) {
+        return System.nanoTime() - deadlineNanos >= 0;
+    }
+
+    /**
+     * Create the info of a lock path. If the data of the lock nodes was not read, i.e. {@code lockNodeData} is null,
+     * all lock nodes are reported, without owners; otherwise only the lock nodes that were read are reported.
+     */
+    private LockQueueInfo newLockQueueInfo(String lockPath,
+                                           List<String> lockNodes,
+                                           Map<String, CuratorEvent> lockNodeData) {
+        var participants = lockNodes.stream()
+                .map(node -> ZKPaths.makePath(lockPath, node))
+                .filter(nodePath -> isNull(lockNodeData) || lockNodeData.containsKey(nodePath))
+                .map(nodePath -> new LockQueueInfo.Participant(nodePath,
+                        isNull(lockNodeData) ? "" : ownerOf(lockNodeData.get(nodePath).getData())))
+                .toList();
+        var estimatedWait = estimateMeanHoldTime(lockPath)
+                .map(meanHoldTime -> meanHoldTime.multipliedBy(participants.size()));
+        return new LockQueueInfo(lockPath, participants, estimatedWait);
+    }
+
+    private static String ownerOf(byte[] lockNodeData) {
+        return isNull(lockNodeData) ? "" : new String(lockNodeData, StandardCharsets.UTF_8);
+    }
+
+    private static String sequenceOf(String lockNode) {
+        return lockNode.substring(lockNode.length() - SEQUENCE_LENGTH);
+    }
+
+    /**
+     * Estimate the mean time locks with the given path are held, which is used to estimate wait times in
+     * {@link #inspectLockQueues(CuratorFramework, Collection, Duration)}. This implementation does not record hold
+     * times, so it returns an empty Optional.
+     *
+     * @param lockPath the ZooKeeper base lock path
+     * @return an Optional containing the mean hold time, or an empty Optional if not known
+     */
+    protected Optional<Duration> estimateMeanHoldTime(String lockPath) {
+        return Optional.empty();
+    }
+
+    @FunctionalInterface
+    private interface BackgroundOperation {
+        void start(String path, BackgroundCallback callback) throws Exception;
+    }
+
+    /**
+     * Start the operation for all paths, then wait until all complete or the deadline passes. Returns the events
+     * of the operations that completed successfully, keyed by path.
+     */
+    private static Map<String, CuratorEvent> inBackground(Collection<String> paths,
+                                                          long deadlineNanos,
+                                                          BackgroundOperation operation) {
+        var events = new ConcurrentHashMap<String, CuratorEvent>();
+        var remaining = new CountDownLatch(paths.size());
+        for (var path : paths) {
+            try {
+                operation.start(path, (theClient, event) -> {
+                    if (event.getResultCode() == KeeperException.Code.OK.intValue()) {
+                        events.put(path, event);
+                    }
+                    remaining.countDown();
+                });
+            } catch (Exception e) {
+                LOG.trace("Unable to start background operation for {}", path, e);
+                remaining.countDown();
+            }
+        }
+
+        try {
+            if (!remaining.await(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                LOG.warn("Timed out inspecting lock queues; {} of {} znodes were not read",
+                        remaining.getCount(), paths.size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return Map.copyOf(events);
+    }
 }
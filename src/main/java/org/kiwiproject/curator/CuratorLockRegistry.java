@@ -0,0 +1,260 @@
+package org.kiwiproject.curator;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static org.kiwiproject.base.KiwiPreconditions.checkArgumentNotBlank;
+import static org.kiwiproject.base.KiwiPreconditions.checkArgumentNotNull;
+import static org.kiwiproject.base.KiwiPreconditions.requireNotNull;
+
+import com.google.common.annotations.VisibleForTesting;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.recipes.locks.InterProcessLock;
+import org.apache.curator.framework.recipes.locks.InterProcessMutex;
+import org.apache.curator.framework.recipes.locks.InterProcessSemaphoreMutex;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.function.LongSupplier;
+
+/**
+ * A registry that hands out a single shared Curator lock instance per (client, lock path, lock type), so that
+ * callers do not need to cache lock instances themselves in order to get re-entrant behavior, and so that hot code
+ * paths do not allocate a new lock object for every critical section.
+ * <p>
+ * The registry is bounded. When it grows beyond its maximum size, the least recently used locks are evicted, and
+ * locks which have not been requested within the idle timeout are evicted as well. A lock that is currently held
+ * by this process is <em>never</em> evicted, which means the registry can temporarily exceed its maximum size if
+ * more than that number of locks are held at the same time.
+ * <p>
+ * Note that a lock which another thread has obtained from the registry but has not yet acquired is not considered
+ * held, so it can be evicted. That thread keeps using the instance it already has, and ZooKeeper still guarantees
+ * mutual exclusion; the only effect is that the next caller receives a new instance.
+ */
+@Slf4j
+public class CuratorLockRegistry {
+
+    /**
+     * Default maximum number of lock instances kept in the registry.
+     */
+    public static final int DEFAULT_MAX_SIZE = 10_000;
+
+    /**
+     * Default amount of time a lock instance may go without being requested before it is eligible for eviction.
+     */
+    public static final Duration DEFAULT_IDLE_TIMEOUT = Duration.ofMinutes(5);
+
+    /**
+     * The type of Curator lock held in the registry.
+     */
+    public enum LockType {
+
+        /**
+         * A re-entrant {@link InterProcessMutex}.
+         */
+        MUTEX,
+
+        /**
+         * A non re-entrant {@link InterProcessSemaphoreMutex}.
+         */
+        SEMAPHORE_MUTEX,
+
+        /**
+         * A {@link LocalFirstInterProcessLock}.
+         */
+        LOCAL_FIRST
+    }
+
+    private record LockKey(CuratorFramework client, String lockPath, LockType lockType) {
+    }
+
+    private static class LockEntry {
+        final InterProcessLock lock;
+        long lastAccessNanos;
+
+        LockEntry(InterProcessLock lock, long lastAccessNanos) {
+            this.lock = lock;
+            this.lastAccessNanos = lastAccessNanos;
+        }
+    }
+
+    private final CuratorLockHelper lockHelper;
+    private final int maxSize;
+    private final long idleTimeoutNanos;
+    private final LongSupplier nanoTimeSupplier;
+
+    // access-ordered, so iteration starts at the least recently used lock
+    private final LinkedHashMap<LockKey, LockEntry> locks = new LinkedHashMap<>(16, 0.75F, true);
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Create a new registry using {@link #DEFAULT_MAX_SIZE} and {@link #DEFAULT_IDLE_TIMEOUT}.
+     *
+     * @param lockHelper the helper used to create new lock instances
+     */
+    public CuratorLockRegistry(CuratorLockHelper lockHelper) {
+        this(lockHelper, DEFAULT_MAX_SIZE, DEFAULT_IDLE_TIMEOUT);
+    }
+
+    /**
+     * Create a new registry.
+     *
+     * @param lockHelper  the helper used to create new lock instances
+     * @param maxSize     the maximum number of (idle) lock instances to keep
+     * @param idleTimeout how long a lock may go without being requested before it is eligible for eviction
+     */
+    public CuratorLockRegistry(CuratorLockHelper lockHelper, int maxSize, Duration idleTimeout) {
+        this(lockHelper, maxSize, idleTimeout, System::nanoTime);
+    }
+
+    @VisibleForTesting
+    CuratorLockRegistry(CuratorLockHelper lockHelper, int maxSize, Duration idleTimeout, LongSupplier nanoTimeSupplier) {
+        this.lockHelper = requireNotNull(lockHelper, "lockHelper must not be null");
+        checkArgument(maxSize > 0, "maxSize must be positive");
+        checkArgumentNotNull(idleTimeout, "idleTimeout must not be null");
+        checkArgument(idleTimeout.toNanos() > 0, "idleTimeout must be positive");
+        this.maxSize = maxSize;
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+        this.nanoTimeSupplier = requireNotNull(nanoTimeSupplier);
+    }
+
+    /**
+     * Get the shared {@link InterProcessMutex} for the given client and lock path, creating it if necessary.
+     *
+     * @param client   Curator client
+     * @param lockPath the ZooKeeper base lock path
+     * @return the shared lock instance
+     * @see CuratorLockHelper#createInterProcessMutex(CuratorFramework, String)
+     */
+    public InterProcessMutex getInterProcessMutex(CuratorFramework client, String lockPath) {
+        return (InterProcessMutex) getLock(client, lockPath, LockType.MUTEX, lockHelper::createInterProcessMutex);
+    }
+
+    /**
+     * Get the shared {@link InterProcessSemaphoreMutex} for the given client and lock path, creating it if necessary.
+     *
+     * @param client   Curator client
+     * @param lockPath the ZooKeeper base lock path
+     * @return the shared lock instance
+     * @see CuratorLockHelper#createInterProcessSemaphoreMutex(CuratorFramework, String)
+     */
+    public InterProcessSemaphoreMutex getInterProcessSemaphoreMutex(CuratorFramework client, String lockPath) {
+        return (InterProcessSemaphoreMutex) getLock(client, lockPath, LockType.SEMAPHORE_MUTEX,
+                lockHelper::createInterProcessSemaphoreMutex);
+    }
+
+    /**
+     * Get the shared {@link LocalFirstInterProcessLock} for the given client and lock path, creating it if necessary.
+     * <p>
+     * A local-first lock is not evicted while any local thread holds it or is waiting for it.
+     *
+     * @param client   Curator client
+     * @param lockPath the ZooKeeper base lock path
+     * @return the shared lock instance
+     * @see CuratorLockHelper#createLocalFirstLock(CuratorFramework, String)
+     */
+    public LocalFirstInterProcessLock getLocalFirstLock(CuratorFramework client, String lockPath) {
+        return (LocalFirstInterProcessLock) getLock(client, lockPath, LockType.LOCAL_FIRST,
+                lockHelper::createLocalFirstLock);
+    }
+
+    private synchronized InterProcessLock getLock(CuratorFramework client,
+                                                  String lockPath,
+                                                  LockType lockType,
+                                                  BiFunction<CuratorFramework, String, InterProcessLock> lockFactory) {
+        checkArgumentNotNull(client, "client must not be null");
+        checkArgumentNotBlank(lockPath, "lockPath must not be blank");
+
+        var now = nanoTimeSupplier.getAsLong();
+        var key = new LockKey(client, lockPath, lockType);
+        var entry = locks.get(key);
+
+        if (entry != null) {
+            hits.increment();
+            entry.lastAccessNanos = now;
+            return entry.lock;
+        }
+
+        misses.increment();
+        var lock = lockFactory.apply(client, lockPath);
+        var newEntry = new LockEntry(lock, now);
+        locks.put(key, newEntry);
+        evict(now, newEntry);
+        return lock;
+    }
+
+    /**
+     * Evict all idle locks that have not been requested within the idle timeout, along with the least recently used
+     * idle locks if the registry is above its maximum size. Eviction also happens automatically whenever a new lock
+     * is created, so calling this is only needed to reclaim memory when the registry is not otherwise being used.
+     *
+     * @return the number of locks that were evicted
+     */
+    public synchronized int evictIdleLocks() {
+        return evict(nanoTimeSupplier.getAsLong(), null);
+    }
+
+    private int evict(long now, LockEntry newEntry) {
+        var evicted = 0;
+        var iterator = locks.values().iterator();
+        while (iterator.hasNext()) {
+            var entry = iterator.next();
+            if (entry == newEntry || isInUse(entry.lock)) {
+                continue;
+            }
+
+            var expired = (now - entry.lastAccessNanos) >= idleTimeoutNanos;
+            if (!expired && locks.size() <= maxSize) {
+                // every remaining entry was requested more recently than this one, so none of them are expired
+                break;
+            }
+
+            LOG.trace("Evicting lock {} (expired? {})", entry.lock, expired);
+            iterator.remove();
+            ++evicted;
+        }
+
+        evictions.add(evicted);
+        return evicted;
+    }
+
+    private static boolean isInUse(InterProcessLock lock) {
+        if (lock instanceof LocalFirstInterProcessLock localFirstLock && localFirstLock.getLocalQueueLength() > 0) {
+            return true;
+        }
+
+        return lock.isAcquiredInThisProcess();
+    }
+
+    /**
+     * @return the current number of lock instances in the registry
+     */
+    public synchronized int size() {
+        return locks.size();
+    }
+
+    /**
+     * @return the number of requests which were satisfied by an existing lock instance
+     */
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * @return the number of requests which required creating a new lock instance
+     */
+    public long missCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return the number of lock instances which have been evicted
+     */
+    public long evictionCount() {
+        return evictions.sum();
+    }
+}
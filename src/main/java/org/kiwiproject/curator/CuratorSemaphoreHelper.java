@@ -0,0 +1,330 @@
+package org.kiwiproject.curator;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.isNull;
+import static org.kiwiproject.base.KiwiStrings.f;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.recipes.locks.InterProcessSemaphoreV2;
+import org.apache.curator.framework.recipes.locks.Lease;
+import org.apache.curator.framework.recipes.shared.SharedCountReader;
+import org.kiwiproject.curator.CuratorLockHelper.ErrorType;
+import org.kiwiproject.curator.exception.LockAcquisitionException;
+import org.kiwiproject.curator.exception.LockAcquisitionFailureException;
+import org.kiwiproject.curator.exception.LockAcquisitionTimeoutException;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+/**
+ * Helper class for creating and using Curator distributed semaphores ({@link InterProcessSemaphoreV2}), to limit
+ * the number of concurrent operations across all processes using the same semaphore path.
+ * <p>
+ * Timeouts and exceptions thrown by Curator are converted into {@link LockAcquisitionException}s in the same way
+ * as {@link CuratorLockHelper}.
+ * <p>
+ * All processes using a semaphore path must agree on the maximum number of leases. To change the maximum at
+ * runtime, create the semaphores using {@link #createSemaphore(CuratorFramework, String, SharedCountReader)}
+ * with a started {@link org.apache.curator.framework.recipes.shared.SharedCount}, and change the count using
+ * {@link org.apache.curator.framework.recipes.shared.SharedCount#setCount(int)}.
+ */
+@Slf4j
+public class CuratorSemaphoreHelper {
+
+    /**
+     * Creates a Curator semaphore instance for the given path with a fixed maximum number of leases.
+     *
+     * @param client        Curator client
+     * @param semaphorePath the ZooKeeper base semaphore path
+     * @param maxLeases     the maximum number of leases that can be held at the same time, across all processes
+     * @return a Curator semaphore instance ({@link InterProcessSemaphoreV2})
+     */
+    public InterProcessSemaphoreV2 createSemaphore(CuratorFramework client, String semaphorePath, int maxLeases) {
+        checkArgument(maxLeases > 0, "maxLeases must be positive");
+        return new InterProcessSemaphoreV2(client, semaphorePath, maxLeases);
+    }
+
+    /**
+     * Creates a Curator semaphore instance for the given path whose maximum number of leases is read from a shared
+     * count, so that it can be changed at runtime. The shared count must already be started.
+     * <p>
+     * Reducing the maximum does not revoke leases that are already held; new leases are not granted until the
+     * number of held leases drops below the new maximum.
+     *
+     * @param client        Curator client
+     * @param semaphorePath the ZooKeeper base semaphore path
+     * @param maxLeases     the shared count providing the maximum number of leases
+     * @return a Curator semaphore instance ({@link InterProcessSemaphoreV2})
+     */
+    public InterProcessSemaphoreV2 createSemaphore(CuratorFramework client,
+                                                   String semaphorePath,
+                                                   SharedCountReader maxLeases) {
+        return new InterProcessSemaphoreV2(client, semaphorePath, maxLeases);
+    }
+
+    /**
+     * Tries to acquire a lease from the specified {@code semaphore}, waiting up to the specified timeout period.
+     *
+     * @param semaphore the distributed semaphore
+     * @param timeout   the timeout duration
+     * @return the lease, which must be returned using {@link #returnQuietly(InterProcessSemaphoreV2, Lease)}
+     * @throws LockAcquisitionFailureException if the semaphore throws any exception during acquisition
+     * @throws LockAcquisitionTimeoutException if the acquisition times out
+     */
+    public Lease acquire(InterProcessSemaphoreV2 semaphore, Duration timeout) {
+        return acquire(semaphore, 1, timeout).iterator().next();
+    }
+
+    /**
+     * Tries to acquire {@code qty} leases from the specified {@code semaphore}, waiting up to the specified timeout
+     * period. Either all the leases are acquired, or none are.
+     *
+     * @param semaphore the distributed semaphore
+     * @param qty       the number of leases to acquire
+     * @param timeout   the timeout duration
+     * @return the leases, which must be returned using {@link #returnQuietly(InterProcessSemaphoreV2, Collection)}
+     * @throws LockAcquisitionFailureException if the semaphore throws any exception during acquisition
+     * @throws LockAcquisitionTimeoutException if the acquisition times out
+     */
+    public Collection<Lease> acquire(InterProcessSemaphoreV2 semaphore, int qty, Duration timeout) {
+        var nanos = timeout.toNanos();
+        return acquire(semaphore, qty, nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Tries to acquire {@code qty} leases from the specified {@code semaphore}, waiting up to the specified timeout
+     * period. Either all the leases are acquired, or none are.
+     *
+     * @param semaphore the distributed semaphore
+     * @param qty       the number of leases to acquire
+     * @param time      the timeout quantity
+     * @param unit      the timeout unit
+     * @return the leases, which must be returned using {@link #returnQuietly(InterProcessSemaphoreV2, Collection)}
+     * @throws LockAcquisitionFailureException if the semaphore throws any exception during acquisition
+     * @throws LockAcquisitionTimeoutException if the acquisition times out
+     */
+    public Collection<Lease> acquire(InterProcessSemaphoreV2 semaphore, int qty, long time, TimeUnit unit) {
+        checkArgument(qty > 0, "qty must be positive");
+
+        Collection<Lease> leases;
+        try {
+            leases = semaphore.acquire(qty, time, unit);
+        } catch (Exception e) {
+            throw new LockAcquisitionFailureException("Failed to acquire semaphore lease", e);
+        }
+
+        if (isNull(leases)) {
+            var msg = f("Failed to acquire {} semaphore lease(s); timed out after {} {}", qty, time, unit);
+            LOG.warn(msg);
+            throw new LockAcquisitionTimeoutException(msg);
+        }
+
+        return leases;
+    }
+
+    /**
+     * Return the given lease, ignoring if {@code null} or if any exception occurs returning it.
+     *
+     * @param semaphore the semaphore from which the lease was acquired
+     * @param lease     the lease to return
+     */
+    public void returnQuietly(InterProcessSemaphoreV2 semaphore, Lease lease) {
+        if (isNull(lease)) {
+            return;
+        }
+
+        returnQuietly(semaphore, List.of(lease));
+    }
+
+    /**
+     * Return the given leases, ignoring if {@code null} or if any exception occurs returning them.
+     *
+     * @param semaphore the semaphore from which the leases were acquired
+     * @param leases    the leases to return
+     */
+    public void returnQuietly(InterProcessSemaphoreV2 semaphore, Collection<Lease> leases) {
+        if (isNull(leases)) {
+            return;
+        }
+
+        // returnAll closes each lease and ignores any exceptions
+        semaphore.returnAll(leases);
+    }
+
+    /**
+     * Tries to acquire a lease from the semaphore at {@code semaphorePath}, waiting up to the specified timeout
+     * period. Once acquired, calls the {@code supplier} and returns the result of its computation, then returns the
+     * lease.
+     *
+     * @param <R>           the type of the result produced by the supplier
+     * @param client        Curator client
+     * @param semaphorePath the ZooKeeper base semaphore path
+     * @param maxLeases     the maximum number of leases that can be held at the same time, across all processes
+     * @param timeout       the timeout duration
+     * @param supplier      the supplier providing the computation to be executed while holding the lease
+     * @return the result of the computation provided by the supplier
+     * @throws LockAcquisitionFailureException if the semaphore throws any exception during acquisition
+     * @throws LockAcquisitionTimeoutException if the acquisition times out
+     */
+    public <R> R withLease(CuratorFramework client,
+                           String semaphorePath,
+                           int maxLeases,
+                           Duration timeout,
+                           Supplier<R> supplier) {
+        return withLease(createSemaphore(client, semaphorePath, maxLeases), timeout, supplier);
+    }
+
+    /**
+     * Tries to acquire a lease from the specified {@code semaphore}, waiting up to the specified timeout period.
+     * Once acquired, calls the {@code supplier} and returns the result of its computation, then returns the lease.
+     *
+     * @param <R>       the type of the result produced by the supplier
+     * @param semaphore the distributed semaphore
+     * @param timeout   the timeout duration
+     * @param supplier  the supplier providing the computation to be executed while holding the lease
+     * @return the result of the computation provided by the supplier
+     * @throws LockAcquisitionFailureException if the semaphore throws any exception during acquisition
+     * @throws LockAcquisitionTimeoutException if the acquisition times out
+     */
+    public <R> R withLease(InterProcessSemaphoreV2 semaphore, Duration timeout, Supplier<R> supplier) {
+        return withLeases(semaphore, 1, timeout, supplier);
+    }
+
+    /**
+     * Tries to acquire a lease from the specified {@code semaphore}, waiting up to the specified timeout period.
+     * Once acquired, calls the {@code supplier} and returns the result of its computation, then returns the lease.
+     * <p>
+     * If the lease cannot be obtained for any reason, or the supplier throws an exception, the {@code errorHandler}
+     * is called and must provide the result.
+     *
+     * @param <R>          the type of the result produced by the supplier
+     * @param semaphore    the distributed semaphore
+     * @param timeout      the timeout duration
+     * @param supplier     the supplier providing the computation to be executed while holding the lease
+     * @param errorHandler the action to take if the lease cannot be obtained, or if the supplier throws any exception
+     * @return the result of the computation provided by the supplier, or by the error handler
+     */
+    public <R> R withLease(InterProcessSemaphoreV2 semaphore,
+                           Duration timeout,
+                           Supplier<R> supplier,
+                           BiFunction<ErrorType, RuntimeException, R> errorHandler) {
+        try {
+            return withLease(semaphore, timeout, supplier);
+        } catch (LockAcquisitionException e) {
+            return errorHandler.apply(ErrorType.LOCK_ACQUISITION, e);
+        } catch (RuntimeException e) {
+            return errorHandler.apply(ErrorType.OPERATION, e);
+        }
+    }
+
+    /**
+     * Tries to acquire {@code qty} leases from the specified {@code semaphore}, waiting up to the specified timeout
+     * period. Once all are acquired, calls the {@code supplier} and returns the result of its computation, then
+     * returns the leases.
+     * <p>
+     * Use this when an operation has a larger cost than others sharing the same limit, for example a batch call
+     * counting as several single calls.
+     *
+     * @param <R>       the type of the result produced by the supplier
+     * @param semaphore the distributed semaphore
+     * @param qty       the number of leases to acquire
+     * @param timeout   the timeout duration
+     * @param supplier  the supplier providing the computation to be executed while holding the leases
+     * @return the result of the computation provided by the supplier
+     * @throws LockAcquisitionFailureException if the semaphore throws any exception during acquisition
+     * @throws LockAcquisitionTimeoutException if the acquisition times out
+     */
+    public <R> R withLeases(InterProcessSemaphoreV2 semaphore, int qty, Duration timeout, Supplier<R> supplier) {
+        var leases = acquire(semaphore, qty, timeout);
+        try {
+            return supplier.get();
+        } finally {
+            returnQuietly(semaphore, leases);
+        }
+    }
+
+    /**
+     * Tries to acquire a lease from the semaphore at {@code semaphorePath}, waiting up to the specified timeout
+     * period. Once acquired, executes the specified {@code action}, then returns the lease.
+     *
+     * @param client        Curator client
+     * @param semaphorePath the ZooKeeper base semaphore path
+     * @param maxLeases     the maximum number of leases that can be held at the same time, across all processes
+     * @param timeout       the timeout duration
+     * @param action        the action to execute while holding the lease
+     * @throws LockAcquisitionFailureException if the semaphore throws any exception during acquisition
+     * @throws LockAcquisitionTimeoutException if the acquisition times out
+     */
+    public void useLease(CuratorFramework client,
+                         String semaphorePath,
+                         int maxLeases,
+                         Duration timeout,
+                         Runnable action) {
+        useLease(createSemaphore(client, semaphorePath, maxLeases), timeout, action);
+    }
+
+    /**
+     * Tries to acquire a lease from the specified {@code semaphore}, waiting up to the specified timeout period.
+     * Once acquired, executes the specified {@code action}, then returns the lease.
+     *
+     * @param semaphore the distributed semaphore
+     * @param timeout   the timeout duration
+     * @param action    the action to execute while holding the lease
+     * @throws LockAcquisitionFailureException if the semaphore throws any exception during acquisition
+     * @throws LockAcquisitionTimeoutException if the acquisition times out
+     */
+    public void useLease(InterProcessSemaphoreV2 semaphore, Duration timeout, Runnable action) {
+        useLeases(semaphore, 1, timeout, action);
+    }
+
+    /**
+     * Tries to acquire a lease from the specified {@code semaphore}, waiting up to the specified timeout period.
+     * Once acquired, executes the specified {@code action}, then returns the lease.
+     * <p>
+     * If the lease cannot be obtained for any reason, or the action throws an exception, the {@code errorHandler}
+     * is called.
+     *
+     * @param semaphore    the distributed semaphore
+     * @param timeout      the timeout duration
+     * @param action       the action to execute while holding the lease
+     * @param errorHandler the action to take if the lease cannot be obtained, or if the action throws any exception
+     */
+    public void useLease(InterProcessSemaphoreV2 semaphore,
+                         Duration timeout,
+                         Runnable action,
+                         BiConsumer<ErrorType, RuntimeException> errorHandler) {
+        try {
+            useLease(semaphore, timeout, action);
+        } catch (LockAcquisitionException e) {
+            errorHandler.accept(ErrorType.LOCK_ACQUISITION, e);
+        } catch (RuntimeException e) {
+            errorHandler.accept(ErrorType.OPERATION, e);
+        }
+    }
+
+    /**
+     * Tries to acquire {@code qty} leases from the specified {@code semaphore}, waiting up to the specified timeout
+     * period. Once all are acquired, executes the specified {@code action}, then returns the leases.
+     *
+     * @param semaphore the distributed semaphore
+     * @param qty       the number of leases to acquire
+     * @param timeout   the timeout duration
+     * @param action    the action to execute while holding the leases
+     * @throws LockAcquisitionFailureException if the semaphore throws any exception during acquisition
+     * @throws LockAcquisitionTimeoutException if the acquisition times out
+     */
+    public void useLeases(InterProcessSemaphoreV2 semaphore, int qty, Duration timeout, Runnable action) {
+        var leases = acquire(semaphore, qty, timeout);
+        try {
+            action.run();
+        } finally {
+            returnQuietly(semaphore, leases);
+        }
+    }
+}
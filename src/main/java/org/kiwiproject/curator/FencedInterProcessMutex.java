@@ -0,0 +1,65 @@
+package org.kiwiproject.curator;
+
+import static com.google.common.base.Preconditions.checkState;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.recipes.locks.InterProcessMutex;
+import org.apache.zookeeper.data.Stat;
+import org.kiwiproject.curator.exception.LockAcquisitionFailureException;
+import org.kiwiproject.curator.exception.LockLostException;
+
+/**
+ * An {@link InterProcessMutex} that provides a fencing token while it is held.
+ * <p>
+ * The token is the creation zxid (czxid) of the lock node. ZooKeeper assigns zxids in a single, increasing order
+ * across the whole ensemble, and the lock is granted in the order its lock nodes were created, so each successive
+ * holder of a lock path gets a larger token. Unlike the lock node's sequence number, this remains true if the lock's
+ * parent node is deleted and recreated, e.g. as an empty container node or by a {@link LockPathReaper}.
+ * <p>
+ * Re-entrant acquisitions by the same thread share the same lock node, and therefore the same token.
+ *
+ * @see CuratorLockHelper#withFencedLock(FencedInterProcessMutex, java.time.Duration, java.util.function.LongFunction)
+ */
+public class FencedInterProcessMutex extends InterProcessMutex {
+
+    private final CuratorFramework client;
+
+    /**
+     * Create a new instance.
+     *
+     * @param client   Curator client
+     * @param lockPath the ZooKeeper base lock path
+     */
+    public FencedInterProcessMutex(CuratorFramework client, String lockPath) {
+        super(client, lockPath);
+        this.client = client;
+    }
+
+    /**
+     * Get the fencing token of this lock, which must be held by the current thread.
+     *
+     * @return the fencing token
+     * @throws IllegalStateException           if the current thread does not hold the lock
+     * @throws LockAcquisitionFailureException if the fencing token cannot be read
+     * @throws LockLostException               if the lock node no longer exists
+     */
+    public long getFencingToken() {
+        var lockNodePath = getLockPath();
+        checkState(isOwnedByCurrentThread() && nonNull(lockNodePath), "the current thread does not hold the lock");
+
+        Stat stat;
+        try {
+            stat = client.checkExists().forPath(lockNodePath);
+        } catch (Exception e) {
+            throw new LockAcquisitionFailureException("Failed to read fencing token of lock node " + lockNodePath, e);
+        }
+
+        if (isNull(stat)) {
+            throw new LockLostException("Lock node no longer exists: " + lockNodePath);
+        }
+
+        return stat.getCzxid();
+    }
+}
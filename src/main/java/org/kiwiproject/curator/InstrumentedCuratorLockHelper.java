@@ -0,0 +1,393 @@
+package org.kiwiproject.curator;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static org.kiwiproject.base.KiwiPreconditions.requireNotNull;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.common.collect.MapMaker;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.recipes.locks.InterProcessLock;
+import org.apache.curator.framework.recipes.locks.InterProcessMutex;
+import org.apache.curator.framework.recipes.locks.InterProcessReadWriteLock;
+import org.apache.curator.framework.recipes.locks.InterProcessSemaphoreMutex;
+import org.kiwiproject.curator.exception.LockAcquisitionFailureException;
+import org.kiwiproject.curator.exception.LockAcquisitionTimeoutException;
+import org.kiwiproject.curator.exception.LockLostException;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+/**
+ * A {@link CuratorLockHelper} that records Dropwizard Metrics for lock acquisition and for the actions executed
+ * while holding locks.
+ * <p>
+ * The following metrics are recorded for each (normalized) lock path, with names starting with
+ * {@code org.kiwiproject.curator.CuratorLockHelper.locks.<path>}:
+ * <ul>
+ *     <li>{@code acquire-latency-micros} - histogram of lock acquisition latency, including failed acquisitions</li>
+ *     <li>{@code hold} - timer around the action executed by the {@code use*} and {@code with*} methods</li>
+ *     <li>{@code errors.LOCK_ACQUISITION.timeout} - meter of acquisition timeouts</li>
+ *     <li>{@code errors.LOCK_ACQUISITION.failure} - meter of acquisition failures</li>
+ *     <li>{@code errors.OPERATION} - meter of exceptions thrown by actions executed while holding a lock</li>
+ *     <li>{@code errors.LOCK_LOST} - meter of locks lost while held, as reported by the "guarded" methods</li>
+ * </ul>
+ * In addition, the gauge {@code org.kiwiproject.curator.CuratorLockHelper.locks.held} reports the number of
+ * actions currently executing while holding a lock. Helpers that record metrics in the same registry share the
+ * gauge, which then reports the holds of all of them.
+ * <p>
+ * If a {@link LockHoldWatchdog} is supplied, every action executed while holding a lock is tracked by it, so that
+ * long holds are reported along with the owner thread's stack trace. The watchdog tracks the actual (not
+ * normalized) lock path.
+ * <p>
+ * Acquisition latencies are also recorded in an {@link AdaptiveLockTimeoutPolicy}, and the {@code useLock} and
+ * {@code withLock} overloads without a timeout acquire locks using the policy's current timeout for the lock's path
+ * template. Callers that need a specific timeout can still use the overloads that accept one.
+ * <p>
+ * The mean of the {@code hold} timer is used to estimate wait times reported by
+ * {@link #inspectLockQueues(CuratorFramework, java.util.Collection, Duration)}.
+ * <p>
+ * Lock paths are only known for locks created by this helper's {@code create*} methods, or registered via
+ * {@link #registerLockPath(InterProcessLock, String)}. Metrics for any other lock are recorded under
+ * {@value #UNKNOWN_PATH}. Paths are normalized by a {@link LockPathNormalizer} to bound the number of metrics.
+ */
+@Slf4j
+public class InstrumentedCuratorLockHelper extends CuratorLockHelper {
+
+    /**
+     * The path under which metrics are recorded for locks whose path is not known.
+     */
+    public static final String UNKNOWN_PATH = "/_unknown";
+
+    private static final String METRICS_PREFIX = name(CuratorLockHelper.class, "locks");
+
+    private final MetricRegistry metrics;
+    private final LockPathNormalizer pathNormalizer;
+    private final ConcurrentMap<InterProcessLock, String> lockPaths = new MapMaker().weakKeys().makeMap();
+    private final ConcurrentMap<String, LockMetrics> metricsByPath = new ConcurrentHashMap<>();
+    private final AtomicInteger heldLocks;
+    private final LockHoldWatchdog watchdog;
+    private final AdaptiveLockTimeoutPolicy timeoutPolicy;
+
+    private record LockMetrics(Histogram acquireLatencyMicros,
+                               Timer hold,
+                               Meter acquisitionTimeouts,
+                               Meter acquisitionFailures,
+                               Meter operationErrors,
+                               Meter locksLost) {
+    }
+
+    /**
+     * The {@code held} gauge, whose count is shared by all helpers recording metrics in the same registry.
+     */
+    private static final class HeldLocksGauge implements Gauge<Integer> {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Integer getValue() {
+            return count.get();
+        }
+    }
+
+    /**
+     * Create a new instance.
+     *
+     * @param metrics        the registry in which to record metrics
+     * @param pathNormalizer normalizes lock paths to bound the number of per-path metrics
+     */
+    public InstrumentedCuratorLockHelper(MetricRegistry metrics, LockPathNormalizer pathNormalizer) {
+        this(metrics, pathNormalizer, null);
+    }
+
+    /**
+     * Create a new instance that tracks lock holds with the given watchdog, and uses an
+     * {@link AdaptiveLockTimeoutPolicy} with the default configuration.
+     *
+     * @param metrics        the registry in which to record metrics
+     * @param pathNormalizer normalizes lock paths to bound the number of per-path metrics
+     * @param watchdog       tracks lock holds and reports long ones; may be null to disable hold tracking
+     */
+    public InstrumentedCuratorLockHelper(MetricRegistry metrics,
+                                         LockPathNormalizer pathNormalizer,
+                                         LockHoldWatchdog watchdog) {
+        this(metrics, pathNormalizer, watchdog, new AdaptiveLockTimeoutPolicy());
+    }
+
+    /**
+     * Create a new instance that tracks lock holds with the given watchdog, and chooses timeouts with the given
+     * adaptive timeout policy.
+     *
+     * @param metrics        the registry in which to record metrics
+     * @param pathNormalizer normalizes lock paths to bound the number of per-path metrics
+     * @param watchdog       tracks lock holds and reports long ones; may be null to disable hold tracking
+     * @param timeoutPolicy  chooses the timeout of the overloads without a timeout
+     */
+    public InstrumentedCuratorLockHelper(MetricRegistry metrics,
+                                         LockPathNormalizer pathNormalizer,
+                                         LockHoldWatchdog watchdog,
+                                         AdaptiveLockTimeoutPolicy timeoutPolicy) {
+        this.metrics = requireNotNull(metrics, "metrics must not be null");
+        this.pathNormalizer = requireNotNull(pathNormalizer, "pathNormalizer must not be null");
+        this.heldLocks = heldLocksGauge(metrics).count;
+        this.watchdog = watchdog;
+        this.timeoutPolicy = requireNotNull(timeoutPolicy, "timeoutPolicy must not be null");
+    }
+
+    private static HeldLocksGauge heldLocksGauge(MetricRegistry metrics) {
+        var heldName = name(METRICS_PREFIX, "held");
+        Gauge<?> gauge = metrics.gauge(heldName, HeldLocksGauge::new);
+        checkArgument(gauge instanceof HeldLocksGauge, "%s is already registered by another component", heldName);
+        return (HeldLocksGauge) gauge;
+    }
+
+    @Override
+    public InterProcessMutex createInterProcessMutex(CuratorFramework client, String lockPath) {
+        return registerLockPath(super.createInterProcessMutex(client, lockPath), lockPath);
+    }
+
+    @Override
+    public InterProcessSemaphoreMutex createInterProcessSemaphoreMutex(CuratorFramework client, String lockPath) {
+        return registerLockPath(super.createInterProcessSemaphoreMutex(client, lockPath), lockPath);
+    }
+
+    @Override
+    public FencedInterProcessMutex createFencedInterProcessMutex(CuratorFramework client, String lockPath) {
+        return registerLockPath(super.createFencedInterProcessMutex(client, lockPath), lockPath);
+    }
+
+    @Override
+    public InterProcessReadWriteLock createInterProcessReadWriteLock(CuratorFramework client, String lockPath) {
+        var readWriteLock = super.createInterProcessReadWriteLock(client, lockPath);
+        registerLockPath(readWriteLock.readLock(), lockPath);
+        registerLockPath(readWriteLock.writeLock(), lockPath);
+        return readWriteLock;
+    }
+
+    @Override
+    public LocalFirstInterProcessLock createLocalFirstLock(CuratorFramework client, String lockPath) {
+        return registerLockPath(super.createLocalFirstLock(client, lockPath), lockPath);
+    }
+
+    @Override
+    public LocalFirstInterProcessLock createLocalFirstLock(CuratorFramework client, String lockPath, int fairnessBudget) {
+        return registerLockPath(super.createLocalFirstLock(client, lockPath, fairnessBudget), lockPath);
+    }
+
+    @Override
+    public NonPinningInterProcessMutex createNonPinningInterProcessMutex(CuratorFramework client, String lockPath) {
+        return registerLockPath(super.createNonPinningInterProcessMutex(client, lockPath), lockPath);
+    }
+
+    /**
+     * Associate a lock path with a lock that was not created by this helper, so that its metrics are recorded
+     * under that path. The association is weak, and does not prevent the lock from being garbage collected.
+     *
+     * @param lock     the lock
+     * @param lockPath the ZooKeeper base lock path of the lock
+     * @param <L>      the lock type
+     * @return the given lock
+     */
+    public <L extends InterProcessLock> L registerLockPath(L lock, String lockPath) {
+        lockPaths.put(lock, lockPath);
+        return lock;
+    }
+
+    /**
+     * Get the lock path of a lock created by, or registered with, this helper.
+     *
+     * @param lock the lock
+     * @return an Optional containing the ZooKeeper base lock path, or an empty Optional if not known
+     */
+    public Optional<String> lockPathOf(InterProcessLock lock) {
+        return Optional.ofNullable(lockPaths.get(lock));
+    }
+
+    /**
+     * Get the timeout currently chosen by the adaptive timeout policy for a lock, based on its path template.
+     *
+     * @param lock the lock
+     * @return the adaptive timeout
+     */
+    public Duration adaptiveTimeoutFor(InterProcessLock lock) {
+        return timeoutPolicy.timeoutFor(normalizedPathOf(lock));
+    }
+
+    @Override
+    public void acquire(InterProcessLock lock, long time, TimeUnit unit) {
+        var normalizedPath = normalizedPathOf(lock);
+        var lockMetrics = metricsFor(normalizedPath);
+        var startNanos = System.nanoTime();
+        try {
+            super.acquire(lock, time, unit);
+            timeoutPolicy.recordLatency(normalizedPath, Duration.ofNanos(System.nanoTime() - startNanos));
+        } catch (LockAcquisitionTimeoutException e) {
+            lockMetrics.acquisitionTimeouts().mark();
+            timeoutPolicy.recordTimeout(normalizedPath, Duration.ofNanos(unit.toNanos(time)));
+            throw e;
+        } catch (LockAcquisitionFailureException e) {
+            lockMetrics.acquisitionFailures().mark();
+            throw e;
+        } finally {
+            lockMetrics.acquireLatencyMicros().update(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos));
+        }
+    }
+
+    /**
+     * Acquire the lock using the adaptive timeout for its path template, execute the action, then release the lock.
+     *
+     * @param lock   the distributed lock to acquire
+     * @param action the action to execute while holding the lock
+     * @throws LockAcquisitionFailureException if the lock throws any exception during acquisition
+     * @throws LockAcquisitionTimeoutException if the lock acquisition times out
+     * @see #useLock(InterProcessLock, Duration, Runnable)
+     */
+    public void useLock(InterProcessLock lock, Runnable action) {
+        useLock(lock, adaptiveTimeoutFor(lock), action);
+    }
+
+    /**
+     * Acquire the lock using the adaptive timeout for its path template, execute the action, then release the lock,
+     * calling the error handler if the lock cannot be obtained or the action throws an exception.
+     *
+     * @param lock         the distributed lock to acquire
+     * @param action       the action to execute while holding the lock
+     * @param errorHandler the action to take if the lock cannot be obtained, or if the action throws any exception
+     * @see #useLock(InterProcessLock, Duration, Runnable, BiConsumer)
+     */
+    public void useLock(InterProcessLock lock,
+                        Runnable action,
+                        BiConsumer<ErrorType, RuntimeException> errorHandler) {
+        useLock(lock, adaptiveTimeoutFor(lock), action, errorHandler);
+    }
+
+    /**
+     * Acquire the lock using the adaptive timeout for its path template, call the supplier, then release the lock.
+     *
+     * @param <R>      the type of the result produced by the supplier
+     * @param lock     the distributed lock to acquire
+     * @param supplier the supplier providing the computation to be executed while holding the lock
+     * @return the result of the computation provided by the supplier
+     * @throws LockAcquisitionFailureException if the lock throws any exception during acquisition
+     * @throws LockAcquisitionTimeoutException if the lock acquisition times out
+     * @see #withLock(InterProcessLock, Duration, Supplier)
+     */
+    public <R> R withLock(InterProcessLock lock, Supplier<R> supplier) {
+        return withLock(lock, adaptiveTimeoutFor(lock), supplier);
+    }
+
+    /**
+     * Acquire the lock using the adaptive timeout for its path template, call the supplier, then release the lock,
+     * calling the error handler if the lock cannot be obtained or the supplier throws an exception.
+     *
+     * @param <R>          the type of the result produced by the supplier
+     * @param lock         the distributed lock to acquire
+     * @param supplier     the supplier providing the computation to be executed while holding the lock
+     * @param errorHandler the action to take if the lock cannot be obtained, or if the supplier throws any exception
+     * @return the result of the computation provided by the supplier, or the result of the error handler
+     * @see #withLock(InterProcessLock, Duration, Supplier, BiFunction)
+     */
+    public <R> R withLock(InterProcessLock lock,
+                          Supplier<R> supplier,
+                          BiFunction<ErrorType, RuntimeException, R> errorHandler) {
+        return withLock(lock, adaptiveTimeoutFor(lock), supplier, errorHandler);
+    }
+
+    @Override
+    public void useLock(InterProcessLock lock, long time, TimeUnit unit, Runnable action) {
+        super.useLock(lock, time, unit, () -> whileHeld(lock, () -> {
+            action.run();
+            return null;
+        }));
+    }
+
+    @Override
+    public <R> R withLock(InterProcessLock lock, long time, TimeUnit unit, Supplier<R> supplier) {
+        return super.withLock(lock, time, unit, () -> whileHeld(lock, supplier));
+    }
+
+    @Override
+    public <R> Optional<R> tryWithLock(InterProcessLock lock, Supplier<R> supplier) {
+        return super.tryWithLock(lock, () -> whileHeld(lock, supplier));
+    }
+
+    @Override
+    public boolean tryUseLock(InterProcessLock lock, Runnable action) {
+        return super.tryUseLock(lock, () -> whileHeld(lock, () -> {
+            action.run();
+            return null;
+        }));
+    }
+
+    private <R> R whileHeld(InterProcessLock lock, Supplier<R> supplier) {
+        var lockMetrics = metricsFor(lock);
+        heldLocks.incrementAndGet();
+        var hold = isNull(watchdog) ? null : watchdog.startHold(lockPathOf(lock).orElse(UNKNOWN_PATH));
+        try (var ignored = lockMetrics.hold().time()) {
+            return supplier.get();
+        } catch (LockLostException e) {
+            lockMetrics.locksLost().mark();
+            throw e;
+        } catch (RuntimeException e) {
+            lockMetrics.operationErrors().mark();
+            throw e;
+        } finally {
+            heldLocks.decrementAndGet();
+            if (nonNull(hold)) {
+                hold.close();
+            }
+        }
+    }
+
+    /**
+     * Estimate the mean hold time of locks with the given path from the {@code hold} timer of its path template.
+     *
+     * @param lockPath the ZooKeeper base lock path
+     * @return an Optional containing the recent mean hold time, or an empty Optional if no holds were recorded
+     */
+    @Override
+    protected Optional<Duration> estimateMeanHoldTime(String lockPath) {
+        return Optional.ofNullable(metricsByPath.get(pathNormalizer.normalize(lockPath)))
+                .map(LockMetrics::hold)
+                .filter(holdTimer -> holdTimer.getCount() > 0)
+                .map(holdTimer -> Duration.ofNanos((long) holdTimer.getSnapshot().getMean()));
+    }
+
+    private String normalizedPathOf(InterProcessLock lock) {
+        return lockPathOf(lock).map(pathNormalizer::normalize).orElse(UNKNOWN_PATH);
+    }
+
+    private LockMetrics metricsFor(InterProcessLock lock) {
+        return metricsFor(normalizedPathOf(lock));
+    }
+
+    private LockMetrics metricsFor(String normalizedPath) {
+        return metricsByPath.computeIfAbsent(normalizedPath, this::newLockMetrics);
+    }
+
+    private LockMetrics newLockMetrics(String normalizedPath) {
+        LOG.trace("Registering lock metrics for path {}", normalizedPath);
+        var prefix = name(METRICS_PREFIX, normalizedPath);
+        return new LockMetrics(
+                metrics.histogram(name(prefix, "acquire-latency-micros")),
+                metrics.timer(name(prefix, "hold")),
+                metrics.meter(name(prefix, "errors", ErrorType.LOCK_ACQUISITION.name(), "timeout")),
+                metrics.meter(name(prefix, "errors", ErrorType.LOCK_ACQUISITION.name(), "failure")),
+                metrics.meter(name(prefix, "errors", ErrorType.OPERATION.name())),
+                metrics.meter(name(prefix, "errors", ErrorType.LOCK_LOST.name())));
+    }
+}
@@ -0,0 +1,342 @@
+package org.kiwiproject.curator;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static org.kiwiproject.base.KiwiPreconditions.requireNotNull;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.MoreObjects;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.listen.Listenable;
+import org.apache.curator.framework.listen.StandardListenerManager;
+import org.apache.curator.framework.recipes.locks.InterProcessLock;
+import org.apache.curator.framework.recipes.locks.InterProcessSemaphoreMutex;
+import org.apache.curator.framework.state.ConnectionState;
+import org.apache.curator.framework.state.ConnectionStateListener;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * An {@link InterProcessLock} that queues threads in the same JVM on an in-memory fair lock, so that only the thread
+ * at the head of the local queue competes for the distributed (ZooKeeper) lock.
+ * <p>
+ * When a thread releases this lock while other local threads are waiting, the distributed lock is handed to the next
+ * local waiter without releasing and re-acquiring it in ZooKeeper. To avoid starving other processes, the distributed
+ * lock is released anyway once it has been handed off {@code fairnessBudget} consecutive times, which lets waiters in
+ * other processes (which are already queued in ZooKeeper) take their turn.
+ * <p>
+ * Since the distributed lock may be released by a different thread than the one that acquired it, it is backed by an
+ * {@link InterProcessSemaphoreMutex}. This lock is re-entrant for the thread that holds the local lock, and (like
+ * {@link org.apache.curator.framework.recipes.locks.InterProcessMutex}) can only be released by the holding thread.
+ * <p>
+ * While the distributed lock is held, a connection state listener watches the client. If the connection is suspended
+ * or lost, another process may hold the distributed lock once its session expires, so hand-offs stop: the current
+ * holder releases the distributed lock, and the next local holder must acquire it again from ZooKeeper.
+ * <p>
+ * For the hand-off to be effective, all threads in a JVM must share one instance per lock path, e.g. by obtaining it
+ * from a {@link CuratorLockRegistry}.
+ */
+@Slf4j
+public class LocalFirstInterProcessLock implements InterProcessLock {
+
+    /**
+     * Default maximum number of consecutive local hand-offs before the distributed lock is released.
+     */
+    public static final int DEFAULT_FAIRNESS_BUDGET = 16;
+
+    private final InterProcessLock distributedLock;
+    private final int fairnessBudget;
+    private final ReentrantLock localLock;
+    private final Listenable<ConnectionStateListener> connectionStateListenable;
+    private final ConnectionStateListener connectionStateListener = this::connectionStateChanged;
+
+    // incremented when the connection is suspended or lost
+    private final AtomicLong connectionInterruptions = new AtomicLong();
+
+    // guarded by localLock; volatile so isAcquiredInThisProcess can read it without locking
+    private volatile boolean distributedLockHeld;
+    private long interruptionsWhenAcquired;
+    private int consecutiveHandOffs;
+
+    private final LongAdder distributedAcquisitions = new LongAdder();
+    private final LongAdder handOffs = new LongAdder();
+
+    /**
+     * Create a new instance using {@link #DEFAULT_FAIRNESS_BUDGET}.
+     *
+     * @param client   Curator client
+     * @param lockPath the ZooKeeper base lock path
+     */
+    public LocalFirstInterProcessLock(CuratorFramework client, String lockPath) {
+        this(client, lockPath, DEFAULT_FAIRNESS_BUDGET);
+    }
+
+    /**
+     * Create a new instance.
+     *
+     * @param client         Curator client
+     * @param lockPath       the ZooKeeper base lock path
+     * @param fairnessBudget the maximum number of consecutive local hand-offs before the distributed lock is released;
+     *                       zero disables hand-off
+     */
+    public LocalFirstInterProcessLock(CuratorFramework client, String lockPath, int fairnessBudget) {
+        this(new InterProcessSemaphoreMutex(client, lockPath), client.getConnectionStateListenable(), fairnessBudget);
+    }
+
+    @VisibleForTesting
+    LocalFirstInterProcessLock(InterProcessLock distributedLock, int fairnessBudget) {
+        this(distributedLock, StandardListenerManager.standard(), fairnessBudget);
+    }
+
+    @VisibleForTesting
+    LocalFirstInterProcessLock(InterProcessLock distributedLock,
+                               Listenable<ConnectionStateListener> connectionStateListenable,
+                               int fairnessBudget) {
+        checkArgument(fairnessBudget >= 0, "fairnessBudget must not be negative");
+        this.distributedLock = requireNotNull(distributedLock, "distributedLock must not be null");
+        this.connectionStateListenable =
+                requireNotNull(connectionStateListenable, "connectionStateListenable must not be null");
+        this.fairnessBudget = fairnessBudget;
+        this.localLock = new ReentrantLock(true);
+    }
+
+    /**
+     * Acquire the lock, blocking until it is available.
+     *
+     * @throws Exception if the distributed lock throws an exception, or if interrupted
+     */
+    @Override
+    public void acquire() throws Exception {
+        try {
+            localLock.lockInterruptibly();
+        } catch (InterruptedException e) {
+            releaseIfAbandoned();
+            throw e;
+        }
+
+        if (localLock.getHoldCount() > 1) {
+            return;
+        }
+
+        var acquired = false;
+        try {
+            releaseIfInvalidated();
+            if (!distributedLockHeld) {
+                var interruptions = beforeDistributedAcquire();
+                try {
+                    distributedLock.acquire();
+                } catch (Exception e) {
+                    connectionStateListenable.removeListener(connectionStateListener);
+                    throw e;
+                }
+                onDistributedLockAcquired(interruptions);
+            }
+            acquired = true;
+        } finally {
+            if (!acquired) {
+                localLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Acquire the lock, waiting up to the given time for both the local queue and the distributed lock.
+     *
+     * @param time the timeout quantity
+     * @param unit the timeout unit
+     * @return true if the lock was acquired, false if the timeout expired
+     * @throws Exception if the distributed lock throws an exception, or if interrupted
+     */
+    @Override
+    public boolean acquire(long time, TimeUnit unit) throws Exception {
+        var deadlineNanos = System.nanoTime() + unit.toNanos(time);
+
+        if (!localLock.tryLock(time, unit)) {
+            releaseIfAbandoned();
+            return false;
+        }
+
+        if (localLock.getHoldCount() > 1) {
+            return true;
+        }
+
+        var acquired = false;
+        try {
+            releaseIfInvalidated();
+            acquired = distributedLockHeld || tryAcquireDistributedLock(deadlineNanos - System.nanoTime());
+        } finally {
+            if (!acquired) {
+                localLock.unlock();
+            }
+        }
+
+        return acquired;
+    }
+
+    private boolean tryAcquireDistributedLock(long remainingNanos) throws Exception {
+        var interruptions = beforeDistributedAcquire();
+        var acquired = false;
+        try {
+            acquired = distributedLock.acquire(Math.max(0, remainingNanos), TimeUnit.NANOSECONDS);
+        } finally {
+            if (!acquired) {
+                connectionStateListenable.removeListener(connectionStateListener);
+            }
+        }
+
+        if (acquired) {
+            onDistributedLockAcquired(interruptions);
+        }
+        return acquired;
+    }
+
+    /**
+     * Start watching the connection before acquiring the distributed lock, so that an interruption during the
+     * acquisition is not missed.
+     */
+    private long beforeDistributedAcquire() {
+        connectionStateListenable.addListener(connectionStateListener);
+        return connectionInterruptions.get();
+    }
+
+    private void onDistributedLockAcquired(long interruptions) {
+        distributedLockHeld = true;
+        interruptionsWhenAcquired = interruptions;
+        consecutiveHandOffs = 0;
+        distributedAcquisitions.increment();
+    }
+
+    private boolean isDistributedLockValid() {
+        return distributedLockHeld && interruptionsWhenAcquired == connectionInterruptions.get();
+    }
+
+    /**
+     * If the distributed lock was handed to this thread, but the connection was interrupted since it was acquired,
+     * release it so that it is acquired again.
+     */
+    private void releaseIfInvalidated() {
+        if (distributedLockHeld && !isDistributedLockValid()) {
+            LOG.debug("Connection was interrupted while {} was held; acquiring it again", distributedLock);
+            try {
+                releaseDistributedLock();
+            } catch (Exception e) {
+                LOG.warn("Unable to release distributed lock {} after connection interruption", distributedLock, e);
+            }
+        }
+    }
+
+    @VisibleForTesting
+    void connectionStateChanged(CuratorFramework ignoredClient, ConnectionState newState) {
+        if (newState == ConnectionState.SUSPENDED || newState == ConnectionState.LOST) {
+            LOG.warn("Connection {}; local hand-offs of {} stop until it is acquired again", newState, distributedLock);
+            connectionInterruptions.incrementAndGet();
+        }
+    }
+
+    /**
+     * A waiter that times out or is interrupted may have been the one a releasing thread handed the distributed lock
+     * to. If nobody else is waiting or holding the local lock, release the distributed lock so that it is not held
+     * indefinitely.
+     */
+    private void releaseIfAbandoned() throws Exception {
+        if (!localLock.tryLock()) {
+            return;
+        }
+
+        try {
+            if (distributedLockHeld && !localLock.hasQueuedThreads()) {
+                LOG.trace("Releasing abandoned distributed lock {}", distributedLock);
+                releaseDistributedLock();
+            }
+        } finally {
+            localLock.unlock();
+        }
+    }
+
+    /**
+     * Release the lock. If other threads in this JVM are waiting and the fairness budget has not been exhausted,
+     * the distributed lock is handed to the next waiter instead of being released.
+     *
+     * @throws IllegalMonitorStateException if the current thread does not hold this lock
+     * @throws Exception                    if the distributed lock throws an exception while being released
+     */
+    @Override
+    public void release() throws Exception {
+        if (!localLock.isHeldByCurrentThread()) {
+            throw new IllegalMonitorStateException("You do not own the lock");
+        }
+
+        var handedOff = false;
+        try {
+            if (localLock.getHoldCount() == 1 && distributedLockHeld) {
+                handedOff = releaseOrHandOff();
+            }
+        } finally {
+            localLock.unlock();
+        }
+
+        // the waiter may have given up between the hand-off and the unlock
+        if (handedOff && !localLock.hasQueuedThreads()) {
+            releaseIfAbandoned();
+        }
+    }
+
+    private boolean releaseOrHandOff() throws Exception {
+        if (localLock.hasQueuedThreads() && consecutiveHandOffs < fairnessBudget && isDistributedLockValid()) {
+            ++consecutiveHandOffs;
+            handOffs.increment();
+            return true;
+        }
+
+        releaseDistributedLock();
+        return false;
+    }
+
+    private void releaseDistributedLock() throws Exception {
+        distributedLockHeld = false;
+        consecutiveHandOffs = 0;
+        connectionStateListenable.removeListener(connectionStateListener);
+        distributedLock.release();
+    }
+
+    /**
+     * @return true if any thread in this JVM holds or is handing off the lock
+     */
+    @Override
+    public boolean isAcquiredInThisProcess() {
+        return distributedLockHeld || localLock.isLocked();
+    }
+
+    /**
+     * @return the number of threads in this JVM waiting for the local lock (an estimate)
+     */
+    public int getLocalQueueLength() {
+        return localLock.getQueueLength();
+    }
+
+    /**
+     * @return the number of times the distributed lock has been acquired from ZooKeeper
+     */
+    public long distributedAcquisitionCount() {
+        return distributedAcquisitions.sum();
+    }
+
+    /**
+     * @return the number of times the distributed lock has been handed to a local waiter without being released
+     */
+    public long handOffCount() {
+        return handOffs.sum();
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("distributedLock", distributedLock)
+                .add("fairnessBudget", fairnessBudget)
+                .add("distributedLockHeld", distributedLockHeld)
+                .toString();
+    }
+}
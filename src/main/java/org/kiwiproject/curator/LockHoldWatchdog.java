@@ -0,0 +1,242 @@
+package org.kiwiproject.curator;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.stream.Collectors.joining;
+import static org.kiwiproject.base.KiwiPreconditions.requireNotNull;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.dropwizard.lifecycle.Managed;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongBinaryOperator;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Tracks held locks, and reports the ones held for longer than a threshold.
+ * <p>
+ * Each hold records the lock path, the owner thread, and when the lock was acquired. A single background thread
+ * checks the holds periodically, and logs a warning, including the owner thread's current stack trace, the first
+ * time it finds a hold that exceeds the threshold. The stack trace usually shows what the owner is waiting for.
+ * <p>
+ * The following gauges are registered, with names starting with
+ * {@code org.kiwiproject.curator.CuratorLockHelper.locks}:
+ * <ul>
+ *     <li>{@code long-holds} - the number of current holds longer than the threshold</li>
+ *     <li>{@code oldest-hold-age-millis} - the age of the oldest current hold, or zero if there are none</li>
+ * </ul>
+ * Watchdogs that register gauges in the same registry share them, and the gauges then report the holds tracked by
+ * all of them.
+ *
+ * @see InstrumentedCuratorLockHelper
+ */
+@Slf4j
+public class LockHoldWatchdog implements Managed {
+
+    private static final String METRICS_PREFIX = name(CuratorLockHelper.class, "locks");
+
+    private final long thresholdNanos;
+    private final long checkIntervalMillis;
+    private final LongSupplier nanoClock;
+    private final Set<Hold> holds = ConcurrentHashMap.newKeySet();
+
+    private ScheduledExecutorService executor;
+
+    /**
+     * Represents one hold of a lock. Close it when the lock is released.
+     */
+    public final class Hold implements AutoCloseable {
+
+        private final String lockPath;
+        private final Thread owner;
+        private final long acquiredAtNanos;
+        private volatile boolean reported;
+
+        private Hold(String lockPath, Thread owner, long acquiredAtNanos) {
+            this.lockPath = lockPath;
+            this.owner = owner;
+            this.acquiredAtNanos = acquiredAtNanos;
+        }
+
+        /**
+         * Stop tracking this hold.
+         */
+        @Override
+        public void close() {
+            holds.remove(this);
+        }
+    }
+
+    /**
+     * Create a new instance.
+     *
+     * @param metrics       the registry in which to register gauges
+     * @param threshold     holds longer than this are reported
+     * @param checkInterval how often to check for long holds
+     */
+    public LockHoldWatchdog(MetricRegistry metrics, Duration threshold, Duration checkInterval) {
+        this(metrics, threshold, checkInterval, System::nanoTime);
+    }
+
+    @VisibleForTesting
+    LockHoldWatchdog(MetricRegistry metrics, Duration threshold, Duration checkInterval, LongSupplier nanoClock) {
+        requireNotNull(metrics, "metrics must not be null");
+        checkArgument(threshold.toNanos() > 0, "threshold must be positive");
+        checkArgument(checkInterval.toMillis() > 0, "checkInterval must be at least one millisecond");
+
+        this.thresholdNanos = threshold.toNanos();
+        this.checkIntervalMillis = checkInterval.toMillis();
+        this.nanoClock = requireNotNull(nanoClock, "nanoClock must not be null");
+
+        combinedGauge(metrics, "long-holds", LockHoldWatchdog::longHoldCount, Long::sum).add(this);
+        combinedGauge(metrics, "oldest-hold-age-millis", LockHoldWatchdog::oldestHoldAgeMillis, Math::max).add(this);
+    }
+
+    /**
+     * A gauge that combines the values of all watchdogs registering it in the same registry.
+     */
+    private static final class CombinedGauge implements Gauge<Long> {
+
+        private final Set<LockHoldWatchdog> watchdogs = ConcurrentHashMap.newKeySet();
+        private final ToLongFunction<LockHoldWatchdog> valueFunction;
+        private final LongBinaryOperator combiner;
+
+        private CombinedGauge(ToLongFunction<LockHoldWatchdog> valueFunction, LongBinaryOperator combiner) {
+            this.valueFunction = valueFunction;
+            this.combiner = combiner;
+        }
+
+        private void add(LockHoldWatchdog watchdog) {
+            watchdogs.add(watchdog);
+        }
+
+        @Override
+        public Long getValue() {
+            return watchdogs.stream().mapToLong(valueFunction).reduce(0, combiner);
+        }
+    }
+
+    private static CombinedGauge combinedGauge(MetricRegistry metrics,
+                                               String gaugeName,
+                                               ToLongFunction<LockHoldWatchdog> valueFunction,
+                                               LongBinaryOperator combiner) {
+        var name = name(METRICS_PREFIX, gaugeName);
+        Gauge<?> gauge = metrics.gauge(name, () -> new CombinedGauge(valueFunction, combiner));
+        checkArgument(gauge instanceof CombinedGauge, "%s is already registered by another component", name);
+        return (CombinedGauge) gauge;
+    }
+
+    /**
+     * Start tracking a hold of a lock by the current thread.
+     *
+     * @param lockPath the lock path
+     * @return the hold, which must be closed when the lock is released
+     */
+    public Hold startHold(String lockPath) {
+        var hold = new Hold(lockPath, Thread.currentThread(), nanoClock.getAsLong());
+        holds.add(hold);
+        return hold;
+    }
+
+    /**
+     * @return the number of locks currently held
+     */
+    public int holdCount() {
+        return holds.size();
+    }
+
+    /**
+     * @return the number of current holds longer than the threshold
+     */
+    public long longHoldCount() {
+        var now = nanoClock.getAsLong();
+        return holds.stream().filter(hold -> now - hold.acquiredAtNanos > thresholdNanos).count();
+    }
+
+    /**
+     * @return the age of the oldest current hold in milliseconds, or zero if no locks are held
+     */
+    public long oldestHoldAgeMillis() {
+        var now = nanoClock.getAsLong();
+        var oldestAgeNanos = holds.stream().mapToLong(hold -> now - hold.acquiredAtNanos).max().orElse(0);
+        return TimeUnit.NANOSECONDS.toMillis(oldestAgeNanos);
+    }
+
+    /**
+     * Start checking for long holds in a dedicated background thread.
+     */
+    @Override
+    public synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+
+        var threadFactory = new ThreadFactoryBuilder()
+                .setNameFormat("lock-hold-watchdog-%d")
+                .setDaemon(true)
+                .build();
+        executor = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        executor.scheduleWithFixedDelay(this::checkQuietly, checkIntervalMillis, checkIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop checking for long holds.
+     */
+    @Override
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    private void checkQuietly() {
+        try {
+            checkHolds();
+        } catch (Exception e) {
+            LOG.warn("Error checking lock holds", e);
+        }
+    }
+
+    /**
+     * Log each hold that has exceeded the threshold and has not been reported yet.
+     *
+     * @return the number of holds reported by this check
+     */
+    @VisibleForTesting
+    int checkHolds() {
+        var now = nanoClock.getAsLong();
+        var reportedCount = 0;
+        for (var hold : holds) {
+            var ageNanos = now - hold.acquiredAtNanos;
+            if (ageNanos > thresholdNanos && !hold.reported) {
+                hold.reported = true;
+                ++reportedCount;
+                LOG.warn("Lock {} has been held by thread {} for {} ms; owner stack trace:{}{}",
+                        hold.lockPath,
+                        hold.owner.getName(),
+                        TimeUnit.NANOSECONDS.toMillis(ageNanos),
+                        System.lineSeparator(),
+                        formatStackTrace(hold.owner.getStackTrace()));
+            }
+        }
+        return reportedCount;
+    }
+
+    private static String formatStackTrace(StackTraceElement[] stackTrace) {
+        return Arrays.stream(stackTrace)
+                .map(element -> "\tat " + element)
+                .collect(joining(System.lineSeparator()));
+    }
+}
@@ -0,0 +1,99 @@
+package org.kiwiproject.curator;
+
+import static org.kiwiproject.base.KiwiPreconditions.requireNotNull;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.recipes.cache.CuratorCache;
+import org.apache.curator.framework.recipes.cache.CuratorCacheListener;
+import org.apache.curator.utils.ZKPaths;
+
+import java.io.Closeable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A local, watch-maintained view of the participant nodes of lock paths, used to check whether a lock is
+ * obviously held without writing to ZooKeeper.
+ * <p>
+ * The first time a lock path is checked, a {@link CuratorCache} is started for it. From then on, checks are served
+ * from memory, and ZooKeeper watches keep the view up to date. Because the view is updated asynchronously, it may
+ * briefly report a lock as held after it has been released, or as free after it has been acquired. Callers must
+ * therefore still acquire the lock when the view reports no participants.
+ * <p>
+ * A cache is kept for every lock path that has been checked until this view is closed, so this is intended for a
+ * small, stable set of lock paths, such as those guarding scheduled jobs.
+ */
+@Slf4j
+public class LockParticipantsView implements Closeable {
+
+    @Getter
+    private final CuratorFramework client;
+
+    private final ConcurrentMap<String, PathView> views = new ConcurrentHashMap<>();
+    private volatile boolean closed;
+
+    private static class PathView {
+        final CuratorCache cache;
+        volatile boolean initialized;
+
+        PathView(CuratorFramework client, String lockPath) {
+            cache = CuratorCache.build(client, lockPath);
+            cache.listenable().addListener(CuratorCacheListener.builder()
+                    .forInitialized(() -> initialized = true)
+                    .build());
+        }
+    }
+
+    /**
+     * Create a new instance.
+     *
+     * @param client Curator client
+     */
+    public LockParticipantsView(CuratorFramework client) {
+        this.client = requireNotNull(client, "client must not be null");
+    }
+
+    /**
+     * Check whether the local view of the given lock path contains any participant nodes. This counts all
+     * participants, including any in this process.
+     * <p>
+     * Returns {@code false} if the view of the lock path is not yet initialized, or if this view has been closed,
+     * since in those cases it is not known whether there are participants.
+     *
+     * @param lockPath the ZooKeeper base lock path
+     * @return true if there are known to be participants, otherwise false
+     */
+    public boolean hasParticipants(String lockPath) {
+        if (closed) {
+            return false;
+        }
+
+        var view = views.computeIfAbsent(lockPath, this::newPathView);
+        if (closed) {
+            view.cache.close();
+            return false;
+        }
+
+        return view.initialized && view.cache.stream()
+                .anyMatch(childData -> lockPath.equals(ZKPaths.getPathAndNode(childData.getPath()).getPath()));
+    }
+
+    private PathView newPathView(String lockPath) {
+        LOG.trace("Starting participants view of lock path {}", lockPath);
+        var view = new PathView(client, lockPath);
+        view.cache.start();
+        return view;
+    }
+
+    /**
+     * Stop maintaining the views of all lock paths.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        views.values().forEach(view -> view.cache.close());
+        views.clear();
+    }
+}
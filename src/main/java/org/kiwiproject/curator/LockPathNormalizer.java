@@ -0,0 +1,114 @@
+package org.kiwiproject.curator;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.stream.Collectors.joining;
+import static org.kiwiproject.base.KiwiPreconditions.checkArgumentNotNull;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Maps concrete lock paths to a bounded set of path templates, so that per-path lock metrics do not have unbounded
+ * cardinality.
+ * <p>
+ * A lock path is normalized as follows:
+ * <ol>
+ *     <li>If it matches one of the configured templates, e.g. {@code /locks/orders/{orderId}}, the template is used</li>
+ *     <li>Otherwise, any path segment that looks like an identifier (a number, a UUID, or a long hexadecimal string)
+ *     is replaced with {@value #ID_PLACEHOLDER}</li>
+ *     <li>If the maximum number of distinct normalized paths has been reached, and the result is not one of them,
+ *     {@value #OVERFLOW_PATH} is used</li>
+ * </ol>
+ */
+public class LockPathNormalizer {
+
+    /**
+     * Placeholder that replaces path segments which look like identifiers.
+     */
+    public static final String ID_PLACEHOLDER = "{id}";
+
+    /**
+     * The normalized path used once the maximum number of distinct paths has been reached.
+     */
+    public static final String OVERFLOW_PATH = "/_other";
+
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\{[^/}]+}");
+
+    private static final Pattern ID_SEGMENT = Pattern.compile(
+            "\\d+|\\p{XDigit}{8}-\\p{XDigit}{4}-\\p{XDigit}{4}-\\p{XDigit}{4}-\\p{XDigit}{12}|(?=.*\\d)\\p{XDigit}{16,}");
+
+    private record Template(String template, Pattern pattern) {
+    }
+
+    private final List<Template> templates;
+    private final int maxDistinctPaths;
+    private final Set<String> distinctPaths = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Create a new instance.
+     *
+     * @param pathTemplates    lock path templates, where each {@code {name}} placeholder matches one path segment
+     * @param maxDistinctPaths the maximum number of distinct normalized paths to return
+     */
+    public LockPathNormalizer(List<String> pathTemplates, int maxDistinctPaths) {
+        checkArgumentNotNull(pathTemplates, "pathTemplates must not be null");
+        checkArgument(maxDistinctPaths > 0, "maxDistinctPaths must be positive");
+        this.templates = pathTemplates.stream()
+                .map(template -> new Template(template, toPattern(template)))
+                .toList();
+        this.maxDistinctPaths = maxDistinctPaths;
+    }
+
+    @VisibleForTesting
+    static Pattern toPattern(String template) {
+        var regex = new StringBuilder();
+        var matcher = PLACEHOLDER.matcher(template);
+        var last = 0;
+        while (matcher.find()) {
+            regex.append(Pattern.quote(template.substring(last, matcher.start()))).append("[^/]+");
+            last = matcher.end();
+        }
+        regex.append(Pattern.quote(template.substring(last)));
+        return Pattern.compile(regex.toString());
+    }
+
+    /**
+     * Normalize the given lock path.
+     *
+     * @param lockPath the concrete lock path
+     * @return the normalized lock path
+     */
+    public String normalize(String lockPath) {
+        if (lockPath == null) {
+            return OVERFLOW_PATH;
+        }
+
+        var normalized = templates.stream()
+                .filter(template -> template.pattern().matcher(lockPath).matches())
+                .map(Template::template)
+                .findFirst()
+                .orElseGet(() -> replaceIdSegments(lockPath));
+
+        if (distinctPaths.contains(normalized)) {
+            return normalized;
+        }
+
+        if (distinctPaths.size() < maxDistinctPaths) {
+            distinctPaths.add(normalized);
+            return normalized;
+        }
+
+        return OVERFLOW_PATH;
+    }
+
+    private static String replaceIdSegments(String lockPath) {
+        return Arrays.stream(lockPath.split("/", -1))
+                .map(segment -> ID_SEGMENT.matcher(segment).matches() ? ID_PLACEHOLDER : segment)
+                .collect(joining("/"));
+    }
+}
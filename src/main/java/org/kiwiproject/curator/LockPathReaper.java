@@ -0,0 +1,192 @@
+package org.kiwiproject.curator;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static com.google.common.base.Preconditions.checkArgument;
+import static org.kiwiproject.base.KiwiPreconditions.checkArgumentNotEmpty;
+import static org.kiwiproject.base.KiwiPreconditions.requireNotNull;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.RateLimiter;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.dropwizard.lifecycle.Managed;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.utils.ZKPaths;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.data.Stat;
+import org.kiwiproject.curator.config.LockReaperConfig;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Deletes empty lock parent znodes under a set of lock roots, in the background.
+ * <p>
+ * Every distinct lock path leaves a parent znode behind once its last lock node is deleted. Curator creates these
+ * parents as container nodes, which ZooKeeper deletes on its own, but parents created by older clients, or by
+ * ZooKeeper servers without container support, remain forever. This reaper removes them.
+ * <p>
+ * The lock roots are scanned depth-first, in batches. Each batch examines at most a configured number of znodes,
+ * and continues from where the previous batch stopped, so a large tree is covered over several batches instead of
+ * in one burst. All ZooKeeper operations are rate limited. A znode is deleted only if it has no children, no data,
+ * is not ephemeral, and was created before the configured minimum age. Deletes are conditional on the znode
+ * version, and a znode that gains a child before it is deleted is left alone, so the reaper never removes a lock
+ * that is in use. A lock parent that becomes empty only after its children are deleted is removed by a later scan.
+ * <p>
+ * The number of deleted znodes is reported by the counter {@code org.kiwiproject.curator.LockPathReaper.reclaimed}.
+ */
+@Slf4j
+public class LockPathReaper implements Managed {
+
+    private final CuratorFramework client;
+    private final List<String> lockRoots;
+    private final Set<String> lockRootSet;
+    private final long intervalMillis;
+    private final long minAgeMillis;
+    private final int batchSize;
+    private final RateLimiter rateLimiter;
+    private final LongSupplier clock;
+    private final Counter reclaimed;
+    private final Deque<String> pending = new ArrayDeque<>();
+
+    private ScheduledExecutorService executor;
+
+    /**
+     * Create a new instance.
+     *
+     * @param client  Curator client
+     * @param config  the reaper configuration
+     * @param metrics the registry in which to record the number of reclaimed znodes
+     */
+    public LockPathReaper(CuratorFramework client, LockReaperConfig config, MetricRegistry metrics) {
+        this(client, config, metrics, System::currentTimeMillis);
+    }
+
+    @VisibleForTesting
+    LockPathReaper(CuratorFramework client, LockReaperConfig config, MetricRegistry metrics, LongSupplier clock) {
+        this.client = requireNotNull(client, "client must not be null");
+        requireNotNull(config, "config must not be null");
+        checkArgumentNotEmpty(config.getLockRoots(), "lockRoots must not be empty");
+        checkArgument(config.getBatchSize() > 0, "batchSize must be positive");
+        checkArgument(config.getMaxOperationsPerSecond() > 0, "maxOperationsPerSecond must be positive");
+
+        this.lockRoots = List.copyOf(config.getLockRoots());
+        this.lockRootSet = Set.copyOf(lockRoots);
+        this.intervalMillis = config.getInterval().toMilliseconds();
+        this.minAgeMillis = config.getMinAge().toMilliseconds();
+        this.batchSize = config.getBatchSize();
+        this.rateLimiter = RateLimiter.create(config.getMaxOperationsPerSecond());
+        this.clock = requireNotNull(clock, "clock must not be null");
+        requireNotNull(metrics, "metrics must not be null");
+        this.reclaimed = metrics.counter(name(LockPathReaper.class, "reclaimed"));
+    }
+
+    /**
+     * Start reaping in a dedicated background thread.
+     */
+    @Override
+    public synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+
+        var threadFactory = new ThreadFactoryBuilder()
+                .setNameFormat("lock-path-reaper-%d")
+                .setDaemon(true)
+                .build();
+        executor = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        executor.scheduleWithFixedDelay(this::reapQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        LOG.info("Started lock path reaper for lock roots {}", lockRoots);
+    }
+
+    /**
+     * Stop reaping.
+     */
+    @Override
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    /**
+     * @return the total number of znodes deleted by this reaper
+     */
+    public long reclaimedCount() {
+        return reclaimed.getCount();
+    }
+
+    private void reapQuietly() {
+        try {
+            reapNextBatch();
+        } catch (Exception e) {
+            LOG.warn("Error reaping lock paths; will try again in the next batch", e);
+        }
+    }
+
+    /**
+     * Examine the next batch of znodes, deleting the ones that are abandoned lock parents.
+     *
+     * @return the number of znodes deleted
+     * @throws Exception if ZooKeeper reports an unexpected error
+     */
+    @VisibleForTesting
+    synchronized int reapNextBatch() throws Exception {
+        if (pending.isEmpty()) {
+            lockRoots.forEach(pending::push);
+        }
+
+        var deleted = 0;
+        for (var examined = 0; examined < batchSize && !pending.isEmpty(); examined++) {
+            var path = pending.pop();
+            var stat = new Stat();
+            List<String> children;
+            try {
+                rateLimiter.acquire();
+                children = client.getChildren().storingStatIn(stat).forPath(path);
+            } catch (KeeperException.NoNodeException e) {
+                continue;
+            }
+
+            if (!children.isEmpty()) {
+                children.forEach(child -> pending.push(ZKPaths.makePath(path, child)));
+            } else if (isAbandoned(path, stat) && tryDelete(path, stat)) {
+                ++deleted;
+            }
+        }
+
+        if (deleted > 0) {
+            LOG.debug("Deleted {} abandoned lock paths", deleted);
+        }
+        return deleted;
+    }
+
+    private boolean isAbandoned(String path, Stat stat) {
+        return !lockRootSet.contains(path) &&
+                stat.getEphemeralOwner() == 0 &&
+                stat.getDataLength() == 0 &&
+                clock.getAsLong() - stat.getCtime() >= minAgeMillis;
+    }
+
+    private boolean tryDelete(String path, Stat stat) throws Exception {
+        try {
+            rateLimiter.acquire();
+            client.delete().withVersion(stat.getVersion()).forPath(path);
+            reclaimed.inc();
+            return true;
+        } catch (KeeperException.NotEmptyException | KeeperException.NoNodeException
+                 | KeeperException.BadVersionException e) {
+            LOG.trace("Did not delete {}; it changed after it was examined", path, e);
+            return false;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package org.kiwiproject.curator;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * A snapshot of the participants of one lock path, as reported by
+ * {@link CuratorLockHelper#inspectLockQueues(org.apache.curator.framework.CuratorFramework, java.util.Collection, Duration)}.
+ * <p>
+ * Participants are listed in lock order, so the first participant holds the lock (for read locks, several of the
+ * first participants may hold it).
+ *
+ * @param lockPath      the ZooKeeper base lock path
+ * @param participants  the participants, in lock order
+ * @param estimatedWait the estimated time a new participant would wait for the lock, if hold times are known
+ */
+public record LockQueueInfo(String lockPath, List<Participant> participants, Optional<Duration> estimatedWait) {
+
+    /**
+     * One participant of a lock.
+     *
+     * @param node  the full path of the participant's lock node, as returned by
+     *              {@link org.apache.curator.framework.recipes.locks.InterProcessMutex#getParticipantNodes()}
+     * @param owner the data of the lock node, which Curator sets to the IP address of the participant's host by
+     *              default, or an empty string if the lock node has no data
+     */
+    public record Participant(String node, String owner) {
+    }
+
+    /**
+     * @return the number of participants waiting behind the first one
+     */
+    public int queueDepth() {
+        return Math.max(0, participants.size() - 1);
+    }
+
+    /**
+     * @return the first participant, which holds the lock, or an empty Optional if there are no participants
+     */
+    public Optional<Participant> holder() {
+        return participants.stream().findFirst();
+    }
+}
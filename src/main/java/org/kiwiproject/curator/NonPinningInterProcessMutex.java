@@ -0,0 +1,159 @@
+package org.kiwiproject.curator;
+
+import static org.kiwiproject.base.KiwiPreconditions.requireNotNull;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.MoreObjects;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.recipes.locks.InterProcessLock;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * A re-entrant {@link InterProcessLock} that waits without holding or waiting on any Java monitor.
+ * <p>
+ * Curator's {@link org.apache.curator.framework.recipes.locks.InterProcessMutex} waits for its turn using
+ * {@link Object#wait(long)} inside a {@code synchronized} block. A virtual thread that waits that way pins its carrier
+ * thread for the entire wait. This lock is instead backed by an {@link AsyncInterProcessMutex}, and waits on the
+ * resulting {@link java.util.concurrent.CompletableFuture}, which parks the waiting thread using
+ * {@link java.util.concurrent.locks.LockSupport}. A parked virtual thread is unmounted from its carrier.
+ * <p>
+ * Because it implements {@link InterProcessLock}, instances can be used with all the {@code useLock} and
+ * {@code withLock} methods in {@link CuratorLockHelper}. Like {@code InterProcessMutex}, it can only be released by the
+ * thread that acquired it, and it uses the same lock node layout, so the two kinds of lock exclude each other.
+ */
+public class NonPinningInterProcessMutex implements InterProcessLock {
+
+    private final AsyncInterProcessMutex asyncMutex;
+    private final ConcurrentMap<Thread, LockData> threadData = new ConcurrentHashMap<>();
+
+    private static class LockData {
+        final AsyncInterProcessMutex.Lease lease;
+        int holdCount = 1;
+
+        LockData(AsyncInterProcessMutex.Lease lease) {
+            this.lease = lease;
+        }
+    }
+
+    /**
+     * Create a new instance.
+     *
+     * @param client   Curator client
+     * @param lockPath the ZooKeeper base lock path
+     */
+    public NonPinningInterProcessMutex(CuratorFramework client, String lockPath) {
+        this(new AsyncInterProcessMutex(client, lockPath));
+    }
+
+    @VisibleForTesting
+    NonPinningInterProcessMutex(AsyncInterProcessMutex asyncMutex) {
+        this.asyncMutex = requireNotNull(asyncMutex, "asyncMutex must not be null");
+    }
+
+    /**
+     * Acquire the lock, waiting as long as necessary.
+     *
+     * @throws Exception if ZooKeeper reports an error, or if the thread is interrupted
+     */
+    @Override
+    public void acquire() throws Exception {
+        acquire(asyncMutex::acquire);
+    }
+
+    /**
+     * Acquire the lock, waiting up to the given time. Re-acquiring a lock already held by the current thread
+     * succeeds immediately.
+     *
+     * @param time the timeout quantity
+     * @param unit the timeout unit
+     * @return true if the lock was acquired, false if the timeout expired
+     * @throws Exception if ZooKeeper reports an error, or if the thread is interrupted
+     */
+    @Override
+    public boolean acquire(long time, TimeUnit unit) throws Exception {
+        return acquire(() -> asyncMutex.acquire(time, unit));
+    }
+
+    /**
+     * Acquire the lock using the given acquisition, unless the current thread already holds it.
+     *
+     * @return true if the lock was acquired, false if the acquisition timed out
+     */
+    private boolean acquire(Supplier<CompletableFuture<AsyncInterProcessMutex.Lease>> acquisition) throws Exception {
+        var currentThread = Thread.currentThread();
+        var existing = threadData.get(currentThread);
+        if (existing != null) {
+            ++existing.holdCount;
+            return true;
+        }
+
+        var attempt = acquisition.get();
+        try {
+            var lease = attempt.get();
+            threadData.put(currentThread, new LockData(lease));
+            return true;
+        } catch (InterruptedException e) {
+            attempt.cancel(false);
+            // if the lock was granted just before the cancellation, give it back
+            attempt.thenAccept(AsyncInterProcessMutex.Lease::releaseAsync);
+            throw e;
+        } catch (ExecutionException e) {
+            var cause = e.getCause();
+            if (cause instanceof TimeoutException) {
+                return false;
+            } else if (cause instanceof Exception exception) {
+                throw exception;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Release the lock. The lock node is deleted once the current thread has released every acquisition it made.
+     *
+     * @throws IllegalMonitorStateException if the current thread does not hold this lock
+     * @throws Exception                    if ZooKeeper reports an error deleting the lock node
+     */
+    @Override
+    public void release() throws Exception {
+        var currentThread = Thread.currentThread();
+        var lockData = threadData.get(currentThread);
+        if (lockData == null) {
+            throw new IllegalMonitorStateException("You do not own the lock: " + asyncMutex.getBasePath());
+        }
+
+        if (--lockData.holdCount > 0) {
+            return;
+        }
+
+        threadData.remove(currentThread);
+        try {
+            lockData.lease.releaseAsync().get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception exception ? exception : e;
+        }
+    }
+
+    /**
+     * @return true if any thread in this JVM holds this lock
+     */
+    @Override
+    public boolean isAcquiredInThisProcess() {
+        return !threadData.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("basePath", asyncMutex.getBasePath())
+                .add("holders", threadData.size())
+                .toString();
+    }
+}
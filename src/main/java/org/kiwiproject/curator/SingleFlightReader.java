@@ -0,0 +1,227 @@
+package org.kiwiproject.curator;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static java.util.Objects.isNull;
+import static org.kiwiproject.base.KiwiPreconditions.requireNotBlank;
+import static org.kiwiproject.base.KiwiPreconditions.requireNotNull;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.zookeeper.data.Stat;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Reads znodes, merging concurrent identical reads into a single ZooKeeper request.
+ * <p>
+ * When a thread reads a path while an identical read (same operation and path) is in flight, it does not send a
+ * request of its own. Instead, it waits for the in-flight read and gets its result, or its exception. A read that
+ * starts after the in-flight one completed sends a new request. Coalesced callers of a failed read get the same
+ * exception instance as the caller that sent it.
+ * <p>
+ * Since the in-flight read may have been sent before the caller's read started, a coalesced result is only as recent
+ * as the start of the in-flight read, which may be older than a write the caller just completed. Callers that need to
+ * read their own writes should capture {@link System#nanoTime()} after the write completes, and pass it to the
+ * overloads that take {@code sentAfterNanos}. Those only join an in-flight read that was sent at or after that time,
+ * and otherwise send a request of their own, which later callers then join.
+ * <p>
+ * This flattens the spikes of identical requests caused by, e.g., many threads missing a cache at the same time.
+ * <p>
+ * The following meters are registered, with names starting with {@code org.kiwiproject.curator.SingleFlightReader}:
+ * <ul>
+ *     <li>{@code reads} - reads sent to ZooKeeper</li>
+ *     <li>{@code coalesced-reads} - reads that shared the result of an in-flight read</li>
+ * </ul>
+ */
+public class SingleFlightReader {
+
+    private enum Operation {
+        GET_DATA, GET_CHILDREN, CHECK_EXISTS
+    }
+
+    private record Key(Operation operation, String path) {
+    }
+
+    private record InFlightRead(long sentAtNanos, CompletableFuture<Object> future) {
+
+        boolean sentAtOrAfter(long nanos) {
+            return sentAtNanos - nanos >= 0;
+        }
+    }
+
+    @FunctionalInterface
+    private interface Read<T> {
+        T read() throws Exception;
+    }
+
+    private static final OptionalLong ANY_IN_FLIGHT_READ = OptionalLong.empty();
+
+    private final CuratorFramework client;
+    private final Map<Key, InFlightRead> inFlight = new ConcurrentHashMap<>();
+    private final Meter reads;
+    private final Meter coalescedReads;
+
+    /**
+     * Create a new instance.
+     *
+     * @param client  Curator client
+     * @param metrics the registry in which to register meters
+     */
+    public SingleFlightReader(CuratorFramework client, MetricRegistry metrics) {
+        this.client = requireNotNull(client, "client must not be null");
+        requireNotNull(metrics, "metrics must not be null");
+        reads = metrics.meter(name(SingleFlightReader.class, "reads"));
+        coalescedReads = metrics.meter(name(SingleFlightReader.class, "coalesced-reads"));
+    }
+
+    /**
+     * @return the Curator client
+     */
+    public CuratorFramework getClient() {
+        return client;
+    }
+
+    /**
+     * Get the data of a znode, like {@code client.getData().forPath(path)}.
+     *
+     * @param path the path of the znode
+     * @return a copy of the data, which the caller may modify
+     * @throws Exception if the read fails, e.g. {@link org.apache.zookeeper.KeeperException.NoNodeException}
+     */
+    public byte[] getData(String path) throws Exception {
+        byte[] data = read(Operation.GET_DATA, path, ANY_IN_FLIGHT_READ, () -> client.getData().forPath(path));
+        return data == null ? null : data.clone();
+    }
+
+    /**
+     * Get the data of a znode, like {@link #getData(String)}, but only sharing a read sent at or after the given time.
+     *
+     * @param path           the path of the znode
+     * @param sentAfterNanos a {@link System#nanoTime()} value, e.g. taken after the caller's last write completed
+     * @return a copy of the data, which the caller may modify
+     * @throws Exception if the read fails, e.g. {@link org.apache.zookeeper.KeeperException.NoNodeException}
+     */
+    public byte[] getData(String path, long sentAfterNanos) throws Exception {
+        byte[] data = read(Operation.GET_DATA, path, sentAfterNanos, () -> client.getData().forPath(path));
+        return data == null ? null : data.clone();
+    }
+
+    /**
+     * Get the names of the children of a znode, like {@code client.getChildren().forPath(path)}.
+     *
+     * @param path the path of the znode
+     * @return an unmodifiable list of the names of the children
+     * @throws Exception if the read fails, e.g. {@link org.apache.zookeeper.KeeperException.NoNodeException}
+     */
+    public List<String> getChildren(String path) throws Exception {
+        return read(Operation.GET_CHILDREN, path, ANY_IN_FLIGHT_READ,
+                () -> List.copyOf(client.getChildren().forPath(path)));
+    }
+
+    /**
+     * Get the names of the children of a znode, like {@link #getChildren(String)}, but only sharing a read sent at or
+     * after the given time.
+     *
+     * @param path           the path of the znode
+     * @param sentAfterNanos a {@link System#nanoTime()} value, e.g. taken after the caller's last write completed
+     * @return an unmodifiable list of the names of the children
+     * @throws Exception if the read fails, e.g. {@link org.apache.zookeeper.KeeperException.NoNodeException}
+     */
+    public List<String> getChildren(String path, long sentAfterNanos) throws Exception {
+        return read(Operation.GET_CHILDREN, path, sentAfterNanos,
+                () -> List.copyOf(client.getChildren().forPath(path)));
+    }
+
+    /**
+     * Get the stat of a znode, like {@code client.checkExists().forPath(path)}.
+     *
+     * @param path the path of the znode
+     * @return the stat, or an empty Optional if the znode does not exist
+     * @throws Exception if the read fails
+     * @implNote The same {@link Stat} instance is shared by coalesced callers, so it must not be modified.
+     */
+    public Optional<Stat> checkExists(String path) throws Exception {
+        return read(Operation.CHECK_EXISTS, path, ANY_IN_FLIGHT_READ,
+                () -> Optional.ofNullable(client.checkExists().forPath(path)));
+    }
+
+    /**
+     * Get the stat of a znode, like {@link #checkExists(String)}, but only sharing a read sent at or after the given
+     * time.
+     *
+     * @param path           the path of the znode
+     * @param sentAfterNanos a {@link System#nanoTime()} value, e.g. taken after the caller's last write completed
+     * @return the stat, or an empty Optional if the znode does not exist
+     * @throws Exception if the read fails
+     * @implNote The same {@link Stat} instance is shared by coalesced callers, so it must not be modified.
+     */
+    public Optional<Stat> checkExists(String path, long sentAfterNanos) throws Exception {
+        return read(Operation.CHECK_EXISTS, path, sentAfterNanos,
+                () -> Optional.ofNullable(client.checkExists().forPath(path)));
+    }
+
+    /**
+     * @return the number of reads currently in flight
+     */
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T read(Operation operation, String path, OptionalLong sentAfterNanos, Read<T> read) throws Exception {
+        requireNotBlank(path, "path must not be blank");
+
+        var key = new Key(operation, path);
+        var own = new InFlightRead(System.nanoTime(), new CompletableFuture<>());
+        while (true) {
+            var existing = inFlight.putIfAbsent(key, own);
+            if (isNull(existing)) {
+                break;
+            }
+            if (sentAfterNanos.isEmpty() || existing.sentAtOrAfter(sentAfterNanos.getAsLong())) {
+                coalescedReads.mark();
+                return (T) await(existing.future());
+            }
+
+            // The in-flight read may be older than the caller's write, so replace it with our own; callers that
+            // already joined it still get its result
+            if (inFlight.replace(key, existing, own)) {
+                break;
+            }
+        }
+
+        reads.mark();
+        try {
+            var result = read.read();
+            inFlight.remove(key, own);
+            own.future().complete(result);
+            return result;
+        } catch (Throwable t) {
+            inFlight.remove(key, own);
+            own.future().completeExceptionally(t);
+            throw t;
+        }
+    }
+
+    private <T> T read(Operation operation, String path, long sentAfterNanos, Read<T> read) throws Exception {
+        return read(operation, path, OptionalLong.of(sentAfterNanos), read);
+    }
+
+    private static Object await(CompletableFuture<Object> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package org.kiwiproject.curator.cache;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static org.kiwiproject.base.KiwiPreconditions.requireNotBlank;
+import static org.kiwiproject.base.KiwiPreconditions.requireNotNull;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.annotations.VisibleForTesting;
+import io.dropwizard.lifecycle.Managed;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.recipes.cache.ChildData;
+import org.apache.curator.framework.state.ConnectionState;
+import org.apache.curator.framework.state.ConnectionStateListener;
+import org.kiwiproject.curator.exception.CuratorStartupFailureException;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Manages {@link ZnodeMirror}s, which keep in-memory copies of znodes or subtrees that are read often, e.g.
+ * configuration, so that reads do not need a round-trip to ZooKeeper.
+ * <p>
+ * Mirrors can be declared before or after the manager starts. On start, all declared mirrors are started, and start
+ * blocks until their initial load completes, or fails if it does not complete within the initial load timeout. A
+ * mirror declared after the manager started is started, and waited for, when it is declared. Once stopped, the
+ * manager cannot be restarted, and no more mirrors can be declared.
+ * <p>
+ * When the client's connection is suspended or lost, all mirrors are marked stale. Once it is reconnected, the
+ * underlying caches resynchronize, and each mirror is marked in sync once its cache is seen to have done so.
+ * <p>
+ * If created to decompress, mirrors decompress znode data using the client's compression provider, which should then
+ * be one that reads uncompressed data unchanged, such as
+ * {@link org.kiwiproject.curator.compression.ZnodeCompressionProvider}.
+ *
+ * @see org.kiwiproject.curator.health.CuratorCacheHealthCheck
+ */
+@Slf4j
+public class CuratorCacheManager implements Managed {
+
+    private final CuratorFramework client;
+    private final MetricRegistry metrics;
+    private final Duration initialLoadTimeout;
+    private final boolean decompress;
+    private final LongSupplier clock;
+    private final Map<String, ZnodeMirror> mirrors = new ConcurrentHashMap<>();
+    private final ConnectionStateListener connectionStateListener = this::connectionStateChanged;
+
+    private boolean started;
+    private boolean stopped;
+
+    /**
+     * Create a new instance.
+     *
+     * @param client             Curator client
+     * @param metrics            the registry in which to register the metrics of each mirror
+     * @param initialLoadTimeout the maximum time to wait for the initial load of mirrors
+     */
+    public CuratorCacheManager(CuratorFramework client, MetricRegistry metrics, Duration initialLoadTimeout) {
+        this(client, metrics, initialLoadTimeout, false);
+    }
+
+    /**
+     * Create a new instance that optionally decompresses data using the client's
+     * {@link org.apache.curator.framework.api.CompressionProvider}.
+     *
+     * @param client             Curator client
+     * @param metrics            the registry in which to register the metrics of each mirror
+     * @param initialLoadTimeout the maximum time to wait for the initial load of mirrors
+     * @param decompress         whether to decompress the data of mirrored znodes
+     */
+    public CuratorCacheManager(CuratorFramework client,
+                               MetricRegistry metrics,
+                               Duration initialLoadTimeout,
+                               boolean decompress) {
+        this(client, metrics, initialLoadTimeout, decompress, System::currentTimeMillis);
+    }
+
+    @VisibleForTesting
+    CuratorCacheManager(CuratorFramework client,
+                        MetricRegistry metrics,
+                        Duration initialLoadTimeout,
+                        boolean decompress,
+                        LongSupplier clock) {
+        this.client = requireNotNull(client, "client must not be null");
+        this.decompress = decompress;
+        this.metrics = requireNotNull(metrics, "metrics must not be null");
+        checkArgument(initialLoadTimeout.toMillis() > 0, "initialLoadTimeout must be at least one millisecond");
+        this.initialLoadTimeout = initialLoadTimeout;
+        this.clock = requireNotNull(clock, "clock must not be null");
+    }
+
+    /**
+     * Mirror a znode and all znodes under it.
+     *
+     * @param path the path of the root of the subtree
+     * @return the mirror
+     * @throws IllegalArgumentException if the path is already mirrored
+     * @throws IllegalStateException if the manager has been stopped
+     * @throws CuratorStartupFailureException if the manager is started, and the initial load does not complete in time
+     */
+    public ZnodeMirror mirrorSubtree(String path) {
+        return mirror(path, true);
+    }
+
+    /**
+     * Mirror a single znode.
+     *
+     * @param path the path of the znode
+     * @return the mirror
+     * @throws IllegalArgumentException if the path is already mirrored
+     * @throws IllegalStateException if the manager has been stopped
+     * @throws CuratorStartupFailureException if the manager is started, and the initial load does not complete in time
+     */
+    public ZnodeMirror mirrorZnode(String path) {
+        return mirror(path, false);
+    }
+
+    private synchronized ZnodeMirror mirror(String path, boolean subtree) {
+        requireNotBlank(path, "path must not be blank");
+        checkArgument(!mirrors.containsKey(path), "%s is already mirrored", path);
+        checkState(!stopped, "CuratorCacheManager has been stopped");
+
+        var mirror = new ZnodeMirror(client, path, subtree, decompress, metrics, clock);
+        mirrors.put(path, mirror);
+        if (started) {
+            try {
+                startAndAwait(List.of(mirror));
+            } catch (CuratorStartupFailureException e) {
+                mirrors.remove(path);
+                mirror.removeMetrics();
+                throw e;
+            }
+        }
+        return mirror;
+    }
+
+    /**
+     * @return the mirrors, keyed by path
+     */
+    public Map<String, ZnodeMirror> getMirrors() {
+        return Map.copyOf(mirrors);
+    }
+
+    /**
+     * Find the mirror that covers a path. If more than one does, the one with the longest path is returned.
+     *
+     * @param znodePath the path of a znode
+     * @return the mirror, or an empty Optional if no mirror covers the path
+     */
+    public Optional<ZnodeMirror> findMirror(String znodePath) {
+        return mirrors.values().stream()
+                .filter(mirror -> mirror.covers(znodePath))
+                .max(Comparator.comparingInt(mirror -> mirror.getPath().length()));
+    }
+
+    /**
+     * Get a znode from memory.
+     *
+     * @param znodePath the path of the znode
+     * @return the znode's data and stat, or an empty Optional if the znode does not exist
+     * @throws IllegalArgumentException if no mirror covers the path
+     */
+    public Optional<ChildData> get(String znodePath) {
+        return requireMirror(znodePath).get(znodePath);
+    }
+
+    /**
+     * Get the data of a znode from memory.
+     *
+     * @param znodePath the path of the znode
+     * @return the znode's data, or an empty Optional if the znode does not exist
+     * @throws IllegalArgumentException if no mirror covers the path
+     */
+    public Optional<byte[]> getData(String znodePath) {
+        return requireMirror(znodePath).getData(znodePath);
+    }
+
+    private ZnodeMirror requireMirror(String znodePath) {
+        return findMirror(znodePath)
+                .orElseThrow(() -> new IllegalArgumentException(znodePath + " is not mirrored by any cache"));
+    }
+
+    /**
+     * Start all declared mirrors, and wait for their initial load.
+     *
+     * @throws CuratorStartupFailureException if the initial load does not complete within the timeout
+     * @throws IllegalStateException if the manager has been stopped, since closed caches cannot be restarted
+     */
+    @Override
+    public synchronized void start() {
+        checkState(!stopped, "CuratorCacheManager cannot be restarted after it has been stopped");
+        if (started) {
+            return;
+        }
+
+        // Listen before loading, so that a connection lost during the initial load leaves the mirrors stale
+        client.getConnectionStateListenable().addListener(connectionStateListener);
+        try {
+            startAndAwait(List.copyOf(mirrors.values()));
+        } catch (CuratorStartupFailureException e) {
+            client.getConnectionStateListenable().removeListener(connectionStateListener);
+            throw e;
+        }
+        started = true;
+    }
+
+    /**
+     * Start the mirrors, and wait for their initial load. If any is not loaded in time, all of them are closed.
+     */
+    private void startAndAwait(List<ZnodeMirror> toStart) {
+        toStart.forEach(ZnodeMirror::start);
+        try {
+            awaitInitialized(toStart);
+        } catch (CuratorStartupFailureException e) {
+            toStart.forEach(ZnodeMirror::close);
+            throw e;
+        }
+    }
+
+    private void awaitInitialized(List<ZnodeMirror> toStart) {
+        var deadlineNanos = System.nanoTime() + initialLoadTimeout.toNanos();
+        for (var mirror : toStart) {
+            try {
+                var remainingNanos = deadlineNanos - System.nanoTime();
+                if (!mirror.awaitInitialized(remainingNanos, TimeUnit.NANOSECONDS)) {
+                    throw new CuratorStartupFailureException(
+                            "Cache of " + mirror.getPath() + " was not loaded within " + initialLoadTimeout);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CuratorStartupFailureException("Interrupted waiting for cache of " + mirror.getPath(), e);
+            }
+        }
+    }
+
+    /**
+     * Stop all mirrors. The manager cannot be restarted afterward.
+     */
+    @Override
+    public synchronized void stop() {
+        if (!started) {
+            return;
+        }
+
+        client.getConnectionStateListenable().removeListener(connectionStateListener);
+        mirrors.values().forEach(ZnodeMirror::close);
+        started = false;
+        stopped = true;
+    }
+
+    @VisibleForTesting
+    void connectionStateChanged(CuratorFramework ignoredClient, ConnectionState newState) {
+        switch (newState) {
+            case SUSPENDED, LOST -> {
+                LOG.warn("Connection {}; caches {} may be stale", newState, mirrors.keySet());
+                mirrors.values().forEach(ZnodeMirror::markStale);
+            }
+            case CONNECTED, RECONNECTED -> mirrors.values().forEach(ZnodeMirror::resync);
+            default -> LOG.trace("Ignoring connection state {}", newState);
+        }
+    }
+}
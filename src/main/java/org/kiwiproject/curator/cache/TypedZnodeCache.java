@@ -0,0 +1,153 @@
+package org.kiwiproject.curator.cache;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static org.kiwiproject.base.KiwiPreconditions.requireNotNull;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import com.google.common.annotations.VisibleForTesting;
+import org.apache.curator.framework.recipes.cache.ChildData;
+import org.apache.curator.framework.recipes.cache.CuratorCacheListener;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Decodes the JSON data of znodes mirrored by a {@link ZnodeMirror} into objects of type {@code T}, once per version
+ * of each znode.
+ * <p>
+ * The decoded object of each znode is kept along with the znode's creation transaction ID and data version, taken
+ * from its {@link org.apache.zookeeper.data.Stat}. Reads of an unchanged znode return the same object without
+ * decoding it again, so {@code T} should be immutable, e.g. a record. A znode that was deleted and re-created is
+ * decoded again, even if its version is the same.
+ * <p>
+ * If decoding a version fails, the failure is counted and logged once, and the last successfully decoded value of
+ * the znode keeps being returned until a later version decodes. A value decoded before the znode was deleted and
+ * re-created is not kept. Decoded values of deleted znodes are discarded when the mirror sees the deletion.
+ * <p>
+ * The following meters are registered, with names starting with
+ * {@code org.kiwiproject.curator.cache.TypedZnodeCache.<path>}:
+ * <ul>
+ *     <li>{@code decodes} - versions decoded successfully</li>
+ *     <li>{@code decode-failures} - versions that could not be decoded</li>
+ * </ul>
+ *
+ * @param <T> the type of the decoded objects
+ */
+@Slf4j
+public class TypedZnodeCache<T> {
+
+    private final ZnodeMirror mirror;
+    private final ObjectMapper mapper;
+    private final JavaType type;
+    private final Meter decodes;
+    private final Meter decodeFailures;
+    private final Map<String, Entry<T>> entries = new ConcurrentHashMap<>();
+
+    private record Entry<T>(long czxid, int version, T value) {
+
+        boolean isFor(ChildData data) {
+            return czxid == data.getStat().getCzxid() && version == data.getStat().getVersion();
+        }
+    }
+
+    /**
+     * Create a new instance that decodes znodes into instances of a class.
+     *
+     * @param mirror  the mirror of the znodes
+     * @param mapper  the mapper used to decode znode data
+     * @param type    the class of the decoded objects
+     * @param metrics the registry in which to register meters
+     */
+    public TypedZnodeCache(ZnodeMirror mirror, ObjectMapper mapper, Class<T> type, MetricRegistry metrics) {
+        this(mirror, mapper, (Type) requireNotNull(type, "type must not be null"), metrics);
+    }
+
+    /**
+     * Create a new instance that decodes znodes into instances of a generic type.
+     *
+     * @param mirror  the mirror of the znodes
+     * @param mapper  the mapper used to decode znode data
+     * @param type    the type of the decoded objects
+     * @param metrics the registry in which to register meters
+     */
+    public TypedZnodeCache(ZnodeMirror mirror, ObjectMapper mapper, TypeReference<T> type, MetricRegistry metrics) {
+        this(mirror, mapper, requireNotNull(type, "type must not be null").getType(), metrics);
+    }
+
+    private TypedZnodeCache(ZnodeMirror mirror, ObjectMapper mapper, Type type, MetricRegistry metrics) {
+        this.mirror = requireNotNull(mirror, "mirror must not be null");
+        this.mapper = requireNotNull(mapper, "mapper must not be null");
+        this.type = mapper.constructType(type);
+        requireNotNull(metrics, "metrics must not be null");
+
+        var metricsPrefix = name(TypedZnodeCache.class, mirror.getPath());
+        decodes = metrics.meter(name(metricsPrefix, "decodes"));
+        decodeFailures = metrics.meter(name(metricsPrefix, "decode-failures"));
+
+        mirror.addListener(CuratorCacheListener.builder()
+                .forDeletes(data -> entries.remove(data.getPath()))
+                .build());
+    }
+
+    /**
+     * @return the mirror of the znodes
+     */
+    public ZnodeMirror getMirror() {
+        return mirror;
+    }
+
+    /**
+     * Get the decoded value of a znode.
+     *
+     * @param path the path of the znode
+     * @return the decoded value, which is the last one decoded successfully if the current version could not be
+     * decoded; an empty Optional if the znode does not exist, or no version of it has been decoded successfully
+     * @throws IllegalArgumentException if the path is not covered by the mirror
+     */
+    public Optional<T> get(String path) {
+        var data = mirror.get(path);
+        if (data.isEmpty()) {
+            entries.remove(path);
+            return Optional.empty();
+        }
+
+        var current = data.get();
+        var entry = entries.get(path);
+        if (entry == null || !entry.isFor(current)) {
+            entry = entries.compute(path, (ignoredPath, existing) -> decode(path, current, existing));
+        }
+        return Optional.ofNullable(entry.value());
+    }
+
+    private Entry<T> decode(String path, ChildData data, Entry<T> existing) {
+        if (existing != null && existing.isFor(data)) {
+            return existing;
+        }
+
+        var stat = data.getStat();
+        try {
+            T value = mapper.readValue(data.getData(), type);
+            decodes.mark();
+            return new Entry<>(stat.getCzxid(), stat.getVersion(), value);
+        } catch (IOException | RuntimeException e) {
+            decodeFailures.mark();
+            LOG.warn("Unable to decode version {} of {} as {}; keeping last good value",
+                    stat.getVersion(), path, type, e);
+            var lastGood = existing != null && existing.czxid() == stat.getCzxid() ? existing.value() : null;
+            return new Entry<>(stat.getCzxid(), stat.getVersion(), lastGood);
+        }
+    }
+
+    @VisibleForTesting
+    boolean hasDecoded(String path) {
+        return entries.containsKey(path);
+    }
+}
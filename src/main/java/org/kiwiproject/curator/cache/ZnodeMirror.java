@@ -0,0 +1,323 @@
+package org.kiwiproject.curator.cache;
+
+import static com.codahale.metrics.MetricRegistry.name;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.annotations.VisibleForTesting;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.recipes.cache.ChildData;
+import org.apache.curator.framework.recipes.cache.CuratorCache;
+import org.apache.curator.framework.recipes.cache.CuratorCacheListener;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.data.Stat;
+
+import java.util.EnumSet;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * An in-memory mirror of a znode, or of a subtree of znodes, kept up to date by a {@link CuratorCache}.
+ * <p>
+ * Reads are served from memory, without a round-trip to ZooKeeper. Instances are created and started by a
+ * {@link CuratorCacheManager}.
+ * <p>
+ * The following metrics are registered, with names starting with
+ * {@code org.kiwiproject.curator.cache.CuratorCacheManager.<path>}:
+ * <ul>
+ *     <li>{@code hits} - meter of reads of znodes present in the mirror</li>
+ *     <li>{@code misses} - meter of reads of znodes absent from the mirror</li>
+ *     <li>{@code staleness-millis} - gauge of how long the mirror has not been known to be in sync, which is zero
+ *     while it is loaded and connected</li>
+ * </ul>
+ * <p>
+ * After the connection is re-established, the mirror stays stale until its cache has been seen to resynchronize,
+ * that is, until the stats of all cached znodes read from ZooKeeper match the cached ones. For a subtree, this reads
+ * every cached znode once per reconnect, and again after each cache event until they match.
+ */
+@Slf4j
+public class ZnodeMirror {
+
+    private final CuratorFramework client;
+    private final String path;
+    private final boolean subtree;
+    private final CuratorCache cache;
+    private final CountDownLatch initialized = new CountDownLatch(1);
+    private final LongSupplier clock;
+    private final Meter hits;
+    private final Meter misses;
+    private final MetricRegistry metrics;
+    private final String metricsPrefix;
+
+    /**
+     * When the mirror became stale, or zero if it is in sync.
+     */
+    private volatile long staleSinceMillis;
+
+    /**
+     * Whether the connection was re-established, and the mirror is waiting to see its cache resynchronize.
+     */
+    private boolean resyncPending;
+
+    /**
+     * Whether the connection was suspended or lost, and the mirror has not been seen to resynchronize since.
+     */
+    private boolean disconnected;
+
+    /**
+     * Incremented by each resync check, so that the results of a superseded check are ignored.
+     */
+    private long probeGeneration;
+
+    ZnodeMirror(CuratorFramework client,
+                String path,
+                boolean subtree,
+                boolean decompress,
+                MetricRegistry metrics,
+                LongSupplier clock) {
+        this.client = client;
+        this.path = path;
+        this.subtree = subtree;
+        this.clock = clock;
+        this.staleSinceMillis = clock.getAsLong();
+
+        var options = EnumSet.noneOf(CuratorCache.Options.class);
+        if (!subtree) {
+            options.add(CuratorCache.Options.SINGLE_NODE_CACHE);
+        }
+        if (decompress) {
+            options.add(CuratorCache.Options.COMPRESSED_DATA);
+        }
+        cache = CuratorCache.build(client, path, options.toArray(CuratorCache.Options[]::new));
+        cache.listenable().addListener(CuratorCacheListener.builder()
+                .forInitialized(this::markInitialized)
+                .forAll((type, oldData, data) -> cacheChanged())
+                .build());
+
+        this.metrics = metrics;
+        this.metricsPrefix = name(CuratorCacheManager.class, path);
+        hits = metrics.meter(name(metricsPrefix, "hits"));
+        misses = metrics.meter(name(metricsPrefix, "misses"));
+        metrics.register(name(metricsPrefix, "staleness-millis"), (Gauge<Long>) this::stalenessMillis);
+    }
+
+    /**
+     * @return the path of the mirrored znode, or of the root of the mirrored subtree
+     */
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * @return true if the mirror contains the whole subtree under its path, false if it contains only the znode
+     */
+    public boolean isSubtree() {
+        return subtree;
+    }
+
+    /**
+     * @return true once the initial load of the mirror has completed
+     */
+    public boolean isInitialized() {
+        return initialized.getCount() == 0;
+    }
+
+    /**
+     * @return how long, in milliseconds, the mirror has not been known to be in sync with ZooKeeper; zero while it is
+     * loaded and the client is connected
+     */
+    public long stalenessMillis() {
+        var staleSince = staleSinceMillis;
+        return staleSince == 0 ? 0 : Math.max(0, clock.getAsLong() - staleSince);
+    }
+
+    /**
+     * @param znodePath the path of the znode, which must be the mirror's path or, for subtrees, under it
+     * @return true if the mirror contains the path
+     */
+    public boolean covers(String znodePath) {
+        return path.equals(znodePath) || (subtree && znodePath.startsWith(path.endsWith("/") ? path : path + "/"));
+    }
+
+    /**
+     * Get a znode from memory.
+     *
+     * @param znodePath the path of the znode
+     * @return the znode's data and stat, or an empty Optional if the znode does not exist
+     * @throws IllegalArgumentException if the path is not covered by this mirror
+     */
+    public Optional<ChildData> get(String znodePath) {
+        if (!covers(znodePath)) {
+            throw new IllegalArgumentException(znodePath + " is not mirrored by the cache of " + path);
+        }
+
+        var data = cache.get(znodePath);
+        (data.isPresent() ? hits : misses).mark();
+        return data;
+    }
+
+    /**
+     * Get the data of a znode from memory.
+     *
+     * @param znodePath the path of the znode
+     * @return the znode's data, or an empty Optional if the znode does not exist
+     * @throws IllegalArgumentException if the path is not covered by this mirror
+     */
+    public Optional<byte[]> getData(String znodePath) {
+        return get(znodePath).map(ChildData::getData);
+    }
+
+    /**
+     * Add a listener for changes to the mirrored znodes, which is called after the mirror has been updated.
+     */
+    void addListener(CuratorCacheListener listener) {
+        cache.listenable().addListener(listener);
+    }
+
+    void start() {
+        LOG.info("Starting cache of {} ({})", path, subtree ? "subtree" : "single znode");
+        cache.start();
+    }
+
+    boolean awaitInitialized(long timeout, TimeUnit unit) throws InterruptedException {
+        return initialized.await(timeout, unit);
+    }
+
+    void close() {
+        cache.close();
+    }
+
+    /**
+     * Remove the metrics of this mirror, so that the path can be mirrored again.
+     */
+    void removeMetrics() {
+        metrics.remove(name(metricsPrefix, "hits"));
+        metrics.remove(name(metricsPrefix, "misses"));
+        metrics.remove(name(metricsPrefix, "staleness-millis"));
+    }
+
+    /**
+     * Called when the connection is suspended or lost. The mirror stays stale until {@link #resync()} has seen its
+     * cache resynchronize.
+     */
+    synchronized void markStale() {
+        disconnected = true;
+        resyncPending = false;
+        if (staleSinceMillis == 0) {
+            staleSinceMillis = clock.getAsLong();
+        }
+    }
+
+    /**
+     * Called when the connection is re-established. The mirror becomes in sync once the stats of every cached znode,
+     * read from ZooKeeper, match the cached ones. Comparing the mzxid catches changed data and comparing the pzxid
+     * catches created or deleted children, so a match means the whole mirror is up to date. On a mismatch, the
+     * check is repeated after each cache event until it matches.
+     */
+    void resync() {
+        if (beginResync()) {
+            probe();
+        }
+    }
+
+    @VisibleForTesting
+    synchronized boolean beginResync() {
+        if (!isInitialized()) {
+            // The initial load completes after the reconnect, so it is in sync when it completes
+            disconnected = false;
+            return false;
+        }
+        if (staleSinceMillis == 0) {
+            return false;
+        }
+        resyncPending = true;
+        return true;
+    }
+
+    private void probe() {
+        long generation;
+        synchronized (this) {
+            if (!resyncPending) {
+                return;
+            }
+            generation = ++probeGeneration;
+        }
+
+        var cached = cache.stream().toList();
+        if (cached.isEmpty()) {
+            probe(path, null, matched -> probeCompleted(generation, matched));
+            return;
+        }
+
+        var remaining = new AtomicInteger(cached.size());
+        var allMatched = new AtomicBoolean(true);
+        for (var data : cached) {
+            probe(data.getPath(), data.getStat(), matched -> {
+                if (!matched) {
+                    allMatched.set(false);
+                }
+                if (remaining.decrementAndGet() == 0) {
+                    probeCompleted(generation, allMatched.get());
+                }
+            });
+        }
+    }
+
+    private void probe(String znodePath, Stat cachedStat, Consumer<Boolean> callback) {
+        try {
+            client.checkExists().inBackground((ignoredClient, event) -> {
+                var code = KeeperException.Code.get(event.getResultCode());
+                if (code == KeeperException.Code.OK || code == KeeperException.Code.NONODE) {
+                    callback.accept(statMatches(event.getStat(), cachedStat));
+                } else {
+                    LOG.debug("Could not check resync of {} in cache of {} ({})", znodePath, path, code);
+                    callback.accept(false);
+                }
+            }).forPath(znodePath);
+        } catch (Exception e) {
+            LOG.warn("Could not check resync of {} in cache of {}", znodePath, path, e);
+            callback.accept(false);
+        }
+    }
+
+    @VisibleForTesting
+    static boolean statMatches(Stat stat, Stat cachedStat) {
+        if (stat == null || cachedStat == null) {
+            return stat == null && cachedStat == null;
+        }
+        return stat.getMzxid() == cachedStat.getMzxid() && stat.getPzxid() == cachedStat.getPzxid();
+    }
+
+    private synchronized void probeCompleted(long generation, boolean matched) {
+        if (resyncPending && generation == probeGeneration && matched) {
+            markResynced();
+        }
+    }
+
+    private void cacheChanged() {
+        // Check again, since the change may have brought the cache up to date
+        probe();
+    }
+
+    private void markResynced() {
+        disconnected = false;
+        resyncPending = false;
+        staleSinceMillis = 0;
+        LOG.info("Cache of {} is in sync again", path);
+    }
+
+    private synchronized void markInitialized() {
+        if (!disconnected) {
+            staleSinceMillis = 0;
+        }
+        initialized.countDown();
+        LOG.info("Loaded cache of {}", path);
+    }
+}
@@ -0,0 +1,12 @@
+package org.kiwiproject.curator.chunked;
+
+/**
+ * Describes the committed generation of a chunked value. It is stored as JSON in the data of the value's znode.
+ *
+ * @param generation the name of the generation znode holding the chunks
+ * @param size       the total size of the value, in bytes
+ * @param chunkCount the number of chunks
+ * @param crc32      the CRC-32 checksum of the value
+ */
+record ChunkManifest(String generation, long size, int chunkCount, long crc32) {
+}
@@ -0,0 +1,169 @@
+package org.kiwiproject.curator.chunked;
+
+import com.codahale.metrics.Meter;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.zookeeper.KeeperException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.zip.CRC32;
+
+/**
+ * Streams the chunks of a generation in order, keeping a bounded number of asynchronous chunk reads in flight ahead
+ * of the reader. At most {@code readAhead + 1} chunks are held in memory at a time.
+ * <p>
+ * When the last chunk has been read, the size and checksum of the value are verified against the manifest.
+ */
+class ChunkedInputStream extends InputStream {
+
+    private final CuratorFramework client;
+    private final String generationPath;
+    private final ChunkManifest manifest;
+    private final int readAhead;
+    private final Meter chunksRead;
+    private final Queue<CompletableFuture<byte[]>> pending = new ArrayDeque<>();
+    private final CRC32 crc = new CRC32();
+
+    private int nextToFetch;
+    private int nextToRead;
+    private byte[] current;
+    private int position;
+    private long bytesRead;
+    private boolean verified;
+    private boolean closed;
+
+    ChunkedInputStream(CuratorFramework client,
+                       String generationPath,
+                       ChunkManifest manifest,
+                       int readAhead,
+                       Meter chunksRead) {
+        this.client = client;
+        this.generationPath = generationPath;
+        this.manifest = manifest;
+        this.readAhead = readAhead;
+        this.chunksRead = chunksRead;
+        fetchAhead();
+    }
+
+    @Override
+    public int read() throws IOException {
+        var single = new byte[1];
+        var count = read(single, 0, 1);
+        return count == -1 ? -1 : Byte.toUnsignedInt(single[0]);
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        Objects.checkFromIndexSize(offset, length, buffer.length);
+        ensureOpen();
+        if (length == 0) {
+            return 0;
+        }
+
+        if (!advanceToReadableChunk()) {
+            return -1;
+        }
+
+        var count = Math.min(length, current.length - position);
+        System.arraycopy(current, position, buffer, offset, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public int available() throws IOException {
+        ensureOpen();
+        return current == null ? 0 : current.length - position;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        pending.clear();
+        current = null;
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+    }
+
+    private boolean advanceToReadableChunk() throws IOException {
+        while (current == null || position == current.length) {
+            if (nextToRead == manifest.chunkCount()) {
+                verify();
+                return false;
+            }
+
+            current = await(pending.remove(), nextToRead);
+            position = 0;
+            crc.update(current);
+            bytesRead += current.length;
+            nextToRead++;
+            fetchAhead();
+        }
+        return true;
+    }
+
+    private void fetchAhead() {
+        while (pending.size() < readAhead && nextToFetch < manifest.chunkCount()) {
+            pending.add(fetch(ChunkedValueStore.chunkPath(generationPath, nextToFetch)));
+            nextToFetch++;
+        }
+    }
+
+    private CompletableFuture<byte[]> fetch(String chunkPath) {
+        var future = new CompletableFuture<byte[]>();
+        try {
+            client.getData()
+                    .inBackground((ignoredClient, event) -> {
+                        var code = KeeperException.Code.get(event.getResultCode());
+                        if (code == KeeperException.Code.OK) {
+                            chunksRead.mark();
+                            future.complete(event.getData());
+                        } else {
+                            future.completeExceptionally(KeeperException.create(code, event.getPath()));
+                        }
+                    })
+                    .forPath(chunkPath);
+        } catch (Exception e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    private byte[] await(CompletableFuture<byte[]> future, int index) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted reading chunk " + index + " of " + generationPath);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof KeeperException.NoNodeException) {
+                throw new IOException("Chunk " + index + " of " + generationPath +
+                        " no longer exists; the value was replaced and collected while being read", e.getCause());
+            }
+            throw new IOException("Unable to read chunk " + index + " of " + generationPath, e.getCause());
+        }
+    }
+
+    private void verify() throws IOException {
+        if (verified) {
+            return;
+        }
+
+        if (bytesRead != manifest.size() || crc.getValue() != manifest.crc32()) {
+            throw new IOException("Chunks of " + generationPath + " do not match the manifest: expected " +
+                    manifest.size() + " bytes with CRC-32 " + manifest.crc32() + " but read " + bytesRead +
+                    " bytes with CRC-32 " + crc.getValue());
+        }
+        verified = true;
+    }
+}
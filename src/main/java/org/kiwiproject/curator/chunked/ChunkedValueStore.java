@@ -0,0 +1,477 @@
+package org.kiwiproject.curator.chunked;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.nonNull;
+import static org.kiwiproject.base.KiwiPreconditions.requireNotBlank;
+import static org.kiwiproject.base.KiwiPreconditions.requireNotNull;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.dropwizard.lifecycle.Managed;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.utils.ZKPaths;
+import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.data.Stat;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.zip.CRC32;
+
+/**
+ * Stores values larger than ZooKeeper's {@code jute.maxbuffer} (1 MB by default) by splitting them into chunks.
+ * <p>
+ * The chunks of a value are stored as children of a <em>generation</em> znode, a sequential child of the value's
+ * znode. Once all chunks of a write are stored, a {@code multi} transaction atomically sets the value's data to a
+ * manifest that references the new generation, and retires the previous generation. Readers only follow the
+ * manifest, so they never see a partially written value, and a failed write leaves the previous value in place.
+ * Concurrent writes of the same value are applied in turn; the last one to commit wins.
+ * <p>
+ * Reads stream the chunks as an {@link InputStream}, fetching up to the read-ahead number of chunks concurrently, so
+ * memory use is bounded by the chunk size regardless of the size of the value. The size and checksum of the value
+ * are verified at the end of the stream.
+ * <p>
+ * Generations that are not referenced by the manifest are garbage: retired generations, and orphaned generations of
+ * writes that failed or were interrupted. They are deleted by {@link #collectGarbage(String)}, once they have been
+ * unchanged for the grace period. It runs after each write, and, while the store is started, periodically for every
+ * value this store has written or read, so that garbage of values that are no longer written, e.g. orphaned
+ * generations of a writer that crashed, is collected too. The grace period lets readers finish streaming a
+ * value that has just been replaced, and must be longer than the longest write, since a write whose generation is
+ * collected fails. It is compared with the modification times set by the ZooKeeper servers, so it should also
+ * allow for clock skew.
+ * <p>
+ * The following metrics are registered, with names starting with
+ * {@code org.kiwiproject.curator.chunked.ChunkedValueStore}:
+ * <ul>
+ *     <li>{@code writes} - timer of committed writes</li>
+ *     <li>{@code chunks-written} - meter of chunks stored</li>
+ *     <li>{@code chunks-read} - meter of chunks fetched by readers</li>
+ *     <li>{@code collected-generations} - meter of garbage generations deleted</li>
+ * </ul>
+ */
+@Slf4j
+public class ChunkedValueStore implements Managed {
+
+    /**
+     * Default maximum size of a chunk, well below the default {@code jute.maxbuffer}.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 512 * 1024;
+
+    /**
+     * Default number of chunks fetched concurrently by a reader.
+     */
+    public static final int DEFAULT_READ_AHEAD = 4;
+
+    /**
+     * Default time garbage generations are kept after their last change.
+     */
+    public static final Duration DEFAULT_GARBAGE_GRACE_PERIOD = Duration.ofMinutes(5);
+
+    /**
+     * Default interval between sweeps that collect the garbage of all known values.
+     */
+    public static final Duration DEFAULT_GARBAGE_SWEEP_INTERVAL = Duration.ofMinutes(1);
+
+    @VisibleForTesting
+    static final String GENERATION_PREFIX = "gen-";
+
+    private static final ObjectMapper MANIFEST_MAPPER = new ObjectMapper();
+    private static final byte[] NO_DATA = new byte[0];
+
+    private final CuratorFramework client;
+    private final int chunkSize;
+    private final int readAhead;
+    private final Duration garbageGracePeriod;
+    private final long garbageSweepIntervalMillis;
+    private final LongSupplier clock;
+    private final Set<String> knownPaths = ConcurrentHashMap.newKeySet();
+    private final Timer writes;
+    private final Meter chunksWritten;
+    private final Meter chunksRead;
+    private final Meter collectedGenerations;
+
+    private ScheduledExecutorService sweeper;
+
+    /**
+     * Create a new instance.
+     *
+     * @param client             Curator client
+     * @param chunkSize          the maximum size of a chunk, in bytes
+     * @param readAhead          the number of chunks fetched concurrently by a reader
+     * @param garbageGracePeriod the time garbage generations are kept after their last change
+     * @param metrics            the registry in which to register metrics
+     */
+    public ChunkedValueStore(CuratorFramework client,
+                             int chunkSize,
+                             int readAhead,
+                             Duration garbageGracePeriod,
+                             MetricRegistry metrics) {
+        this(client, chunkSize, readAhead, garbageGracePeriod, DEFAULT_GARBAGE_SWEEP_INTERVAL, metrics);
+    }
+
+    /**
+     * Create a new instance.
+     *
+     * @param client               Curator client
+     * @param chunkSize            the maximum size of a chunk, in bytes
+     * @param readAhead            the number of chunks fetched concurrently by a reader
+     * @param garbageGracePeriod   the time garbage generations are kept after their last change
+     * @param garbageSweepInterval the interval between sweeps that collect the garbage of all known values
+     * @param metrics              the registry in which to register metrics
+     */
+    public ChunkedValueStore(CuratorFramework client,
+                             int chunkSize,
+                             int readAhead,
+                             Duration garbageGracePeriod,
+                             Duration garbageSweepInterval,
+                             MetricRegistry metrics) {
+        this(client, chunkSize, readAhead, garbageGracePeriod, garbageSweepInterval, metrics,
+                System::currentTimeMillis);
+    }
+
+    @VisibleForTesting
+    ChunkedValueStore(CuratorFramework client,
+                      int chunkSize,
+                      int readAhead,
+                      Duration garbageGracePeriod,
+                      MetricRegistry metrics,
+                      LongSupplier clock) {
+        this(client, chunkSize, readAhead, garbageGracePeriod, DEFAULT_GARBAGE_SWEEP_INTERVAL, metrics, clock);
+    }
+
+    @VisibleForTesting
+    ChunkedValueStore(CuratorFramework client,
+                      int chunkSize,
+                      int readAhead,
+                      Duration garbageGracePeriod,
+                      Duration garbageSweepInterval,
+                      MetricRegistry metrics,
+                      LongSupplier clock) {
+        this.client = requireNotNull(client, "client must not be null");
+        checkArgument(chunkSize > 0, "chunkSize must be positive");
+        this.chunkSize = chunkSize;
+        checkArgument(readAhead > 0, "readAhead must be positive");
+        this.readAhead = readAhead;
+        checkArgument(!garbageGracePeriod.isNegative(), "garbageGracePeriod must not be negative");
+        this.garbageGracePeriod = garbageGracePeriod;
+        checkArgument(garbageSweepInterval.toMillis() > 0, "garbageSweepInterval must be at least one millisecond");
+        this.garbageSweepIntervalMillis = garbageSweepInterval.toMillis();
+        this.clock = requireNotNull(clock, "clock must not be null");
+
+        requireNotNull(metrics, "metrics must not be null");
+        writes = metrics.timer(name(ChunkedValueStore.class, "writes"));
+        chunksWritten = metrics.meter(name(ChunkedValueStore.class, "chunks-written"));
+        chunksRead = metrics.meter(name(ChunkedValueStore.class, "chunks-read"));
+        collectedGenerations = metrics.meter(name(ChunkedValueStore.class, "collected-generations"));
+    }
+
+    /**
+     * Start sweeping the garbage of known values in a dedicated background thread.
+     */
+    @Override
+    public synchronized void start() {
+        if (sweeper != null) {
+            return;
+        }
+
+        var threadFactory = new ThreadFactoryBuilder()
+                .setNameFormat("chunked-value-sweeper-%d")
+                .setDaemon(true)
+                .build();
+        sweeper = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        sweeper.scheduleWithFixedDelay(this::sweepGarbage,
+                garbageSweepIntervalMillis, garbageSweepIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop sweeping.
+     */
+    @Override
+    public synchronized void stop() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+            sweeper = null;
+        }
+    }
+
+    /**
+     * Write a value, replacing the current value if there is one.
+     *
+     * @param path the path of the value's znode, which is created if needed
+     * @param data the value
+     * @throws Exception if the write fails, in which case the current value is unchanged
+     */
+    public void write(String path, byte[] data) throws Exception {
+        requireNotNull(data, "data must not be null");
+        write(path, new ByteArrayInputStream(data));
+    }
+
+    /**
+     * Write a value read from a stream, replacing the current value if there is one. The stream is read to its end,
+     * one chunk at a time, and is not closed.
+     *
+     * @param path the path of the value's znode, which is created if needed
+     * @param data the stream of the value
+     * @throws Exception if reading the stream or the write fails, in which case the current value is unchanged
+     */
+    public void write(String path, InputStream data) throws Exception {
+        requireNotBlank(path, "path must not be blank");
+        requireNotNull(data, "data must not be null");
+
+        knownPaths.add(path);
+        try (var ignored = writes.time()) {
+            var generationPath = client.create()
+                    .creatingParentsIfNeeded()
+                    .withMode(CreateMode.PERSISTENT_SEQUENTIAL)
+                    .forPath(ZKPaths.makePath(path, GENERATION_PREFIX), NO_DATA);
+            try {
+                var manifest = writeChunks(generationPath, data);
+                commit(path, generationPath, manifest);
+            } catch (Exception e) {
+                deleteGenerationQuietly(generationPath);
+                throw e;
+            }
+        }
+
+        try {
+            collectGarbage(path);
+        } catch (Exception e) {
+            LOG.warn("Unable to collect garbage generations of {}", path, e);
+        }
+    }
+
+    private ChunkManifest writeChunks(String generationPath, InputStream data) throws Exception {
+        var crc = new CRC32();
+        var buffer = new byte[chunkSize];
+        var chunkCount = 0;
+        var size = 0L;
+        int count;
+        while ((count = data.readNBytes(buffer, 0, chunkSize)) > 0) {
+            var chunk = count == chunkSize ? buffer : Arrays.copyOf(buffer, count);
+            client.create().forPath(chunkPath(generationPath, chunkCount), chunk);
+            chunksWritten.mark();
+            crc.update(buffer, 0, count);
+            size += count;
+            chunkCount++;
+        }
+        return new ChunkManifest(ZKPaths.getNodeFromPath(generationPath), size, chunkCount, crc.getValue());
+    }
+
+    /**
+     * Swap the manifest to the new generation, and retire the previous generation by updating its modification time.
+     * The new generation must still be at version zero, i.e. not marked for collection. If another write commits
+     * first, the manifest version no longer matches, and the swap is retried against the new manifest. If the previous
+     * generation is collected before the transaction, the swap is retried without retiring it.
+     */
+    private void commit(String path, String generationPath, ChunkManifest manifest) throws Exception {
+        var manifestData = MANIFEST_MAPPER.writeValueAsBytes(manifest);
+        while (true) {
+            var stat = new Stat();
+            var previous = readManifest(path, stat);
+
+            var ops = new ArrayList<>(List.of(
+                    client.transactionOp().check().withVersion(0).forPath(generationPath),
+                    client.transactionOp().setData().withVersion(stat.getVersion()).forPath(path, manifestData)));
+            var previousPath = previous.map(previousManifest -> ZKPaths.makePath(path, previousManifest.generation()));
+            if (previousPath.isPresent() && nonNull(client.checkExists().forPath(previousPath.get()))) {
+                ops.add(client.transactionOp().setData().forPath(previousPath.get(), NO_DATA));
+            }
+
+            try {
+                client.transaction().forOperations(ops);
+                LOG.debug("Committed {} ({} bytes in {} chunks)",
+                        generationPath, manifest.size(), manifest.chunkCount());
+                return;
+            } catch (KeeperException.BadVersionException e) {
+                if (!isUncollected(generationPath)) {
+                    throw e;
+                }
+                LOG.debug("Manifest of {} changed while committing {}; retrying", path, generationPath);
+            } catch (KeeperException.NoNodeException e) {
+                if (previousPath.isEmpty() || !isUncollected(generationPath)) {
+                    throw e;
+                }
+                LOG.debug("{} was collected while committing {}; retrying", previousPath.get(), generationPath);
+            }
+        }
+    }
+
+    private boolean isUncollected(String generationPath) throws Exception {
+        var stat = client.checkExists().forPath(generationPath);
+        return stat != null && stat.getVersion() == 0;
+    }
+
+    /**
+     * Open a stream of a value.
+     *
+     * @param path the path of the value's znode
+     * @return a stream of the value, or an empty Optional if there is no value; the stream throws
+     * {@link IOException} if the chunks do not match the manifest, or if the value is collected while being read
+     * @throws Exception if reading the manifest fails
+     */
+    public Optional<InputStream> read(String path) throws Exception {
+        requireNotBlank(path, "path must not be blank");
+
+        try {
+            var manifest = readManifest(path, new Stat());
+            knownPaths.add(path);
+            return manifest
+                    .map(found -> new ChunkedInputStream(client, ZKPaths.makePath(path, found.generation()),
+                            found, readAhead, chunksRead));
+        } catch (KeeperException.NoNodeException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Delete a value and all of its generations. Readers streaming the value will fail.
+     *
+     * @param path the path of the value's znode
+     * @return true if the value's znode was deleted, false if it did not exist
+     * @throws Exception if the delete fails
+     */
+    public boolean delete(String path) throws Exception {
+        requireNotBlank(path, "path must not be blank");
+
+        knownPaths.remove(path);
+        try {
+            client.delete().deletingChildrenIfNeeded().forPath(path);
+            return true;
+        } catch (KeeperException.NoNodeException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Delete the generations of a value that are not referenced by its manifest, and have not changed for the grace
+     * period.
+     * <p>
+     * Each candidate is first marked for collection by bumping its version, which makes a write still committing it
+     * fail. The manifest is then read again, and candidates that were committed before being marked are kept.
+     *
+     * @param path the path of the value's znode
+     * @return the number of generations deleted
+     * @throws Exception if reading the value or deleting a generation fails
+     */
+    public int collectGarbage(String path) throws Exception {
+        requireNotBlank(path, "path must not be blank");
+
+        List<String> children;
+        String currentGeneration;
+        try {
+            currentGeneration = readManifest(path, new Stat()).map(ChunkManifest::generation).orElse(null);
+            children = client.getChildren().forPath(path);
+        } catch (KeeperException.NoNodeException e) {
+            knownPaths.remove(path);
+            return 0;
+        }
+
+        var cutoffMillis = clock.getAsLong() - garbageGracePeriod.toMillis();
+        var marked = new ArrayList<String>();
+        for (var child : children) {
+            if (child.startsWith(GENERATION_PREFIX) && !child.equals(currentGeneration)
+                    && markForCollection(ZKPaths.makePath(path, child), cutoffMillis)) {
+                marked.add(child);
+            }
+        }
+        if (marked.isEmpty()) {
+            return 0;
+        }
+
+        currentGeneration = readManifest(path, new Stat()).map(ChunkManifest::generation).orElse(null);
+        var collected = 0;
+        for (var generation : marked) {
+            if (!generation.equals(currentGeneration)) {
+                deleteGenerationQuietly(ZKPaths.makePath(path, generation));
+                collected++;
+            }
+        }
+        collectedGenerations.mark(collected);
+        LOG.debug("Collected {} garbage generations of {}", collected, path);
+        return collected;
+    }
+
+    /**
+     * Collect the garbage of every value this store has written or read.
+     *
+     * @return the number of generations deleted
+     */
+    public int sweepGarbage() {
+        var collected = 0;
+        for (var path : knownPaths) {
+            try {
+                collected += collectGarbage(path);
+            } catch (Exception e) {
+                LOG.warn("Unable to collect garbage generations of {}; will try again in the next sweep", path, e);
+            }
+        }
+        return collected;
+    }
+
+    /**
+     * @return the paths of the values this store has written or read, whose garbage is collected by sweeps
+     */
+    public Set<String> knownPaths() {
+        return Set.copyOf(knownPaths);
+    }
+
+    private boolean markForCollection(String generationPath, long cutoffMillis) throws Exception {
+        var stat = client.checkExists().forPath(generationPath);
+        if (stat == null || stat.getMtime() > cutoffMillis) {
+            return false;
+        }
+
+        try {
+            client.setData().withVersion(stat.getVersion()).forPath(generationPath, NO_DATA);
+            return true;
+        } catch (KeeperException.BadVersionException | KeeperException.NoNodeException e) {
+            LOG.debug("{} changed while marking it for collection; skipping it", generationPath);
+            return false;
+        }
+    }
+
+    private void deleteGenerationQuietly(String generationPath) {
+        try {
+            client.delete().deletingChildrenIfNeeded().forPath(generationPath);
+        } catch (KeeperException.NoNodeException e) {
+            LOG.trace("{} was already deleted", generationPath);
+        } catch (Exception e) {
+            LOG.warn("Unable to delete {}; it will be collected later", generationPath, e);
+        }
+    }
+
+    private Optional<ChunkManifest> readManifest(String path, Stat stat) throws Exception {
+        var data = client.getData().storingStatIn(stat).forPath(path);
+        if (data == null || data.length == 0) {
+            return Optional.empty();
+        }
+
+        try {
+            return Optional.of(MANIFEST_MAPPER.readValue(data, ChunkManifest.class));
+        } catch (IOException e) {
+            throw new IOException(path + " does not hold a chunked value", e);
+        }
+    }
+
+    static String chunkPath(String generationPath, int index) {
+        return ZKPaths.makePath(generationPath, String.format("%08d", index));
+    }
+}
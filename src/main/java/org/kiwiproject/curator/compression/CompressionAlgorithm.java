@@ -0,0 +1,37 @@
+package org.kiwiproject.curator.compression;
+
+import java.util.zip.Deflater;
+
+/**
+ * Compression algorithms supported by {@link ZnodeCompressionProvider}.
+ * <p>
+ * All algorithms produce the gzip format, so values compressed with any of them can be decompressed by any other,
+ * and by Curator's default {@link org.apache.curator.framework.imps.GzipCompressionProvider}.
+ */
+public enum CompressionAlgorithm {
+
+    /**
+     * Values are not compressed.
+     */
+    NONE(Deflater.NO_COMPRESSION),
+
+    /**
+     * gzip with the default compression level, for the best balance of size and speed.
+     */
+    GZIP(Deflater.DEFAULT_COMPRESSION),
+
+    /**
+     * gzip with the fastest compression level, for values written often where CPU time matters more than size.
+     */
+    FAST(Deflater.BEST_SPEED);
+
+    private final int level;
+
+    CompressionAlgorithm(int level) {
+        this.level = level;
+    }
+
+    int level() {
+        return level;
+    }
+}
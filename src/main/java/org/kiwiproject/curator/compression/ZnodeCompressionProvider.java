@@ -0,0 +1,143 @@
+package org.kiwiproject.curator.compression;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static org.kiwiproject.base.KiwiPreconditions.requireNotNull;
+
+import org.apache.curator.framework.api.CompressionProvider;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipException;
+
+/**
+ * A {@link CompressionProvider} that only compresses values worth compressing, and that reads uncompressed values
+ * as they are.
+ * <p>
+ * Values smaller than the minimum size, values of paths whose algorithm is {@link CompressionAlgorithm#NONE}, and
+ * values that would not get smaller, are stored uncompressed. The algorithm of a path is the one of the longest
+ * matching path prefix rule, or the default algorithm if no rule matches.
+ * <p>
+ * On decompression, values that do not start with the gzip magic number are returned unchanged. This means that
+ * values written before compression was enabled, or written without compression, can still be read with
+ * {@code decompressed()}. Values that start with the magic number but are not valid gzip data, e.g. binary values
+ * that happen to start with the same two bytes, are also returned unchanged.
+ * <p>
+ * Since compressed values carry no marker other than the gzip header, a valid gzip value written by the application
+ * itself, without {@code compressed()}, cannot be told apart from one compressed by this provider, and is inflated
+ * on read. Applications that store their own gzip data should read those paths without {@code decompressed()}.
+ */
+public class ZnodeCompressionProvider implements CompressionProvider {
+
+    private static final byte GZIP_MAGIC_FIRST_BYTE = (byte) 0x1f;
+    private static final byte GZIP_MAGIC_SECOND_BYTE = (byte) 0x8b;
+
+    private final CompressionAlgorithm defaultAlgorithm;
+    private final int minSizeBytes;
+    private final List<Map.Entry<String, CompressionAlgorithm>> pathRules;
+
+    /**
+     * Create a new instance.
+     *
+     * @param defaultAlgorithm the algorithm of paths that do not match any rule
+     * @param minSizeBytes     values smaller than this are stored uncompressed
+     * @param pathRules        algorithms by path prefix; a prefix matches a path if it is the path or an ancestor of it
+     */
+    public ZnodeCompressionProvider(CompressionAlgorithm defaultAlgorithm,
+                                    int minSizeBytes,
+                                    Map<String, CompressionAlgorithm> pathRules) {
+        this.defaultAlgorithm = requireNotNull(defaultAlgorithm, "defaultAlgorithm must not be null");
+        checkArgument(minSizeBytes >= 0, "minSizeBytes must not be negative");
+        this.minSizeBytes = minSizeBytes;
+        this.pathRules = requireNotNull(pathRules, "pathRules must not be null").entrySet().stream()
+                .sorted(Comparator.comparingInt((Map.Entry<String, CompressionAlgorithm> rule) -> rule.getKey().length())
+                        .reversed())
+                .toList();
+    }
+
+    /**
+     * @return the algorithm of paths that do not match any rule
+     */
+    public CompressionAlgorithm getDefaultAlgorithm() {
+        return defaultAlgorithm;
+    }
+
+    /**
+     * @return values smaller than this are stored uncompressed
+     */
+    public int getMinSizeBytes() {
+        return minSizeBytes;
+    }
+
+    /**
+     * Find the algorithm used for a path.
+     *
+     * @param path the path of a znode
+     * @return the algorithm of the longest matching rule, or the default algorithm
+     */
+    public CompressionAlgorithm algorithmFor(String path) {
+        return pathRules.stream()
+                .filter(rule -> matches(rule.getKey(), path))
+                .map(Map.Entry::getValue)
+                .findFirst()
+                .orElse(defaultAlgorithm);
+    }
+
+    private static boolean matches(String prefix, String path) {
+        return path.equals(prefix) || path.startsWith(prefix.endsWith("/") ? prefix : prefix + "/");
+    }
+
+    @Override
+    public byte[] compress(String path, byte[] data) throws IOException {
+        var algorithm = algorithmFor(path);
+        if (data == null || algorithm == CompressionAlgorithm.NONE || data.length < minSizeBytes) {
+            return data;
+        }
+
+        var compressed = gzip(data, algorithm.level());
+        return compressed.length < data.length ? compressed : data;
+    }
+
+    @Override
+    public byte[] decompress(String path, byte[] compressedData) throws IOException {
+        if (!isGzip(compressedData)) {
+            return compressedData;
+        }
+
+        try (var in = new GZIPInputStream(new ByteArrayInputStream(compressedData))) {
+            return in.readAllBytes();
+        } catch (ZipException | EOFException e) {
+            // Not gzip data after all, but an uncompressed value starting with the magic number
+            return compressedData;
+        }
+    }
+
+    private static boolean isGzip(byte[] data) {
+        return data != null
+                && data.length >= 2
+                && data[0] == GZIP_MAGIC_FIRST_BYTE
+                && data[1] == GZIP_MAGIC_SECOND_BYTE;
+    }
+
+    private static byte[] gzip(byte[] data, int level) throws IOException {
+        var bytes = new ByteArrayOutputStream(data.length / 2 + 32);
+        try (var out = new LevelGzipOutputStream(bytes, level)) {
+            out.write(data);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static class LevelGzipOutputStream extends GZIPOutputStream {
+
+        LevelGzipOutputStream(ByteArrayOutputStream out, int level) throws IOException {
+            super(out);
+            def.setLevel(level);
+        }
+    }
+}
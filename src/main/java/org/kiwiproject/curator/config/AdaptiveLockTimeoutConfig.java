@@ -0,0 +1,115 @@
+package org.kiwiproject.curator.config;
+
+import static org.kiwiproject.base.KiwiPreconditions.checkArgumentNotNull;
+
+import io.dropwizard.util.Duration;
+import io.dropwizard.validation.MinDuration;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Configuration for the {@link org.kiwiproject.curator.AdaptiveLockTimeoutPolicy}, which chooses lock acquisition
+ * timeouts from observed acquisition latencies.
+ */
+@Getter
+@Setter
+@ToString
+public class AdaptiveLockTimeoutConfig {
+
+    /**
+     * Default latency percentile used as the timeout.
+     */
+    public static final double DEFAULT_PERCENTILE = 0.99;
+
+    /**
+     * Default multiplier applied to the latency percentile.
+     */
+    public static final double DEFAULT_HEADROOM = 2.0;
+
+    /**
+     * Default multiplier applied to an expired timeout when it is recorded as a latency.
+     */
+    public static final double DEFAULT_TIMEOUT_GROWTH_FACTOR = 2.0;
+
+    /**
+     * Default lower bound of adaptive timeouts.
+     */
+    public static final Duration DEFAULT_MIN_TIMEOUT = Duration.milliseconds(100);
+
+    /**
+     * Default upper bound of adaptive timeouts.
+     */
+    public static final Duration DEFAULT_MAX_TIMEOUT = Duration.seconds(30);
+
+    /**
+     * Default number of latency samples required before timeouts adapt.
+     */
+    public static final int DEFAULT_MIN_SAMPLES = 20;
+
+    /**
+     * The percentile of recent acquisition latencies that is used as the timeout, e.g. 0.99 for the 99th percentile.
+     */
+    @DecimalMin("0.0")
+    @DecimalMax("1.0")
+    private double percentile = DEFAULT_PERCENTILE;
+
+    /**
+     * The multiplier applied to the latency percentile to get the timeout. Since acquisitions never take longer than
+     * the timeout, it must leave room for latencies to be observed above the current percentile.
+     */
+    @DecimalMin("1.0")
+    private double headroom = DEFAULT_HEADROOM;
+
+    /**
+     * An acquisition that times out is recorded as a latency of the timeout multiplied by this factor, so that
+     * timeouts grow when contention increases.
+     */
+    @DecimalMin("1.0")
+    private double timeoutGrowthFactor = DEFAULT_TIMEOUT_GROWTH_FACTOR;
+
+    /**
+     * Adaptive timeouts are never shorter than this.
+     */
+    @NotNull
+    @MinDuration(value = 1, unit = TimeUnit.MILLISECONDS)
+    private Duration minTimeout = DEFAULT_MIN_TIMEOUT;
+
+    /**
+     * Adaptive timeouts are never longer than this. This is also the timeout used until enough latencies have
+     * been observed.
+     */
+    @NotNull
+    @MinDuration(value = 1, unit = TimeUnit.MILLISECONDS)
+    private Duration maxTimeout = DEFAULT_MAX_TIMEOUT;
+
+    /**
+     * The number of latency samples of a lock path template required before its timeout adapts.
+     */
+    @Min(1)
+    private int minSamples = DEFAULT_MIN_SAMPLES;
+
+    /**
+     * Create a copy of the original AdaptiveLockTimeoutConfig.
+     *
+     * @param original the config to copy
+     * @return a new instance with the same values
+     */
+    public static AdaptiveLockTimeoutConfig copyOf(AdaptiveLockTimeoutConfig original) {
+        checkArgumentNotNull(original);
+        var copy = new AdaptiveLockTimeoutConfig();
+        copy.setPercentile(original.getPercentile());
+        copy.setHeadroom(original.getHeadroom());
+        copy.setTimeoutGrowthFactor(original.getTimeoutGrowthFactor());
+        copy.setMinTimeout(original.getMinTimeout());
+        copy.setMaxTimeout(original.getMaxTimeout());
+        copy.setMinSamples(original.getMinSamples());
+        return copy;
+    }
+}
@@ -0,0 +1,62 @@
+package org.kiwiproject.curator.config;
+
+import static org.kiwiproject.base.KiwiPreconditions.checkArgumentNotNull;
+
+import io.dropwizard.util.Duration;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Configuration for the {@link org.kiwiproject.curator.BatchingWriter} of {@link org.kiwiproject.curator.CuratorBundle}.
+ */
+@Getter
+@Setter
+@ToString
+public class BatchingWriterConfig {
+
+    /**
+     * Default maximum time a write waits for other writes to join its batch.
+     */
+    public static final Duration DEFAULT_FLUSH_WINDOW = Duration.milliseconds(5);
+
+    /**
+     * Default maximum number of operations in a batch.
+     */
+    public static final int DEFAULT_MAX_BATCH_SIZE = 100;
+
+    /**
+     * Whether the bundle creates a batching writer. Disabled by default.
+     */
+    private boolean enabled;
+
+    /**
+     * The maximum time a write waits for other writes to join its batch.
+     */
+    @NotNull
+    private Duration flushWindow = DEFAULT_FLUSH_WINDOW;
+
+    /**
+     * The maximum number of operations in a batch. Note that ZooKeeper rejects requests larger than its
+     * {@code jute.maxbuffer} (1 MB by default), so this should be lower for large znodes.
+     */
+    @Min(1)
+    private int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+
+    /**
+     * Create a copy of the original BatchingWriterConfig.
+     *
+     * @param original the config to copy
+     * @return a new instance with the same values
+     */
+    public static BatchingWriterConfig copyOf(BatchingWriterConfig original) {
+        checkArgumentNotNull(original);
+        var copy = new BatchingWriterConfig();
+        copy.setEnabled(original.isEnabled());
+        copy.setFlushWindow(original.getFlushWindow());
+        copy.setMaxBatchSize(original.getMaxBatchSize());
+        return copy;
+    }
+}
@@ -0,0 +1,93 @@
+package org.kiwiproject.curator.config;
+
+import static org.kiwiproject.base.KiwiPreconditions.checkArgumentNotNull;
+
+import io.dropwizard.util.DataSize;
+import io.dropwizard.util.DataSizeUnit;
+import io.dropwizard.util.Duration;
+import io.dropwizard.validation.MaxDataSize;
+import io.dropwizard.validation.MinDataSize;
+import io.dropwizard.validation.MinDuration;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import org.kiwiproject.curator.chunked.ChunkedValueStore;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Configuration for the {@link ChunkedValueStore} of {@link org.kiwiproject.curator.CuratorBundle}.
+ */
+@Getter
+@Setter
+@ToString
+public class ChunkedValueStoreConfig {
+
+    /**
+     * Default maximum size of a chunk.
+     */
+    public static final DataSize DEFAULT_CHUNK_SIZE = DataSize.bytes(ChunkedValueStore.DEFAULT_CHUNK_SIZE);
+
+    /**
+     * Default time garbage generations are kept after their last change.
+     */
+    public static final Duration DEFAULT_GARBAGE_GRACE_PERIOD =
+            Duration.minutes(ChunkedValueStore.DEFAULT_GARBAGE_GRACE_PERIOD.toMinutes());
+
+    /**
+     * Default interval between sweeps that collect the garbage of all known values.
+     */
+    public static final Duration DEFAULT_GARBAGE_SWEEP_INTERVAL =
+            Duration.minutes(ChunkedValueStore.DEFAULT_GARBAGE_SWEEP_INTERVAL.toMinutes());
+
+    /**
+     * Whether the bundle creates a chunked value store. Disabled by default.
+     */
+    private boolean enabled;
+
+    /**
+     * The maximum size of a chunk. It must be lower than ZooKeeper's {@code jute.maxbuffer} (1 MB by default).
+     */
+    @NotNull
+    @MinDataSize(value = 1, unit = DataSizeUnit.KIBIBYTES)
+    @MaxDataSize(value = 1000, unit = DataSizeUnit.KIBIBYTES)
+    private DataSize chunkSize = DEFAULT_CHUNK_SIZE;
+
+    /**
+     * The number of chunks fetched concurrently by a reader.
+     */
+    @Min(1)
+    private int readAhead = ChunkedValueStore.DEFAULT_READ_AHEAD;
+
+    /**
+     * The time garbage generations are kept after their last change. It must be longer than the longest write.
+     */
+    @NotNull
+    private Duration garbageGracePeriod = DEFAULT_GARBAGE_GRACE_PERIOD;
+
+    /**
+     * The interval between sweeps that collect the garbage of every value the store has written or read.
+     */
+    @NotNull
+    @MinDuration(value = 1, unit = TimeUnit.MILLISECONDS)
+    private Duration garbageSweepInterval = DEFAULT_GARBAGE_SWEEP_INTERVAL;
+
+    /**
+     * Create a copy of the original ChunkedValueStoreConfig.
+     *
+     * @param original the config to copy
+     * @return a new instance with the same values
+     */
+    public static ChunkedValueStoreConfig copyOf(ChunkedValueStoreConfig original) {
+        checkArgumentNotNull(original);
+        var copy = new ChunkedValueStoreConfig();
+        copy.setEnabled(original.isEnabled());
+        copy.setChunkSize(original.getChunkSize());
+        copy.setReadAhead(original.getReadAhead());
+        copy.setGarbageGracePeriod(original.getGarbageGracePeriod());
+        copy.setGarbageSweepInterval(original.getGarbageSweepInterval());
+        return copy;
+    }
+}
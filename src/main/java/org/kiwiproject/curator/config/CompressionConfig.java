@@ -0,0 +1,73 @@
+package org.kiwiproject.curator.config;
+
+import static org.kiwiproject.base.KiwiPreconditions.checkArgumentNotNull;
+
+import io.dropwizard.util.DataSize;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import org.kiwiproject.curator.compression.CompressionAlgorithm;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Configuration of znode compression, which uses a {@link org.kiwiproject.curator.compression.ZnodeCompressionProvider}.
+ * <p>
+ * Compression is disabled by default. Note that Curator only compresses data written with {@code compressed()},
+ * and decompresses data read with {@code decompressed()}. Because the provider reads uncompressed values unchanged,
+ * it is safe to use {@code decompressed()} on any path, including paths written before compression was enabled.
+ */
+@Getter
+@Setter
+@ToString
+public class CompressionConfig {
+
+    /**
+     * Default minimum size of compressed values.
+     */
+    public static final DataSize DEFAULT_MIN_SIZE = DataSize.kibibytes(4);
+
+    /**
+     * The algorithm of paths that do not match any path rule.
+     */
+    @NotNull
+    private CompressionAlgorithm algorithm = CompressionAlgorithm.NONE;
+
+    /**
+     * Values smaller than this are stored uncompressed.
+     */
+    @NotNull
+    private DataSize minSize = DEFAULT_MIN_SIZE;
+
+    /**
+     * Algorithms by path prefix, which override the default algorithm for the prefix and the paths under it. The
+     * longest matching prefix wins.
+     */
+    @NotNull
+    private Map<String, CompressionAlgorithm> pathAlgorithms = new LinkedHashMap<>();
+
+    /**
+     * @return true if any path may be compressed
+     */
+    public boolean isEnabled() {
+        return algorithm != CompressionAlgorithm.NONE
+                || pathAlgorithms.values().stream().anyMatch(pathAlgorithm -> pathAlgorithm != CompressionAlgorithm.NONE);
+    }
+
+    /**
+     * Create a copy of the original CompressionConfig.
+     *
+     * @param original the config to copy
+     * @return a new instance with the same values
+     */
+    public static CompressionConfig copyOf(CompressionConfig original) {
+        checkArgumentNotNull(original);
+        var copy = new CompressionConfig();
+        copy.setAlgorithm(original.getAlgorithm());
+        copy.setMinSize(original.getMinSize());
+        copy.setPathAlgorithms(new LinkedHashMap<>(original.getPathAlgorithms()));
+        return copy;
+    }
+}
@@ -0,0 +1,56 @@
+package org.kiwiproject.curator.config;
+
+import static org.kiwiproject.base.KiwiPreconditions.checkArgumentNotNull;
+
+import io.dropwizard.util.Duration;
+import io.dropwizard.validation.MinDuration;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Configuration for the {@link org.kiwiproject.curator.cache.CuratorCacheManager} of
+ * {@link org.kiwiproject.curator.CuratorBundle}.
+ */
+@Getter
+@Setter
+@ToString
+public class CuratorCacheConfig {
+
+    /**
+     * Default maximum time that application startup waits for the initial load of caches.
+     */
+    public static final Duration DEFAULT_INITIAL_LOAD_TIMEOUT = Duration.seconds(30);
+
+    /**
+     * The roots of subtrees to mirror. More can be added programmatically.
+     */
+    @NotNull
+    private List<String> subtrees = new ArrayList<>();
+
+    /**
+     * The maximum time that application startup waits for the initial load of caches.
+     */
+    @NotNull
+    @MinDuration(value = 1, unit = TimeUnit.MILLISECONDS)
+    private Duration initialLoadTimeout = DEFAULT_INITIAL_LOAD_TIMEOUT;
+
+    /**
+     * Create a copy of the original CuratorCacheConfig.
+     *
+     * @param original the config to copy
+     * @return a new instance with the same values
+     */
+    public static CuratorCacheConfig copyOf(CuratorCacheConfig original) {
+        checkArgumentNotNull(original);
+        var copy = new CuratorCacheConfig();
+        copy.setSubtrees(new ArrayList<>(original.getSubtrees()));
+        copy.setInitialLoadTimeout(original.getInitialLoadTimeout());
+        return copy;
+    }
+}
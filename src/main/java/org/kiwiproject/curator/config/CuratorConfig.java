@@ -7,6 +7,7 @@ import static org.kiwiproject.base.KiwiPreconditions.checkArgumentNotNull;
 import com.google.common.primitives.Ints;
 import io.dropwizard.util.Duration;
 import io.dropwizard.validation.MinDuration;
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -125,6 +126,69 @@ public class CuratorConfig {
     @NotBlank
     private String healthCheckName = DEFAULT_HEALTH_CHECK_NAME;
 
+    /**
+     * Configuration for lock metrics.
+     */
+    @NotNull
+    @Valid
+    private LockMetricsConfig lockMetrics = new LockMetricsConfig();
+
+    /**
+     * Configuration of the adaptive lock timeout policy. Only used when lock metrics are enabled.
+     */
+    @NotNull
+    @Valid
+    private AdaptiveLockTimeoutConfig adaptiveLockTimeout = new AdaptiveLockTimeoutConfig();
+
+    /**
+     * Configuration of the reaper that deletes empty lock parent znodes. Disabled by default.
+     */
+    @NotNull
+    @Valid
+    private LockReaperConfig lockReaper = new LockReaperConfig();
+
+    /**
+     * Configuration of the admin task that reports lock queues.
+     */
+    @NotNull
+    @Valid
+    private LockQueuesTaskConfig lockQueuesTask = new LockQueuesTaskConfig();
+
+    /**
+     * Configuration of leader elections managed by the bundle.
+     */
+    @NotNull
+    @Valid
+    private LeaderElectionConfig leaderElection = new LeaderElectionConfig();
+
+    /**
+     * Configuration of the caches that mirror znodes in memory.
+     */
+    @NotNull
+    @Valid
+    private CuratorCacheConfig caches = new CuratorCacheConfig();
+
+    /**
+     * Configuration of the writer that batches writes into transactions. Disabled by default.
+     */
+    @NotNull
+    @Valid
+    private BatchingWriterConfig batchingWriter = new BatchingWriterConfig();
+
+    /**
+     * Configuration of znode compression. Disabled by default.
+     */
+    @NotNull
+    @Valid
+    private CompressionConfig compression = new CompressionConfig();
+
+    /**
+     * Configuration of the store of values split into chunks.
+     */
+    @NotNull
+    @Valid
+    private ChunkedValueStoreConfig chunkedValues = new ChunkedValueStoreConfig();
+
     /**
      * Create new instance using a default {@link ZooKeeperConfigProvider} configured with
      * {@link #DEFAULT_ZK_CONNECT_STRING} as the connection string.
@@ -168,6 +232,15 @@ public class CuratorConfig {
         copy.setMaxSleepTime(original.getMaxSleepTime());
         copy.setMaxRetries(original.getMaxRetries());
         copy.setHealthCheckName(original.getHealthCheckName());
+        copy.setLockMetrics(LockMetricsConfig.copyOf(original.getLockMetrics()));
+        copy.setAdaptiveLockTimeout(AdaptiveLockTimeoutConfig.copyOf(original.getAdaptiveLockTimeout()));
+        copy.setLockReaper(LockReaperConfig.copyOf(original.getLockReaper()));
+        copy.setLockQueuesTask(LockQueuesTaskConfig.copyOf(original.getLockQueuesTask()));
+        copy.setLeaderElection(LeaderElectionConfig.copyOf(original.getLeaderElection()));
+        copy.setCaches(CuratorCacheConfig.copyOf(original.getCaches()));
+        copy.setBatchingWriter(BatchingWriterConfig.copyOf(original.getBatchingWriter()));
+        copy.setCompression(CompressionConfig.copyOf(original.getCompression()));
+        copy.setChunkedValues(ChunkedValueStoreConfig.copyOf(original.getChunkedValues()));
         return copy;
     }
 
@@ -0,0 +1,47 @@
+package org.kiwiproject.curator.config;
+
+import static org.kiwiproject.base.KiwiPreconditions.checkArgumentNotNull;
+
+import jakarta.validation.constraints.Min;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Configuration for leader elections managed by {@link org.kiwiproject.curator.CuratorBundle}.
+ */
+@Getter
+@Setter
+@ToString
+public class LeaderElectionConfig {
+
+    /**
+     * Default number of threads on which leadership callbacks of each election are called.
+     */
+    public static final int DEFAULT_CALLBACK_THREADS = 1;
+
+    /**
+     * The ID of this participant in all elections. If not set, an ID is created from the host name and process ID.
+     */
+    private String participantId;
+
+    /**
+     * The number of threads on which leadership callbacks of each election are called.
+     */
+    @Min(1)
+    private int callbackThreads = DEFAULT_CALLBACK_THREADS;
+
+    /**
+     * Create a copy of the original LeaderElectionConfig.
+     *
+     * @param original the config to copy
+     * @return a new instance with the same values
+     */
+    public static LeaderElectionConfig copyOf(LeaderElectionConfig original) {
+        checkArgumentNotNull(original);
+        var copy = new LeaderElectionConfig();
+        copy.setParticipantId(original.getParticipantId());
+        copy.setCallbackThreads(original.getCallbackThreads());
+        return copy;
+    }
+}
@@ -0,0 +1,97 @@
+package org.kiwiproject.curator.config;
+
+import static org.kiwiproject.base.KiwiPreconditions.checkArgumentNotNull;
+
+import io.dropwizard.util.Duration;
+import io.dropwizard.validation.MinDuration;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Configuration for lock metrics recorded by {@link org.kiwiproject.curator.InstrumentedCuratorLockHelper}.
+ */
+@Getter
+@Setter
+@ToString
+public class LockMetricsConfig {
+
+    /**
+     * Default maximum number of distinct (normalized) lock paths for which per-path metrics are recorded.
+     */
+    public static final int DEFAULT_MAX_DISTINCT_PATHS = 100;
+
+    /**
+     * Default duration after which a lock hold is reported by the hold watchdog.
+     */
+    public static final Duration DEFAULT_LONG_HOLD_THRESHOLD = Duration.minutes(1);
+
+    /**
+     * Default time between hold watchdog checks.
+     */
+    public static final Duration DEFAULT_WATCHDOG_CHECK_INTERVAL = Duration.seconds(5);
+
+    /**
+     * Whether lock metrics are recorded. Disabled by default.
+     */
+    private boolean enabled;
+
+    /**
+     * Lock path templates such as {@code /locks/orders/{orderId}}. A lock path matching a template is recorded
+     * under the template, so that each template results in a single set of metrics. Each {@code {name}} placeholder
+     * matches exactly one path segment.
+     */
+    @NotNull
+    private List<String> pathTemplates = new ArrayList<>();
+
+    /**
+     * The maximum number of distinct (normalized) lock paths for which per-path metrics are recorded. Once reached,
+     * metrics for any new lock paths are recorded under a single overflow path.
+     */
+    @Min(1)
+    private int maxDistinctPaths = DEFAULT_MAX_DISTINCT_PATHS;
+
+    /**
+     * Whether a {@link org.kiwiproject.curator.LockHoldWatchdog} tracks held locks and reports long holds. Only
+     * applies when lock metrics are enabled. Disabled by default.
+     */
+    private boolean watchdogEnabled;
+
+    /**
+     * Lock holds longer than this are reported by the hold watchdog.
+     */
+    @NotNull
+    @MinDuration(value = 1, unit = TimeUnit.MILLISECONDS)
+    private Duration longHoldThreshold = DEFAULT_LONG_HOLD_THRESHOLD;
+
+    /**
+     * How often the hold watchdog checks for long holds.
+     */
+    @NotNull
+    @MinDuration(value = 1, unit = TimeUnit.MILLISECONDS)
+    private Duration watchdogCheckInterval = DEFAULT_WATCHDOG_CHECK_INTERVAL;
+
+    /**
+     * Create a copy of the original LockMetricsConfig.
+     *
+     * @param original the config to copy
+     * @return a new instance with the same values
+     */
+    public static LockMetricsConfig copyOf(LockMetricsConfig original) {
+        checkArgumentNotNull(original);
+        var copy = new LockMetricsConfig();
+        copy.setEnabled(original.isEnabled());
+        copy.setPathTemplates(new ArrayList<>(original.getPathTemplates()));
+        copy.setMaxDistinctPaths(original.getMaxDistinctPaths());
+        copy.setWatchdogEnabled(original.isWatchdogEnabled());
+        copy.setLongHoldThreshold(original.getLongHoldThreshold());
+        copy.setWatchdogCheckInterval(original.getWatchdogCheckInterval());
+        return copy;
+    }
+}
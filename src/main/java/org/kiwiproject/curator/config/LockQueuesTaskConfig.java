@@ -0,0 +1,62 @@
+package org.kiwiproject.curator.config;
+
+import static org.kiwiproject.base.KiwiPreconditions.checkArgumentNotNull;
+
+import io.dropwizard.util.Duration;
+import io.dropwizard.validation.MinDuration;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Configuration for the {@link org.kiwiproject.curator.tasks.LockQueuesTask} admin task, which reports the
+ * participants of the locks under the configured lock roots.
+ */
+@Getter
+@Setter
+@ToString
+public class LockQueuesTaskConfig {
+
+    /**
+     * Default maximum time spent inspecting lock queues.
+     */
+    public static final Duration DEFAULT_TIMEOUT = Duration.seconds(10);
+
+    /**
+     * Whether the admin task is registered.
+     */
+    private boolean enabled = true;
+
+    /**
+     * The znodes under which to look for lock paths when the task is run without parameters.
+     */
+    @NotNull
+    private List<String> lockRoots = new ArrayList<>();
+
+    /**
+     * The maximum time spent inspecting lock queues.
+     */
+    @NotNull
+    @MinDuration(value = 1, unit = TimeUnit.MILLISECONDS)
+    private Duration timeout = DEFAULT_TIMEOUT;
+
+    /**
+     * Create a copy of the original LockQueuesTaskConfig.
+     *
+     * @param original the config to copy
+     * @return a new instance with the same values
+     */
+    public static LockQueuesTaskConfig copyOf(LockQueuesTaskConfig original) {
+        checkArgumentNotNull(original);
+        var copy = new LockQueuesTaskConfig();
+        copy.setEnabled(original.isEnabled());
+        copy.setLockRoots(new ArrayList<>(original.getLockRoots()));
+        copy.setTimeout(original.getTimeout());
+        return copy;
+    }
+}
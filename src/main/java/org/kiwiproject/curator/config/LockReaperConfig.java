@@ -0,0 +1,102 @@
+package org.kiwiproject.curator.config;
+
+import static org.kiwiproject.base.KiwiPreconditions.checkArgumentNotNull;
+
+import io.dropwizard.util.Duration;
+import io.dropwizard.validation.MinDuration;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Configuration for the {@link org.kiwiproject.curator.LockPathReaper}, which deletes empty lock parent znodes
+ * left behind under the configured lock roots.
+ */
+@Getter
+@Setter
+@ToString
+public class LockReaperConfig {
+
+    /**
+     * Default time between reaper batches.
+     */
+    public static final Duration DEFAULT_INTERVAL = Duration.seconds(30);
+
+    /**
+     * Default minimum age of an empty lock parent before it is deleted.
+     */
+    public static final Duration DEFAULT_MIN_AGE = Duration.minutes(10);
+
+    /**
+     * Default maximum number of znodes examined in each batch.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    /**
+     * Default maximum number of ZooKeeper operations per second.
+     */
+    public static final int DEFAULT_MAX_OPERATIONS_PER_SECOND = 50;
+
+    /**
+     * Whether the reaper runs. Disabled by default.
+     */
+    private boolean enabled;
+
+    /**
+     * The ZooKeeper paths under which lock paths are created, e.g. {@code /locks}. The roots themselves are never
+     * deleted.
+     */
+    @NotNull
+    private List<String> lockRoots = new ArrayList<>();
+
+    /**
+     * Time between batches.
+     */
+    @NotNull
+    @MinDuration(value = 1, unit = TimeUnit.SECONDS)
+    private Duration interval = DEFAULT_INTERVAL;
+
+    /**
+     * Minimum age, based on creation time, of an empty lock parent before it is deleted.
+     */
+    @NotNull
+    @MinDuration(value = 1, unit = TimeUnit.SECONDS)
+    private Duration minAge = DEFAULT_MIN_AGE;
+
+    /**
+     * Maximum number of znodes examined in each batch. A full scan of the lock roots is spread over as many
+     * batches as needed.
+     */
+    @Min(1)
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    /**
+     * Maximum number of ZooKeeper operations (reads and deletes) per second issued by the reaper.
+     */
+    @Min(1)
+    private int maxOperationsPerSecond = DEFAULT_MAX_OPERATIONS_PER_SECOND;
+
+    /**
+     * Create a copy of the original LockReaperConfig.
+     *
+     * @param original the config to copy
+     * @return a new instance with the same values
+     */
+    public static LockReaperConfig copyOf(LockReaperConfig original) {
+        checkArgumentNotNull(original);
+        var copy = new LockReaperConfig();
+        copy.setEnabled(original.isEnabled());
+        copy.setLockRoots(new ArrayList<>(original.getLockRoots()));
+        copy.setInterval(original.getInterval());
+        copy.setMinAge(original.getMinAge());
+        copy.setBatchSize(original.getBatchSize());
+        copy.setMaxOperationsPerSecond(original.getMaxOperationsPerSecond());
+        return copy;
+    }
+}
@@ -0,0 +1,23 @@
+package org.kiwiproject.curator.exception;
+
+/**
+ * Exception class indicating that a ZooKeeper lock may have been lost while it was held, because the ZooKeeper
+ * connection was suspended or the session was lost.
+ */
+public class LockLostException extends RuntimeException {
+
+    public LockLostException() {
+    }
+
+    public LockLostException(String message) {
+        super(message);
+    }
+
+    public LockLostException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public LockLostException(Throwable cause) {
+        super(cause);
+    }
+}
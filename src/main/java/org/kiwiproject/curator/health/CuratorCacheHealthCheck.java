@@ -0,0 +1,64 @@
+package org.kiwiproject.curator.health;
+
+import static java.util.stream.Collectors.joining;
+import static org.kiwiproject.base.KiwiPreconditions.requireNotNull;
+import static org.kiwiproject.metrics.health.HealthCheckResults.newHealthyResult;
+import static org.kiwiproject.metrics.health.HealthCheckResults.newUnhealthyResult;
+import static org.kiwiproject.metrics.health.HealthStatus.CRITICAL;
+import static org.kiwiproject.metrics.health.HealthStatus.WARN;
+
+import com.codahale.metrics.health.HealthCheck;
+import org.kiwiproject.curator.cache.CuratorCacheManager;
+import org.kiwiproject.curator.cache.ZnodeMirror;
+
+import java.util.Comparator;
+
+/**
+ * A Dropwizard Metrics health check for the mirrors of a {@link CuratorCacheManager}.
+ * <p>
+ * Mirrors that have not completed their initial load are critical. Mirrors that are stale, because the client's
+ * connection was suspended or lost, are a warning.
+ */
+public class CuratorCacheHealthCheck extends HealthCheck {
+
+    private final CuratorCacheManager cacheManager;
+
+    /**
+     * Create a new instance.
+     *
+     * @param cacheManager the cache manager whose mirrors to check
+     */
+    public CuratorCacheHealthCheck(CuratorCacheManager cacheManager) {
+        this.cacheManager = requireNotNull(cacheManager, "cacheManager must not be null");
+    }
+
+    /**
+     * Check health of the mirrors.
+     *
+     * @return the {@link Result}
+     */
+    @Override
+    protected Result check() {
+        var mirrors = cacheManager.getMirrors().values().stream()
+                .sorted(Comparator.comparing(ZnodeMirror::getPath))
+                .toList();
+
+        var notLoaded = mirrors.stream()
+                .filter(mirror -> !mirror.isInitialized())
+                .map(ZnodeMirror::getPath)
+                .toList();
+        if (!notLoaded.isEmpty()) {
+            return newUnhealthyResult(CRITICAL, "Caches %s have not been loaded", notLoaded);
+        }
+
+        var stale = mirrors.stream()
+                .filter(mirror -> mirror.stalenessMillis() > 0)
+                .map(mirror -> mirror.getPath() + " (" + mirror.stalenessMillis() + " ms)")
+                .collect(joining(", "));
+        if (!stale.isEmpty()) {
+            return newUnhealthyResult(WARN, "Caches are stale: %s", stale);
+        }
+
+        return newHealthyResult("%d caches are in sync", mirrors.size());
+    }
+}
@@ -0,0 +1,48 @@
+package org.kiwiproject.curator.health;
+
+import static org.kiwiproject.base.KiwiPreconditions.requireNotNull;
+import static org.kiwiproject.metrics.health.HealthCheckResults.newHealthyResult;
+import static org.kiwiproject.metrics.health.HealthCheckResults.newUnhealthyResult;
+import static org.kiwiproject.metrics.health.HealthStatus.CRITICAL;
+import static org.kiwiproject.metrics.health.HealthStatus.WARN;
+
+import com.codahale.metrics.health.HealthCheck;
+import org.kiwiproject.curator.leader.ManagedLeaderElection;
+
+/**
+ * A Dropwizard Metrics health check for a {@link ManagedLeaderElection}.
+ * <p>
+ * The election is considered healthy if it is started and has a leader, whether or not it is this participant.
+ */
+public class LeaderElectionHealthCheck extends HealthCheck {
+
+    private final ManagedLeaderElection election;
+
+    /**
+     * Create a new instance.
+     *
+     * @param election the election to check
+     */
+    public LeaderElectionHealthCheck(ManagedLeaderElection election) {
+        this.election = requireNotNull(election, "election must not be null");
+    }
+
+    /**
+     * Check health of the election.
+     *
+     * @return the {@link Result}
+     */
+    @Override
+    protected Result check() {
+        var leaderPath = election.getLeaderPath();
+        if (!election.isStarted()) {
+            return newUnhealthyResult(CRITICAL, "Leader election [ %s ] is not started", leaderPath);
+        }
+
+        var participantId = election.getParticipantId();
+        return election.getLeaderId()
+                .map(leaderId -> newHealthyResult("Leader of [ %s ] is %s; this participant (%s) %s the leader",
+                        leaderPath, leaderId, participantId, election.hasLeadership() ? "is" : "is not"))
+                .orElseGet(() -> newUnhealthyResult(WARN, "Leader election [ %s ] has no leader", leaderPath));
+    }
+}
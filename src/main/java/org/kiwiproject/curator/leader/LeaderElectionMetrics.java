@@ -0,0 +1,44 @@
+package org.kiwiproject.curator.leader;
+
+import static com.codahale.metrics.MetricRegistry.name;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * Leadership metrics of one participant in an election, with names starting with
+ * {@code org.kiwiproject.curator.leader.ManagedLeaderElection.<leaderPath>.<participantId>}:
+ * <ul>
+ *     <li>{@code is-leader} - gauge that is 1 while this participant has leadership, otherwise 0</li>
+ *     <li>{@code leadership-acquired} - meter of the times this participant acquired leadership</li>
+ *     <li>{@code leadership-lost} - meter of the times this participant gave up or lost leadership</li>
+ * </ul>
+ * Each participant must have a different ID within a registry; registering a participant whose metrics already exist
+ * fails with an {@link IllegalArgumentException}.
+ */
+class LeaderElectionMetrics {
+
+    private final Meter acquired;
+    private final Meter lost;
+
+    LeaderElectionMetrics(MetricRegistry metrics,
+                          String leaderPath,
+                          String participantId,
+                          BooleanSupplier hasLeadership) {
+        var prefix = name(ManagedLeaderElection.class, leaderPath, participantId);
+        metrics.register(name(prefix, "is-leader"), (Gauge<Integer>) () -> hasLeadership.getAsBoolean() ? 1 : 0);
+        acquired = metrics.meter(name(prefix, "leadership-acquired"));
+        lost = metrics.meter(name(prefix, "leadership-lost"));
+    }
+
+    void leadershipAcquired() {
+        acquired.mark();
+    }
+
+    void leadershipLost() {
+        lost.mark();
+    }
+}
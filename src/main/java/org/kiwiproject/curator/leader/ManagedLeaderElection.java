@@ -0,0 +1,60 @@
+package org.kiwiproject.curator.leader;
+
+import io.dropwizard.lifecycle.Managed;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Optional;
+
+/**
+ * A leader election that is started and stopped with a Dropwizard application. Leadership is decided by ZooKeeper
+ * watches, so participants do not poll to find out which of them is the leader.
+ *
+ * @see ManagedLeaderLatch
+ * @see ManagedLeaderSelector
+ */
+public interface ManagedLeaderElection extends Managed {
+
+    /**
+     * @return the ZooKeeper path of the election
+     */
+    String getLeaderPath();
+
+    /**
+     * @return the ID of this participant
+     */
+    String getParticipantId();
+
+    /**
+     * @return true if the election has been started and not stopped
+     */
+    boolean isStarted();
+
+    /**
+     * @return true if this participant currently has leadership
+     */
+    boolean hasLeadership();
+
+    /**
+     * Get the ID of the current leader, as known by ZooKeeper.
+     *
+     * @return an Optional containing the ID of the leader, or an empty Optional if there is no leader or it could
+     * not be determined
+     */
+    Optional<String> getLeaderId();
+
+    /**
+     * Create a participant ID from the local host name and the current process ID, e.g. {@code app-host-1:12345}.
+     *
+     * @return a participant ID that is unique per process
+     */
+    static String defaultParticipantId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "unknown-host";
+        }
+        return host + ":" + ProcessHandle.current().pid();
+    }
+}
@@ -0,0 +1,134 @@
+package org.kiwiproject.curator.leader;
+
+import static org.kiwiproject.base.KiwiPreconditions.requireNotBlank;
+import static org.kiwiproject.base.KiwiPreconditions.requireNotNull;
+
+import com.codahale.metrics.MetricRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.recipes.leader.LeaderLatch;
+import org.apache.curator.framework.recipes.leader.LeaderLatchListener;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A managed {@link LeaderLatch}, for when a participant should keep leadership until it stops, e.g. a node that runs
+ * singleton jobs for as long as it is up.
+ * <p>
+ * The {@link LeaderLatchListener} is called on the given executor when this participant gains or loses leadership.
+ * Leadership is lost when the ZooKeeper connection is lost, and is given up when the latch is stopped, in which
+ * case the listener's {@link LeaderLatchListener#notLeader() notLeader} method is called.
+ */
+@Slf4j
+public class ManagedLeaderLatch implements ManagedLeaderElection {
+
+    private final LeaderLatch latch;
+    private final String latchPath;
+    private final String participantId;
+    private final AtomicBoolean started = new AtomicBoolean();
+
+    /**
+     * Create a new instance.
+     *
+     * @param client           Curator client
+     * @param latchPath        the ZooKeeper path of the election
+     * @param participantId    the ID of this participant
+     * @param listener         called when this participant gains or loses leadership
+     * @param callbackExecutor the executor on which to call the listener
+     * @param metrics          the registry in which to record leadership metrics
+     */
+    public ManagedLeaderLatch(CuratorFramework client,
+                              String latchPath,
+                              String participantId,
+                              LeaderLatchListener listener,
+                              Executor callbackExecutor,
+                              MetricRegistry metrics) {
+        requireNotNull(client, "client must not be null");
+        this.latchPath = requireNotBlank(latchPath, "latchPath must not be blank");
+        this.participantId = requireNotBlank(participantId, "participantId must not be blank");
+        requireNotNull(listener, "listener must not be null");
+        requireNotNull(callbackExecutor, "callbackExecutor must not be null");
+        requireNotNull(metrics, "metrics must not be null");
+
+        latch = new LeaderLatch(client, latchPath, participantId, LeaderLatch.CloseMode.NOTIFY_LEADER);
+
+        var electionMetrics = new LeaderElectionMetrics(metrics, latchPath, participantId, latch::hasLeadership);
+        latch.addListener(new LeaderLatchListener() {
+            @Override
+            public void isLeader() {
+                LOG.info("Participant {} is now the leader of {}", participantId, latchPath);
+                electionMetrics.leadershipAcquired();
+            }
+
+            @Override
+            public void notLeader() {
+                LOG.info("Participant {} is no longer the leader of {}", participantId, latchPath);
+                electionMetrics.leadershipLost();
+            }
+        });
+        latch.addListener(listener, callbackExecutor);
+    }
+
+    @Override
+    public String getLeaderPath() {
+        return latchPath;
+    }
+
+    @Override
+    public String getParticipantId() {
+        return participantId;
+    }
+
+    @Override
+    public boolean isStarted() {
+        return started.get();
+    }
+
+    @Override
+    public boolean hasLeadership() {
+        return latch.hasLeadership();
+    }
+
+    @Override
+    public Optional<String> getLeaderId() {
+        try {
+            var leader = latch.getLeader();
+            return leader.isLeader() ? Optional.of(leader.getId()) : Optional.empty();
+        } catch (Exception e) {
+            LOG.debug("Unable to get leader of {}", latchPath, e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Join the election.
+     *
+     * @throws Exception if the latch cannot be started
+     */
+    @Override
+    public void start() throws Exception {
+        if (started.compareAndSet(false, true)) {
+            LOG.info("Starting leader latch {} as participant {}", latchPath, participantId);
+            latch.start();
+        }
+    }
+
+    /**
+     * Leave the election, giving up leadership if held.
+     */
+    @Override
+    public void stop() {
+        if (started.compareAndSet(true, false)) {
+            LOG.info("Stopping leader latch {}", latchPath);
+            try {
+                latch.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
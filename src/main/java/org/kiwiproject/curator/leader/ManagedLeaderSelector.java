@@ -0,0 +1,137 @@
+package org.kiwiproject.curator.leader;
+
+import static org.kiwiproject.base.KiwiPreconditions.requireNotBlank;
+import static org.kiwiproject.base.KiwiPreconditions.requireNotNull;
+
+import com.codahale.metrics.MetricRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.recipes.leader.LeaderSelector;
+import org.apache.curator.framework.recipes.leader.LeaderSelectorListener;
+import org.apache.curator.framework.state.ConnectionState;
+
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A managed {@link LeaderSelector}, for when leadership should rotate between participants, e.g. a unit of work
+ * that any participant may perform, one at a time.
+ * <p>
+ * The {@link LeaderSelectorListener#takeLeadership(CuratorFramework) takeLeadership} method is called on the given
+ * executor when this participant becomes leader, and leadership is held until it returns. Afterward, this participant
+ * automatically re-joins the election. The listener should extend
+ * {@link org.apache.curator.framework.recipes.leader.LeaderSelectorListenerAdapter LeaderSelectorListenerAdapter},
+ * so that {@code takeLeadership} is interrupted if the ZooKeeper connection is suspended or lost.
+ */
+@Slf4j
+public class ManagedLeaderSelector implements ManagedLeaderElection {
+
+    private final LeaderSelector selector;
+    private final String leaderPath;
+    private final String participantId;
+    private final AtomicBoolean started = new AtomicBoolean();
+
+    /**
+     * Create a new instance.
+     *
+     * @param client           Curator client
+     * @param leaderPath       the ZooKeeper path of the election
+     * @param participantId    the ID of this participant
+     * @param listener         takes leadership when this participant is selected
+     * @param callbackExecutor the executor on which to call the listener's {@code takeLeadership} method
+     * @param metrics          the registry in which to record leadership metrics
+     */
+    public ManagedLeaderSelector(CuratorFramework client,
+                                 String leaderPath,
+                                 String participantId,
+                                 LeaderSelectorListener listener,
+                                 ExecutorService callbackExecutor,
+                                 MetricRegistry metrics) {
+        requireNotNull(client, "client must not be null");
+        this.leaderPath = requireNotBlank(leaderPath, "leaderPath must not be blank");
+        this.participantId = requireNotBlank(participantId, "participantId must not be blank");
+        requireNotNull(listener, "listener must not be null");
+        requireNotNull(callbackExecutor, "callbackExecutor must not be null");
+        requireNotNull(metrics, "metrics must not be null");
+
+        var hasLeadership = new AtomicBoolean();
+        var electionMetrics = new LeaderElectionMetrics(metrics, leaderPath, participantId, hasLeadership::get);
+
+        selector = new LeaderSelector(client, leaderPath, callbackExecutor, new LeaderSelectorListener() {
+            @Override
+            public void takeLeadership(CuratorFramework theClient) throws Exception {
+                LOG.info("Participant {} is now the leader of {}", participantId, leaderPath);
+                hasLeadership.set(true);
+                electionMetrics.leadershipAcquired();
+                try {
+                    listener.takeLeadership(theClient);
+                } finally {
+                    hasLeadership.set(false);
+                    electionMetrics.leadershipLost();
+                    LOG.info("Participant {} is no longer the leader of {}", participantId, leaderPath);
+                }
+            }
+
+            @Override
+            public void stateChanged(CuratorFramework theClient, ConnectionState newState) {
+                listener.stateChanged(theClient, newState);
+            }
+        });
+        selector.setId(participantId);
+        selector.autoRequeue();
+    }
+
+    @Override
+    public String getLeaderPath() {
+        return leaderPath;
+    }
+
+    @Override
+    public String getParticipantId() {
+        return participantId;
+    }
+
+    @Override
+    public boolean isStarted() {
+        return started.get();
+    }
+
+    @Override
+    public boolean hasLeadership() {
+        return selector.hasLeadership();
+    }
+
+    @Override
+    public Optional<String> getLeaderId() {
+        try {
+            var leader = selector.getLeader();
+            return leader.isLeader() ? Optional.of(leader.getId()) : Optional.empty();
+        } catch (Exception e) {
+            LOG.debug("Unable to get leader of {}", leaderPath, e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Join the election.
+     */
+    @Override
+    public void start() {
+        if (started.compareAndSet(false, true)) {
+            LOG.info("Starting leader selector {} as participant {}", leaderPath, participantId);
+            selector.start();
+        }
+    }
+
+    /**
+     * Leave the election, interrupting {@code takeLeadership} if this participant is the leader.
+     */
+    @Override
+    public void stop() {
+        if (started.compareAndSet(true, false)) {
+            LOG.info("Stopping leader selector {}", leaderPath);
+            selector.close();
+        }
+    }
+}
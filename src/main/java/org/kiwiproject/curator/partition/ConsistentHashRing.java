@@ -0,0 +1,70 @@
+package org.kiwiproject.curator.partition;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static org.kiwiproject.base.KiwiPreconditions.requireNotNull;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * A consistent hash ring of members, each placed on the ring at a number of virtual nodes.
+ * <p>
+ * A key is owned by the member at the first virtual node at or after the key's hash, wrapping around the ring. When
+ * a member joins or leaves, only the keys between its virtual nodes and their predecessors change owner, so on
+ * average only {@code 1/members} of the keys move.
+ * <p>
+ * Hashes are computed with 32-bit murmur3, so every node computes the same ring from the same members.
+ */
+public final class ConsistentHashRing {
+
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_32_fixed();
+
+    private final NavigableMap<Integer, String> ring = new TreeMap<>();
+
+    /**
+     * Create a new ring.
+     *
+     * @param members      the members
+     * @param virtualNodes the number of virtual nodes of each member
+     */
+    public ConsistentHashRing(Collection<String> members, int virtualNodes) {
+        requireNotNull(members, "members must not be null");
+        checkArgument(virtualNodes > 0, "virtualNodes must be positive");
+
+        for (var member : members) {
+            for (var i = 0; i < virtualNodes; i++) {
+                // On the (unlikely) collision of two virtual nodes, keep the smaller member so the ring is deterministic
+                ring.merge(hash(member + "#" + i), member, (a, b) -> a.compareTo(b) <= 0 ? a : b);
+            }
+        }
+    }
+
+    /**
+     * @param key the key
+     * @return the member that owns the key, or an empty Optional if the ring has no members
+     */
+    public Optional<String> ownerOf(String key) {
+        if (ring.isEmpty()) {
+            return Optional.empty();
+        }
+
+        var entry = ring.ceilingEntry(hash(key));
+        return Optional.of(entry == null ? ring.firstEntry().getValue() : entry.getValue());
+    }
+
+    /**
+     * Compute a stable hash of a string, the same one used to place members and keys on rings.
+     *
+     * @param value the value to hash
+     * @return the hash
+     */
+    public static int hash(String value) {
+        return HASH_FUNCTION.hashString(value, StandardCharsets.UTF_8).asInt();
+    }
+}
@@ -0,0 +1,298 @@
+package org.kiwiproject.curator.partition;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static java.util.stream.Collectors.toUnmodifiableSet;
+import static org.kiwiproject.base.KiwiPreconditions.requireNotBlank;
+import static org.kiwiproject.base.KiwiPreconditions.requireNotNull;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.dropwizard.lifecycle.Managed;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.recipes.cache.CuratorCache;
+import org.apache.curator.framework.recipes.cache.CuratorCacheListener;
+import org.apache.curator.framework.recipes.nodes.PersistentNode;
+import org.apache.curator.framework.state.ConnectionState;
+import org.apache.curator.framework.state.ConnectionStateListener;
+import org.apache.curator.utils.ZKPaths;
+import org.apache.zookeeper.CreateMode;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+/**
+ * Divides work into a fixed number of partitions, and assigns each partition to exactly one member of a group, so
+ * that each member can process the work of its partitions without taking a lock per work item.
+ * <p>
+ * Each member joins the group by creating an ephemeral znode named with its member ID under the group path, and
+ * watches the group with a {@link CuratorCache}. Whenever the membership changes, every member computes the same
+ * assignment with a {@link ConsistentHashRing} of the members, and calls its {@link PartitionRebalanceListener} if
+ * its own partitions or the members changed. Coordination therefore costs ZooKeeper operations only when members
+ * join or leave, no matter how many work items are processed.
+ * <p>
+ * When the client's connection is suspended or lost, the member's ephemeral znode may expire, and other members may
+ * take over its partitions, so the member revokes all of its partitions right away. Once reconnected, it rebalances
+ * again using the group membership seen by its cache.
+ * <p>
+ * Work items are mapped to partitions using {@link #partitionOf(String)}. Note that during a rebalance, members
+ * learn of the change at slightly different times, so a partition may briefly be processed by its old and new owner.
+ * Work that must never be processed twice still needs to be idempotent, or protected by a lock.
+ */
+@Slf4j
+public class ManagedWorkPartitioner implements Managed {
+
+    /**
+     * The default number of virtual nodes of each member on the hash ring.
+     */
+    public static final int DEFAULT_VIRTUAL_NODES = 128;
+
+    private final CuratorFramework client;
+    private final String groupPath;
+    private final String memberId;
+    private final int partitionCount;
+    private final int virtualNodes;
+    private final PartitionRebalanceListener listener;
+    private final PersistentNode memberNode;
+    private final CuratorCache groupCache;
+    private final ConnectionStateListener connectionStateListener = this::connectionStateChanged;
+
+    private ExecutorService rebalanceExecutor;
+    private volatile boolean disconnected;
+    private volatile PartitionAssignment assignment = new PartitionAssignment(
+            Set.of(), ImmutableSortedSet.of(), ImmutableSortedSet.of(), ImmutableSortedSet.of());
+
+    /**
+     * Create a new instance using {@link #DEFAULT_VIRTUAL_NODES}.
+     *
+     * @param client         Curator client
+     * @param groupPath      the ZooKeeper path of the group
+     * @param memberId       the ID of this member, which must be a valid ZooKeeper node name
+     * @param partitionCount the number of partitions
+     * @param listener       called when the partitions owned by this member change
+     */
+    public ManagedWorkPartitioner(CuratorFramework client,
+                                  String groupPath,
+                                  String memberId,
+                                  int partitionCount,
+                                  PartitionRebalanceListener listener) {
+        this(client, groupPath, memberId, partitionCount, DEFAULT_VIRTUAL_NODES, listener);
+    }
+
+    /**
+     * Create a new instance.
+     *
+     * @param client         Curator client
+     * @param groupPath      the ZooKeeper path of the group
+     * @param memberId       the ID of this member, which must be a valid ZooKeeper node name
+     * @param partitionCount the number of partitions
+     * @param virtualNodes   the number of virtual nodes of each member on the hash ring
+     * @param listener       called when the partitions owned by this member change
+     */
+    public ManagedWorkPartitioner(CuratorFramework client,
+                                  String groupPath,
+                                  String memberId,
+                                  int partitionCount,
+                                  int virtualNodes,
+                                  PartitionRebalanceListener listener) {
+        this.client = requireNotNull(client, "client must not be null");
+        this.groupPath = requireNotBlank(groupPath, "groupPath must not be blank");
+        this.memberId = requireNotBlank(memberId, "memberId must not be blank");
+        checkArgument(partitionCount > 0, "partitionCount must be positive");
+        this.partitionCount = partitionCount;
+        checkArgument(virtualNodes > 0, "virtualNodes must be positive");
+        this.virtualNodes = virtualNodes;
+        this.listener = requireNotNull(listener, "listener must not be null");
+
+        memberNode = new PersistentNode(client, CreateMode.EPHEMERAL, false,
+                ZKPaths.makePath(groupPath, memberId), memberId.getBytes(StandardCharsets.UTF_8));
+
+        groupCache = CuratorCache.build(client, groupPath);
+        groupCache.listenable().addListener(CuratorCacheListener.builder()
+                .forInitialized(this::requestRebalance)
+                .afterInitialized()
+                .forAll((type, oldData, data) -> requestRebalance())
+                .build());
+    }
+
+    /**
+     * @return the ZooKeeper path of the group
+     */
+    public String getGroupPath() {
+        return groupPath;
+    }
+
+    /**
+     * @return the ID of this member
+     */
+    public String getMemberId() {
+        return memberId;
+    }
+
+    /**
+     * @return the number of partitions
+     */
+    public int getPartitionCount() {
+        return partitionCount;
+    }
+
+    /**
+     * @return the most recent assignment; before the first rebalance, it has no members and owns no partitions
+     */
+    public PartitionAssignment getAssignment() {
+        return assignment;
+    }
+
+    /**
+     * @param partition the partition
+     * @return true if this member currently owns the partition
+     */
+    public boolean ownsPartition(int partition) {
+        return assignment.owned().contains(partition);
+    }
+
+    /**
+     * @param key the key of a work item
+     * @return true if this member currently owns the partition of the key
+     */
+    public boolean ownsKey(String key) {
+        return ownsPartition(partitionOf(key));
+    }
+
+    /**
+     * Find the partition of a work item. All members map a key to the same partition.
+     *
+     * @param key the key of a work item
+     * @return the partition, from zero to the partition count (exclusive)
+     */
+    public int partitionOf(String key) {
+        return Math.floorMod(ConsistentHashRing.hash(key), partitionCount);
+    }
+
+    /**
+     * Join the group, and start watching it.
+     */
+    @Override
+    public synchronized void start() {
+        checkState(rebalanceExecutor == null, "partitioner is already started");
+
+        var threadFactory = new ThreadFactoryBuilder()
+                .setNameFormat("work-partitioner-%d")
+                .setDaemon(true)
+                .build();
+        rebalanceExecutor = Executors.newSingleThreadExecutor(threadFactory);
+
+        LOG.info("Joining group {} as member {} with {} partitions", groupPath, memberId, partitionCount);
+        client.getConnectionStateListenable().addListener(connectionStateListener);
+        memberNode.start();
+        groupCache.start();
+    }
+
+    /**
+     * Leave the group. The listener is called a final time with all partitions revoked.
+     */
+    @Override
+    public synchronized void stop() {
+        if (rebalanceExecutor == null) {
+            return;
+        }
+
+        LOG.info("Leaving group {} as member {}", groupPath, memberId);
+        client.getConnectionStateListenable().removeListener(connectionStateListener);
+        groupCache.close();
+        try {
+            memberNode.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            rebalanceExecutor.execute(() -> updateAssignment(Set.of()));
+            rebalanceExecutor.shutdown();
+            rebalanceExecutor = null;
+        }
+    }
+
+    @VisibleForTesting
+    synchronized void connectionStateChanged(CuratorFramework ignoredClient, ConnectionState newState) {
+        if (rebalanceExecutor == null) {
+            return;
+        }
+
+        switch (newState) {
+            case SUSPENDED, LOST -> {
+                LOG.warn("Connection {}; member {} of group {} revokes all its partitions",
+                        newState, memberId, groupPath);
+                disconnected = true;
+                rebalanceExecutor.execute(() -> updateAssignment(Set.of()));
+            }
+            case RECONNECTED -> {
+                LOG.info("Connection reconnected; rebalancing group {}", groupPath);
+                disconnected = false;
+                rebalanceExecutor.execute(this::rebalance);
+            }
+            default -> {
+                // nothing to do
+            }
+        }
+    }
+
+    private synchronized void requestRebalance() {
+        if (rebalanceExecutor != null) {
+            rebalanceExecutor.execute(this::rebalance);
+        }
+    }
+
+    private void rebalance() {
+        if (disconnected) {
+            LOG.debug("Not rebalancing group {} while disconnected", groupPath);
+            return;
+        }
+
+        try {
+            var members = groupCache.stream()
+                    .filter(data -> groupPath.equals(ZKPaths.getPathAndNode(data.getPath()).getPath()))
+                    .map(data -> ZKPaths.getNodeFromPath(data.getPath()))
+                    .collect(toUnmodifiableSet());
+            updateAssignment(members);
+        } catch (Exception e) {
+            LOG.error("Error rebalancing partitions of group {}", groupPath, e);
+        }
+    }
+
+    private void updateAssignment(Set<String> members) {
+        var ring = new ConsistentHashRing(members, virtualNodes);
+        SortedSet<Integer> owned = IntStream.range(0, partitionCount)
+                .filter(partition -> ring.ownerOf("partition-" + partition).filter(memberId::equals).isPresent())
+                .boxed()
+                .collect(ImmutableSortedSet.toImmutableSortedSet(Integer::compare));
+
+        var previous = assignment;
+        if (Objects.equals(previous.members(), members) && previous.owned().equals(owned)) {
+            return;
+        }
+
+        var newAssignment = new PartitionAssignment(members,
+                owned,
+                ImmutableSortedSet.copyOf(Sets.difference(owned, previous.owned())),
+                ImmutableSortedSet.copyOf(Sets.difference(previous.owned(), owned)));
+        assignment = newAssignment;
+
+        LOG.info("Rebalanced group {} with members {}: member {} owns {} partitions (added {}, revoked {})",
+                groupPath, members, memberId, owned.size(), newAssignment.added().size(),
+                newAssignment.revoked().size());
+        try {
+            listener.onRebalance(newAssignment);
+        } catch (Exception e) {
+            LOG.error("Rebalance listener of group {} failed", groupPath, e);
+        }
+    }
+}
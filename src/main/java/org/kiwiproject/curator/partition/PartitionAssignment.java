@@ -0,0 +1,18 @@
+package org.kiwiproject.curator.partition;
+
+import java.util.Set;
+import java.util.SortedSet;
+
+/**
+ * The partitions owned by a member of a {@link ManagedWorkPartitioner} group after a rebalance.
+ *
+ * @param members  the members of the group
+ * @param owned    the partitions now owned by this member
+ * @param added    the partitions this member did not own before the rebalance
+ * @param revoked  the partitions this member owned before the rebalance, and no longer owns
+ */
+public record PartitionAssignment(Set<String> members,
+                                  SortedSet<Integer> owned,
+                                  SortedSet<Integer> added,
+                                  SortedSet<Integer> revoked) {
+}
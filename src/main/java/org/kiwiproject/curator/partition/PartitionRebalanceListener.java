@@ -0,0 +1,18 @@
+package org.kiwiproject.curator.partition;
+
+/**
+ * Called when the partitions owned by a member of a {@link ManagedWorkPartitioner} group change.
+ */
+@FunctionalInterface
+public interface PartitionRebalanceListener {
+
+    /**
+     * Called after the group membership changed. Implementations should stop processing revoked partitions, and
+     * start processing added ones.
+     * <p>
+     * Calls are made one at a time, in order, on a dedicated thread of the partitioner.
+     *
+     * @param assignment the new assignment
+     */
+    void onRebalance(PartitionAssignment assignment);
+}
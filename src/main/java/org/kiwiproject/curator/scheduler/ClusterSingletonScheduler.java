@@ -0,0 +1,298 @@
+package org.kiwiproject.curator.scheduler;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static org.kiwiproject.base.KiwiPreconditions.checkArgumentNotBlank;
+import static org.kiwiproject.base.KiwiPreconditions.requireNotNull;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.common.primitives.Longs;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.dropwizard.lifecycle.Managed;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.recipes.leader.LeaderLatchListener;
+import org.apache.curator.framework.recipes.locks.InterProcessMutex;
+import org.apache.curator.utils.ZKPaths;
+import org.apache.zookeeper.KeeperException;
+import org.kiwiproject.curator.CuratorLockHelper;
+import org.kiwiproject.curator.leader.ManagedLeaderLatch;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Runs named jobs at fixed intervals on exactly one node of a cluster.
+ * <p>
+ * Every node registers the same jobs. Time is divided into ticks of each job's interval, aligned to the epoch, and
+ * each node wakes up at a random point within the first part of each tick (up to the job's maximum jitter), so that
+ * nodes do not all wake up at the same instant.
+ * <p>
+ * All jobs share a single {@link ManagedLeaderLatch}, and only the leader attempts to run jobs, so other nodes do not
+ * touch ZooKeeper at all when they wake up. The leader then tries each job's lock without waiting, and skips the tick
+ * if the lock is held, e.g. by a previous leader whose run has not finished. While holding the lock, it skips the
+ * tick if the tick was already run, as recorded in ZooKeeper, which prevents a second run of a tick after a change of
+ * leader. A run that lasts longer than its interval causes the ticks it overlaps to be skipped.
+ * <p>
+ * The following metrics are recorded for each job, with names starting with
+ * {@code org.kiwiproject.curator.scheduler.ClusterSingletonScheduler.<job>}:
+ * <ul>
+ *     <li>{@code runs} - timer of the job's runs on this node</li>
+ *     <li>{@code skips} - meter of ticks skipped by this node while leader, or because a run overlapped them</li>
+ *     <li>{@code failures} - meter of runs that threw an exception</li>
+ * </ul>
+ * ZooKeeper nodes are created under the scheduler's root path: {@code leader} for the leader latch, and
+ * {@code jobs/<job>} for the lock and the last-run tick of each job.
+ */
+@Slf4j
+public class ClusterSingletonScheduler implements Managed {
+
+    /**
+     * The default number of threads on which jobs run.
+     */
+    public static final int DEFAULT_THREADS = 2;
+
+    private final CuratorFramework client;
+    private final CuratorLockHelper lockHelper;
+    private final String rootPath;
+    private final MetricRegistry metrics;
+    private final int threads;
+    private final LongSupplier clock;
+    private final ManagedLeaderLatch leaderLatch;
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService executor;
+
+    private record Job(String name,
+                       long intervalMillis,
+                       long maxJitterMillis,
+                       Runnable action,
+                       InterProcessMutex lock,
+                       String lastRunPath,
+                       Timer runs,
+                       Meter skips,
+                       Meter failures) {
+    }
+
+    /**
+     * Create a new instance.
+     *
+     * @param client        Curator client
+     * @param lockHelper    the lock helper used to create and try job locks
+     * @param rootPath      the ZooKeeper path under which the scheduler keeps its nodes
+     * @param participantId the ID of this node in the scheduler's leader election
+     * @param threads       the number of threads on which jobs run
+     * @param metrics       the registry in which to record job metrics
+     */
+    public ClusterSingletonScheduler(CuratorFramework client,
+                                     CuratorLockHelper lockHelper,
+                                     String rootPath,
+                                     String participantId,
+                                     int threads,
+                                     MetricRegistry metrics) {
+        this(client, lockHelper, rootPath, participantId, threads, metrics, System::currentTimeMillis);
+    }
+
+    ClusterSingletonScheduler(CuratorFramework client,
+                              CuratorLockHelper lockHelper,
+                              String rootPath,
+                              String participantId,
+                              int threads,
+                              MetricRegistry metrics,
+                              LongSupplier clock) {
+        this.client = requireNotNull(client, "client must not be null");
+        this.lockHelper = requireNotNull(lockHelper, "lockHelper must not be null");
+        checkArgumentNotBlank(rootPath, "rootPath must not be blank");
+        this.rootPath = rootPath;
+        checkArgument(threads > 0, "threads must be positive");
+        this.threads = threads;
+        this.metrics = requireNotNull(metrics, "metrics must not be null");
+        this.clock = requireNotNull(clock, "clock must not be null");
+
+        var leaderListener = new LeaderLatchListener() {
+            @Override
+            public void isLeader() {
+                LOG.info("This node now runs the jobs of scheduler {}", rootPath);
+            }
+
+            @Override
+            public void notLeader() {
+                LOG.info("This node no longer runs the jobs of scheduler {}", rootPath);
+            }
+        };
+        leaderLatch = new ManagedLeaderLatch(client, ZKPaths.makePath(rootPath, "leader"), participantId,
+                leaderListener, MoreExecutors.directExecutor(), metrics);
+    }
+
+    /**
+     * Register a job, using a maximum jitter of one tenth of its interval.
+     *
+     * @param name     the unique name of the job
+     * @param interval the time between runs
+     * @param action   the job
+     * @see #schedule(String, Duration, Duration, Runnable)
+     */
+    public void schedule(String name, Duration interval, Runnable action) {
+        schedule(name, interval, interval.dividedBy(10), action);
+    }
+
+    /**
+     * Register a job. If the scheduler is started, the job is scheduled immediately; otherwise it is scheduled when
+     * the scheduler starts.
+     *
+     * @param name      the unique name of the job, which must be a valid ZooKeeper node name
+     * @param interval  the time between runs
+     * @param maxJitter the maximum random delay after the start of each tick; must be less than the interval
+     * @param action    the job
+     * @throws IllegalArgumentException if a job with the same name is already registered, or an argument is invalid
+     */
+    public void schedule(String name, Duration interval, Duration maxJitter, Runnable action) {
+        checkArgumentNotBlank(name, "name must not be blank");
+        checkArgument(interval.toMillis() > 0, "interval must be at least one millisecond");
+        checkArgument(!maxJitter.isNegative() && maxJitter.compareTo(interval) < 0,
+                "maxJitter must not be negative, and must be less than the interval");
+        requireNotNull(action, "action must not be null");
+
+        var jobPath = ZKPaths.makePath(rootPath, "jobs", name);
+        var metricsPrefix = name(ClusterSingletonScheduler.class, name);
+        var job = new Job(name,
+                interval.toMillis(),
+                maxJitter.toMillis(),
+                action,
+                lockHelper.createInterProcessMutex(client, ZKPaths.makePath(jobPath, "lock")),
+                ZKPaths.makePath(jobPath, "last-run"),
+                metrics.timer(name(metricsPrefix, "runs")),
+                metrics.meter(name(metricsPrefix, "skips")),
+                metrics.meter(name(metricsPrefix, "failures")));
+
+        checkArgument(jobs.putIfAbsent(name, job) == null, "A job named %s is already registered", name);
+        synchronized (this) {
+            if (executor != null) {
+                scheduleNextTick(job);
+            }
+        }
+    }
+
+    /**
+     * @return true if this node is currently the one that runs jobs
+     */
+    public boolean isLeader() {
+        return leaderLatch.hasLeadership();
+    }
+
+    /**
+     * Join the scheduler's leader election, and schedule all registered jobs.
+     *
+     * @throws Exception if the leader election cannot be started
+     */
+    @Override
+    public synchronized void start() throws Exception {
+        checkState(executor == null, "scheduler is already started");
+
+        var threadFactory = new ThreadFactoryBuilder()
+                .setNameFormat("cluster-singleton-scheduler-%d")
+                .setDaemon(true)
+                .build();
+        executor = Executors.newScheduledThreadPool(threads, threadFactory);
+        leaderLatch.start();
+        jobs.values().forEach(this::scheduleNextTick);
+        LOG.info("Started scheduler {} with jobs {}", rootPath, jobs.keySet());
+    }
+
+    /**
+     * Stop scheduling jobs, interrupting running jobs, and leave the leader election.
+     */
+    @Override
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+        leaderLatch.stop();
+    }
+
+    private synchronized void scheduleNextTick(Job job) {
+        if (executor == null || executor.isShutdown()) {
+            return;
+        }
+
+        var now = clock.getAsLong();
+        var nextTickStart = (Math.floorDiv(now, job.intervalMillis()) + 1) * job.intervalMillis();
+        var jitter = job.maxJitterMillis() == 0 ? 0 : ThreadLocalRandom.current().nextLong(job.maxJitterMillis() + 1);
+        executor.schedule(() -> runTick(job), nextTickStart + jitter - now, TimeUnit.MILLISECONDS);
+    }
+
+    private void runTick(Job job) {
+        var tick = Math.floorDiv(clock.getAsLong(), job.intervalMillis());
+        try {
+            if (leaderLatch.hasLeadership()) {
+                var ran = lockHelper.tryUseLock(job.lock(), () -> runIfNotRun(job, tick));
+                if (!ran) {
+                    LOG.debug("Skipping tick {} of job {}; its lock is held", tick, job.name());
+                    job.skips().mark();
+                }
+            }
+        } catch (Exception e) {
+            LOG.warn("Error running tick {} of job {}", tick, job.name(), e);
+        } finally {
+            markOverlappedTicks(job, tick);
+            scheduleNextTick(job);
+        }
+    }
+
+    private void runIfNotRun(Job job, long tick) {
+        if (lastRunTick(job) >= tick) {
+            LOG.debug("Skipping tick {} of job {}; it was already run", tick, job.name());
+            job.skips().mark();
+            return;
+        }
+
+        recordLastRunTick(job, tick);
+        try (var ignored = job.runs().time()) {
+            job.action().run();
+        } catch (RuntimeException e) {
+            LOG.error("Job {} failed", job.name(), e);
+            job.failures().mark();
+        }
+    }
+
+    private long lastRunTick(Job job) {
+        try {
+            var data = client.getData().forPath(job.lastRunPath());
+            return data.length == Long.BYTES ? Longs.fromByteArray(data) : Long.MIN_VALUE;
+        } catch (KeeperException.NoNodeException e) {
+            return Long.MIN_VALUE;
+        } catch (Exception e) {
+            throw new IllegalStateException("Unable to read last run of job " + job.name(), e);
+        }
+    }
+
+    private void recordLastRunTick(Job job, long tick) {
+        try {
+            client.create()
+                    .orSetData()
+                    .creatingParentContainersIfNeeded()
+                    .forPath(job.lastRunPath(), Longs.toByteArray(tick));
+        } catch (Exception e) {
+            throw new IllegalStateException("Unable to record last run of job " + job.name(), e);
+        }
+    }
+
+    private void markOverlappedTicks(Job job, long tick) {
+        var overlapped = Math.floorDiv(clock.getAsLong(), job.intervalMillis()) - tick;
+        if (overlapped > 0) {
+            LOG.warn("Job {} overlapped {} ticks, which are skipped", job.name(), overlapped);
+            job.skips().mark(overlapped);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package org.kiwiproject.curator.tasks;
+
+import static org.kiwiproject.base.KiwiPreconditions.checkArgumentNotNull;
+import static org.kiwiproject.base.KiwiPreconditions.requireNotNull;
+
+import io.dropwizard.servlets.tasks.Task;
+import org.apache.curator.framework.CuratorFramework;
+import org.kiwiproject.curator.CuratorLockHelper;
+import org.kiwiproject.curator.LockQueueInfo;
+
+import java.io.PrintWriter;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A Dropwizard admin task that reports the queue depth of every lock path under a set of lock roots, followed by
+ * its participants in lock order, each with the path of its lock node and its owner, using
+ * {@link CuratorLockHelper#inspectLockQueues(CuratorFramework, java.util.Collection, Duration)}.
+ * <p>
+ * By default, the configured lock roots are inspected. They can be overridden with one or more {@value #ROOT_PARAM}
+ * parameters, e.g. {@code POST /tasks/curator-lock-queues?root=/locks/orders}.
+ */
+public class LockQueuesTask extends Task {
+
+    /**
+     * The name of this task.
+     */
+    public static final String NAME = "curator-lock-queues";
+
+    /**
+     * The name of the parameter that overrides the configured lock roots.
+     */
+    public static final String ROOT_PARAM = "root";
+
+    private final CuratorFramework client;
+    private final CuratorLockHelper lockHelper;
+    private final List<String> lockRoots;
+    private final Duration timeout;
+
+    /**
+     * Create a new instance.
+     *
+     * @param client     Curator client
+     * @param lockHelper the lock helper, which supplies estimated hold times if it records them
+     * @param lockRoots  the lock roots to inspect when none are given as parameters
+     * @param timeout    the maximum time to spend inspecting
+     */
+    public LockQueuesTask(CuratorFramework client,
+                          CuratorLockHelper lockHelper,
+                          List<String> lockRoots,
+                          Duration timeout) {
+        super(NAME);
+        this.client = requireNotNull(client, "client must not be null");
+        this.lockHelper = requireNotNull(lockHelper, "lockHelper must not be null");
+        checkArgumentNotNull(lockRoots, "lockRoots must not be null");
+        this.lockRoots = List.copyOf(lockRoots);
+        this.timeout = requireNotNull(timeout, "timeout must not be null");
+    }
+
+    @Override
+    public void execute(Map<String, List<String>> parameters, PrintWriter output) {
+        var roots = parameters.getOrDefault(ROOT_PARAM, lockRoots);
+        if (roots.isEmpty()) {
+            output.println("No lock roots are configured; specify one or more using the '" + ROOT_PARAM
+                    + "' parameter");
+            return;
+        }
+
+        var lockQueues = lockHelper.inspectLockQueues(client, roots, timeout);
+        output.printf("%d lock paths with participants under %s%n", lockQueues.size(), roots);
+        lockQueues.forEach(lockQueue -> print(lockQueue, output));
+        output.flush();
+    }
+
+    private static void print(LockQueueInfo lockQueue, PrintWriter output) {
+        output.printf("%s queueDepth=%d estimatedWait=%s%n",
+                lockQueue.lockPath(),
+                lockQueue.queueDepth(),
+                lockQueue.estimatedWait().map(Duration::toString).orElse("unknown"));
+        lockQueue.participants().forEach(participant ->
+                output.printf("  %s owner=%s%n", participant.node(), participant.owner()));
+    }
+}
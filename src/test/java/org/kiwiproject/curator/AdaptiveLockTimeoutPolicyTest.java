@@ -0,0 +1,189 @@
+package org.kiwiproject.curator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.codahale.metrics.Clock;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.kiwiproject.curator.config.AdaptiveLockTimeoutConfig;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+@DisplayName("AdaptiveLockTimeoutPolicy")
+class AdaptiveLockTimeoutPolicyTest {
+
+    private static final String TEMPLATE = "/locks/orders/{orderId}";
+
+    private AdaptiveLockTimeoutConfig config;
+    private TestClock clock;
+    private AdaptiveLockTimeoutPolicy policy;
+
+    static class TestClock extends Clock {
+        long tickNanos = TimeUnit.HOURS.toNanos(1);
+
+        @Override
+        public long getTick() {
+            return tickNanos;
+        }
+
+        @Override
+        public long getTime() {
+            return TimeUnit.NANOSECONDS.toMillis(tickNanos);
+        }
+
+        void advance(Duration duration) {
+            tickNanos += duration.toNanos();
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        config = new AdaptiveLockTimeoutConfig();
+        config.setPercentile(0.9);
+        config.setMinTimeout(io.dropwizard.util.Duration.milliseconds(50));
+        config.setMaxTimeout(io.dropwizard.util.Duration.seconds(10));
+        config.setMinSamples(10);
+        clock = new TestClock();
+        policy = new AdaptiveLockTimeoutPolicy(config, clock);
+    }
+
+    @Test
+    void shouldRequireMinTimeoutNotGreaterThanMaxTimeout() {
+        config.setMinTimeout(io.dropwizard.util.Duration.seconds(20));
+
+        assertThatThrownBy(() -> new AdaptiveLockTimeoutPolicy(config))
+                .isExactlyInstanceOf(IllegalArgumentException.class)
+                .hasMessage("minTimeout must not be greater than maxTimeout");
+    }
+
+    @Test
+    void shouldUseMaxTimeout_UntilEnoughSamples() {
+        recordLatencies(9, Duration.ofMillis(200));
+
+        assertThat(policy.timeoutFor(TEMPLATE)).isEqualTo(Duration.ofSeconds(10));
+    }
+
+    @Test
+    void shouldUsePercentileOfLatencies() {
+        IntStream.rangeClosed(1, 100).forEach(i -> policy.recordLatency(TEMPLATE, Duration.ofMillis(i * 10L)));
+
+        var timeout = policy.timeoutFor(TEMPLATE);
+
+        assertThat(timeout).isBetween(Duration.ofMillis(1700), Duration.ofMillis(1900));
+    }
+
+    @Test
+    void shouldBoundTimeouts() {
+        recordLatencies(20, Duration.ofMillis(1));
+        assertThat(policy.timeoutFor(TEMPLATE)).isEqualTo(Duration.ofMillis(50));
+
+        recordLatencies(20, Duration.ofSeconds(1), "/other");
+        recordLatencies(200, Duration.ofMinutes(1), "/other");
+        assertThat(policy.timeoutFor("/other")).isEqualTo(Duration.ofSeconds(10));
+    }
+
+    @Test
+    void shouldApplyHeadroom() {
+        config.setHeadroom(1.5);
+        policy = new AdaptiveLockTimeoutPolicy(config, clock);
+        recordLatencies(20, Duration.ofMillis(200));
+
+        assertThat(policy.timeoutFor(TEMPLATE)).isEqualTo(Duration.ofMillis(300));
+    }
+
+    @Test
+    void shouldRequireHeadroomOfAtLeastOne() {
+        config.setHeadroom(0.9);
+
+        assertThatThrownBy(() -> new AdaptiveLockTimeoutPolicy(config))
+                .isExactlyInstanceOf(IllegalArgumentException.class)
+                .hasMessage("headroom must be at least 1.0");
+    }
+
+    @Test
+    void shouldKeepTemplatesSeparate() {
+        recordLatencies(20, Duration.ofMillis(200));
+
+        assertThat(policy.timeoutFor(TEMPLATE)).isEqualTo(Duration.ofMillis(400));
+        assertThat(policy.timeoutFor("/locks/other")).isEqualTo(Duration.ofSeconds(10));
+    }
+
+    @Test
+    void shouldRecordTimeouts_AsGrownLatencies() {
+        recordLatencies(20, Duration.ofMillis(200));
+        var timeout = policy.timeoutFor(TEMPLATE);
+        assertThat(timeout).isEqualTo(Duration.ofMillis(400));
+
+        IntStream.range(0, 100).forEach(i -> policy.recordTimeout(TEMPLATE, timeout));
+        clock.advance(Duration.ofSeconds(1));
+
+        assertThat(policy.timeoutFor(TEMPLATE)).isEqualTo(Duration.ofMillis(1600));
+    }
+
+    @Test
+    void shouldCapGrownTimeouts_AtMaxTimeout() {
+        recordLatencies(20, Duration.ofSeconds(4));
+
+        IntStream.range(0, 100).forEach(i -> policy.recordTimeout(TEMPLATE, Duration.ofSeconds(8)));
+        clock.advance(Duration.ofSeconds(1));
+
+        assertThat(policy.timeoutFor(TEMPLATE)).isEqualTo(Duration.ofSeconds(10));
+    }
+
+    @Test
+    void shouldRaiseTimeout_AfterContentionSpike_FromRealOutcomes() {
+        var steadyTimeout = acquireRepeatedly(Duration.ofMillis(100), 60);
+        assertThat(steadyTimeout).isEqualTo(Duration.ofMillis(200));
+
+        var spikeTimeout = acquireRepeatedly(Duration.ofMillis(1_500), 60);
+
+        assertThat(spikeTimeout).isGreaterThan(Duration.ofMillis(1_500));
+        assertThat(acquireOnce(Duration.ofMillis(1_500))).isTrue();
+    }
+
+    @Test
+    void shouldCacheTimeout_BetweenRefreshes() {
+        recordLatencies(20, Duration.ofMillis(200));
+        assertThat(policy.timeoutFor(TEMPLATE)).isEqualTo(Duration.ofMillis(400));
+
+        recordLatencies(200, Duration.ofMillis(500));
+        assertThat(policy.timeoutFor(TEMPLATE)).isEqualTo(Duration.ofMillis(400));
+
+        clock.advance(Duration.ofSeconds(1));
+        assertThat(policy.timeoutFor(TEMPLATE)).isEqualTo(Duration.ofMillis(1000));
+    }
+
+    /**
+     * Simulate acquisitions that each take the given latency, recording a timeout whenever the latency exceeds the
+     * current timeout, as InstrumentedCuratorLockHelper does. Returns the timeout after the acquisitions.
+     */
+    private Duration acquireRepeatedly(Duration latency, int seconds) {
+        for (var second = 0; second < seconds; second++) {
+            IntStream.range(0, 10).forEach(i -> acquireOnce(latency));
+            clock.advance(Duration.ofSeconds(1));
+        }
+        return policy.timeoutFor(TEMPLATE);
+    }
+
+    private boolean acquireOnce(Duration latency) {
+        var timeout = policy.timeoutFor(TEMPLATE);
+        if (latency.compareTo(timeout) <= 0) {
+            policy.recordLatency(TEMPLATE, latency);
+            return true;
+        }
+        policy.recordTimeout(TEMPLATE, timeout);
+        return false;
+    }
+
+    private void recordLatencies(int count, Duration latency) {
+        recordLatencies(count, latency, TEMPLATE);
+    }
+
+    private void recordLatencies(int count, Duration latency, String template) {
+        IntStream.range(0, count).forEach(i -> policy.recordLatency(template, latency));
+    }
+}
@@ -0,0 +1,183 @@
+package org.kiwiproject.curator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.CuratorFrameworkFactory;
+import org.apache.curator.framework.recipes.locks.InterProcessMutex;
+import org.apache.curator.retry.RetryOneTime;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.kiwiproject.test.curator.CuratorTestingServerExtension;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests run against a test ZooKeeper server.
+ */
+@DisplayName("AsyncInterProcessMutex")
+class AsyncInterProcessMutexTest {
+
+    @RegisterExtension
+    static final CuratorTestingServerExtension ZK_TEST_SERVER = new CuratorTestingServerExtension();
+
+    private CuratorFramework client;
+    private String lockPath;
+
+    @BeforeEach
+    void setUp() {
+        client = CuratorFrameworkFactory.newClient(ZK_TEST_SERVER.getConnectString(), new RetryOneTime(100));
+        client.start();
+        lockPath = "/locks/async-" + System.nanoTime();
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.close();
+    }
+
+    @Test
+    void shouldAcquireAndRelease() throws Exception {
+        var mutex = new AsyncInterProcessMutex(client, lockPath);
+
+        var lease = mutex.acquire(Duration.ofSeconds(5)).get(5, TimeUnit.SECONDS);
+
+        assertThat(lease.isHeld()).isTrue();
+        assertThat(lease.getNodePath()).startsWith(lockPath + "/").contains("lock-");
+        assertThat(client.getChildren().forPath(lockPath)).hasSize(1);
+
+        lease.releaseAsync().get(5, TimeUnit.SECONDS);
+
+        assertThat(lease.isHeld()).isFalse();
+        assertThat(client.getChildren().forPath(lockPath)).isEmpty();
+    }
+
+    @Test
+    void shouldTimeOut_AndDeleteLockNode_WhenLockIsHeld() throws Exception {
+        var mutex = new AsyncInterProcessMutex(client, lockPath);
+        var lease = mutex.acquire(Duration.ofSeconds(5)).get(5, TimeUnit.SECONDS);
+
+        var waiter = mutex.acquire(Duration.ofMillis(200));
+
+        assertThatThrownBy(() -> waiter.get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(TimeoutException.class);
+
+        await().atMost(5, TimeUnit.SECONDS)
+                .until(() -> client.getChildren().forPath(lockPath).size() == 1);
+
+        lease.close();
+    }
+
+    @Test
+    void shouldGrantLockToNextWaiter_WhenReleased() throws Exception {
+        var mutex = new AsyncInterProcessMutex(client, lockPath);
+        var lease = mutex.acquire(Duration.ofSeconds(5)).get(5, TimeUnit.SECONDS);
+
+        var waiter = mutex.acquire(Duration.ofSeconds(10));
+        Thread.sleep(100);
+        assertThat(waiter).isNotDone();
+
+        lease.close();
+
+        var nextLease = waiter.get(5, TimeUnit.SECONDS);
+        assertThat(nextLease.isHeld()).isTrue();
+        nextLease.close();
+    }
+
+    @Test
+    void shouldWaitWithoutTimeout() throws Exception {
+        var mutex = new AsyncInterProcessMutex(client, lockPath);
+        var lease = mutex.acquire().get(5, TimeUnit.SECONDS);
+
+        var waiter = mutex.acquire();
+        Thread.sleep(100);
+        assertThat(waiter).isNotDone();
+
+        lease.close();
+
+        var nextLease = waiter.get(5, TimeUnit.SECONDS);
+        assertThat(nextLease.isHeld()).isTrue();
+        nextLease.close();
+    }
+
+    @Test
+    void shouldExcludeInterProcessMutex_OnSamePath() throws Exception {
+        var mutex = new AsyncInterProcessMutex(client, lockPath);
+        var interProcessMutex = new InterProcessMutex(client, lockPath);
+
+        var lease = mutex.acquire(Duration.ofSeconds(5)).get(5, TimeUnit.SECONDS);
+        var acquired = CompletableFuture.supplyAsync(() -> tryAcquire(interProcessMutex, 200));
+        assertThat(acquired.get(5, TimeUnit.SECONDS)).isFalse();
+
+        lease.releaseAsync().get(5, TimeUnit.SECONDS);
+
+        assertThat(interProcessMutex.acquire(5, TimeUnit.SECONDS)).isTrue();
+        var waiter = mutex.acquire(Duration.ofMillis(200));
+        assertThatThrownBy(() -> waiter.get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(TimeoutException.class);
+        interProcessMutex.release();
+    }
+
+    private static boolean tryAcquire(InterProcessMutex mutex, long millis) {
+        try {
+            return mutex.acquire(millis, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Test
+    void shouldDeleteLockNode_WhenCancelled() throws Exception {
+        var mutex = new AsyncInterProcessMutex(client, lockPath);
+        var lease = mutex.acquire(Duration.ofSeconds(5)).get(5, TimeUnit.SECONDS);
+
+        var waiter = mutex.acquire(Duration.ofSeconds(30));
+        await().atMost(5, TimeUnit.SECONDS)
+                .until(() -> client.getChildren().forPath(lockPath).size() == 2);
+
+        waiter.cancel(false);
+
+        await().atMost(5, TimeUnit.SECONDS)
+                .until(() -> client.getChildren().forPath(lockPath).size() == 1);
+
+        lease.close();
+    }
+
+    @Test
+    void shouldServeManyWaiters_InOrder_WithoutOverlap() throws Exception {
+        var mutex = new AsyncInterProcessMutex(client, lockPath);
+        var waiterCount = 50;
+        var inCriticalSection = new AtomicInteger();
+        var maxInCriticalSection = new AtomicInteger();
+        var completed = new AtomicInteger();
+
+        var futures = new ArrayList<CompletableFuture<Void>>();
+        for (var i = 0; i < waiterCount; i++) {
+            futures.add(mutex.acquire(Duration.ofSeconds(30)).thenCompose(lease -> {
+                var current = inCriticalSection.incrementAndGet();
+                maxInCriticalSection.accumulateAndGet(current, Math::max);
+                completed.incrementAndGet();
+                inCriticalSection.decrementAndGet();
+                return lease.releaseAsync();
+            }));
+        }
+
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(30, TimeUnit.SECONDS);
+
+        assertThat(completed).hasValue(waiterCount);
+        assertThat(maxInCriticalSection).hasValue(1);
+        assertThat(client.getChildren().forPath(lockPath)).isEmpty();
+    }
+}
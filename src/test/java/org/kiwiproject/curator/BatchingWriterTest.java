@@ -0,0 +1,195 @@
+package org.kiwiproject.curator;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+import com.codahale.metrics.MetricRegistry;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.CuratorFrameworkFactory;
+import org.apache.curator.retry.RetryOneTime;
+import org.apache.zookeeper.KeeperException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.kiwiproject.test.curator.CuratorTestingServerExtension;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+@DisplayName("BatchingWriter")
+class BatchingWriterTest {
+
+    @RegisterExtension
+    static final CuratorTestingServerExtension ZK_TEST_SERVER = new CuratorTestingServerExtension();
+
+    private CuratorFramework client;
+    private MetricRegistry metrics;
+    private BatchingWriter writer;
+    private String root;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        client = CuratorFrameworkFactory.newClient(ZK_TEST_SERVER.getConnectString(), new RetryOneTime(100));
+        client.start();
+        metrics = new MetricRegistry();
+        root = "/batching-" + System.nanoTime();
+        client.create().forPath(root);
+        writer = new BatchingWriter(client, Duration.ofMillis(50), 10, metrics);
+        writer.start();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        writer.stop();
+        client.close();
+    }
+
+    @Test
+    void shouldRejectWrites_WhenNotRunning() throws Exception {
+        writer.stop();
+
+        assertThatThrownBy(() -> writer.create(root + "/a", bytes("a")))
+                .isExactlyInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void shouldBatchWrites_ArrivingWithinWindow() throws Exception {
+        var futures = IntStream.range(0, 5)
+                .mapToObj(i -> writer.create(root + "/node-" + i, bytes("v" + i)))
+                .toList();
+
+        for (var i = 0; i < futures.size(); i++) {
+            assertThat(futures.get(i).get(5, TimeUnit.SECONDS)).isEqualTo(root + "/node-" + i);
+        }
+        assertThat(client.getChildren().forPath(root)).hasSize(5);
+        assertThat(transactions()).isOne();
+    }
+
+    @Test
+    void shouldLimitBatchSize() throws Exception {
+        var futures = IntStream.range(0, 25)
+                .mapToObj(i -> writer.create(root + "/node-" + i, bytes("v" + i)))
+                .toList();
+
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+
+        assertThat(transactions()).isEqualTo(3);
+        assertThat(metrics.histogram(name(BatchingWriter.class, "batch-size")).getSnapshot().getMax()).isEqualTo(10);
+    }
+
+    @Test
+    void shouldCompleteEachFuture_WithItsOwnResult() throws Exception {
+        client.create().forPath(root + "/existing", bytes("old"));
+
+        var setFuture = writer.setData(root + "/existing", bytes("new"));
+        var createFuture = writer.create(root + "/created", bytes("x"));
+
+        assertThat(setFuture.get(5, TimeUnit.SECONDS).getVersion()).isOne();
+        assertThat(createFuture.get(5, TimeUnit.SECONDS)).isEqualTo(root + "/created");
+        assertThat(client.getData().forPath(root + "/existing")).asString(StandardCharsets.UTF_8).isEqualTo("new");
+
+        var deleteFuture = writer.delete(root + "/created");
+        deleteFuture.get(5, TimeUnit.SECONDS);
+        assertThat(client.checkExists().forPath(root + "/created")).isNull();
+    }
+
+    @Test
+    void shouldIsolateFailingOperations() throws Exception {
+        client.create().forPath(root + "/duplicate");
+
+        var futures = new ArrayList<CompletableFuture<?>>();
+        IntStream.range(0, 3).forEach(i -> futures.add(writer.create(root + "/before-" + i, bytes("b"))));
+        var failing = writer.create(root + "/duplicate", bytes("d"));
+        var badVersion = writer.setData(root + "/duplicate", bytes("x"), 42);
+        IntStream.range(0, 3).forEach(i -> futures.add(writer.create(root + "/after-" + i, bytes("a"))));
+
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+        assertThatThrownBy(() -> failing.get(5, TimeUnit.SECONDS))
+                .isExactlyInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(KeeperException.NodeExistsException.class);
+        assertThatThrownBy(() -> badVersion.get(5, TimeUnit.SECONDS))
+                .isExactlyInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(KeeperException.BadVersionException.class);
+
+        assertThat(client.getChildren().forPath(root)).hasSize(7);
+        assertThat(metrics.meter(name(BatchingWriter.class, "failed-ops")).getCount()).isEqualTo(2);
+        assertThat(metrics.meter(name(BatchingWriter.class, "batch-splits")).getCount())
+                .describedAs("each failed transaction should identify its failed operation")
+                .isEqualTo(2);
+        assertThat(transactions())
+                .describedAs("the batch should be resubmitted once per failed operation, without splitting it")
+                .isEqualTo(3);
+    }
+
+    @Test
+    void shouldSubmitQueuedWrites_WhenStopped() throws Exception {
+        var slowWriter = new BatchingWriter(client, Duration.ofSeconds(1), 100, new MetricRegistry());
+        slowWriter.start();
+        var future = slowWriter.create(root + "/late", bytes("l"));
+
+        slowWriter.stop();
+
+        assertThat(future).isCompletedWithValue(root + "/late");
+    }
+
+    @Test
+    void shouldFailBatchBeingCollected_WhenInterruptedByStop() throws Exception {
+        var slowWriter = new BatchingWriter(client, Duration.ofMinutes(1), 100, new MetricRegistry(),
+                Duration.ofMillis(100));
+        slowWriter.start();
+        var future = slowWriter.create(root + "/interrupted", bytes("i"));
+        await().atMost(5, TimeUnit.SECONDS).until(() -> slowWriter.queuedCount() == 0);
+
+        slowWriter.stop();
+
+        await().atMost(5, TimeUnit.SECONDS).until(future::isDone);
+        assertThat(future).isCompletedExceptionally();
+        assertThatThrownBy(future::get).hasCauseExactlyInstanceOf(InterruptedException.class);
+        assertThat(client.checkExists().forPath(root + "/interrupted")).isNull();
+    }
+
+    @Test
+    void shouldCompleteEveryAcceptedWrite_WhenStopRacesWithWrites() throws Exception {
+        var futures = new ConcurrentLinkedQueue<CompletableFuture<String>>();
+        var counter = new AtomicInteger();
+        var producer = new Thread(() -> {
+            while (true) {
+                try {
+                    futures.add(writer.create(root + "/race-" + counter.incrementAndGet(), bytes("r")));
+                } catch (IllegalStateException e) {
+                    return;
+                }
+            }
+        });
+        producer.start();
+        await().atMost(5, TimeUnit.SECONDS).until(() -> counter.get() > 100);
+
+        writer.stop();
+        producer.join(5_000);
+
+        assertThat(producer.isAlive()).isFalse();
+        assertThat(CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+                .handle((ignored, error) -> true))
+                .succeedsWithin(Duration.ofSeconds(5));
+        assertThat(writer.queuedCount()).isZero();
+    }
+
+    private long transactions() {
+        return metrics.timer(name(BatchingWriter.class, "transactions")).getCount();
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -6,28 +6,44 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.health.HealthCheckRegistry;
+import com.fasterxml.jackson.core.type.TypeReference;
 import io.dropwizard.core.Configuration;
+import io.dropwizard.core.setup.AdminEnvironment;
 import io.dropwizard.core.setup.Environment;
+import io.dropwizard.lifecycle.AutoCloseableManager;
+import io.dropwizard.lifecycle.ExecutorServiceManager;
 import io.dropwizard.lifecycle.setup.LifecycleEnvironment;
 import lombok.Getter;
 import lombok.Setter;
 import org.apache.curator.framework.CuratorFramework;
 import org.apache.curator.framework.imps.CuratorFrameworkState;
+import org.apache.curator.framework.recipes.leader.LeaderLatchListener;
+import org.apache.curator.framework.recipes.leader.LeaderSelectorListener;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
+import org.kiwiproject.curator.chunked.ChunkedValueStore;
 import org.kiwiproject.curator.config.CuratorConfig;
 import org.kiwiproject.curator.config.CuratorConfigured;
 import org.kiwiproject.curator.exception.CuratorStartupFailureException;
+import org.kiwiproject.curator.health.CuratorCacheHealthCheck;
 import org.kiwiproject.curator.health.CuratorHealthCheck;
+import org.kiwiproject.curator.health.LeaderElectionHealthCheck;
+import org.kiwiproject.curator.leader.ManagedLeaderElection;
+import org.kiwiproject.curator.tasks.LockQueuesTask;
 import org.kiwiproject.test.curator.CuratorTestingServerExtension;
 import org.kiwiproject.test.dropwizard.mockito.DropwizardMockitoMocks;
 
+import java.util.List;
+import java.util.Map;
+
 @DisplayName("CuratorBundle")
 class CuratorBundleTest {
 
@@ -39,6 +55,7 @@ class CuratorBundleTest {
     private Environment environment;
     private LifecycleEnvironment lifecycle;
     private HealthCheckRegistry healthChecks;
+    private AdminEnvironment adminEnvironment;
 
     @BeforeEach
     void setUp() {
@@ -47,7 +64,9 @@ class CuratorBundleTest {
         var dropwizardMockitoContext = DropwizardMockitoMocks.mockDropwizard();
         lifecycle = dropwizardMockitoContext.lifecycle();
         healthChecks = dropwizardMockitoContext.healthChecks();
+        adminEnvironment = dropwizardMockitoContext.adminEnvironment();
         environment = dropwizardMockitoContext.environment();
+        when(environment.metrics()).thenReturn(new MetricRegistry());
 
         bundle = new CuratorBundle<>();
     }
@@ -57,6 +76,74 @@ class CuratorBundleTest {
         assertThat(bundle.getManagedClient()).isNull();
     }
 
+    @Test
+    void shouldReturnNullLockHelper_WhenBundleHasNotRun() {
+        assertThat(bundle.getLockHelper()).isNull();
+    }
+
+    @Test
+    void shouldReturnNullLockParticipantsView_WhenBundleHasNotRun() {
+        assertThat(bundle.getLockParticipantsView()).isNull();
+    }
+
+    @Test
+    void shouldReturnNullCacheManager_WhenBundleHasNotRun() {
+        assertThat(bundle.getCacheManager()).isNull();
+    }
+
+    @Test
+    void shouldReturnNullSingleFlightReader_WhenBundleHasNotRun() {
+        assertThat(bundle.getSingleFlightReader()).isNull();
+    }
+
+    @Test
+    void shouldCreateSingleFlightReader() {
+        bundle.run(config, environment);
+
+        assertThat(bundle.getSingleFlightReader().getClient()).isSameAs(bundle.getClient());
+    }
+
+    @Test
+    void shouldNotCreateBatchingWriter_ByDefault() {
+        bundle.run(config, environment);
+
+        assertThat(bundle.getBatchingWriter()).isNull();
+        verify(lifecycle, never()).manage(any(BatchingWriter.class));
+    }
+
+    @Test
+    void shouldManageBatchingWriter_WhenEnabled() {
+        config.getCuratorConfig().getBatchingWriter().setEnabled(true);
+
+        bundle.run(config, environment);
+
+        assertThat(bundle.getBatchingWriter()).isNotNull();
+        verify(lifecycle).manage(bundle.getBatchingWriter());
+    }
+
+    @Test
+    void shouldReturnNullChunkedValueStore_WhenBundleHasNotRun() {
+        assertThat(bundle.getChunkedValueStore()).isNull();
+    }
+
+    @Test
+    void shouldNotCreateChunkedValueStore_ByDefault() {
+        bundle.run(config, environment);
+
+        assertThat(bundle.getChunkedValueStore()).isNull();
+        verify(lifecycle, never()).manage(any(ChunkedValueStore.class));
+    }
+
+    @Test
+    void shouldManageChunkedValueStore_WhenEnabled() {
+        config.getCuratorConfig().getChunkedValues().setEnabled(true);
+
+        bundle.run(config, environment);
+
+        assertThat(bundle.getChunkedValueStore()).isNotNull();
+        verify(lifecycle).manage(bundle.getChunkedValueStore());
+    }
+
     @Test
     void shouldReturnNullUnderlyingClient_WhenBundleHasNotRun() {
         assertThat(bundle.getClient()).isNull();
@@ -102,6 +189,177 @@ class CuratorBundleTest {
         verify(healthChecks).register(eq("curator"), any(CuratorHealthCheck.class));
     }
 
+    @Test
+    void shouldManageCacheManager_WithConfiguredSubtrees() {
+        config.getCuratorConfig().getCaches().setSubtrees(List.of("/config"));
+
+        bundle.run(config, environment);
+
+        var cacheManager = bundle.getCacheManager();
+        assertThat(cacheManager.getMirrors()).containsOnlyKeys("/config");
+        verify(lifecycle).manage(cacheManager);
+        verify(healthChecks).register(eq("curator-caches"), any(CuratorCacheHealthCheck.class));
+    }
+
+    @Test
+    void shouldCreateTypedZnodeCache_UsingCoveringMirror() {
+        config.getCuratorConfig().getCaches().setSubtrees(List.of("/config"));
+        bundle.run(config, environment);
+
+        var typedCache = bundle.newTypedZnodeCache(environment, "/config/db", Map.class);
+
+        assertThat(typedCache.getMirror()).isSameAs(bundle.getCacheManager().getMirrors().get("/config"));
+    }
+
+    @Test
+    void shouldCreateTypedZnodeCache_MirroringNewSubtree() {
+        bundle.run(config, environment);
+
+        var typedCache = bundle.newTypedZnodeCache(environment, "/flags", new TypeReference<Map<String, Boolean>>() {});
+
+        assertThat(typedCache.getMirror().getPath()).isEqualTo("/flags");
+        assertThat(bundle.getCacheManager().getMirrors()).containsOnlyKeys("/flags");
+    }
+
+    @Test
+    void shouldCreatePlainLockHelper_ByDefault() {
+        bundle.run(config, environment);
+
+        assertThat(bundle.getLockHelper()).isExactlyInstanceOf(CuratorLockHelper.class);
+        verify(lifecycle, never()).manage(any(LockHoldWatchdog.class));
+    }
+
+    @Test
+    void shouldCreateInstrumentedLockHelper_WhenLockMetricsAreEnabled() {
+        config.getCuratorConfig().getLockMetrics().setEnabled(true);
+
+        bundle.run(config, environment);
+
+        assertThat(bundle.getLockHelper()).isExactlyInstanceOf(InstrumentedCuratorLockHelper.class);
+    }
+
+    @Test
+    void shouldManageLockHoldWatchdog_WhenEnabled() {
+        config.getCuratorConfig().getLockMetrics().setEnabled(true);
+        config.getCuratorConfig().getLockMetrics().setWatchdogEnabled(true);
+
+        bundle.run(config, environment);
+
+        verify(lifecycle).manage(any(LockHoldWatchdog.class));
+    }
+
+    @Test
+    void shouldNotManageLockHoldWatchdog_WhenDisabled() {
+        config.getCuratorConfig().getLockMetrics().setEnabled(true);
+        config.getCuratorConfig().getLockMetrics().setWatchdogEnabled(false);
+
+        bundle.run(config, environment);
+
+        verify(lifecycle, never()).manage(any(LockHoldWatchdog.class));
+    }
+
+    @Test
+    void shouldRegisterLockQueuesTask() {
+        bundle.run(config, environment);
+
+        verify(adminEnvironment).addTask(any(LockQueuesTask.class));
+    }
+
+    @Test
+    void shouldNotRegisterLockQueuesTask_WhenDisabled() {
+        config.getCuratorConfig().getLockQueuesTask().setEnabled(false);
+
+        bundle.run(config, environment);
+
+        verify(adminEnvironment, never()).addTask(any(LockQueuesTask.class));
+    }
+
+    @Test
+    void shouldManageLeaderLatch_WithHealthCheck() {
+        config.getCuratorConfig().getLeaderElection().setParticipantId("node-1");
+        bundle.run(config, environment);
+
+        var latch = bundle.manageLeaderLatch(environment, "/leaders/jobs", mock(LeaderLatchListener.class));
+
+        assertThat(latch.getParticipantId()).isEqualTo("node-1");
+        verify(lifecycle).manage(latch);
+        verify(lifecycle).manage(any(ExecutorServiceManager.class));
+        verify(healthChecks).register(eq("curator-leader:/leaders/jobs"), any(LeaderElectionHealthCheck.class));
+    }
+
+    @Test
+    void shouldManageLeaderSelector_WithHealthCheck() {
+        bundle.run(config, environment);
+
+        var selector = bundle.manageLeaderSelector(environment, "/leaders/work", mock(LeaderSelectorListener.class));
+
+        assertThat(selector.getParticipantId()).isEqualTo(ManagedLeaderElection.defaultParticipantId());
+        verify(lifecycle).manage(selector);
+        verify(healthChecks).register(eq("curator-leader:/leaders/work"), any(LeaderElectionHealthCheck.class));
+    }
+
+    @Test
+    void shouldManageClusterSingletonScheduler() {
+        bundle.run(config, environment);
+
+        var scheduler = bundle.manageClusterSingletonScheduler(environment, "/scheduler");
+
+        assertThat(scheduler.isLeader()).isFalse();
+        verify(lifecycle).manage(scheduler);
+    }
+
+    @Test
+    void shouldNotManageClusterSingletonScheduler_WhenBundleHasNotRun() {
+        assertThatThrownBy(() -> bundle.manageClusterSingletonScheduler(environment, "/scheduler"))
+                .isExactlyInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void shouldManageWorkPartitioner() {
+        config.getCuratorConfig().getLeaderElection().setParticipantId("node-1");
+        bundle.run(config, environment);
+
+        var partitioner = bundle.manageWorkPartitioner(environment, "/workers", 16, assignment -> {});
+
+        assertThat(partitioner.getMemberId()).isEqualTo("node-1");
+        assertThat(partitioner.getPartitionCount()).isEqualTo(16);
+        verify(lifecycle).manage(partitioner);
+    }
+
+    @Test
+    void shouldNotManageLeaderElection_WhenBundleHasNotRun() {
+        var listener = mock(LeaderLatchListener.class);
+        assertThatThrownBy(() -> bundle.manageLeaderLatch(environment, "/leaders/jobs", listener))
+                .isExactlyInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void shouldCreateAndManageLockParticipantsView() {
+        bundle.run(config, environment);
+
+        assertThat(bundle.getLockParticipantsView()).isNotNull();
+        assertThat(bundle.getLockParticipantsView().getClient()).isSameAs(bundle.getClient());
+        verify(lifecycle).manage(any(AutoCloseableManager.class));
+    }
+
+    @Test
+    void shouldNotManageLockPathReaper_ByDefault() {
+        bundle.run(config, environment);
+
+        verify(lifecycle, never()).manage(any(LockPathReaper.class));
+    }
+
+    @Test
+    void shouldManageLockPathReaper_WhenEnabled() {
+        var lockReaperConfig = config.getCuratorConfig().getLockReaper();
+        lockReaperConfig.setEnabled(true);
+        lockReaperConfig.setLockRoots(List.of("/locks"));
+
+        bundle.run(config, environment);
+
+        verify(lifecycle).manage(any(LockPathReaper.class));
+    }
+
     @Test
     void shouldThrowWhenCuratorDoesNotStart() {
         var mockCuratorHelper = mock(CuratorFrameworkHelper.class);
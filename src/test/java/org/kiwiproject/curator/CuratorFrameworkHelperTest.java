@@ -3,6 +3,7 @@ package org.kiwiproject.curator;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatCode;
 
+import io.dropwizard.util.DataSize;
 import io.dropwizard.util.Duration;
 import org.apache.curator.framework.CuratorFrameworkFactory;
 import org.apache.curator.framework.imps.CuratorFrameworkState;
@@ -11,9 +12,12 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
+import org.kiwiproject.curator.compression.CompressionAlgorithm;
 import org.kiwiproject.curator.config.CuratorConfig;
 import org.kiwiproject.test.curator.CuratorTestingServerExtension;
 
+import java.nio.charset.StandardCharsets;
+
 @DisplayName("CuratorFrameworkHelper")
 class CuratorFrameworkHelperTest {
 
@@ -42,6 +46,35 @@ class CuratorFrameworkHelperTest {
                 .isEqualTo((int) curatorConfig.getConnectionTimeout().toMilliseconds());
     }
 
+    @Test
+    void shouldCompressData_WhenCompressionIsEnabled() throws Exception {
+        curatorConfig.getCompression().setAlgorithm(CompressionAlgorithm.GZIP);
+        curatorConfig.getCompression().setMinSize(DataSize.bytes(0));
+        var path = "/compressed-" + System.nanoTime();
+        var data = "value ".repeat(100).getBytes(StandardCharsets.UTF_8);
+
+        try (var client = frameworkHelper.startCuratorFramework(curatorConfig)) {
+            client.create().compressed().forPath(path, data);
+
+            var storedData = client.getData().forPath(path);
+            assertThat(storedData.length).isLessThan(data.length);
+            assertThat(client.getData().decompressed().forPath(path)).isEqualTo(data);
+        }
+    }
+
+    @Test
+    void shouldReadUncompressedData_WhenCompressionIsEnabled() throws Exception {
+        curatorConfig.getCompression().setAlgorithm(CompressionAlgorithm.FAST);
+        var path = "/uncompressed-" + System.nanoTime();
+        var data = "small".getBytes(StandardCharsets.UTF_8);
+
+        try (var client = frameworkHelper.startCuratorFramework(curatorConfig)) {
+            client.create().forPath(path, data);
+
+            assertThat(client.getData().decompressed().forPath(path)).isEqualTo(data);
+        }
+    }
+
     @Test
     void shouldStartCuratorFramework() {
         try (var client = frameworkHelper.startCuratorFramework(curatorConfig)) {
@@ -4,38 +4,77 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatCode;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.google.common.base.Supplier;
 import lombok.Getter;
+import org.apache.curator.CuratorZookeeperClient;
 import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.CuratorFrameworkFactory;
 import org.apache.curator.framework.WatcherRemoveCuratorFramework;
+import org.apache.curator.framework.api.BackgroundCallback;
+import org.apache.curator.framework.api.CuratorEvent;
+import org.apache.curator.framework.api.ErrorListenerPathable;
+import org.apache.curator.framework.api.GetChildrenBuilder;
+import org.apache.curator.framework.api.Pathable;
+import org.apache.curator.framework.api.UnhandledErrorListener;
+import org.apache.curator.framework.listen.StandardListenerManager;
 import org.apache.curator.framework.recipes.locks.InterProcessLock;
 import org.apache.curator.framework.recipes.locks.InterProcessMutex;
+import org.apache.curator.framework.recipes.locks.InterProcessReadWriteLock;
+import org.apache.curator.framework.state.ConnectionState;
+import org.apache.curator.framework.state.ConnectionStateListener;
+import org.apache.curator.retry.RetryOneTime;
+import org.apache.zookeeper.KeeperException;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
 import org.kiwiproject.curator.CuratorLockHelper.ErrorType;
 import org.kiwiproject.curator.exception.LockAcquisitionFailureException;
 import org.kiwiproject.curator.exception.LockAcquisitionTimeoutException;
+import org.kiwiproject.curator.exception.LockLostException;
+import org.kiwiproject.test.curator.CuratorTestingServerExtension;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
 
 @DisplayName("CuratorLockHelper")
 class CuratorLockHelperTest {
 
+    @RegisterExtension
+    static final CuratorTestingServerExtension ZK_TEST_SERVER = new CuratorTestingServerExtension();
+
     private CuratorLockHelper lockHelper;
     private CuratorFramework client;
     private InterProcessLock lock;
@@ -64,6 +103,17 @@ class CuratorLockHelperTest {
         assertThat(lock).isNotNull();
     }
 
+    @Test
+    void shouldCreateLocalFirstLock() {
+        when(client.newWatcherRemoveCuratorFramework())
+                .thenReturn(mock(WatcherRemoveCuratorFramework.class));
+        when(client.getConnectionStateListenable()).thenReturn(StandardListenerManager.standard());
+
+        var localFirstLock = lockHelper.createLocalFirstLock(client, "/lock-path", 5);
+        assertThat(localFirstLock).isNotNull();
+        assertThat(localFirstLock.isAcquiredInThisProcess()).isFalse();
+    }
+
     @Nested
     class Acquire {
 
@@ -417,6 +467,831 @@ class CuratorLockHelperTest {
         }
     }
 
+    @Nested
+    class GuardedLock {
+
+        private CuratorFramework guardedClient;
+        private CuratorZookeeperClient zookeeperClient;
+        private StandardListenerManager<ConnectionStateListener> connectionStateListeners;
+
+        @BeforeEach
+        void setUp() throws Exception {
+            guardedClient = mock(CuratorFramework.class);
+            connectionStateListeners = StandardListenerManager.standard();
+            when(guardedClient.getConnectionStateListenable()).thenReturn(connectionStateListeners);
+            zookeeperClient = mock(CuratorZookeeperClient.class);
+            when(zookeeperClient.isConnected()).thenReturn(true);
+            when(guardedClient.getZookeeperClient()).thenReturn(zookeeperClient);
+            when(lock.acquire(anyLong(), any(TimeUnit.class))).thenReturn(true);
+        }
+
+        @Test
+        void shouldReturnResult_AndRemoveListener() throws Exception {
+            var result = lockHelper.withGuardedLock(guardedClient, lock, Duration.ofSeconds(1), new TrackingSupplier(42L));
+
+            assertThat(result).isEqualTo(42L);
+            assertThat(connectionStateListeners.size()).isZero();
+            verify(lock).release();
+        }
+
+        @ParameterizedTest
+        @EnumSource(value = ConnectionState.class, names = { "SUSPENDED", "LOST" })
+        void shouldInterruptAction_AndThrowLockLostException_WhenConnectionIsNotConnected(ConnectionState state)
+                throws Exception {
+
+            var action = new TrackingRunnable() {
+                @Override
+                public void run() {
+                    super.run();
+                    fireStateChanged(state);
+                    try {
+                        Thread.sleep(10_000);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IllegalStateException("interrupted", e);
+                    }
+                }
+            };
+
+            assertThatThrownBy(() -> lockHelper.useGuardedLock(guardedClient, lock, Duration.ofSeconds(1), action))
+                    .isExactlyInstanceOf(LockLostException.class)
+                    .hasCauseExactlyInstanceOf(IllegalStateException.class);
+
+            assertThat(action.isWasCalled()).isTrue();
+            assertThat(Thread.currentThread().isInterrupted()).isFalse();
+            assertThat(connectionStateListeners.size()).isZero();
+            verify(lock).release();
+        }
+
+        @Test
+        void shouldThrowLockLostException_WhenActionCompletes_AfterConnectionWasLost() {
+            Supplier<Long> supplier = () -> {
+                fireStateChanged(ConnectionState.LOST);
+                return 42L;
+            };
+
+            assertThatThrownBy(() -> lockHelper.withGuardedLock(guardedClient, lock, Duration.ofSeconds(1), supplier))
+                    .isExactlyInstanceOf(LockLostException.class)
+                    .hasNoCause();
+            assertThat(Thread.currentThread().isInterrupted()).isFalse();
+        }
+
+        @Test
+        void shouldNotInterruptHolder_WhenCallbackRunsAfterFinish() {
+            var capturedListeners = new ArrayList<ConnectionStateListener>();
+            Supplier<Long> supplier = () -> {
+                connectionStateListeners.forEach(capturedListeners::add);
+                return 42L;
+            };
+
+            var result = lockHelper.withGuardedLock(guardedClient, lock, Duration.ofSeconds(1), supplier);
+            capturedListeners.forEach(listener -> listener.stateChanged(guardedClient, ConnectionState.LOST));
+
+            assertThat(result).isEqualTo(42L);
+            assertThat(capturedListeners).hasSize(1);
+            assertThat(Thread.currentThread().isInterrupted()).isFalse();
+        }
+
+        @Test
+        void shouldKeepInterrupt_ThatWasNotDeliveredByGuard() {
+            Supplier<Long> supplier = () -> {
+                Thread.currentThread().interrupt();
+                fireStateChanged(ConnectionState.LOST);
+                return 42L;
+            };
+
+            var timeout = Duration.ofSeconds(1);
+            try {
+                assertThatThrownBy(() -> lockHelper.withGuardedLock(guardedClient, lock, timeout, supplier))
+                        .isExactlyInstanceOf(LockLostException.class);
+                assertThat(Thread.currentThread().isInterrupted()).isTrue();
+            } finally {
+                Thread.interrupted();
+            }
+        }
+
+        @Test
+        void shouldIgnoreReconnectedState() {
+            Supplier<Long> supplier = () -> {
+                fireStateChanged(ConnectionState.RECONNECTED);
+                return 42L;
+            };
+
+            var result = lockHelper.withGuardedLock(guardedClient, lock, Duration.ofSeconds(1), supplier);
+
+            assertThat(result).isEqualTo(42L);
+        }
+
+        @Test
+        void shouldThrowLockLostException_WithoutCallingAction_WhenNotConnected() {
+            when(zookeeperClient.isConnected()).thenReturn(false);
+            var action = new TrackingRunnable();
+
+            assertThatThrownBy(() -> lockHelper.useGuardedLock(guardedClient, lock, Duration.ofSeconds(1), action))
+                    .isExactlyInstanceOf(LockLostException.class);
+
+            assertThat(action.isWasCalled()).isFalse();
+            assertThat(connectionStateListeners.size()).isZero();
+        }
+
+        @Test
+        void shouldCallErrorHandler_WithLockLostErrorType() {
+            var errorHandler = new ErrorConsumer();
+
+            lockHelper.useGuardedLock(guardedClient, lock, Duration.ofSeconds(1),
+                    () -> fireStateChanged(ConnectionState.SUSPENDED), errorHandler);
+
+            assertThat(errorHandler.errorType).isEqualTo(ErrorType.LOCK_LOST);
+            assertThat(errorHandler.e).isExactlyInstanceOf(LockLostException.class);
+
+            var result = lockHelper.withGuardedLock(guardedClient, lock, Duration.ofSeconds(1),
+                    () -> {
+                        fireStateChanged(ConnectionState.LOST);
+                        return 42;
+                    },
+                    (errorType, e) -> errorType == ErrorType.LOCK_LOST ? -1 : 0);
+            assertThat(result).isEqualTo(-1);
+        }
+
+        @Test
+        void shouldCallErrorHandler_WithLockAcquisitionErrorType() throws Exception {
+            when(lock.acquire(anyLong(), any(TimeUnit.class))).thenReturn(false);
+            var errorHandler = new ErrorConsumer();
+
+            lockHelper.useGuardedLock(guardedClient, lock, Duration.ofSeconds(1), new TrackingRunnable(), errorHandler);
+
+            assertThat(errorHandler.errorType).isEqualTo(ErrorType.LOCK_ACQUISITION);
+            verify(guardedClient, never()).getConnectionStateListenable();
+        }
+
+        private void fireStateChanged(ConnectionState state) {
+            connectionStateListeners.forEach(listener -> listener.stateChanged(guardedClient, state));
+        }
+    }
+
+    @Nested
+    class FencedLock {
+
+        private CuratorFramework zkClient;
+        private FencedInterProcessMutex fencedLock;
+
+        @BeforeEach
+        void setUp() {
+            zkClient = CuratorFrameworkFactory.newClient(ZK_TEST_SERVER.getConnectString(), new RetryOneTime(100));
+            zkClient.start();
+            fencedLock = lockHelper.createFencedInterProcessMutex(zkClient, "/locks/fenced-" + System.nanoTime());
+        }
+
+        @AfterEach
+        void tearDown() {
+            zkClient.close();
+        }
+
+        @Test
+        void shouldPassIncreasingFencingTokens() {
+            var first = lockHelper.withFencedLock(fencedLock, Duration.ofSeconds(5), token -> token);
+            var tokens = new ArrayList<Long>();
+            lockHelper.useFencedLock(fencedLock, Duration.ofSeconds(5), tokens::add);
+
+            assertThat(first).isPositive();
+            assertThat(tokens).singleElement().satisfies(second -> assertThat(second).isGreaterThan(first));
+            assertThat(fencedLock.isAcquiredInThisProcess()).isFalse();
+        }
+
+        @Test
+        void shouldCallErrorHandler_WhenFunctionThrows() {
+            var result = lockHelper.withFencedLock(fencedLock, Duration.ofSeconds(5),
+                    token -> {
+                        throw new IllegalStateException("stale token " + token);
+                    },
+                    (errorType, e) -> errorType == ErrorType.OPERATION ? -1L : 0L);
+
+            assertThat(result).isEqualTo(-1L);
+
+            var errorHandler = new ErrorConsumer();
+            lockHelper.useFencedLock(fencedLock, Duration.ofSeconds(5), token -> {
+                throw new IllegalStateException("stale token " + token);
+            }, errorHandler);
+            assertThat(errorHandler.errorType).isEqualTo(ErrorType.OPERATION);
+        }
+    }
+
+    @Nested
+    class TryLock {
+
+        @Test
+        void shouldReturnResult_WhenLockIsAcquired() throws Exception {
+            when(lock.acquire(anyLong(), any(TimeUnit.class))).thenReturn(true);
+
+            var result = lockHelper.tryWithLock(lock, new TrackingSupplier(42L));
+
+            assertThat(result).contains(42L);
+            verify(lock).acquire(0, TimeUnit.NANOSECONDS);
+            verify(lock).release();
+        }
+
+        @Test
+        void shouldReturnEmptyOptional_WhenLockIsNotAcquired() throws Exception {
+            when(lock.acquire(anyLong(), any(TimeUnit.class))).thenReturn(false);
+            var supplier = new TrackingSupplier(42L);
+
+            var result = lockHelper.tryWithLock(lock, supplier);
+
+            assertThat(result).isEmpty();
+            assertThat(supplier.isWasCalled()).isFalse();
+            verify(lock, never()).release();
+        }
+
+        @Test
+        void shouldReturnWhetherActionRan() throws Exception {
+            when(lock.acquire(anyLong(), any(TimeUnit.class))).thenReturn(true, false);
+
+            var action = new TrackingRunnable();
+            assertThat(lockHelper.tryUseLock(lock, action)).isTrue();
+            assertThat(action.isWasCalled()).isTrue();
+
+            var otherAction = new TrackingRunnable();
+            assertThat(lockHelper.tryUseLock(lock, otherAction)).isFalse();
+            assertThat(otherAction.isWasCalled()).isFalse();
+        }
+
+        @Test
+        void shouldThrowLockAcquisitionFailureException_WhenLockThrows() throws Exception {
+            when(lock.acquire(anyLong(), any(TimeUnit.class))).thenThrow(new IOException("oops"));
+
+            assertThatThrownBy(() -> lockHelper.tryUseLock(lock, new TrackingRunnable()))
+                    .isExactlyInstanceOf(LockAcquisitionFailureException.class);
+        }
+
+        @Test
+        void shouldReleaseLock_WhenActionThrows() throws Exception {
+            when(lock.acquire(anyLong(), any(TimeUnit.class))).thenReturn(true);
+
+            assertThatThrownBy(() -> lockHelper.tryUseLock(lock, new ThrowingRunnable()))
+                    .isExactlyInstanceOf(UncheckedIOException.class);
+            verify(lock).release();
+        }
+
+        @Test
+        void shouldSkipNodeCreation_WhenParticipantsViewShowsLockIsHeld() {
+            var participantsView = mock(LockParticipantsView.class);
+            when(participantsView.hasParticipants("/lock-path")).thenReturn(true);
+            var spyHelper = spy(lockHelper);
+
+            var result = spyHelper.tryWithLock(participantsView, "/lock-path", new TrackingSupplier(42L));
+            var ran = spyHelper.tryUseLock(participantsView, "/lock-path", new TrackingRunnable());
+
+            assertThat(result).isEmpty();
+            assertThat(ran).isFalse();
+            verify(spyHelper, never()).createInterProcessMutex(any(), anyString());
+        }
+
+        @Test
+        void shouldAcquireLock_WhenParticipantsViewShowsNoParticipants() throws Exception {
+            try (var zkClient = CuratorFrameworkFactory.newClient(ZK_TEST_SERVER.getConnectString(), new RetryOneTime(100));
+                 var participantsView = new LockParticipantsView(zkClient)) {
+                zkClient.start();
+                var lockPath = "/locks/try-" + System.nanoTime();
+
+                var result = lockHelper.tryWithLock(participantsView, lockPath, () -> 42);
+                assertThat(result).contains(42);
+
+                var holder = new InterProcessMutex(zkClient, lockPath);
+                holder.acquire();
+                await().atMost(5, TimeUnit.SECONDS).until(() -> participantsView.hasParticipants(lockPath));
+
+                var action = new TrackingRunnable();
+                assertThat(lockHelper.tryUseLock(participantsView, lockPath, action)).isFalse();
+                assertThat(action.isWasCalled()).isFalse();
+                holder.release();
+            }
+        }
+    }
+
+    @Nested
+    class AcquireAsync {
+
+        private AsyncInterProcessMutex asyncLock;
+        private CompletableFuture<AsyncInterProcessMutex.Lease> attempt;
+
+        @BeforeEach
+        void setUp() {
+            asyncLock = mock(AsyncInterProcessMutex.class);
+            attempt = new CompletableFuture<>();
+            when(asyncLock.acquire(anyLong(), any(TimeUnit.class))).thenReturn(attempt);
+        }
+
+        @Test
+        void shouldCompleteWithLease_WhenAcquiresLock() {
+            var lease = mock(AsyncInterProcessMutex.Lease.class);
+
+            var result = lockHelper.acquireAsync(asyncLock, Duration.ofSeconds(1));
+            assertThat(result).isNotDone();
+
+            attempt.complete(lease);
+
+            assertThat(result).isCompletedWithValue(lease);
+            verify(asyncLock).acquire(Duration.ofSeconds(1).toNanos(), TimeUnit.NANOSECONDS);
+        }
+
+        @Test
+        void shouldCompleteWithLockAcquisitionTimeoutException_WhenTimesOut() {
+            var result = lockHelper.acquireAsync(asyncLock, 2, TimeUnit.SECONDS);
+
+            attempt.completeExceptionally(new TimeoutException());
+
+            assertThat(result).isCompletedExceptionally();
+            assertThatThrownBy(result::join).hasCauseExactlyInstanceOf(LockAcquisitionTimeoutException.class);
+        }
+
+        @Test
+        void shouldCompleteWithLockAcquisitionFailureException_WhenFails() {
+            var result = lockHelper.acquireAsync(asyncLock, 2, TimeUnit.SECONDS);
+
+            attempt.completeExceptionally(new CannotAcquireLockException("oops"));
+
+            assertThatThrownBy(result::join).hasCauseExactlyInstanceOf(LockAcquisitionFailureException.class);
+        }
+
+        @Test
+        void shouldCancelAttempt_WhenResultIsCancelled() {
+            var result = lockHelper.acquireAsync(asyncLock, 2, TimeUnit.SECONDS);
+
+            result.cancel(false);
+
+            assertThat(attempt).isCancelled();
+        }
+
+        @Test
+        void shouldReleaseLease_WhenAcquiredAfterResultWasCancelled() {
+            var lease = mock(AsyncInterProcessMutex.Lease.class);
+            var uncancellableAttempt = new CompletableFuture<AsyncInterProcessMutex.Lease>() {
+                @Override
+                public boolean cancel(boolean mayInterruptIfRunning) {
+                    return false;
+                }
+            };
+            when(asyncLock.acquire(anyLong(), any(TimeUnit.class))).thenReturn(uncancellableAttempt);
+
+            var result = lockHelper.acquireAsync(asyncLock, 2, TimeUnit.SECONDS);
+            result.cancel(false);
+            uncancellableAttempt.complete(lease);
+
+            verify(lease).releaseAsync();
+        }
+
+        @Test
+        void shouldRunActionAndReleaseLease_InUseLockAsync() {
+            var lease = mock(AsyncInterProcessMutex.Lease.class);
+            attempt.complete(lease);
+
+            var action = new TrackingRunnable();
+            lockHelper.useLockAsync(asyncLock, Duration.ofSeconds(1), action, Runnable::run).join();
+
+            assertThat(action.wasCalled).isTrue();
+            verify(lease).releaseAsync();
+        }
+
+        @Test
+        void shouldReturnResultAndReleaseLease_InWithLockAsync() {
+            var lease = mock(AsyncInterProcessMutex.Lease.class);
+            attempt.complete(lease);
+
+            var result = lockHelper.withLockAsync(asyncLock, Duration.ofSeconds(1), new TrackingSupplier(84L), Runnable::run);
+
+            assertThat(result).isCompletedWithValue(84L);
+            verify(lease).releaseAsync();
+        }
+
+        @Test
+        void shouldReleaseLease_WhenSupplierThrows_InWithLockAsync() {
+            var lease = mock(AsyncInterProcessMutex.Lease.class);
+            attempt.complete(lease);
+
+            var result = lockHelper.withLockAsync(asyncLock, Duration.ofSeconds(1), new ThrowingSupplier(), Runnable::run);
+
+            assertThatThrownBy(result::join).hasCauseExactlyInstanceOf(UncheckedIOException.class);
+            verify(lease).releaseAsync();
+        }
+
+        @Test
+        void shouldReleaseLease_WhenExecutorRejectsSupplier_InWithLockAsync() {
+            var lease = mock(AsyncInterProcessMutex.Lease.class);
+            attempt.complete(lease);
+            Executor rejectingExecutor = command -> {
+                throw new RejectedExecutionException("shut down");
+            };
+
+            var result = lockHelper.withLockAsync(asyncLock, Duration.ofSeconds(1), new TrackingSupplier(84L),
+                    rejectingExecutor);
+
+            assertThatThrownBy(result::join).hasCauseExactlyInstanceOf(RejectedExecutionException.class);
+            verify(lease).releaseAsync();
+        }
+
+        @Test
+        void shouldAbandonAcquisition_WhenResultIsCancelled_WhileLockIsContended_InWithLockAsync() {
+            var supplier = new TrackingSupplier(84L);
+            var result = lockHelper.withLockAsync(asyncLock, Duration.ofSeconds(1), supplier, Runnable::run);
+
+            result.cancel(false);
+
+            assertThat(attempt).isCancelled();
+            assertThat(supplier.wasCalled).isFalse();
+        }
+
+        @Test
+        void shouldAbandonAcquisition_WhenResultTimesOut_InUseLockAsync() {
+            var action = new TrackingRunnable();
+            var result = lockHelper.useLockAsync(asyncLock, Duration.ofSeconds(1), action, Runnable::run)
+                    .orTimeout(10, TimeUnit.MILLISECONDS);
+
+            assertThatThrownBy(result::join).hasCauseExactlyInstanceOf(TimeoutException.class);
+            await().atMost(1, TimeUnit.SECONDS).until(attempt::isCancelled);
+            assertThat(action.wasCalled).isFalse();
+        }
+
+        @Test
+        void shouldReleaseLease_WithoutCallingSupplier_WhenAcquiredAfterCancellation_InWithLockAsync() {
+            var lease = mock(AsyncInterProcessMutex.Lease.class);
+            var uncancellableAttempt = new CompletableFuture<AsyncInterProcessMutex.Lease>() {
+                @Override
+                public boolean cancel(boolean mayInterruptIfRunning) {
+                    return false;
+                }
+            };
+            when(asyncLock.acquire(anyLong(), any(TimeUnit.class))).thenReturn(uncancellableAttempt);
+            var supplier = new TrackingSupplier(84L);
+
+            var result = lockHelper.withLockAsync(asyncLock, Duration.ofSeconds(1), supplier, Runnable::run);
+            result.cancel(false);
+            uncancellableAttempt.complete(lease);
+
+            assertThat(supplier.wasCalled).isFalse();
+            verify(lease).releaseAsync();
+        }
+
+        @Test
+        void shouldNotRunAction_WhenLockIsNotAcquired_InUseLockAsync() {
+            var action = new TrackingRunnable();
+            var result = lockHelper.useLockAsync(asyncLock, Duration.ofSeconds(1), action, Runnable::run);
+
+            attempt.completeExceptionally(new TimeoutException());
+
+            assertThatThrownBy(result::join).hasCauseExactlyInstanceOf(LockAcquisitionTimeoutException.class);
+            assertThat(action.wasCalled).isFalse();
+        }
+    }
+
+    @Nested
+    class UseAndWithLocks {
+
+        private CuratorFramework zkClient;
+        private String basePath;
+
+        @BeforeEach
+        void setUp() {
+            zkClient = CuratorFrameworkFactory.newClient(ZK_TEST_SERVER.getConnectString(), new RetryOneTime(100));
+            zkClient.start();
+            basePath = "/locks/multi-" + System.nanoTime();
+        }
+
+        @AfterEach
+        void tearDown() {
+            zkClient.close();
+        }
+
+        @Test
+        void shouldRequireLockPaths() {
+            assertThatThrownBy(() -> lockHelper.createInterProcessMultiLock(zkClient, List.of()))
+                    .isExactlyInstanceOf(IllegalArgumentException.class);
+        }
+
+        @Test
+        void shouldCreateLocksInCanonicalOrder_WithoutDuplicates() {
+            var spyHelper = spy(lockHelper);
+            var paths = List.of(basePath + "/c", basePath + "/a", basePath + "/b", basePath + "/a");
+
+            spyHelper.createInterProcessMultiLock(zkClient, paths);
+
+            var inOrder = inOrder(spyHelper);
+            inOrder.verify(spyHelper).createInterProcessMutex(zkClient, basePath + "/a");
+            inOrder.verify(spyHelper).createInterProcessMutex(zkClient, basePath + "/b");
+            inOrder.verify(spyHelper).createInterProcessMutex(zkClient, basePath + "/c");
+            verify(spyHelper, times(3)).createInterProcessMutex(any(CuratorFramework.class), anyString());
+        }
+
+        @Test
+        void shouldNotWriteToZooKeeper_UntilLocksAreAcquired() throws Exception {
+            var paths = List.of(basePath + "/one", basePath + "/two");
+
+            lockHelper.createInterProcessMultiLock(zkClient, paths);
+
+            for (var path : paths) {
+                assertThat(zkClient.checkExists().forPath(path)).isNull();
+            }
+        }
+
+        @Test
+        void shouldHoldAllLocks_AndReleaseThemAfterward() {
+            var paths = List.of(basePath + "/x", basePath + "/y", basePath + "/z");
+
+            var childCounts = lockHelper.withLocks(zkClient, paths, Duration.ofSeconds(5), () -> paths.stream()
+                    .map(path -> childCount(zkClient, path))
+                    .toList());
+
+            assertThat(childCounts).containsExactly(1, 1, 1);
+            for (var path : paths) {
+                assertThat(childCount(zkClient, path)).isZero();
+            }
+        }
+
+        @Test
+        void shouldReleasePartialAcquisitions_WhenTimesOut() throws Exception {
+            var otherClient = CuratorFrameworkFactory.newClient(ZK_TEST_SERVER.getConnectString(), new RetryOneTime(100));
+            otherClient.start();
+            try {
+                var blocker = new InterProcessMutex(otherClient, basePath + "/b");
+                blocker.acquire();
+
+                var action = new TrackingRunnable();
+                var paths = List.of(basePath + "/b", basePath + "/a");
+                assertThatThrownBy(() -> lockHelper.useLocks(zkClient, paths, Duration.ofMillis(250), action))
+                        .isExactlyInstanceOf(LockAcquisitionTimeoutException.class);
+
+                assertThat(action.wasCalled).isFalse();
+                assertThat(childCount(zkClient, basePath + "/a")).isZero();
+                blocker.release();
+            } finally {
+                otherClient.close();
+            }
+        }
+
+        @Test
+        void shouldCallErrorHandler_WhenTimesOut() throws Exception {
+            var otherClient = CuratorFrameworkFactory.newClient(ZK_TEST_SERVER.getConnectString(), new RetryOneTime(100));
+            otherClient.start();
+            try {
+                var blocker = new InterProcessMutex(otherClient, basePath + "/b");
+                blocker.acquire();
+
+                var result = lockHelper.withLocks(zkClient,
+                        List.of(basePath + "/b"),
+                        Duration.ofMillis(100),
+                        new TrackingSupplier(42L),
+                        new ErrorHandlerFn<>(84L));
+
+                assertThat(result).isEqualTo(84L);
+                blocker.release();
+            } finally {
+                otherClient.close();
+            }
+        }
+
+        @Test
+        void shouldNotDeadlock_WhenPathsAreGivenInOppositeOrder() throws Exception {
+            var forward = List.of(basePath + "/1", basePath + "/2", basePath + "/3");
+            var backward = List.of(basePath + "/3", basePath + "/2", basePath + "/1");
+            var inCriticalSection = new AtomicInteger();
+            var maxInCriticalSection = new AtomicInteger();
+            Runnable action = () -> {
+                var current = inCriticalSection.incrementAndGet();
+                maxInCriticalSection.accumulateAndGet(current, Math::max);
+                inCriticalSection.decrementAndGet();
+            };
+
+            var executor = Executors.newFixedThreadPool(4);
+            try {
+                var futures = new ArrayList<Future<?>>();
+                for (var i = 0; i < 4; i++) {
+                    var paths = (i % 2 == 0) ? forward : backward;
+                    futures.add(executor.submit(() -> {
+                        for (var j = 0; j < 5; j++) {
+                            lockHelper.useLocks(zkClient, paths, Duration.ofSeconds(30), action);
+                        }
+                    }));
+                }
+
+                for (var future : futures) {
+                    future.get(60, TimeUnit.SECONDS);
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+
+            assertThat(maxInCriticalSection).hasValue(1);
+        }
+
+        private static int childCount(CuratorFramework client, String path) {
+            try {
+                return client.getChildren().forPath(path).size();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    @Nested
+    class ReadWriteLocks {
+
+        private CuratorFramework zkClient;
+        private String lockPath;
+        private InterProcessReadWriteLock readWriteLock;
+
+        @BeforeEach
+        void setUp() {
+            zkClient = CuratorFrameworkFactory.newClient(ZK_TEST_SERVER.getConnectString(), new RetryOneTime(100));
+            zkClient.start();
+            lockPath = "/locks/rw-" + System.nanoTime();
+            readWriteLock = lockHelper.createInterProcessReadWriteLock(zkClient, lockPath);
+        }
+
+        @AfterEach
+        void tearDown() {
+            zkClient.close();
+        }
+
+        @Test
+        void shouldAllowConcurrentReaders() throws Exception {
+            var otherReadWriteLock = new InterProcessReadWriteLock(zkClient, lockPath);
+            var bothReading = new CountDownLatch(2);
+
+            var executor = Executors.newFixedThreadPool(2);
+            try {
+                var first = executor.submit(() -> lockHelper.withReadLock(readWriteLock, Duration.ofSeconds(5),
+                        () -> awaitQuietly(bothReading)));
+                var second = executor.submit(() -> lockHelper.withReadLock(otherReadWriteLock, 5, TimeUnit.SECONDS,
+                        () -> awaitQuietly(bothReading)));
+
+                assertThat(first.get(10, TimeUnit.SECONDS)).isTrue();
+                assertThat(second.get(10, TimeUnit.SECONDS)).isTrue();
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
+        @Test
+        void shouldExcludeWriters_WhileReadLockIsHeld() throws Exception {
+            var writer = new InterProcessReadWriteLock(zkClient, lockPath);
+
+            lockHelper.useReadLock(readWriteLock, Duration.ofSeconds(5), () -> {
+                var result = CompletableFuture.supplyAsync(() -> catchThrowable(() ->
+                        lockHelper.useWriteLock(writer, 100, TimeUnit.MILLISECONDS, new TrackingRunnable())));
+                assertThat(result.join()).isExactlyInstanceOf(LockAcquisitionTimeoutException.class);
+            });
+
+            var action = new TrackingRunnable();
+            lockHelper.useWriteLock(writer, 5, TimeUnit.SECONDS, action);
+            assertThat(action.wasCalled).isTrue();
+        }
+
+        @Test
+        void shouldExcludeReaders_WhileWriteLockIsHeld() {
+            var reader = new InterProcessReadWriteLock(zkClient, lockPath);
+
+            var result = lockHelper.withWriteLock(readWriteLock, Duration.ofSeconds(5), () ->
+                    CompletableFuture.supplyAsync(() -> lockHelper.withReadLock(reader,
+                            Duration.ofMillis(100),
+                            new TrackingSupplier(42L),
+                            new ErrorHandlerFn<>(84L))).join());
+
+            assertThat(result).isEqualTo(84L);
+        }
+
+        @Test
+        void shouldAllowWriterToAcquireReadLock() {
+            var result = lockHelper.withWriteLock(readWriteLock, 5, TimeUnit.SECONDS,
+                    () -> lockHelper.withReadLock(readWriteLock, Duration.ofSeconds(1), () -> 42));
+
+            assertThat(result).isEqualTo(42);
+            assertThat(readWriteLock.writeLock().isAcquiredInThisProcess()).isFalse();
+            assertThat(readWriteLock.readLock().isAcquiredInThisProcess()).isFalse();
+        }
+
+        @Test
+        void shouldCallErrorHandler_WithOperationErrorType() {
+            var errorHandler = new ErrorConsumer();
+
+            lockHelper.useReadLock(readWriteLock, Duration.ofSeconds(5), () -> {
+                throw new CannotAcquireLockException("oops");
+            }, errorHandler);
+            assertThat(errorHandler.errorType).isEqualTo(ErrorType.OPERATION);
+
+            var result = lockHelper.withWriteLock(readWriteLock, 5, TimeUnit.SECONDS,
+                    new ThrowingSupplier(),
+                    (errorType, e) -> errorType == ErrorType.OPERATION ? -1 : 0);
+            assertThat(result).isEqualTo(-1);
+        }
+
+        private static boolean awaitQuietly(CountDownLatch latch) {
+            latch.countDown();
+            try {
+                return latch.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+
+    @Nested
+    class InspectLockQueues {
+
+        private CuratorFramework zkClient;
+        private String lockRoot;
+
+        @BeforeEach
+        void setUp() {
+            zkClient = CuratorFrameworkFactory.newClient(ZK_TEST_SERVER.getConnectString(), new RetryOneTime(100));
+            zkClient.start();
+            lockRoot = "/locks/queues-" + System.nanoTime();
+        }
+
+        @AfterEach
+        void tearDown() {
+            zkClient.close();
+        }
+
+        @Test
+        void shouldReportNothing_WhenLockRootDoesNotExist() {
+            var lockQueues = lockHelper.inspectLockQueues(zkClient, List.of(lockRoot), Duration.ofSeconds(5));
+
+            assertThat(lockQueues).isEmpty();
+        }
+
+        @Test
+        void shouldReportParticipants_InLockOrder() throws Exception {
+            var lockPath = lockRoot + "/orders/42";
+            var holder = lockHelper.createInterProcessMutex(zkClient, lockPath);
+            lockHelper.acquire(holder, Duration.ofSeconds(5));
+
+            var executor = Executors.newSingleThreadExecutor();
+            try {
+                var waiter = lockHelper.createInterProcessMutex(zkClient, lockPath);
+                var waiting = executor.submit(() -> lockHelper.withLock(waiter, Duration.ofSeconds(10), () -> true));
+                await().atMost(5, TimeUnit.SECONDS).until(() -> holder.getParticipantNodes().size() == 2);
+
+                var lockQueues = lockHelper.inspectLockQueues(zkClient, List.of(lockRoot), Duration.ofSeconds(5));
+
+                assertThat(lockQueues).hasSize(1);
+                var lockQueue = lockQueues.get(0);
+                assertThat(lockQueue.lockPath()).isEqualTo(lockPath);
+                assertThat(lockQueue.participants())
+                        .extracting(LockQueueInfo.Participant::node)
+                        .containsExactlyElementsOf(holder.getParticipantNodes());
+                assertThat(lockQueue.participants())
+                        .extracting(LockQueueInfo.Participant::owner)
+                        .allSatisfy(owner -> assertThat(owner).isNotBlank());
+                assertThat(lockQueue.queueDepth()).isOne();
+                assertThat(lockQueue.holder()).contains(lockQueue.participants().get(0));
+                assertThat(lockQueue.estimatedWait()).isEmpty();
+
+                lockHelper.releaseQuietly(holder);
+                assertThat(waiting.get(10, TimeUnit.SECONDS)).isTrue();
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
+        @Test
+        void shouldStopWalkingLevels_WhenTimeoutExpires() {
+            var slowClient = mock(CuratorFramework.class);
+            var getChildren = mock(GetChildrenBuilder.class);
+            when(slowClient.getChildren()).thenReturn(getChildren);
+            when(getChildren.inBackground(any(BackgroundCallback.class))).thenAnswer(invocation -> {
+                BackgroundCallback callback = invocation.getArgument(0);
+                return new SlowChildrenPathable(slowClient, callback);
+            });
+
+            var lockQueues = assertTimeoutPreemptively(Duration.ofSeconds(5), () ->
+                    lockHelper.inspectLockQueues(slowClient, List.of(lockRoot), Duration.ofMillis(100)));
+
+            assertThat(lockQueues).isEmpty();
+        }
+
+        @Test
+        void shouldReportEachLockPath_UnderMultipleRoots() throws Exception {
+            var otherRoot = lockRoot + "-other";
+            var mutex = lockHelper.createInterProcessMutex(zkClient, lockRoot + "/a/b");
+            var readWriteLock = lockHelper.createInterProcessReadWriteLock(zkClient, otherRoot + "/config");
+            lockHelper.acquire(mutex, Duration.ofSeconds(5));
+            lockHelper.acquire(readWriteLock.readLock(), Duration.ofSeconds(5));
+            zkClient.create().creatingParentsIfNeeded().forPath(lockRoot + "/unused", new byte[0]);
+
+            try {
+                var lockQueues = lockHelper.inspectLockQueues(zkClient, List.of(otherRoot, lockRoot), Duration.ofSeconds(5));
+
+                assertThat(lockQueues)
+                        .extracting(LockQueueInfo::lockPath)
+                        .containsExactly(otherRoot + "/config", lockRoot + "/a/b");
+                assertThat(lockQueues).allSatisfy(lockQueue -> assertThat(lockQueue.queueDepth()).isZero());
+            } finally {
+                lockHelper.releaseQuietly(mutex);
+                lockHelper.releaseQuietly(readWriteLock.readLock());
+            }
+        }
+    }
+
     @Getter
     static class TrackingRunnable implements Runnable {
 
@@ -498,4 +1373,26 @@ class CuratorLockHelperTest {
             return fallback;
         }
     }
+
+    /**
+     * Reports a single non-lock child for every path, after a short delay, so a tree walk never ends on its own.
+     */
+    private record SlowChildrenPathable(CuratorFramework client, BackgroundCallback callback)
+            implements ErrorListenerPathable<List<String>> {
+
+        @Override
+        public Pathable<List<String>> withUnhandledErrorListener(UnhandledErrorListener listener) {
+            return this;
+        }
+
+        @Override
+        public List<String> forPath(String path) throws Exception {
+            var event = mock(CuratorEvent.class);
+            when(event.getResultCode()).thenReturn(KeeperException.Code.OK.intValue());
+            when(event.getChildren()).thenReturn(List.of("deeper"));
+            Thread.sleep(10);
+            callback.processResult(client, event);
+            return null;
+        }
+    }
 }
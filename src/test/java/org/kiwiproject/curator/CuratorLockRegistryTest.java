@@ -0,0 +1,139 @@
+package org.kiwiproject.curator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.recipes.locks.InterProcessMutex;
+import org.apache.curator.framework.recipes.locks.InterProcessSemaphoreMutex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+@DisplayName("CuratorLockRegistry")
+class CuratorLockRegistryTest {
+
+    private CuratorLockHelper lockHelper;
+    private CuratorFramework client;
+    private AtomicLong nanoTime;
+    private CuratorLockRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        lockHelper = mock(CuratorLockHelper.class);
+        when(lockHelper.createInterProcessMutex(any(CuratorFramework.class), anyString()))
+                .thenAnswer(invocation -> mock(InterProcessMutex.class));
+        when(lockHelper.createInterProcessSemaphoreMutex(any(CuratorFramework.class), anyString()))
+                .thenAnswer(invocation -> mock(InterProcessSemaphoreMutex.class));
+        when(lockHelper.createLocalFirstLock(any(CuratorFramework.class), anyString()))
+                .thenAnswer(invocation -> mock(LocalFirstInterProcessLock.class));
+
+        client = mock(CuratorFramework.class);
+        nanoTime = new AtomicLong();
+        registry = new CuratorLockRegistry(lockHelper, 3, Duration.ofSeconds(10), nanoTime::get);
+    }
+
+    @Test
+    void shouldRequirePositiveMaxSize() {
+        var idleTimeout = Duration.ofSeconds(1);
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> new CuratorLockRegistry(lockHelper, 0, idleTimeout));
+    }
+
+    @Test
+    void shouldReturnSameInstance_ForSameClientAndPath() {
+        var lock1 = registry.getInterProcessMutex(client, "/locks/a");
+        var lock2 = registry.getInterProcessMutex(client, "/locks/a");
+
+        assertThat(lock1).isSameAs(lock2);
+        assertThat(registry.size()).isOne();
+        assertThat(registry.missCount()).isOne();
+        assertThat(registry.hitCount()).isOne();
+    }
+
+    @Test
+    void shouldReturnDifferentInstances_ForDifferentPathsClientsAndLockTypes() {
+        var otherClient = mock(CuratorFramework.class);
+
+        var mutex = registry.getInterProcessMutex(client, "/locks/a");
+        var otherPathMutex = registry.getInterProcessMutex(client, "/locks/b");
+        var otherClientMutex = registry.getInterProcessMutex(otherClient, "/locks/a");
+        var semaphoreMutex = registry.getInterProcessSemaphoreMutex(client, "/locks/a");
+
+        assertThat(mutex)
+                .isNotSameAs(otherPathMutex)
+                .isNotSameAs(otherClientMutex)
+                .isNotSameAs(semaphoreMutex);
+        assertThat(registry.missCount()).isEqualTo(4);
+        assertThat(registry.hitCount()).isZero();
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsed_WhenAboveMaxSize() {
+        var lockA = registry.getInterProcessMutex(client, "/locks/a");
+        registry.getInterProcessMutex(client, "/locks/b");
+        registry.getInterProcessMutex(client, "/locks/c");
+
+        // touch "a" so that "b" becomes the least recently used
+        registry.getInterProcessMutex(client, "/locks/a");
+        registry.getInterProcessMutex(client, "/locks/d");
+
+        assertThat(registry.size()).isEqualTo(3);
+        assertThat(registry.evictionCount()).isOne();
+        assertThat(registry.getInterProcessMutex(client, "/locks/a")).isSameAs(lockA);
+
+        var missesBefore = registry.missCount();
+        registry.getInterProcessMutex(client, "/locks/b");
+        assertThat(registry.missCount()).isEqualTo(missesBefore + 1);
+    }
+
+    @Test
+    void shouldNeverEvictHeldLocks() {
+        var lockA = registry.getInterProcessMutex(client, "/locks/a");
+        var lockB = registry.getInterProcessMutex(client, "/locks/b");
+        var lockC = registry.getInterProcessMutex(client, "/locks/c");
+        when(lockA.isAcquiredInThisProcess()).thenReturn(true);
+        when(lockB.isAcquiredInThisProcess()).thenReturn(true);
+        when(lockC.isAcquiredInThisProcess()).thenReturn(true);
+
+        registry.getInterProcessMutex(client, "/locks/d");
+
+        assertThat(registry.size()).isEqualTo(4);
+        assertThat(registry.evictionCount()).isZero();
+        assertThat(registry.getInterProcessMutex(client, "/locks/a")).isSameAs(lockA);
+    }
+
+    @Test
+    void shouldEvictIdleLocks_AfterIdleTimeout() {
+        var lockA = registry.getInterProcessMutex(client, "/locks/a");
+        registry.getInterProcessMutex(client, "/locks/b");
+        when(lockA.isAcquiredInThisProcess()).thenReturn(true);
+
+        nanoTime.addAndGet(Duration.ofSeconds(9).toNanos());
+        assertThat(registry.evictIdleLocks()).isZero();
+
+        nanoTime.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertThat(registry.evictIdleLocks()).isOne();
+
+        assertThat(registry.size()).isOne();
+        assertThat(registry.evictionCount()).isOne();
+        assertThat(registry.getInterProcessMutex(client, "/locks/a")).isSameAs(lockA);
+    }
+
+    @Test
+    void shouldNotEvictLocalFirstLocks_WithLocalWaiters() {
+        var lockA = registry.getLocalFirstLock(client, "/locks/a");
+        when(lockA.getLocalQueueLength()).thenReturn(2);
+
+        nanoTime.addAndGet(Duration.ofMinutes(1).toNanos());
+        assertThat(registry.evictIdleLocks()).isZero();
+        assertThat(registry.getLocalFirstLock(client, "/locks/a")).isSameAs(lockA);
+    }
+}
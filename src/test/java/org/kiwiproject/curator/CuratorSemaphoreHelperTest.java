@@ -0,0 +1,172 @@
+package org.kiwiproject.curator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.CuratorFrameworkFactory;
+import org.apache.curator.framework.recipes.locks.InterProcessSemaphoreV2;
+import org.apache.curator.framework.recipes.locks.Lease;
+import org.apache.curator.framework.recipes.shared.SharedCount;
+import org.apache.curator.retry.RetryOneTime;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.kiwiproject.curator.CuratorLockHelper.ErrorType;
+import org.kiwiproject.curator.exception.LockAcquisitionFailureException;
+import org.kiwiproject.curator.exception.LockAcquisitionTimeoutException;
+import org.kiwiproject.test.curator.CuratorTestingServerExtension;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+@DisplayName("CuratorSemaphoreHelper")
+class CuratorSemaphoreHelperTest {
+
+    @RegisterExtension
+    static final CuratorTestingServerExtension ZK_TEST_SERVER = new CuratorTestingServerExtension();
+
+    private CuratorSemaphoreHelper semaphoreHelper;
+    private CuratorFramework client;
+    private String semaphorePath;
+
+    @BeforeEach
+    void setUp() {
+        semaphoreHelper = new CuratorSemaphoreHelper();
+        client = CuratorFrameworkFactory.newClient(ZK_TEST_SERVER.getConnectString(), new RetryOneTime(100));
+        client.start();
+        semaphorePath = "/semaphores/downstream-" + System.nanoTime();
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.close();
+    }
+
+    @Test
+    void shouldRequirePositiveMaxLeases() {
+        assertThatThrownBy(() -> semaphoreHelper.createSemaphore(client, semaphorePath, 0))
+                .isExactlyInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldReturnResult_AndReturnLease() throws Exception {
+        var result = semaphoreHelper.withLease(client, semaphorePath, 2, Duration.ofSeconds(5), () -> 42);
+
+        assertThat(result).isEqualTo(42);
+        assertThat(semaphoreHelper.createSemaphore(client, semaphorePath, 2).getParticipantNodes()).isEmpty();
+    }
+
+    @Test
+    void shouldLimitConcurrentLeases() {
+        var semaphore = semaphoreHelper.createSemaphore(client, semaphorePath, 2);
+        var leases = semaphoreHelper.acquire(semaphore, 2, Duration.ofSeconds(5));
+
+        var other = semaphoreHelper.createSemaphore(client, semaphorePath, 2);
+        var action = new CuratorLockHelperTest.TrackingRunnable();
+        assertThatThrownBy(() -> semaphoreHelper.useLease(other, Duration.ofMillis(100), action))
+                .isExactlyInstanceOf(LockAcquisitionTimeoutException.class);
+        assertThat(action.isWasCalled()).isFalse();
+
+        semaphoreHelper.returnQuietly(semaphore, leases);
+
+        semaphoreHelper.useLease(other, Duration.ofSeconds(5), action);
+        assertThat(action.isWasCalled()).isTrue();
+    }
+
+    @Test
+    void shouldAcquireAllOrNoneOfMultipleLeases() throws Exception {
+        var semaphore = semaphoreHelper.createSemaphore(client, semaphorePath, 3);
+        var lease = semaphoreHelper.acquire(semaphore, Duration.ofSeconds(5));
+
+        assertThatThrownBy(() -> semaphoreHelper.withLeases(semaphore, 3, Duration.ofMillis(100), () -> 42))
+                .isExactlyInstanceOf(LockAcquisitionTimeoutException.class);
+        assertThat(semaphore.getParticipantNodes()).hasSize(1);
+
+        var result = semaphoreHelper.withLeases(semaphore, 2, Duration.ofSeconds(5),
+                () -> participantCount(semaphore));
+        assertThat(result).isEqualTo(3);
+
+        semaphoreHelper.returnQuietly(semaphore, lease);
+        assertThat(semaphore.getParticipantNodes()).isEmpty();
+    }
+
+    @Test
+    void shouldUseMaxLeasesFromSharedCount() throws Exception {
+        try (var maxLeases = new SharedCount(client, semaphorePath + "-max", 1)) {
+            maxLeases.start();
+            var semaphore = semaphoreHelper.createSemaphore(client, semaphorePath, maxLeases);
+            var lease = semaphoreHelper.acquire(semaphore, Duration.ofSeconds(5));
+
+            var other = semaphoreHelper.createSemaphore(client, semaphorePath, maxLeases);
+            assertThatThrownBy(() -> semaphoreHelper.acquire(other, Duration.ofMillis(100)))
+                    .isExactlyInstanceOf(LockAcquisitionTimeoutException.class);
+
+            maxLeases.setCount(2);
+
+            var result = semaphoreHelper.withLease(other, Duration.ofSeconds(5), () -> 84);
+            assertThat(result).isEqualTo(84);
+
+            semaphoreHelper.returnQuietly(semaphore, lease);
+        }
+    }
+
+    @Test
+    void shouldReturnLease_WhenSupplierThrows() throws Exception {
+        var semaphore = semaphoreHelper.createSemaphore(client, semaphorePath, 1);
+
+        assertThatThrownBy(() -> semaphoreHelper.withLease(semaphore, Duration.ofSeconds(5), () -> {
+            throw new IllegalStateException("oops");
+        })).isExactlyInstanceOf(IllegalStateException.class);
+
+        assertThat(semaphore.getParticipantNodes()).isEmpty();
+    }
+
+    @Test
+    void shouldThrowLockAcquisitionFailureException_WhenSemaphoreThrows() throws Exception {
+        var semaphore = mock(InterProcessSemaphoreV2.class);
+        when(semaphore.acquire(anyInt(), anyLong(), any(TimeUnit.class))).thenThrow(new IOException("oops"));
+
+        assertThatThrownBy(() -> semaphoreHelper.acquire(semaphore, Duration.ofSeconds(1)))
+                .isExactlyInstanceOf(LockAcquisitionFailureException.class)
+                .hasCauseExactlyInstanceOf(IOException.class);
+    }
+
+    @Test
+    void shouldCallErrorHandler_WithErrorType() throws Exception {
+        var semaphore = mock(InterProcessSemaphoreV2.class);
+        when(semaphore.acquire(anyInt(), anyLong(), any(TimeUnit.class)))
+                .thenReturn(null)
+                .thenReturn(List.of(mock(Lease.class)));
+
+        var result = semaphoreHelper.withLease(semaphore, Duration.ofMillis(10), () -> 42,
+                (errorType, e) -> errorType == ErrorType.LOCK_ACQUISITION ? -1 : 0);
+        assertThat(result).isEqualTo(-1);
+
+        var errorType = new AtomicReference<ErrorType>();
+        semaphoreHelper.useLease(semaphore, Duration.ofMillis(10), () -> {
+            throw new IllegalStateException("oops");
+        }, (type, e) -> errorType.set(type));
+        assertThat(errorType).hasValue(ErrorType.OPERATION);
+        verify(semaphore).returnAll(any());
+    }
+
+    private static int participantCount(InterProcessSemaphoreV2 semaphore) {
+        try {
+            return semaphore.getParticipantNodes().size();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package org.kiwiproject.curator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.CuratorFrameworkFactory;
+import org.apache.curator.retry.RetryOneTime;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.kiwiproject.curator.exception.LockLostException;
+import org.kiwiproject.test.curator.CuratorTestingServerExtension;
+
+import java.util.concurrent.CompletableFuture;
+
+@DisplayName("FencedInterProcessMutex")
+class FencedInterProcessMutexTest {
+
+    @RegisterExtension
+    static final CuratorTestingServerExtension ZK_TEST_SERVER = new CuratorTestingServerExtension();
+
+    private CuratorFramework client;
+    private String lockPath;
+    private FencedInterProcessMutex lock;
+
+    @BeforeEach
+    void setUp() {
+        client = CuratorFrameworkFactory.newClient(ZK_TEST_SERVER.getConnectString(), new RetryOneTime(100));
+        client.start();
+        lockPath = "/locks/fenced-" + System.nanoTime();
+        lock = new FencedInterProcessMutex(client, lockPath);
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.close();
+    }
+
+    @Test
+    void shouldProvideCzxidOfLockNode_AsFencingToken() throws Exception {
+        lock.acquire();
+        try {
+            var lockNode = client.getChildren().forPath(lockPath).get(0);
+            var czxid = client.checkExists().forPath(lockPath + "/" + lockNode).getCzxid();
+
+            assertThat(lock.getFencingToken()).isEqualTo(czxid);
+        } finally {
+            lock.release();
+        }
+    }
+
+    @Test
+    void shouldProvideSameToken_ForReentrantAcquisitions() throws Exception {
+        lock.acquire();
+        try {
+            var token = lock.getFencingToken();
+            lock.acquire();
+            assertThat(lock.getFencingToken()).isEqualTo(token);
+            lock.release();
+        } finally {
+            lock.release();
+        }
+    }
+
+    @Test
+    void shouldProvideIncreasingTokens_ToSuccessiveHolders_EvenWhenParentIsRecreated() throws Exception {
+        var first = tokenOfNewHolder();
+        var second = tokenOfNewHolder();
+
+        client.delete().forPath(lockPath);
+        var third = tokenOfNewHolder();
+
+        assertThat(second).isGreaterThan(first);
+        assertThat(third).isGreaterThan(second);
+    }
+
+    @Test
+    void shouldThrowIllegalStateException_WhenNotHeld() {
+        assertThatThrownBy(() -> lock.getFencingToken())
+                .isExactlyInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void shouldThrowIllegalStateException_WhenHeldByAnotherThread() throws Exception {
+        lock.acquire();
+        try {
+            var result = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return lock.getFencingToken();
+                } catch (IllegalStateException e) {
+                    return -1L;
+                }
+            }).join();
+
+            assertThat(result).isEqualTo(-1L);
+        } finally {
+            lock.release();
+        }
+    }
+
+    @Test
+    void shouldThrowLockLostException_WhenLockNodeIsGone() throws Exception {
+        lock.acquire();
+        var lockNode = client.getChildren().forPath(lockPath).get(0);
+        client.delete().forPath(lockPath + "/" + lockNode);
+
+        assertThatThrownBy(() -> lock.getFencingToken())
+                .isExactlyInstanceOf(LockLostException.class);
+
+        new CuratorLockHelper().releaseQuietly(lock);
+    }
+
+    private long tokenOfNewHolder() throws Exception {
+        var holder = new FencedInterProcessMutex(client, lockPath);
+        holder.acquire();
+        try {
+            return holder.getFencingToken();
+        } finally {
+            holder.release();
+        }
+    }
+}
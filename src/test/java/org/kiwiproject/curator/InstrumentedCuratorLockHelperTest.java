@@ -0,0 +1,247 @@
+package org.kiwiproject.curator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.recipes.locks.InterProcessMutex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.kiwiproject.curator.CuratorLockHelper.ErrorType;
+import org.kiwiproject.curator.exception.LockAcquisitionFailureException;
+import org.kiwiproject.curator.exception.LockAcquisitionTimeoutException;
+import org.kiwiproject.curator.exception.LockLostException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+@DisplayName("InstrumentedCuratorLockHelper")
+class InstrumentedCuratorLockHelperTest {
+
+    private static final String PREFIX = "org.kiwiproject.curator.CuratorLockHelper.locks";
+
+    private MetricRegistry metrics;
+    private InstrumentedCuratorLockHelper lockHelper;
+    private InterProcessMutex lock;
+
+    @BeforeEach
+    void setUp() {
+        metrics = new MetricRegistry();
+        lockHelper = new InstrumentedCuratorLockHelper(metrics,
+                new LockPathNormalizer(List.of("/locks/orders/{orderId}"), 10));
+        lock = lockHelper.registerLockPath(mock(InterProcessMutex.class), "/locks/orders/42");
+    }
+
+    @Test
+    void shouldShareHeldGauge_WithAnotherInstance_InSameRegistry() throws Exception {
+        var normalizer = new LockPathNormalizer(List.of(), 10);
+        var other = new InstrumentedCuratorLockHelper(metrics, normalizer);
+        var otherLock = other.registerLockPath(mock(InterProcessMutex.class), "/locks/other");
+        when(otherLock.acquire(anyLong(), any(TimeUnit.class))).thenReturn(true);
+        when(lock.acquire(anyLong(), any(TimeUnit.class))).thenReturn(true);
+        var heldDuringActions = new AtomicReference<Integer>();
+
+        lockHelper.useLock(lock, Duration.ofSeconds(1), () ->
+                other.useLock(otherLock, Duration.ofSeconds(1), () -> heldDuringActions.set(heldGauge().getValue())));
+
+        assertThat(heldDuringActions).hasValue(2);
+        assertThat(heldGauge().getValue()).isZero();
+    }
+
+    @Test
+    void shouldRejectRegistry_WhereHeldGaugeBelongsToAnotherComponent() {
+        metrics.remove(PREFIX + ".held");
+        metrics.register(PREFIX + ".held", (Gauge<Integer>) () -> 42);
+        var normalizer = new LockPathNormalizer(List.of(), 10);
+
+        assertThatThrownBy(() -> new InstrumentedCuratorLockHelper(metrics, normalizer))
+                .isExactlyInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldRecordLockPath_OfCreatedLocks() {
+        var client = mock(CuratorFramework.class);
+
+        var mutex = lockHelper.createInterProcessMutex(client, "/locks/a");
+
+        assertThat(lockHelper.lockPathOf(mutex)).contains("/locks/a");
+        assertThat(lockHelper.lockPathOf(mock(InterProcessMutex.class))).isEmpty();
+    }
+
+    @Test
+    void shouldRecordLockPath_OfReadAndWriteLocks() {
+        var client = mock(CuratorFramework.class);
+
+        var readWriteLock = lockHelper.createInterProcessReadWriteLock(client, "/locks/config");
+
+        assertThat(lockHelper.lockPathOf(readWriteLock.readLock())).contains("/locks/config");
+        assertThat(lockHelper.lockPathOf(readWriteLock.writeLock())).contains("/locks/config");
+    }
+
+    @Test
+    void shouldRecordAcquireLatencyAndHoldTime() throws Exception {
+        when(lock.acquire(anyLong(), any(TimeUnit.class))).thenReturn(true);
+
+        var result = lockHelper.withLock(lock, Duration.ofSeconds(1), () -> 42);
+
+        assertThat(result).isEqualTo(42);
+        assertThat(metrics.histogram(PREFIX + "./locks/orders/{orderId}.acquire-latency-micros").getCount()).isOne();
+        assertThat(metrics.timer(PREFIX + "./locks/orders/{orderId}.hold").getCount()).isOne();
+    }
+
+    @Test
+    void shouldRecordHoldTime_WhenTryingLock() throws Exception {
+        when(lock.acquire(anyLong(), any(TimeUnit.class))).thenReturn(true, false);
+
+        assertThat(lockHelper.tryUseLock(lock, () -> { })).isTrue();
+        assertThat(lockHelper.tryWithLock(lock, () -> 42)).isEmpty();
+
+        assertThat(metrics.timer(PREFIX + "./locks/orders/{orderId}.hold").getCount()).isOne();
+    }
+
+    @Test
+    void shouldReportHeldLocks_WhileActionIsRunning() throws Exception {
+        when(lock.acquire(anyLong(), any(TimeUnit.class))).thenReturn(true);
+        var heldGauge = heldGauge();
+        var heldDuringAction = new AtomicReference<Integer>();
+
+        lockHelper.useLock(lock, Duration.ofSeconds(1), () -> heldDuringAction.set(heldGauge.getValue()));
+
+        assertThat(heldDuringAction).hasValue(1);
+        assertThat(heldGauge.getValue()).isZero();
+    }
+
+    @Test
+    void shouldTrackHolds_WithWatchdog() throws Exception {
+        var watchdogMetrics = new MetricRegistry();
+        var watchdog = new LockHoldWatchdog(watchdogMetrics, Duration.ofMinutes(1), Duration.ofSeconds(1));
+        var watchedLockHelper = new InstrumentedCuratorLockHelper(watchdogMetrics,
+                new LockPathNormalizer(List.of(), 10), watchdog);
+        var watchedLock = watchedLockHelper.registerLockPath(mock(InterProcessMutex.class), "/locks/orders/42");
+        when(watchedLock.acquire(anyLong(), any(TimeUnit.class))).thenReturn(true);
+        var holdsDuringAction = new AtomicReference<Integer>();
+
+        watchedLockHelper.useLock(watchedLock, Duration.ofSeconds(1), () -> holdsDuringAction.set(watchdog.holdCount()));
+
+        assertThat(holdsDuringAction).hasValue(1);
+        assertThat(watchdog.holdCount()).isZero();
+    }
+
+    @Test
+    void shouldAcquireWithAdaptiveTimeout() throws Exception {
+        when(lock.acquire(anyLong(), any(TimeUnit.class))).thenReturn(true);
+        assertThat(lockHelper.adaptiveTimeoutFor(lock)).isEqualTo(Duration.ofSeconds(30));
+
+        var result = lockHelper.withLock(lock, () -> 42);
+
+        assertThat(result).isEqualTo(42);
+        verify(lock).acquire(TimeUnit.SECONDS.toNanos(30), TimeUnit.NANOSECONDS);
+    }
+
+    @Test
+    void shouldRecordLatencies_InAdaptiveTimeoutPolicy() throws Exception {
+        var policy = mock(AdaptiveLockTimeoutPolicy.class);
+        var adaptiveLockHelper = new InstrumentedCuratorLockHelper(new MetricRegistry(),
+                new LockPathNormalizer(List.of("/locks/orders/{orderId}"), 10), null, policy);
+        var adaptiveLock = adaptiveLockHelper.registerLockPath(mock(InterProcessMutex.class), "/locks/orders/42");
+        when(adaptiveLock.acquire(anyLong(), any(TimeUnit.class))).thenReturn(true).thenReturn(false);
+        when(policy.timeoutFor("/locks/orders/{orderId}")).thenReturn(Duration.ofMillis(250));
+
+        adaptiveLockHelper.useLock(adaptiveLock, () -> {});
+        var errorType = new AtomicReference<ErrorType>();
+        adaptiveLockHelper.useLock(adaptiveLock, () -> {}, (type, e) -> errorType.set(type));
+
+        verify(policy).recordLatency(eq("/locks/orders/{orderId}"), any(Duration.class));
+        verify(policy).recordTimeout("/locks/orders/{orderId}", Duration.ofMillis(250));
+        assertThat(errorType).hasValue(ErrorType.LOCK_ACQUISITION);
+    }
+
+    @Test
+    void shouldEstimateMeanHoldTime_FromHoldTimer() throws Exception {
+        assertThat(lockHelper.estimateMeanHoldTime("/locks/orders/42")).isEmpty();
+
+        when(lock.acquire(anyLong(), any(TimeUnit.class))).thenReturn(true);
+        lockHelper.useLock(lock, Duration.ofSeconds(1), () -> {});
+
+        assertThat(lockHelper.estimateMeanHoldTime("/locks/orders/84")).isPresent();
+        assertThat(lockHelper.estimateMeanHoldTime("/locks/other")).isEmpty();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Gauge<Integer> heldGauge() {
+        return (Gauge<Integer>) metrics.getGauges().get(PREFIX + ".held");
+    }
+
+    @Test
+    void shouldMarkTimeouts() throws Exception {
+        when(lock.acquire(anyLong(), any(TimeUnit.class))).thenReturn(false);
+
+        var timeout = Duration.ofMillis(10);
+        assertThatThrownBy(() -> lockHelper.useLock(lock, timeout, () -> {}))
+                .isExactlyInstanceOf(LockAcquisitionTimeoutException.class);
+
+        assertThat(metrics.meter(PREFIX + "./locks/orders/{orderId}.errors.LOCK_ACQUISITION.timeout").getCount()).isOne();
+        assertThat(metrics.histogram(PREFIX + "./locks/orders/{orderId}.acquire-latency-micros").getCount()).isOne();
+    }
+
+    @Test
+    void shouldMarkFailures() throws Exception {
+        doThrow(new IllegalStateException("oops")).when(lock).acquire(anyLong(), any(TimeUnit.class));
+
+        var timeout = Duration.ofMillis(10);
+        assertThatThrownBy(() -> lockHelper.withLock(lock, timeout, () -> 42))
+                .isExactlyInstanceOf(LockAcquisitionFailureException.class);
+
+        assertThat(metrics.meter(PREFIX + "./locks/orders/{orderId}.errors.LOCK_ACQUISITION.failure").getCount()).isOne();
+    }
+
+    @Test
+    void shouldMarkOperationErrors_AndStillCallErrorHandler() throws Exception {
+        when(lock.acquire(anyLong(), any(TimeUnit.class))).thenReturn(true);
+        var errorType = new AtomicReference<ErrorType>();
+
+        lockHelper.useLock(lock, Duration.ofSeconds(1),
+                () -> {
+                    throw new IllegalStateException("oops");
+                },
+                (type, e) -> errorType.set(type));
+
+        assertThat(errorType).hasValue(ErrorType.OPERATION);
+        assertThat(metrics.meter(PREFIX + "./locks/orders/{orderId}.errors.OPERATION").getCount()).isOne();
+        assertThat(heldGauge().getValue()).isZero();
+    }
+
+    @Test
+    void shouldMarkLostLocks() throws Exception {
+        when(lock.acquire(anyLong(), any(TimeUnit.class))).thenReturn(true);
+
+        assertThatThrownBy(() -> lockHelper.withLock(lock, Duration.ofSeconds(1), () -> {
+            throw new LockLostException("lost");
+        })).isExactlyInstanceOf(LockLostException.class);
+
+        assertThat(metrics.meter(PREFIX + "./locks/orders/{orderId}.errors.LOCK_LOST").getCount()).isOne();
+        assertThat(metrics.meter(PREFIX + "./locks/orders/{orderId}.errors.OPERATION").getCount()).isZero();
+    }
+
+    @Test
+    void shouldRecordUnknownLocks_UnderUnknownPath() throws Exception {
+        var unknownLock = mock(InterProcessMutex.class);
+        when(unknownLock.acquire(anyLong(), any(TimeUnit.class))).thenReturn(true);
+
+        lockHelper.acquire(unknownLock, Duration.ofSeconds(1));
+
+        assertThat(metrics.histogram(PREFIX + "./_unknown.acquire-latency-micros").getCount()).isOne();
+    }
+}
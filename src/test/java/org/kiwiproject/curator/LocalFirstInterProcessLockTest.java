@@ -0,0 +1,312 @@
+package org.kiwiproject.curator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.CuratorFrameworkFactory;
+import org.apache.curator.framework.listen.StandardListenerManager;
+import org.apache.curator.framework.recipes.locks.InterProcessLock;
+import org.apache.curator.framework.state.ConnectionState;
+import org.apache.curator.framework.state.ConnectionStateListener;
+import org.apache.curator.retry.RetryOneTime;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.kiwiproject.test.curator.CuratorTestingServerExtension;
+
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@DisplayName("LocalFirstInterProcessLock")
+class LocalFirstInterProcessLockTest {
+
+    @RegisterExtension
+    static final CuratorTestingServerExtension ZK_TEST_SERVER = new CuratorTestingServerExtension();
+
+    @Nested
+    class WithMockDistributedLock {
+
+        private InterProcessLock distributedLock;
+        private LocalFirstInterProcessLock lock;
+
+        @BeforeEach
+        void setUp() throws Exception {
+            distributedLock = mock(InterProcessLock.class);
+            when(distributedLock.acquire(anyLong(), any(TimeUnit.class))).thenReturn(true);
+            lock = new LocalFirstInterProcessLock(distributedLock, 3);
+        }
+
+        @Test
+        void shouldNotAllowNegativeFairnessBudget() {
+            assertThatIllegalArgumentException()
+                    .isThrownBy(() -> new LocalFirstInterProcessLock(distributedLock, -1));
+        }
+
+        @Test
+        void shouldAcquireAndReleaseDistributedLock_WhenNoLocalContention() throws Exception {
+            assertThat(lock.acquire(1, TimeUnit.SECONDS)).isTrue();
+            assertThat(lock.isAcquiredInThisProcess()).isTrue();
+
+            lock.release();
+
+            assertThat(lock.isAcquiredInThisProcess()).isFalse();
+            assertThat(lock.distributedAcquisitionCount()).isOne();
+            assertThat(lock.handOffCount()).isZero();
+            verify(distributedLock).release();
+        }
+
+        @Test
+        void shouldBeReentrant() throws Exception {
+            assertThat(lock.acquire(1, TimeUnit.SECONDS)).isTrue();
+            assertThat(lock.acquire(1, TimeUnit.SECONDS)).isTrue();
+
+            lock.release();
+            verify(distributedLock, never()).release();
+
+            lock.release();
+            verify(distributedLock).release();
+            verify(distributedLock, times(1)).acquire(anyLong(), any(TimeUnit.class));
+        }
+
+        @Test
+        void shouldNotAcquire_WhenDistributedLockTimesOut() throws Exception {
+            when(distributedLock.acquire(anyLong(), any(TimeUnit.class))).thenReturn(false);
+
+            assertThat(lock.acquire(10, TimeUnit.MILLISECONDS)).isFalse();
+            assertThat(lock.isAcquiredInThisProcess()).isFalse();
+        }
+
+        @Test
+        void shouldThrow_WhenReleasedByThreadThatDoesNotHoldIt() {
+            assertThatThrownBy(() -> lock.release())
+                    .isExactlyInstanceOf(IllegalMonitorStateException.class);
+        }
+
+        @Test
+        void shouldHandOffDistributedLock_ToLocalWaiters_WithinFairnessBudget() throws Exception {
+            var threadCount = 8;
+            var iterations = 25;
+            var inCriticalSection = new AtomicInteger();
+            var maxInCriticalSection = new AtomicInteger();
+            var startLatch = new CountDownLatch(1);
+
+            var executor = Executors.newFixedThreadPool(threadCount);
+            try {
+                var futures = new ArrayList<Future<?>>();
+                for (var i = 0; i < threadCount; i++) {
+                    futures.add(executor.submit(() -> {
+                        startLatch.await();
+                        for (var j = 0; j < iterations; j++) {
+                            assertThat(lock.acquire(5, TimeUnit.SECONDS)).isTrue();
+                            try {
+                                var current = inCriticalSection.incrementAndGet();
+                                maxInCriticalSection.accumulateAndGet(current, Math::max);
+                                Thread.sleep(1);
+                                inCriticalSection.decrementAndGet();
+                            } finally {
+                                lock.release();
+                            }
+                        }
+                        return null;
+                    }));
+                }
+
+                startLatch.countDown();
+                for (var future : futures) {
+                    future.get(30, TimeUnit.SECONDS);
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+
+            var criticalSections = threadCount * iterations;
+            assertThat(maxInCriticalSection).hasValue(1);
+            assertThat(lock.distributedAcquisitionCount() + lock.handOffCount()).isEqualTo(criticalSections);
+            assertThat(lock.handOffCount()).isPositive();
+
+            // with a budget of 3, at least one in every 4 critical sections must go back to ZooKeeper
+            assertThat(lock.distributedAcquisitionCount()).isGreaterThanOrEqualTo(criticalSections / 4);
+            assertThat(lock.isAcquiredInThisProcess()).isFalse();
+        }
+    }
+
+    @Nested
+    class WhenInterruptedOrDisconnected {
+
+        private InterProcessLock distributedLock;
+        private StandardListenerManager<ConnectionStateListener> listeners;
+        private LocalFirstInterProcessLock lock;
+
+        @BeforeEach
+        void setUp() throws Exception {
+            distributedLock = mock(InterProcessLock.class);
+            when(distributedLock.acquire(anyLong(), any(TimeUnit.class))).thenReturn(true);
+            listeners = StandardListenerManager.standard();
+            lock = new LocalFirstInterProcessLock(distributedLock, listeners, 3);
+        }
+
+        @Test
+        void shouldNotKeepDistributedLock_WhenUntimedWaiterIsInterrupted() throws Exception {
+            for (var i = 0; i < 50; i++) {
+                lock.acquire();
+                var waiter = new Thread(() -> {
+                    try {
+                        lock.acquire();
+                        lock.release();
+                    } catch (InterruptedException e) {
+                        // expected when interrupted before the lock was handed to it
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                });
+                waiter.start();
+                await().pollInterval(1, TimeUnit.MILLISECONDS)
+                        .atMost(5, TimeUnit.SECONDS)
+                        .until(() -> lock.getLocalQueueLength() == 1);
+
+                waiter.interrupt();
+                lock.release();
+                waiter.join(5_000);
+
+                assertThat(waiter.isAlive()).isFalse();
+                assertThat(lock.isAcquiredInThisProcess())
+                        .describedAs("lock held after iteration %d", i)
+                        .isFalse();
+            }
+        }
+
+        @Test
+        void shouldWatchConnection_OnlyWhileDistributedLockIsHeld() throws Exception {
+            assertThat(listeners.size()).isZero();
+
+            lock.acquire();
+            assertThat(listeners.size()).isOne();
+
+            lock.release();
+            assertThat(listeners.size()).isZero();
+        }
+
+        @Test
+        void shouldStopHandOffs_WhenConnectionIsSuspended() throws Exception {
+            assertThat(lock.acquire(1, TimeUnit.SECONDS)).isTrue();
+
+            var executor = Executors.newSingleThreadExecutor();
+            try {
+                var waiter = executor.submit(() -> {
+                    assertThat(lock.acquire(5, TimeUnit.SECONDS)).isTrue();
+                    lock.release();
+                    return null;
+                });
+                await().atMost(5, TimeUnit.SECONDS).until(() -> lock.getLocalQueueLength() == 1);
+
+                listeners.forEach(listener -> listener.stateChanged(null, ConnectionState.SUSPENDED));
+                lock.release();
+                waiter.get(5, TimeUnit.SECONDS);
+            } finally {
+                executor.shutdownNow();
+            }
+
+            assertThat(lock.handOffCount()).isZero();
+            assertThat(lock.distributedAcquisitionCount()).isEqualTo(2);
+            verify(distributedLock, times(2)).release();
+            assertThat(lock.isAcquiredInThisProcess()).isFalse();
+        }
+
+        @Test
+        void shouldReacquire_WhenConnectionIsLost_AfterHandOff() throws Exception {
+            assertThat(lock.acquire(1, TimeUnit.SECONDS)).isTrue();
+
+            var executor = Executors.newSingleThreadExecutor();
+            var handedOff = new CountDownLatch(1);
+            var lost = new CountDownLatch(1);
+            try {
+                var waiter = executor.submit(() -> {
+                    assertThat(lock.acquire(5, TimeUnit.SECONDS)).isTrue();
+                    handedOff.countDown();
+                    lost.await();
+                    lock.release();
+                    return null;
+                });
+                await().atMost(5, TimeUnit.SECONDS).until(() -> lock.getLocalQueueLength() == 1);
+                lock.release();
+                assertThat(handedOff.await(5, TimeUnit.SECONDS)).isTrue();
+                assertThat(lock.handOffCount()).isOne();
+
+                listeners.forEach(listener -> listener.stateChanged(null, ConnectionState.LOST));
+                lost.countDown();
+                waiter.get(5, TimeUnit.SECONDS);
+            } finally {
+                executor.shutdownNow();
+            }
+
+            verify(distributedLock).release();
+            assertThat(lock.isAcquiredInThisProcess()).isFalse();
+
+            assertThat(lock.acquire(1, TimeUnit.SECONDS)).isTrue();
+            assertThat(lock.distributedAcquisitionCount()).isEqualTo(2);
+            lock.release();
+        }
+    }
+
+    @Nested
+    class WithZooKeeper {
+
+        private CuratorFramework client;
+
+        @BeforeEach
+        void setUp() {
+            client = CuratorFrameworkFactory.newClient(ZK_TEST_SERVER.getConnectString(), new RetryOneTime(100));
+            client.start();
+        }
+
+        @AfterEach
+        void tearDown() {
+            client.close();
+        }
+
+        @Test
+        void shouldProvideMutualExclusion_AcrossLocalFirstLocks() throws Exception {
+            var lockPath = "/locks/local-first";
+            var lock1 = new LocalFirstInterProcessLock(client, lockPath);
+            var lock2 = new LocalFirstInterProcessLock(client, lockPath);
+
+            assertThat(lock1.acquire(5, TimeUnit.SECONDS)).isTrue();
+
+            var executor = Executors.newSingleThreadExecutor();
+            try {
+                var acquiredWhileHeld = executor.submit(() -> lock2.acquire(250, TimeUnit.MILLISECONDS));
+                assertThat(acquiredWhileHeld.get(5, TimeUnit.SECONDS)).isFalse();
+
+                lock1.release();
+
+                var acquiredAfterRelease = executor.submit(() -> {
+                    var acquired = lock2.acquire(5, TimeUnit.SECONDS);
+                    lock2.release();
+                    return acquired;
+                });
+                assertThat(acquiredAfterRelease.get(10, TimeUnit.SECONDS)).isTrue();
+            } finally {
+                executor.shutdownNow();
+            }
+
+            assertThat(client.getChildren().forPath(lockPath + "/leases")).isEmpty();
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package org.kiwiproject.curator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@DisplayName("LockHoldWatchdog")
+class LockHoldWatchdogTest {
+
+    private static final String PREFIX = "org.kiwiproject.curator.CuratorLockHelper.locks";
+
+    private MetricRegistry metrics;
+    private AtomicLong nanoClock;
+    private LockHoldWatchdog watchdog;
+
+    @BeforeEach
+    void setUp() {
+        metrics = new MetricRegistry();
+        nanoClock = new AtomicLong();
+        watchdog = new LockHoldWatchdog(metrics, Duration.ofSeconds(10), Duration.ofSeconds(1), nanoClock::get);
+    }
+
+    @Test
+    void shouldRequirePositiveThreshold() {
+        var registry = new MetricRegistry();
+        var checkInterval = Duration.ofSeconds(1);
+        assertThatThrownBy(() -> new LockHoldWatchdog(registry, Duration.ZERO, checkInterval))
+                .isExactlyInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldTrackHolds_UntilClosed() {
+        var hold = watchdog.startHold("/locks/a");
+        watchdog.startHold("/locks/b");
+        assertThat(watchdog.holdCount()).isEqualTo(2);
+
+        hold.close();
+
+        assertThat(watchdog.holdCount()).isOne();
+    }
+
+    @Test
+    void shouldReportLongHolds() {
+        watchdog.startHold("/locks/a");
+        advance(5);
+        watchdog.startHold("/locks/b");
+
+        assertThat(watchdog.longHoldCount()).isZero();
+        assertThat(watchdog.oldestHoldAgeMillis()).isEqualTo(5_000);
+
+        advance(6);
+
+        assertThat(watchdog.longHoldCount()).isOne();
+        assertThat(watchdog.oldestHoldAgeMillis()).isEqualTo(11_000);
+        assertThat(gauge("long-holds").getValue()).isEqualTo(1L);
+        assertThat(gauge("oldest-hold-age-millis").getValue()).isEqualTo(11_000L);
+    }
+
+    @Test
+    void shouldCombineGauges_OfWatchdogs_InSameRegistry() {
+        watchdog.startHold("/locks/a");
+        var other = new LockHoldWatchdog(metrics, Duration.ofSeconds(10), Duration.ofSeconds(1), nanoClock::get);
+
+        advance(11);
+        other.startHold("/locks/b");
+
+        assertThat(gauge("long-holds").getValue()).isEqualTo(1L);
+        assertThat(gauge("oldest-hold-age-millis").getValue()).isEqualTo(11_000L);
+
+        advance(11);
+
+        assertThat(gauge("long-holds").getValue()).isEqualTo(2L);
+        assertThat(gauge("oldest-hold-age-millis").getValue()).isEqualTo(22_000L);
+    }
+
+    @Test
+    void shouldRejectRegistry_WhereGaugeBelongsToAnotherComponent() {
+        var registry = new MetricRegistry();
+        registry.register(PREFIX + ".long-holds", (Gauge<Long>) () -> 42L);
+        var threshold = Duration.ofSeconds(10);
+        var checkInterval = Duration.ofSeconds(1);
+
+        assertThatThrownBy(() -> new LockHoldWatchdog(registry, threshold, checkInterval))
+                .isExactlyInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldReportZeroOldestHoldAge_WhenNoLocksAreHeld() {
+        assertThat(watchdog.oldestHoldAgeMillis()).isZero();
+        assertThat(watchdog.longHoldCount()).isZero();
+    }
+
+    @Test
+    void shouldLogEachLongHoldOnlyOnce() {
+        var hold = watchdog.startHold("/locks/a");
+        assertThat(watchdog.checkHolds()).isZero();
+
+        advance(11);
+        assertThat(watchdog.checkHolds()).isOne();
+        assertThat(watchdog.checkHolds()).isZero();
+
+        watchdog.startHold("/locks/b");
+        advance(11);
+        assertThat(watchdog.checkHolds()).isOne();
+
+        hold.close();
+        assertThat(watchdog.longHoldCount()).isOne();
+    }
+
+    @Test
+    void shouldCheckHoldsInBackground() throws InterruptedException {
+        var realWatchdog = new LockHoldWatchdog(new MetricRegistry(), Duration.ofMillis(1), Duration.ofMillis(10));
+        var holding = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var holder = new Thread(() -> {
+            try (var ignored = realWatchdog.startHold("/locks/slow")) {
+                holding.countDown();
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        realWatchdog.start();
+        try {
+            holder.start();
+            assertThat(holding.await(5, TimeUnit.SECONDS)).isTrue();
+            await().atMost(5, TimeUnit.SECONDS).until(() -> realWatchdog.longHoldCount() == 1);
+        } finally {
+            release.countDown();
+            holder.join();
+            realWatchdog.stop();
+        }
+
+        assertThat(realWatchdog.holdCount()).isZero();
+    }
+
+    private void advance(long seconds) {
+        nanoClock.addAndGet(TimeUnit.SECONDS.toNanos(seconds));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Gauge<Long> gauge(String name) {
+        return (Gauge<Long>) metrics.getGauges().get(PREFIX + "." + name);
+    }
+}
@@ -0,0 +1,79 @@
+package org.kiwiproject.curator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.CuratorFrameworkFactory;
+import org.apache.curator.framework.recipes.locks.InterProcessMutex;
+import org.apache.curator.retry.RetryOneTime;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.kiwiproject.test.curator.CuratorTestingServerExtension;
+
+import java.util.concurrent.TimeUnit;
+
+@DisplayName("LockParticipantsView")
+class LockParticipantsViewTest {
+
+    @RegisterExtension
+    static final CuratorTestingServerExtension ZK_TEST_SERVER = new CuratorTestingServerExtension();
+
+    private CuratorFramework client;
+    private LockParticipantsView view;
+    private String lockPath;
+
+    @BeforeEach
+    void setUp() {
+        client = CuratorFrameworkFactory.newClient(ZK_TEST_SERVER.getConnectString(), new RetryOneTime(100));
+        client.start();
+        view = new LockParticipantsView(client);
+        lockPath = "/locks/view-" + System.nanoTime();
+    }
+
+    @AfterEach
+    void tearDown() {
+        view.close();
+        client.close();
+    }
+
+    @Test
+    void shouldTrackParticipants_OfLockPath() throws Exception {
+        assertThat(view.hasParticipants(lockPath)).isFalse();
+
+        var mutex = new InterProcessMutex(client, lockPath);
+        mutex.acquire();
+        await().atMost(5, TimeUnit.SECONDS).until(() -> view.hasParticipants(lockPath));
+
+        mutex.release();
+        await().atMost(5, TimeUnit.SECONDS).until(() -> !view.hasParticipants(lockPath));
+    }
+
+    @Test
+    void shouldNotCountLockPathItself() throws Exception {
+        client.create().creatingParentsIfNeeded().forPath(lockPath);
+        view.hasParticipants(lockPath);
+
+        await().during(200, TimeUnit.MILLISECONDS)
+                .atMost(5, TimeUnit.SECONDS)
+                .until(() -> !view.hasParticipants(lockPath));
+    }
+
+    @Test
+    void shouldReportNoParticipants_WhenClosed() throws Exception {
+        var mutex = new InterProcessMutex(client, lockPath);
+        mutex.acquire();
+        try {
+            await().atMost(5, TimeUnit.SECONDS).until(() -> view.hasParticipants(lockPath));
+
+            view.close();
+
+            assertThat(view.hasParticipants(lockPath)).isFalse();
+        } finally {
+            mutex.release();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package org.kiwiproject.curator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.List;
+
+@DisplayName("LockPathNormalizer")
+class LockPathNormalizerTest {
+
+    @Test
+    void shouldRequirePositiveMaxDistinctPaths() {
+        var templates = List.<String>of();
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> new LockPathNormalizer(templates, 0));
+    }
+
+    @Test
+    void shouldUseMatchingTemplate() {
+        var normalizer = new LockPathNormalizer(List.of("/locks/orders/{orderId}", "/locks/{tenant}/config"), 10);
+
+        assertThat(normalizer.normalize("/locks/orders/A-42")).isEqualTo("/locks/orders/{orderId}");
+        assertThat(normalizer.normalize("/locks/acme/config")).isEqualTo("/locks/{tenant}/config");
+    }
+
+    @Test
+    void shouldNotMatchTemplate_AcrossPathSegments() {
+        var normalizer = new LockPathNormalizer(List.of("/locks/orders/{orderId}"), 10);
+
+        assertThat(normalizer.normalize("/locks/orders/a/b")).isEqualTo("/locks/orders/a/b");
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "/locks/orders/12345, /locks/orders/{id}",
+            "/locks/users/6f1c3c1e-8d7b-4d3a-9a4f-2b1e3c4d5e6f/profile, /locks/users/{id}/profile",
+            "/locks/blobs/0123456789abcdef0123, /locks/blobs/{id}",
+            "/locks/deadbeefdeadbeefdeadbeef, /locks/deadbeefdeadbeefdeadbeef",
+            "/locks/jobs/nightly-report, /locks/jobs/nightly-report",
+    })
+    void shouldReplaceIdSegments_WhenNoTemplateMatches(String lockPath, String expected) {
+        var normalizer = new LockPathNormalizer(List.of(), 10);
+
+        assertThat(normalizer.normalize(lockPath)).isEqualTo(expected);
+    }
+
+    @Test
+    void shouldBoundNumberOfDistinctPaths() {
+        var normalizer = new LockPathNormalizer(List.of(), 2);
+
+        assertThat(normalizer.normalize("/locks/a")).isEqualTo("/locks/a");
+        assertThat(normalizer.normalize("/locks/b")).isEqualTo("/locks/b");
+        assertThat(normalizer.normalize("/locks/c")).isEqualTo(LockPathNormalizer.OVERFLOW_PATH);
+        assertThat(normalizer.normalize("/locks/a")).isEqualTo("/locks/a");
+    }
+}
@@ -0,0 +1,158 @@
+package org.kiwiproject.curator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+import com.codahale.metrics.MetricRegistry;
+import io.dropwizard.util.Duration;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.CuratorFrameworkFactory;
+import org.apache.curator.framework.recipes.locks.InterProcessMutex;
+import org.apache.curator.retry.RetryOneTime;
+import org.apache.zookeeper.CreateMode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.kiwiproject.curator.config.LockReaperConfig;
+import org.kiwiproject.test.curator.CuratorTestingServerExtension;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@DisplayName("LockPathReaper")
+class LockPathReaperTest {
+
+    @RegisterExtension
+    static final CuratorTestingServerExtension ZK_TEST_SERVER = new CuratorTestingServerExtension();
+
+    private CuratorFramework client;
+    private MetricRegistry metrics;
+    private LockReaperConfig config;
+    private String lockRoot;
+    private long now;
+
+    @BeforeEach
+    void setUp() {
+        client = CuratorFrameworkFactory.newClient(ZK_TEST_SERVER.getConnectString(), new RetryOneTime(100));
+        client.start();
+        metrics = new MetricRegistry();
+        lockRoot = "/locks-" + System.nanoTime();
+
+        config = new LockReaperConfig();
+        config.setLockRoots(List.of(lockRoot));
+        config.setMaxOperationsPerSecond(1_000);
+        now = System.currentTimeMillis() + 2 * config.getMinAge().toMilliseconds();
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.close();
+    }
+
+    @Test
+    void shouldRequireLockRoots() {
+        config.setLockRoots(List.of());
+
+        assertThatThrownBy(() -> new LockPathReaper(client, config, metrics))
+                .isExactlyInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldDeleteEmptyLockParents_ButNotLockRootsOrLocksInUse() throws Exception {
+        createPath(lockRoot + "/orders/1");
+        createPath(lockRoot + "/orders/2");
+        createPath(lockRoot + "/customers/abc");
+        var mutex = new InterProcessMutex(client, lockRoot + "/orders/3");
+        mutex.acquire();
+
+        var reaper = newReaper();
+        try {
+            reapFully(reaper);
+        } finally {
+            mutex.release();
+        }
+
+        assertThat(exists(lockRoot)).isTrue();
+        assertThat(exists(lockRoot + "/orders/1")).isFalse();
+        assertThat(exists(lockRoot + "/orders/2")).isFalse();
+        assertThat(exists(lockRoot + "/customers")).isFalse();
+        assertThat(exists(lockRoot + "/orders/3")).isTrue();
+        assertThat(reaper.reclaimedCount()).isEqualTo(4);
+        assertThat(metrics.counter("org.kiwiproject.curator.LockPathReaper.reclaimed").getCount()).isEqualTo(4);
+    }
+
+    @Test
+    void shouldNotDeleteNodesWithData_OrEphemeralNodes() throws Exception {
+        client.create().creatingParentsIfNeeded().forPath(lockRoot + "/config", "x".getBytes(StandardCharsets.UTF_8));
+        client.create().creatingParentsIfNeeded().withMode(CreateMode.EPHEMERAL).forPath(lockRoot + "/member");
+
+        reapFully(newReaper());
+
+        assertThat(exists(lockRoot + "/config")).isTrue();
+        assertThat(exists(lockRoot + "/member")).isTrue();
+    }
+
+    @Test
+    void shouldNotDeleteLockParents_YoungerThanMinAge() throws Exception {
+        createPath(lockRoot + "/orders/1");
+        now = System.currentTimeMillis();
+
+        var reaper = newReaper();
+        reapFully(reaper);
+
+        assertThat(exists(lockRoot + "/orders/1")).isTrue();
+        assertThat(reaper.reclaimedCount()).isZero();
+    }
+
+    @Test
+    void shouldExamineAtMostBatchSizeNodes_PerBatch() throws Exception {
+        createPath(lockRoot + "/a");
+        createPath(lockRoot + "/b");
+        createPath(lockRoot + "/c");
+        config.setBatchSize(2);
+        var reaper = newReaper();
+
+        // the first batch examines the root and one child
+        assertThat(reaper.reapNextBatch()).isOne();
+        assertThat(reaper.reapNextBatch()).isEqualTo(2);
+        assertThat(client.getChildren().forPath(lockRoot)).isEmpty();
+    }
+
+    @Test
+    void shouldReapInBackground_WhenStarted() throws Exception {
+        createPath(lockRoot + "/orders/1");
+        config.setInterval(Duration.milliseconds(50));
+        var reaper = newReaper();
+
+        reaper.start();
+        try {
+            await().atMost(5, TimeUnit.SECONDS).until(() -> !exists(lockRoot + "/orders"));
+        } finally {
+            reaper.stop();
+        }
+    }
+
+    private LockPathReaper newReaper() {
+        return new LockPathReaper(client, config, metrics, () -> now);
+    }
+
+    private static void reapFully(LockPathReaper reaper) throws Exception {
+        // each full scan deletes one more level of empty parents
+        for (var i = 0; i < 5; i++) {
+            reaper.reapNextBatch();
+        }
+    }
+
+    private void createPath(String path) throws Exception {
+        // lock parents have no data, unlike nodes created with Curator's default data
+        client.create().creatingParentsIfNeeded().forPath(path, new byte[0]);
+    }
+
+    private boolean exists(String path) throws Exception {
+        return client.checkExists().forPath(path) != null;
+    }
+}
@@ -0,0 +1,190 @@
+package org.kiwiproject.curator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.CuratorFrameworkFactory;
+import org.apache.curator.retry.RetryOneTime;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.kiwiproject.test.curator.CuratorTestingServerExtension;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests run against a test ZooKeeper server.
+ * <p>
+ * The build targets Java 17, so these tests use platform threads. Instead of running virtual threads with
+ * {@code -Djdk.tracePinnedThreads}, they verify the property that prevents pinning: a thread waiting for the lock is
+ * parked via {@link java.util.concurrent.locks.LockSupport} and is never inside {@link Object#wait()}.
+ */
+@DisplayName("NonPinningInterProcessMutex")
+class NonPinningInterProcessMutexTest {
+
+    @RegisterExtension
+    static final CuratorTestingServerExtension ZK_TEST_SERVER = new CuratorTestingServerExtension();
+
+    private CuratorFramework client;
+    private String lockPath;
+    private NonPinningInterProcessMutex lock;
+
+    @BeforeEach
+    void setUp() {
+        client = CuratorFrameworkFactory.newClient(ZK_TEST_SERVER.getConnectString(), new RetryOneTime(100));
+        client.start();
+        lockPath = "/locks/non-pinning-" + System.nanoTime();
+        lock = new NonPinningInterProcessMutex(client, lockPath);
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.close();
+    }
+
+    @Test
+    void shouldBeReentrant() throws Exception {
+        assertThat(lock.acquire(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(lock.acquire(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(client.getChildren().forPath(lockPath)).hasSize(1);
+
+        lock.release();
+        assertThat(lock.isAcquiredInThisProcess()).isTrue();
+
+        lock.release();
+        assertThat(lock.isAcquiredInThisProcess()).isFalse();
+        assertThat(client.getChildren().forPath(lockPath)).isEmpty();
+    }
+
+    @Test
+    void shouldWaitAsLongAsNecessary_WhenAcquiringWithoutTimeout() throws Exception {
+        var otherLock = new NonPinningInterProcessMutex(client, lockPath);
+        assertThat(otherLock.acquire(5, TimeUnit.SECONDS)).isTrue();
+
+        var executor = Executors.newSingleThreadExecutor();
+        try {
+            var acquired = executor.submit(() -> {
+                lock.acquire();
+                lock.release();
+                return true;
+            });
+            Thread.sleep(200);
+            assertThat(acquired).isNotDone();
+
+            otherLock.release();
+            assertThat(acquired.get(5, TimeUnit.SECONDS)).isTrue();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldThrow_WhenReleasedByThreadThatDoesNotHoldIt() {
+        assertThatThrownBy(() -> lock.release())
+                .isExactlyInstanceOf(IllegalMonitorStateException.class);
+    }
+
+    @Test
+    void shouldReturnFalse_WhenTimesOut() throws Exception {
+        var otherLock = new NonPinningInterProcessMutex(client, lockPath);
+        assertThat(otherLock.acquire(5, TimeUnit.SECONDS)).isTrue();
+
+        var executor = Executors.newSingleThreadExecutor();
+        try {
+            var acquired = executor.submit(() -> lock.acquire(200, TimeUnit.MILLISECONDS));
+            assertThat(acquired.get(5, TimeUnit.SECONDS)).isFalse();
+        } finally {
+            executor.shutdownNow();
+            otherLock.release();
+        }
+    }
+
+    @Test
+    void shouldWork_WithCuratorLockHelper() {
+        var lockHelper = new CuratorLockHelper();
+        var nonPinningLock = lockHelper.createNonPinningInterProcessMutex(client, lockPath);
+
+        var result = lockHelper.withLock(nonPinningLock, Duration.ofSeconds(5), () -> 42);
+
+        assertThat(result).isEqualTo(42);
+        assertThat(nonPinningLock.isAcquiredInThisProcess()).isFalse();
+    }
+
+    @Test
+    void shouldParkWaitingThreads_InsteadOfWaitingOnMonitor() throws Exception {
+        assertThat(lock.acquire(5, TimeUnit.SECONDS)).isTrue();
+
+        var waiterLock = new NonPinningInterProcessMutex(client, lockPath);
+        var waiterStarted = new CountDownLatch(1);
+        var waiter = new Thread(() -> {
+            waiterStarted.countDown();
+            try {
+                if (waiterLock.acquire(30, TimeUnit.SECONDS)) {
+                    waiterLock.release();
+                }
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        waiter.start();
+        waiterStarted.await();
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> waiter.getState() == Thread.State.WAITING);
+
+        var frames = Arrays.stream(waiter.getStackTrace())
+                .map(frame -> frame.getClassName() + "." + frame.getMethodName())
+                .toList();
+        assertThat(frames)
+                .contains("jdk.internal.misc.Unsafe.park")
+                .doesNotContain("java.lang.Object.wait");
+
+        lock.release();
+        waiter.join(5_000);
+        assertThat(waiter.isAlive()).isFalse();
+    }
+
+    @Test
+    void shouldProvideMutualExclusion_UnderContention() throws Exception {
+        var threadCount = 16;
+        var iterations = 5;
+        var lockHelper = new CuratorLockHelper();
+        var inCriticalSection = new AtomicInteger();
+        var maxInCriticalSection = new AtomicInteger();
+
+        var executor = Executors.newFixedThreadPool(threadCount);
+        try {
+            var futures = new ArrayList<Future<?>>();
+            for (var i = 0; i < threadCount; i++) {
+                futures.add(executor.submit(() -> {
+                    for (var j = 0; j < iterations; j++) {
+                        lockHelper.useLock(lock, Duration.ofSeconds(30), () -> {
+                            var current = inCriticalSection.incrementAndGet();
+                            maxInCriticalSection.accumulateAndGet(current, Math::max);
+                            inCriticalSection.decrementAndGet();
+                        });
+                    }
+                }));
+            }
+
+            for (var future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(maxInCriticalSection).hasValue(1);
+        assertThat(client.getChildren().forPath(lockPath)).isEmpty();
+    }
+}
@@ -0,0 +1,257 @@
+package org.kiwiproject.curator;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.codahale.metrics.MetricRegistry;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.CuratorFrameworkFactory;
+import org.apache.curator.retry.RetryOneTime;
+import org.apache.zookeeper.KeeperException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.kiwiproject.test.curator.CuratorTestingServerExtension;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@DisplayName("SingleFlightReader")
+class SingleFlightReaderTest {
+
+    private static final int CALLERS = 10;
+
+    private MetricRegistry metrics;
+
+    @BeforeEach
+    void setUp() {
+        metrics = new MetricRegistry();
+    }
+
+    @Nested
+    class WithZooKeeper {
+
+        @RegisterExtension
+        static final CuratorTestingServerExtension ZK_TEST_SERVER = new CuratorTestingServerExtension();
+
+        private CuratorFramework client;
+        private SingleFlightReader reader;
+
+        @BeforeEach
+        void setUp() throws Exception {
+            client = CuratorFrameworkFactory.newClient(ZK_TEST_SERVER.getConnectString(), new RetryOneTime(100));
+            client.start();
+            client.create().creatingParentsIfNeeded().forPath("/reader/a", "alpha".getBytes(StandardCharsets.UTF_8));
+            client.create().forPath("/reader/b");
+            reader = new SingleFlightReader(client, metrics);
+        }
+
+        @AfterEach
+        void tearDown() throws Exception {
+            client.delete().deletingChildrenIfNeeded().forPath("/reader");
+            client.close();
+        }
+
+        @Test
+        void shouldGetData() throws Exception {
+            assertThat(reader.getData("/reader/a")).asString(StandardCharsets.UTF_8).isEqualTo("alpha");
+        }
+
+        @Test
+        void shouldGetChildren() throws Exception {
+            assertThat(reader.getChildren("/reader")).containsExactlyInAnyOrder("a", "b");
+        }
+
+        @Test
+        void shouldCheckExists() throws Exception {
+            assertThat(reader.checkExists("/reader/a")).isPresent();
+            assertThat(reader.checkExists("/reader/missing")).isEmpty();
+        }
+
+        @Test
+        void shouldThrowZooKeeperExceptions() {
+            assertThatThrownBy(() -> reader.getData("/reader/missing"))
+                    .isInstanceOf(KeeperException.NoNodeException.class);
+            assertThat(reader.inFlightCount()).isZero();
+        }
+    }
+
+    @Nested
+    class Coalescing {
+
+        private CuratorFramework client;
+        private SingleFlightReader reader;
+        private CountDownLatch release;
+        private AtomicInteger requests;
+        private ExecutorService executor;
+
+        @BeforeEach
+        void setUp() {
+            client = mock(CuratorFramework.class, RETURNS_DEEP_STUBS);
+            reader = new SingleFlightReader(client, metrics);
+            release = new CountDownLatch(1);
+            requests = new AtomicInteger();
+            executor = Executors.newFixedThreadPool(CALLERS);
+        }
+
+        @AfterEach
+        void tearDown() {
+            executor.shutdownNow();
+        }
+
+        @Test
+        void shouldMergeConcurrentReads_OfSamePath() throws Exception {
+            when(client.getData().forPath("/config")).thenAnswer(invocation -> {
+                requests.incrementAndGet();
+                release.await();
+                return new byte[] { 42 };
+            });
+
+            var futures = new ArrayList<Future<byte[]>>();
+            for (var i = 0; i < CALLERS; i++) {
+                futures.add(executor.submit(() -> reader.getData("/config")));
+            }
+            await().atMost(5, TimeUnit.SECONDS).until(() -> coalescedReads() == CALLERS - 1);
+            release.countDown();
+
+            for (var future : futures) {
+                assertThat(future.get(5, TimeUnit.SECONDS)).containsExactly(42);
+            }
+            assertThat(requests).hasValue(1);
+            assertThat(metrics.meter(name(SingleFlightReader.class, "reads")).getCount()).isOne();
+            assertThat(reader.inFlightCount()).isZero();
+        }
+
+        @Test
+        void shouldGiveEachCaller_ItsOwnCopyOfData() throws Exception {
+            when(client.getData().forPath("/config")).thenAnswer(invocation -> {
+                release.await();
+                return new byte[] { 1 };
+            });
+
+            var first = executor.submit(() -> reader.getData("/config"));
+            var second = executor.submit(() -> reader.getData("/config"));
+            await().atMost(5, TimeUnit.SECONDS).until(() -> coalescedReads() == 1);
+            release.countDown();
+
+            assertThat(first.get(5, TimeUnit.SECONDS)).isNotSameAs(second.get(5, TimeUnit.SECONDS));
+        }
+
+        @Test
+        void shouldShareFailures() throws Exception {
+            when(client.getChildren().forPath("/workers")).thenAnswer(invocation -> {
+                release.await();
+                throw new KeeperException.ConnectionLossException();
+            });
+
+            var first = executor.submit(() -> reader.getChildren("/workers"));
+            var second = executor.submit(() -> reader.getChildren("/workers"));
+            await().atMost(5, TimeUnit.SECONDS).until(() -> coalescedReads() == 1);
+            release.countDown();
+
+            assertThatThrownBy(() -> first.get(5, TimeUnit.SECONDS))
+                    .isExactlyInstanceOf(ExecutionException.class)
+                    .hasCauseExactlyInstanceOf(KeeperException.ConnectionLossException.class);
+            assertThatThrownBy(() -> second.get(5, TimeUnit.SECONDS))
+                    .isExactlyInstanceOf(ExecutionException.class)
+                    .hasCauseExactlyInstanceOf(KeeperException.ConnectionLossException.class);
+            assertThat(reader.inFlightCount()).isZero();
+        }
+
+        @Test
+        void shouldNotMerge_DifferentOperationsOnSamePath() throws Exception {
+            when(client.getData().forPath("/config")).thenAnswer(invocation -> {
+                release.await();
+                return new byte[0];
+            });
+            when(client.getChildren().forPath("/config")).thenReturn(List.of("child"));
+
+            var data = executor.submit(() -> reader.getData("/config"));
+            await().atMost(5, TimeUnit.SECONDS).until(() -> reader.inFlightCount() == 1);
+
+            assertThat(reader.getChildren("/config")).containsExactly("child");
+            assertThat(coalescedReads()).isZero();
+
+            release.countDown();
+            assertThat(data.get(5, TimeUnit.SECONDS)).isEmpty();
+        }
+
+        @Test
+        void shouldNotJoinInFlightRead_SentBeforeCallersWrite() throws Exception {
+            var staleRelease = new CountDownLatch(1);
+            when(client.getData().forPath("/config")).thenAnswer(invocation -> {
+                if (requests.incrementAndGet() == 1) {
+                    staleRelease.await();
+                    return new byte[] { 1 };
+                }
+                return new byte[] { 2 };
+            });
+
+            var stale = executor.submit(() -> reader.getData("/config"));
+            await().atMost(5, TimeUnit.SECONDS).until(() -> requests.get() == 1);
+            var writeCompletedNanos = System.nanoTime();
+
+            assertThat(reader.getData("/config", writeCompletedNanos)).containsExactly(2);
+            assertThat(requests).hasValue(2);
+            assertThat(coalescedReads()).isZero();
+
+            staleRelease.countDown();
+            assertThat(stale.get(5, TimeUnit.SECONDS)).containsExactly(1);
+            assertThat(reader.inFlightCount()).isZero();
+        }
+
+        @Test
+        void shouldJoinInFlightRead_SentAfterCallersWrite() throws Exception {
+            when(client.getChildren().forPath("/workers")).thenAnswer(invocation -> {
+                requests.incrementAndGet();
+                release.await();
+                return List.of("worker-1");
+            });
+
+            var writeCompletedNanos = System.nanoTime();
+            var first = executor.submit(() -> reader.getChildren("/workers"));
+            await().atMost(5, TimeUnit.SECONDS).until(() -> requests.get() == 1);
+            var second = executor.submit(() -> reader.getChildren("/workers", writeCompletedNanos));
+            await().atMost(5, TimeUnit.SECONDS).until(() -> coalescedReads() == 1);
+            release.countDown();
+
+            assertThat(first.get(5, TimeUnit.SECONDS)).containsExactly("worker-1");
+            assertThat(second.get(5, TimeUnit.SECONDS)).containsExactly("worker-1");
+            assertThat(requests).hasValue(1);
+        }
+
+        @Test
+        void shouldSendNewRequest_AfterInFlightReadCompletes() throws Exception {
+            when(client.getData().forPath("/config")).thenAnswer(invocation -> {
+                requests.incrementAndGet();
+                return new byte[0];
+            });
+
+            reader.getData("/config");
+            reader.getData("/config");
+
+            assertThat(requests).hasValue(2);
+            assertThat(coalescedReads()).isZero();
+        }
+    }
+
+    private long coalescedReads() {
+        return metrics.meter(name(SingleFlightReader.class, "coalesced-reads")).getCount();
+    }
+}
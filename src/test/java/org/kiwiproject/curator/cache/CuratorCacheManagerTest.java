@@ -0,0 +1,326 @@
+package org.kiwiproject.curator.cache;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.mock;
+
+import com.codahale.metrics.MetricRegistry;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.CuratorFrameworkFactory;
+import org.apache.curator.framework.state.ConnectionState;
+import org.apache.curator.retry.RetryOneTime;
+import org.apache.zookeeper.data.Stat;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.kiwiproject.curator.compression.CompressionAlgorithm;
+import org.kiwiproject.curator.compression.ZnodeCompressionProvider;
+import org.kiwiproject.curator.exception.CuratorStartupFailureException;
+import org.kiwiproject.test.curator.CuratorTestingServerExtension;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@DisplayName("CuratorCacheManager")
+class CuratorCacheManagerTest {
+
+    @RegisterExtension
+    static final CuratorTestingServerExtension ZK_TEST_SERVER = new CuratorTestingServerExtension();
+
+    private CuratorFramework client;
+    private MetricRegistry metrics;
+    private AtomicLong clock;
+    private CuratorCacheManager cacheManager;
+    private String root;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        client = CuratorFrameworkFactory.newClient(ZK_TEST_SERVER.getConnectString(), new RetryOneTime(100));
+        client.start();
+        metrics = new MetricRegistry();
+        clock = new AtomicLong(1_000);
+        cacheManager = new CuratorCacheManager(client, metrics, Duration.ofSeconds(10), false, clock::get);
+        root = "/config-" + System.nanoTime();
+        client.create().creatingParentsIfNeeded().forPath(root + "/db/url", bytes("jdbc:h2:mem"));
+        client.create().forPath(root + "/flag", bytes("on"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        cacheManager.stop();
+        client.close();
+    }
+
+    @Test
+    void shouldLoadSubtree_BeforeStartReturns() {
+        var mirror = cacheManager.mirrorSubtree(root);
+        assertThat(mirror.isInitialized()).isFalse();
+
+        cacheManager.start();
+
+        assertThat(mirror.isInitialized()).isTrue();
+        assertThat(cacheManager.getData(root + "/db/url"))
+                .hasValueSatisfying(data -> assertThat(string(data)).isEqualTo("jdbc:h2:mem"));
+        assertThat(cacheManager.getData(root + "/flag"))
+                .hasValueSatisfying(data -> assertThat(string(data)).isEqualTo("on"));
+    }
+
+    @Test
+    void shouldLoadMirror_DeclaredAfterStart() {
+        cacheManager.start();
+
+        var mirror = cacheManager.mirrorZnode(root + "/flag");
+
+        assertThat(mirror.isInitialized()).isTrue();
+        assertThat(mirror.isSubtree()).isFalse();
+        assertThat(mirror.getData(root + "/flag")).isPresent();
+    }
+
+    @Test
+    void shouldRejectDuplicatePaths() {
+        cacheManager.mirrorSubtree(root);
+
+        assertThatThrownBy(() -> cacheManager.mirrorZnode(root))
+                .isExactlyInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldRejectReads_OfUnmirroredPaths() {
+        cacheManager.mirrorZnode(root + "/flag");
+        cacheManager.start();
+
+        assertThatThrownBy(() -> cacheManager.getData(root + "/db/url"))
+                .isExactlyInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("is not mirrored");
+    }
+
+    @Test
+    void shouldFindMirror_WithLongestPath() {
+        cacheManager.mirrorSubtree(root);
+        var dbMirror = cacheManager.mirrorSubtree(root + "/db");
+
+        assertThat(cacheManager.findMirror(root + "/db/url")).containsSame(dbMirror);
+        assertThat(cacheManager.findMirror(root + "/dbx")).map(ZnodeMirror::getPath).contains(root);
+        assertThat(cacheManager.findMirror("/elsewhere")).isEmpty();
+    }
+
+    @Test
+    void shouldReflectChanges() throws Exception {
+        cacheManager.mirrorSubtree(root);
+        cacheManager.start();
+
+        client.setData().forPath(root + "/flag", bytes("off"));
+        client.create().forPath(root + "/new", bytes("value"));
+
+        await().atMost(5, TimeUnit.SECONDS).until(() ->
+                cacheManager.getData(root + "/flag").map(CuratorCacheManagerTest::string).orElse("").equals("off"));
+        await().atMost(5, TimeUnit.SECONDS).until(() -> cacheManager.getData(root + "/new").isPresent());
+    }
+
+    @Test
+    void shouldRecordHitsAndMisses() {
+        cacheManager.mirrorSubtree(root);
+        cacheManager.start();
+
+        cacheManager.get(root + "/flag");
+        cacheManager.get(root + "/flag");
+        cacheManager.get(root + "/missing");
+
+        assertThat(metrics.meter(name(CuratorCacheManager.class, root, "hits")).getCount()).isEqualTo(2);
+        assertThat(metrics.meter(name(CuratorCacheManager.class, root, "misses")).getCount()).isOne();
+    }
+
+    @Test
+    void shouldTrackStaleness_WhileDisconnected() {
+        var mirror = cacheManager.mirrorSubtree(root);
+        cacheManager.start();
+        var stalenessGauge = metrics.getGauges().get(name(CuratorCacheManager.class, root, "staleness-millis"));
+        assertThat(stalenessGauge.getValue()).isEqualTo(0L);
+
+        cacheManager.connectionStateChanged(client, ConnectionState.SUSPENDED);
+        clock.addAndGet(2_500);
+
+        assertThat(mirror.stalenessMillis()).isEqualTo(2_500);
+        assertThat(stalenessGauge.getValue()).isEqualTo(2_500L);
+
+        cacheManager.connectionStateChanged(client, ConnectionState.RECONNECTED);
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> mirror.stalenessMillis() == 0);
+    }
+
+    @Test
+    void shouldNotClearStaleness_FromCacheEvents_BeforeReconnect() throws Exception {
+        var mirror = cacheManager.mirrorZnode(root + "/flag");
+        cacheManager.start();
+        cacheManager.connectionStateChanged(client, ConnectionState.SUSPENDED);
+        clock.addAndGet(1_000);
+
+        client.setData().forPath(root + "/flag", bytes("off"));
+        await().atMost(5, TimeUnit.SECONDS).until(() ->
+                cacheManager.getData(root + "/flag").map(CuratorCacheManagerTest::string).orElse("").equals("off"));
+
+        assertThat(mirror.stalenessMillis()).isEqualTo(1_000);
+    }
+
+    @Test
+    void shouldStayStale_AfterReconnect_UntilCacheIsSeenToResync() throws Exception {
+        var mirror = cacheManager.mirrorZnode(root + "/flag");
+        cacheManager.start();
+        cacheManager.connectionStateChanged(client, ConnectionState.SUSPENDED);
+        clock.addAndGet(1_000);
+
+        assertThat(mirror.beginResync()).isTrue();
+        assertThat(mirror.stalenessMillis()).isEqualTo(1_000);
+
+        client.setData().forPath(root + "/flag", bytes("off"));
+        await().atMost(5, TimeUnit.SECONDS).until(() -> mirror.stalenessMillis() == 0);
+    }
+
+    @Test
+    void shouldResyncSubtree_AfterReconnect_WhenNothingChanged() {
+        var mirror = cacheManager.mirrorSubtree(root);
+        cacheManager.start();
+        cacheManager.connectionStateChanged(client, ConnectionState.LOST);
+        clock.addAndGet(1_000);
+        assertThat(mirror.stalenessMillis()).isEqualTo(1_000);
+
+        cacheManager.connectionStateChanged(client, ConnectionState.RECONNECTED);
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> mirror.stalenessMillis() == 0);
+    }
+
+    @Test
+    void shouldStayStale_WhenConnectionIsSuspended_DuringInitialLoad() {
+        var mirror = cacheManager.mirrorZnode(root + "/flag");
+        mirror.markStale();
+        cacheManager.start();
+        clock.addAndGet(1_000);
+
+        assertThat(mirror.isInitialized()).isTrue();
+        assertThat(mirror.stalenessMillis()).isEqualTo(1_000);
+
+        cacheManager.connectionStateChanged(client, ConnectionState.RECONNECTED);
+        await().atMost(5, TimeUnit.SECONDS).until(() -> mirror.stalenessMillis() == 0);
+    }
+
+    @Test
+    void shouldCompareStats_ByDataAndChildrenZxids() {
+        var cachedStat = new Stat();
+        cachedStat.setMzxid(10);
+        cachedStat.setPzxid(20);
+
+        var sameStat = new Stat();
+        sameStat.setMzxid(10);
+        sameStat.setPzxid(20);
+        sameStat.setVersion(3);
+        assertThat(ZnodeMirror.statMatches(sameStat, cachedStat)).isTrue();
+
+        var childrenChanged = new Stat();
+        childrenChanged.setMzxid(10);
+        childrenChanged.setPzxid(21);
+        assertThat(ZnodeMirror.statMatches(childrenChanged, cachedStat)).isFalse();
+
+        assertThat(ZnodeMirror.statMatches(null, cachedStat)).isFalse();
+        assertThat(ZnodeMirror.statMatches(sameStat, null)).isFalse();
+        assertThat(ZnodeMirror.statMatches(null, null)).isTrue();
+    }
+
+    @Test
+    void shouldRejectRestart_AfterStop() {
+        cacheManager.mirrorZnode(root + "/flag");
+        cacheManager.start();
+        cacheManager.stop();
+
+        assertThatThrownBy(cacheManager::start)
+                .isExactlyInstanceOf(IllegalStateException.class)
+                .hasMessage("CuratorCacheManager cannot be restarted after it has been stopped");
+        assertThatThrownBy(() -> cacheManager.mirrorSubtree(root + "/db"))
+                .isExactlyInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void shouldAllowRetry_OfMirrorThatFailedToLoad_AfterStart() {
+        var disconnectedClient = CuratorFrameworkFactory.newClient("localhost:1", new RetryOneTime(100));
+        disconnectedClient.start();
+        try {
+            var manager = new CuratorCacheManager(disconnectedClient, metrics, Duration.ofMillis(200));
+            manager.start();
+
+            assertThatThrownBy(() -> manager.mirrorZnode("/config"))
+                    .isExactlyInstanceOf(CuratorStartupFailureException.class);
+            assertThat(metrics.getNames()).noneMatch(metricName -> metricName.contains("/config"));
+
+            assertThatThrownBy(() -> manager.mirrorZnode("/config"))
+                    .isExactlyInstanceOf(CuratorStartupFailureException.class);
+            manager.stop();
+        } finally {
+            disconnectedClient.close();
+        }
+    }
+
+    @Test
+    void shouldFailStart_WhenInitialLoadTimesOut() {
+        var disconnectedClient = CuratorFrameworkFactory.newClient("localhost:1", new RetryOneTime(100));
+        disconnectedClient.start();
+        try {
+            var manager = new CuratorCacheManager(disconnectedClient, metrics, Duration.ofMillis(200));
+            manager.mirrorSubtree("/config");
+
+            assertThatThrownBy(manager::start)
+                    .isExactlyInstanceOf(CuratorStartupFailureException.class)
+                    .hasMessage("Cache of /config was not loaded within PT0.2S");
+        } finally {
+            disconnectedClient.close();
+        }
+    }
+
+    @Test
+    void shouldDecompressData_WhenCreatedToDecompress() throws Exception {
+        var provider = new ZnodeCompressionProvider(CompressionAlgorithm.GZIP, 0, Map.of());
+        try (var compressingClient = CuratorFrameworkFactory.builder()
+                .connectString(ZK_TEST_SERVER.getConnectString())
+                .retryPolicy(new RetryOneTime(100))
+                .compressionProvider(provider)
+                .build()) {
+            compressingClient.start();
+            var value = "jdbc:postgresql://db/app ".repeat(10);
+            compressingClient.create().compressed().forPath(root + "/db/compressed", bytes(value));
+
+            var decompressingManager =
+                    new CuratorCacheManager(compressingClient, metrics, Duration.ofSeconds(10), true);
+            decompressingManager.mirrorSubtree(root);
+            decompressingManager.start();
+            try {
+                assertThat(decompressingManager.getData(root + "/db/compressed"))
+                        .hasValueSatisfying(data -> assertThat(string(data)).isEqualTo(value));
+                assertThat(decompressingManager.getData(root + "/flag"))
+                        .hasValueSatisfying(data -> assertThat(string(data)).isEqualTo("on"));
+            } finally {
+                decompressingManager.stop();
+            }
+        }
+    }
+
+    @Test
+    void shouldRequireClient() {
+        var metricRegistry = mock(MetricRegistry.class);
+        var timeout = Duration.ofSeconds(1);
+        assertThatThrownBy(() -> new CuratorCacheManager(null, metricRegistry, timeout))
+                .isExactlyInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(byte[] data) {
+        return new String(data, StandardCharsets.UTF_8);
+    }
+}
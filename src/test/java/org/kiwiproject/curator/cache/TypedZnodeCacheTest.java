@@ -0,0 +1,169 @@
+package org.kiwiproject.curator.cache;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.CuratorFrameworkFactory;
+import org.apache.curator.retry.RetryOneTime;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.kiwiproject.test.curator.CuratorTestingServerExtension;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@DisplayName("TypedZnodeCache")
+class TypedZnodeCacheTest {
+
+    @RegisterExtension
+    static final CuratorTestingServerExtension ZK_TEST_SERVER = new CuratorTestingServerExtension();
+
+    record DatabaseConfig(String url, int poolSize) {
+    }
+
+    private CuratorFramework client;
+    private MetricRegistry metrics;
+    private CuratorCacheManager cacheManager;
+    private String root;
+    private String dbPath;
+    private TypedZnodeCache<DatabaseConfig> typedCache;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        client = CuratorFrameworkFactory.newClient(ZK_TEST_SERVER.getConnectString(), new RetryOneTime(100));
+        client.start();
+        metrics = new MetricRegistry();
+        root = "/config-" + System.nanoTime();
+        dbPath = root + "/db";
+        client.create().creatingParentsIfNeeded().forPath(dbPath, json("{\"url\":\"jdbc:h2:mem\",\"poolSize\":5}"));
+
+        cacheManager = new CuratorCacheManager(client, metrics, Duration.ofSeconds(10));
+        var mirror = cacheManager.mirrorSubtree(root);
+        cacheManager.start();
+        typedCache = new TypedZnodeCache<>(mirror, new ObjectMapper(), DatabaseConfig.class, metrics);
+    }
+
+    @AfterEach
+    void tearDown() {
+        cacheManager.stop();
+        client.close();
+    }
+
+    @Test
+    void shouldDecodeOncePerVersion() {
+        var first = typedCache.get(dbPath);
+        var second = typedCache.get(dbPath);
+
+        assertThat(first).contains(new DatabaseConfig("jdbc:h2:mem", 5));
+        assertThat(second.orElseThrow()).isSameAs(first.orElseThrow());
+        assertThat(decodes()).isOne();
+    }
+
+    @Test
+    void shouldDecodeNewVersion() throws Exception {
+        typedCache.get(dbPath);
+
+        client.setData().forPath(dbPath, json("{\"url\":\"jdbc:h2:mem\",\"poolSize\":10}"));
+
+        await().atMost(5, TimeUnit.SECONDS).until(() ->
+                typedCache.get(dbPath).map(DatabaseConfig::poolSize).orElse(0) == 10);
+        assertThat(decodes()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldKeepLastGoodValue_WhenDecodingFails() throws Exception {
+        var good = typedCache.get(dbPath).orElseThrow();
+
+        client.setData().forPath(dbPath, json("not json"));
+
+        await().atMost(5, TimeUnit.SECONDS).until(() ->
+                cacheManager.get(dbPath).map(data -> data.getStat().getVersion()).orElse(0) == 1);
+        assertThat(typedCache.get(dbPath)).containsSame(good);
+        assertThat(typedCache.get(dbPath)).containsSame(good);
+        assertThat(decodeFailures())
+                .describedAs("a failed version should only be decoded once")
+                .isOne();
+    }
+
+    @Test
+    void shouldReturnEmpty_WhenFirstVersionCannotBeDecoded() throws Exception {
+        client.create().forPath(root + "/bad", json("{\"url\":"));
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> cacheManager.get(root + "/bad").isPresent());
+
+        assertThat(typedCache.get(root + "/bad")).isEmpty();
+        assertThat(decodeFailures()).isOne();
+    }
+
+    @Test
+    void shouldReturnEmpty_WhenZnodeIsDeleted() throws Exception {
+        typedCache.get(dbPath);
+
+        client.delete().forPath(dbPath);
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> typedCache.get(dbPath).isEmpty());
+    }
+
+    @Test
+    void shouldDiscardDecodedValue_WhenZnodeIsDeleted_WithoutReadingIt() throws Exception {
+        typedCache.get(dbPath);
+        assertThat(typedCache.hasDecoded(dbPath)).isTrue();
+
+        client.delete().forPath(dbPath);
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> !typedCache.hasDecoded(dbPath));
+    }
+
+    @Test
+    void shouldNotKeepValueOfDeletedZnode_WhenRecreatedZnodeCannotBeDecoded() throws Exception {
+        typedCache.get(dbPath).orElseThrow();
+        var czxid = cacheManager.get(dbPath).orElseThrow().getStat().getCzxid();
+
+        client.delete().forPath(dbPath);
+        client.create().forPath(dbPath, json("not json"));
+
+        await().atMost(5, TimeUnit.SECONDS).until(() ->
+                cacheManager.get(dbPath).map(data -> data.getStat().getCzxid()).orElse(czxid) != czxid);
+        assertThat(typedCache.get(dbPath)).isEmpty();
+        assertThat(decodeFailures()).isOne();
+    }
+
+    @Test
+    void shouldDecodeGenericTypes() throws Exception {
+        client.create().forPath(root + "/limits", json("{\"orders\":10,\"users\":20}"));
+        await().atMost(5, TimeUnit.SECONDS).until(() -> cacheManager.get(root + "/limits").isPresent());
+        var mapCache = new TypedZnodeCache<>(typedCache.getMirror(), new ObjectMapper(),
+                new TypeReference<Map<String, Integer>>() {}, new MetricRegistry());
+
+        assertThat(mapCache.get(root + "/limits")).contains(Map.of("orders", 10, "users", 20));
+    }
+
+    @Test
+    void shouldRejectPaths_NotCoveredByMirror() {
+        assertThatThrownBy(() -> typedCache.get("/elsewhere"))
+                .isExactlyInstanceOf(IllegalArgumentException.class);
+    }
+
+    private long decodes() {
+        return metrics.meter(name(TypedZnodeCache.class, root, "decodes")).getCount();
+    }
+
+    private long decodeFailures() {
+        return metrics.meter(name(TypedZnodeCache.class, root, "decode-failures")).getCount();
+    }
+
+    private static byte[] json(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
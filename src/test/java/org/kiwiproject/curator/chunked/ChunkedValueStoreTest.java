@@ -0,0 +1,377 @@
+package org.kiwiproject.curator.chunked;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+
+import com.codahale.metrics.MetricRegistry;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.CuratorFrameworkFactory;
+import org.apache.curator.retry.RetryOneTime;
+import org.apache.curator.utils.ZKPaths;
+import org.apache.zookeeper.KeeperException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.kiwiproject.test.curator.CuratorTestingServerExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+@DisplayName("ChunkedValueStore")
+class ChunkedValueStoreTest {
+
+    @RegisterExtension
+    static final CuratorTestingServerExtension ZK_TEST_SERVER = new CuratorTestingServerExtension();
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+    private static final Duration GRACE_PERIOD = Duration.ofMinutes(5);
+
+    private CuratorFramework client;
+    private MetricRegistry metrics;
+    private AtomicLong clockOffset;
+    private ChunkedValueStore store;
+    private String path;
+
+    @BeforeEach
+    void setUp() {
+        client = CuratorFrameworkFactory.newClient(ZK_TEST_SERVER.getConnectString(), new RetryOneTime(100));
+        client.start();
+        metrics = new MetricRegistry();
+        clockOffset = new AtomicLong();
+        store = new ChunkedValueStore(client, CHUNK_SIZE, 3, GRACE_PERIOD, metrics,
+                () -> System.currentTimeMillis() + clockOffset.get());
+        path = "/values/large-" + System.nanoTime();
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.close();
+    }
+
+    @Test
+    void shouldRoundTrip_ValuesLargerThanMaxZnodeSize() throws Exception {
+        var value = randomBytes(2_500_000);
+
+        store.write(path, value);
+
+        assertThat(readValue()).isEqualTo(value);
+        assertThat(generations()).hasSize(1);
+        assertThat(client.getChildren().forPath(ZKPaths.makePath(path, generations().get(0)))).hasSize(39);
+        assertThat(metrics.meter(name(ChunkedValueStore.class, "chunks-written")).getCount()).isEqualTo(39);
+        assertThat(metrics.meter(name(ChunkedValueStore.class, "chunks-read")).getCount()).isEqualTo(39);
+        assertThat(metrics.timer(name(ChunkedValueStore.class, "writes")).getCount()).isOne();
+    }
+
+    @Test
+    void shouldRoundTrip_ValuesOfExactChunkMultiples() throws Exception {
+        var value = randomBytes(CHUNK_SIZE * 2);
+
+        store.write(path, new ByteArrayInputStream(value));
+
+        assertThat(readValue()).isEqualTo(value);
+    }
+
+    @Test
+    void shouldRoundTrip_EmptyValues() throws Exception {
+        store.write(path, new byte[0]);
+
+        assertThat(readValue()).isEmpty();
+    }
+
+    @Test
+    void shouldReturnEmpty_WhenThereIsNoValue() throws Exception {
+        assertThat(store.read(path)).isEmpty();
+
+        client.create().creatingParentsIfNeeded().forPath(path, new byte[0]);
+        assertThat(store.read(path)).isEmpty();
+    }
+
+    @Test
+    void shouldRejectZnodes_ThatAreNotChunkedValues() throws Exception {
+        client.create().creatingParentsIfNeeded().forPath(path, "plain".getBytes(StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> store.read(path))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("does not hold a chunked value");
+    }
+
+    @Test
+    void shouldReplaceValues_AndCollectRetiredGenerations_AfterGracePeriod() throws Exception {
+        store.write(path, randomBytes(200_000));
+        var replacement = randomBytes(100_000);
+        store.write(path, replacement);
+
+        assertThat(readValue()).isEqualTo(replacement);
+        assertThat(generations()).hasSize(2);
+
+        clockOffset.set(GRACE_PERIOD.plusSeconds(1).toMillis());
+        assertThat(store.collectGarbage(path)).isOne();
+
+        assertThat(generations()).hasSize(1);
+        assertThat(readValue()).isEqualTo(replacement);
+        assertThat(metrics.meter(name(ChunkedValueStore.class, "collected-generations")).getCount()).isOne();
+    }
+
+    @Test
+    void shouldKeepCurrentValue_WhenWriteFails() throws Exception {
+        var value = randomBytes(150_000);
+        store.write(path, value);
+
+        var failing = new InputStream() {
+            private int remaining = CHUNK_SIZE * 2;
+
+            @Override
+            public int read() throws IOException {
+                if (remaining-- == 0) {
+                    throw new IOException("source failed");
+                }
+                return 42;
+            }
+        };
+        assertThatThrownBy(() -> store.write(path, failing))
+                .isInstanceOf(IOException.class)
+                .hasMessage("source failed");
+
+        assertThat(readValue()).isEqualTo(value);
+        assertThat(generations()).hasSize(1);
+    }
+
+    @Test
+    void shouldCollectOrphanedGenerations_OnlyAfterGracePeriod() throws Exception {
+        store.write(path, randomBytes(1_000));
+        var orphan = ZKPaths.makePath(path, ChunkedValueStore.GENERATION_PREFIX + "9999999999");
+        client.create().forPath(orphan);
+        client.create().forPath(ChunkedValueStore.chunkPath(orphan, 0), randomBytes(10));
+
+        assertThat(store.collectGarbage(path)).isZero();
+        assertThat(client.checkExists().forPath(orphan)).isNotNull();
+
+        clockOffset.set(GRACE_PERIOD.plusSeconds(1).toMillis());
+        assertThat(store.collectGarbage(path)).isOne();
+        assertThat(client.checkExists().forPath(orphan)).isNull();
+        assertThat(readValue()).hasSize(1_000);
+    }
+
+    @Test
+    void shouldFailWrite_WhenItsGenerationIsCollectedBeforeCommit() throws Exception {
+        var value = randomBytes(1_000);
+        store.write(path, value);
+
+        var collectingAtEnd = new InputStream() {
+            private final InputStream delegate = new ByteArrayInputStream(randomBytes(CHUNK_SIZE + 10));
+
+            @Override
+            public int read() throws IOException {
+                var next = delegate.read();
+                if (next == -1) {
+                    collectAllGarbage();
+                }
+                return next;
+            }
+        };
+
+        assertThatThrownBy(() -> store.write(path, collectingAtEnd)).isInstanceOf(KeeperException.class);
+        assertThat(readValue()).isEqualTo(value);
+        assertThat(generations()).hasSize(1);
+    }
+
+    @Test
+    void shouldCommit_WhenPreviousGenerationIsCollectedDuringCommit() throws Exception {
+        var spyClient = spy(client);
+        var spyStore = new ChunkedValueStore(spyClient, CHUNK_SIZE, 3, GRACE_PERIOD, metrics);
+        spyStore.write(path, randomBytes(1_000));
+        var previousGeneration = ZKPaths.makePath(path, generations().get(0));
+
+        doAnswer(invocation -> {
+            client.delete().deletingChildrenIfNeeded().forPath(previousGeneration);
+            return invocation.callRealMethod();
+        }).doCallRealMethod().when(spyClient).transaction();
+
+        var replacement = randomBytes(2_000);
+        spyStore.write(path, replacement);
+
+        assertThat(readValue()).isEqualTo(replacement);
+        assertThat(generations()).hasSize(1);
+    }
+
+    @Test
+    void shouldSweepGarbage_OfValuesWrittenOrRead() throws Exception {
+        store.write(path, randomBytes(1_000));
+        var orphan = ZKPaths.makePath(path, ChunkedValueStore.GENERATION_PREFIX + "9999999999");
+        client.create().forPath(orphan);
+        var readerStore = new ChunkedValueStore(client, CHUNK_SIZE, 3, GRACE_PERIOD, metrics,
+                () -> System.currentTimeMillis() + clockOffset.get());
+        assertThat(readerStore.read(path)).isPresent();
+
+        assertThat(store.knownPaths()).containsExactly(path);
+        assertThat(readerStore.knownPaths()).containsExactly(path);
+
+        clockOffset.set(GRACE_PERIOD.plusSeconds(1).toMillis());
+        assertThat(readerStore.sweepGarbage()).isOne();
+        assertThat(client.checkExists().forPath(orphan)).isNull();
+        assertThat(readValue()).hasSize(1_000);
+    }
+
+    @Test
+    void shouldSweepGarbage_Periodically_WhileStarted() throws Exception {
+        var sweepingStore = new ChunkedValueStore(client, CHUNK_SIZE, 3, GRACE_PERIOD, Duration.ofMillis(50), metrics,
+                () -> System.currentTimeMillis() + clockOffset.get());
+        sweepingStore.write(path, randomBytes(1_000));
+        var orphan = ZKPaths.makePath(path, ChunkedValueStore.GENERATION_PREFIX + "9999999999");
+        client.create().forPath(orphan);
+        clockOffset.set(GRACE_PERIOD.plusSeconds(1).toMillis());
+
+        sweepingStore.start();
+        try {
+            await().atMost(5, TimeUnit.SECONDS).until(() -> client.checkExists().forPath(orphan) == null);
+        } finally {
+            sweepingStore.stop();
+        }
+        assertThat(readValue()).hasSize(1_000);
+    }
+
+    @Test
+    void shouldForgetValues_ThatAreDeleted() throws Exception {
+        store.write(path, randomBytes(1_000));
+        var other = path + "-other";
+        store.write(other, randomBytes(1_000));
+        client.delete().deletingChildrenIfNeeded().forPath(other);
+
+        assertThat(store.delete(path)).isTrue();
+        assertThat(store.sweepGarbage()).isZero();
+
+        assertThat(store.knownPaths()).isEmpty();
+    }
+
+    private void collectAllGarbage() {
+        clockOffset.set(GRACE_PERIOD.plusSeconds(1).toMillis());
+        try {
+            store.collectGarbage(path);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        } finally {
+            clockOffset.set(0);
+        }
+    }
+
+    @Test
+    void shouldApplyConcurrentWrites_InTurn() throws Exception {
+        var values = IntStream.range(0, 4).mapToObj(i -> randomBytes(100_000 + i)).toList();
+        var executor = Executors.newFixedThreadPool(values.size());
+        try {
+            List<Callable<Void>> writes = values.stream()
+                    .<Callable<Void>>map(value -> () -> {
+                        store.write(path, value);
+                        return null;
+                    })
+                    .toList();
+            for (var future : executor.invokeAll(writes)) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        var result = readValue();
+        assertThat(values).anySatisfy(value -> assertThat(value).isEqualTo(result));
+
+        clockOffset.set(GRACE_PERIOD.plusSeconds(1).toMillis());
+        store.collectGarbage(path);
+        assertThat(generations()).hasSize(1);
+        assertThat(readValue()).isEqualTo(result);
+    }
+
+    @Test
+    void shouldFailRead_WhenChunksDoNotMatchManifest() throws Exception {
+        store.write(path, randomBytes(100_000));
+        var generation = ZKPaths.makePath(path, generations().get(0));
+        client.setData().forPath(ChunkedValueStore.chunkPath(generation, 1), randomBytes(10));
+
+        try (var stream = store.read(path).orElseThrow()) {
+            assertThatThrownBy(stream::readAllBytes)
+                    .isInstanceOf(IOException.class)
+                    .hasMessageContaining("do not match the manifest");
+        }
+    }
+
+    @Test
+    void shouldFailRead_WhenValueIsCollectedWhileBeingRead() throws Exception {
+        store.write(path, randomBytes(CHUNK_SIZE * 6));
+
+        try (var stream = store.read(path).orElseThrow()) {
+            assertThat(stream.readNBytes(10)).hasSize(10);
+
+            store.write(path, randomBytes(10));
+            clockOffset.set(GRACE_PERIOD.plusSeconds(1).toMillis());
+            store.collectGarbage(path);
+
+            assertThatThrownBy(stream::readAllBytes)
+                    .isInstanceOf(IOException.class)
+                    .hasMessageContaining("no longer exists");
+        }
+    }
+
+    @Test
+    void shouldRejectReads_AfterClose() throws Exception {
+        store.write(path, randomBytes(10));
+        var stream = store.read(path).orElseThrow();
+
+        stream.close();
+
+        assertThatThrownBy(stream::read).isInstanceOf(IOException.class).hasMessage("Stream closed");
+    }
+
+    @Test
+    void shouldDeleteValues() throws Exception {
+        store.write(path, randomBytes(CHUNK_SIZE * 2));
+
+        assertThat(store.delete(path)).isTrue();
+        assertThat(client.checkExists().forPath(path)).isNull();
+        assertThat(store.read(path)).isEmpty();
+        assertThat(store.delete(path)).isFalse();
+    }
+
+    @Test
+    void shouldRequireValidArguments() {
+        assertThatThrownBy(() -> new ChunkedValueStore(client, 0, 1, GRACE_PERIOD, metrics))
+                .isExactlyInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new ChunkedValueStore(client, CHUNK_SIZE, 0, GRACE_PERIOD, metrics))
+                .isExactlyInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new ChunkedValueStore(client, CHUNK_SIZE, 1, Duration.ofSeconds(-1), metrics))
+                .isExactlyInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new ChunkedValueStore(client, CHUNK_SIZE, 1, GRACE_PERIOD, Duration.ZERO, metrics))
+                .isExactlyInstanceOf(IllegalArgumentException.class);
+    }
+
+    private byte[] readValue() throws Exception {
+        try (var stream = store.read(path).orElseThrow()) {
+            return stream.readAllBytes();
+        }
+    }
+
+    private List<String> generations() throws Exception {
+        return client.getChildren().forPath(path);
+    }
+
+    private static byte[] randomBytes(int size) {
+        var bytes = new byte[size];
+        new Random(size).nextBytes(bytes);
+        return bytes;
+    }
+}
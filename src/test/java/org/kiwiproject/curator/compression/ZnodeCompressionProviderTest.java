@@ -0,0 +1,106 @@
+package org.kiwiproject.curator.compression;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.apache.curator.framework.imps.GzipCompressionProvider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+
+@DisplayName("ZnodeCompressionProvider")
+class ZnodeCompressionProviderTest {
+
+    private static final byte[] LARGE_JSON = ("{\"items\":[" + "{\"name\":\"item\",\"value\":42},".repeat(200) + "{}]}")
+            .getBytes(StandardCharsets.UTF_8);
+
+    private ZnodeCompressionProvider provider;
+
+    @BeforeEach
+    void setUp() {
+        provider = new ZnodeCompressionProvider(CompressionAlgorithm.GZIP, 1024, Map.of(
+                "/raw", CompressionAlgorithm.NONE,
+                "/raw/fast", CompressionAlgorithm.FAST));
+    }
+
+    @Test
+    void shouldRejectNegativeMinSize() {
+        var pathRules = Map.<String, CompressionAlgorithm>of();
+        assertThatThrownBy(() -> new ZnodeCompressionProvider(CompressionAlgorithm.GZIP, -1, pathRules))
+                .isExactlyInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldUseLongestMatchingRule() {
+        assertThat(provider.algorithmFor("/config")).isEqualTo(CompressionAlgorithm.GZIP);
+        assertThat(provider.algorithmFor("/raw")).isEqualTo(CompressionAlgorithm.NONE);
+        assertThat(provider.algorithmFor("/raw/data")).isEqualTo(CompressionAlgorithm.NONE);
+        assertThat(provider.algorithmFor("/raw/fast/data")).isEqualTo(CompressionAlgorithm.FAST);
+        assertThat(provider.algorithmFor("/rawer")).isEqualTo(CompressionAlgorithm.GZIP);
+    }
+
+    @Test
+    void shouldCompressLargeValues() throws Exception {
+        var compressed = provider.compress("/config", LARGE_JSON);
+
+        assertThat(compressed.length).isLessThan(LARGE_JSON.length / 4);
+        assertThat(provider.decompress("/config", compressed)).isEqualTo(LARGE_JSON);
+    }
+
+    @Test
+    void shouldNotCompressSmallValues() throws Exception {
+        var small = "{\"enabled\":true}".getBytes(StandardCharsets.UTF_8);
+
+        assertThat(provider.compress("/config", small)).isSameAs(small);
+    }
+
+    @Test
+    void shouldNotCompress_WhenPathAlgorithmIsNone() throws Exception {
+        assertThat(provider.compress("/raw/data", LARGE_JSON)).isSameAs(LARGE_JSON);
+    }
+
+    @Test
+    void shouldNotCompress_IncompressibleValues() throws Exception {
+        var random = new byte[4096];
+        new Random(42).nextBytes(random);
+        random[0] = 0;
+
+        assertThat(provider.compress("/config", random)).isSameAs(random);
+    }
+
+    @Test
+    void shouldReturnUncompressedValues_Unchanged() throws Exception {
+        assertThat(provider.decompress("/config", LARGE_JSON)).isSameAs(LARGE_JSON);
+        assertThat(provider.decompress("/config", new byte[0])).isEmpty();
+    }
+
+    @Test
+    void shouldReturnValues_StartingWithGzipMagicNumber_Unchanged_WhenNotGzipData() throws Exception {
+        var binary = new byte[] { (byte) 0x1f, (byte) 0x8b, 0x42, 0x00, 0x01, 0x02 };
+        assertThat(provider.decompress("/config", binary)).isSameAs(binary);
+
+        var header = new byte[] { (byte) 0x1f, (byte) 0x8b };
+        assertThat(provider.decompress("/config", header)).isSameAs(header);
+
+        var compressed = provider.compress("/config", LARGE_JSON);
+        var truncated = Arrays.copyOf(compressed, compressed.length / 2);
+        assertThat(provider.decompress("/config", truncated)).isSameAs(truncated);
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = CompressionAlgorithm.class, names = { "GZIP", "FAST" })
+    void shouldBeCompatible_WithCuratorGzipCompressionProvider(CompressionAlgorithm algorithm) throws Exception {
+        var algorithmProvider = new ZnodeCompressionProvider(algorithm, 0, Map.of());
+        var curatorProvider = new GzipCompressionProvider();
+
+        assertThat(curatorProvider.decompress("/a", algorithmProvider.compress("/a", LARGE_JSON))).isEqualTo(LARGE_JSON);
+        assertThat(algorithmProvider.decompress("/a", curatorProvider.compress("/a", LARGE_JSON))).isEqualTo(LARGE_JSON);
+    }
+}
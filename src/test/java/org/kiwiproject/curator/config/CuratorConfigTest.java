@@ -4,6 +4,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.kiwiproject.test.validation.ValidationTestHelper.assertOnePropertyViolation;
 
+import io.dropwizard.util.DataSize;
 import io.dropwizard.util.Duration;
 import jakarta.validation.Validator;
 import org.assertj.core.api.SoftAssertions;
@@ -17,8 +18,13 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 import org.kiwiproject.config.provider.FieldResolverStrategy;
 import org.kiwiproject.config.provider.ZooKeeperConfigProvider;
+import org.kiwiproject.curator.chunked.ChunkedValueStore;
+import org.kiwiproject.curator.compression.CompressionAlgorithm;
 import org.kiwiproject.validation.KiwiValidations;
 
+import java.util.List;
+import java.util.Map;
+
 @DisplayName("CuratorConfig")
 @ExtendWith(SoftAssertionsExtension.class)
 class CuratorConfigTest {
@@ -41,6 +47,42 @@ class CuratorConfigTest {
         softly.assertThat(config.getSessionTimeout().toMilliseconds()).isEqualTo(CuratorConfig.DEFAULT_SESSION_TIMEOUT_MS);
         softly.assertThat(config.getConnectionTimeout().toMilliseconds()).isEqualTo(CuratorConfig.DEFAULT_CONNECTION_TIMEOUT_MS);
         softly.assertThat(config.getHealthCheckName()).isEqualTo(CuratorConfig.DEFAULT_HEALTH_CHECK_NAME);
+        softly.assertThat(config.getLockMetrics().isEnabled()).isFalse();
+        softly.assertThat(config.getLockMetrics().getPathTemplates()).isEmpty();
+        softly.assertThat(config.getLockMetrics().getMaxDistinctPaths()).isEqualTo(LockMetricsConfig.DEFAULT_MAX_DISTINCT_PATHS);
+        softly.assertThat(config.getLockMetrics().isWatchdogEnabled()).isFalse();
+        softly.assertThat(config.getLockMetrics().getLongHoldThreshold()).isEqualTo(LockMetricsConfig.DEFAULT_LONG_HOLD_THRESHOLD);
+        softly.assertThat(config.getLockMetrics().getWatchdogCheckInterval()).isEqualTo(LockMetricsConfig.DEFAULT_WATCHDOG_CHECK_INTERVAL);
+        softly.assertThat(config.getAdaptiveLockTimeout().getPercentile()).isEqualTo(AdaptiveLockTimeoutConfig.DEFAULT_PERCENTILE);
+        softly.assertThat(config.getAdaptiveLockTimeout().getHeadroom()).isEqualTo(AdaptiveLockTimeoutConfig.DEFAULT_HEADROOM);
+        softly.assertThat(config.getAdaptiveLockTimeout().getTimeoutGrowthFactor())
+                .isEqualTo(AdaptiveLockTimeoutConfig.DEFAULT_TIMEOUT_GROWTH_FACTOR);
+        softly.assertThat(config.getAdaptiveLockTimeout().getMinTimeout()).isEqualTo(AdaptiveLockTimeoutConfig.DEFAULT_MIN_TIMEOUT);
+        softly.assertThat(config.getAdaptiveLockTimeout().getMaxTimeout()).isEqualTo(AdaptiveLockTimeoutConfig.DEFAULT_MAX_TIMEOUT);
+        softly.assertThat(config.getAdaptiveLockTimeout().getMinSamples()).isEqualTo(AdaptiveLockTimeoutConfig.DEFAULT_MIN_SAMPLES);
+        softly.assertThat(config.getLockQueuesTask().isEnabled()).isTrue();
+        softly.assertThat(config.getLockQueuesTask().getLockRoots()).isEmpty();
+        softly.assertThat(config.getLockQueuesTask().getTimeout()).isEqualTo(LockQueuesTaskConfig.DEFAULT_TIMEOUT);
+        softly.assertThat(config.getLeaderElection().getParticipantId()).isNull();
+        softly.assertThat(config.getLeaderElection().getCallbackThreads()).isEqualTo(LeaderElectionConfig.DEFAULT_CALLBACK_THREADS);
+        softly.assertThat(config.getCaches().getSubtrees()).isEmpty();
+        softly.assertThat(config.getCaches().getInitialLoadTimeout()).isEqualTo(CuratorCacheConfig.DEFAULT_INITIAL_LOAD_TIMEOUT);
+        softly.assertThat(config.getBatchingWriter().isEnabled()).isFalse();
+        softly.assertThat(config.getBatchingWriter().getFlushWindow()).isEqualTo(BatchingWriterConfig.DEFAULT_FLUSH_WINDOW);
+        softly.assertThat(config.getBatchingWriter().getMaxBatchSize()).isEqualTo(BatchingWriterConfig.DEFAULT_MAX_BATCH_SIZE);
+        softly.assertThat(config.getCompression().isEnabled()).isFalse();
+        softly.assertThat(config.getCompression().getMinSize()).isEqualTo(CompressionConfig.DEFAULT_MIN_SIZE);
+        softly.assertThat(config.getChunkedValues().isEnabled()).isFalse();
+        softly.assertThat(config.getChunkedValues().getChunkSize()).isEqualTo(ChunkedValueStoreConfig.DEFAULT_CHUNK_SIZE);
+        softly.assertThat(config.getChunkedValues().getReadAhead()).isEqualTo(ChunkedValueStore.DEFAULT_READ_AHEAD);
+        softly.assertThat(config.getChunkedValues().getGarbageGracePeriod())
+                .isEqualTo(ChunkedValueStoreConfig.DEFAULT_GARBAGE_GRACE_PERIOD);
+        softly.assertThat(config.getChunkedValues().getGarbageSweepInterval())
+                .isEqualTo(ChunkedValueStoreConfig.DEFAULT_GARBAGE_SWEEP_INTERVAL);
+        softly.assertThat(config.getLockReaper().isEnabled()).isFalse();
+        softly.assertThat(config.getLockReaper().getLockRoots()).isEmpty();
+        softly.assertThat(config.getLockReaper().getInterval()).isEqualTo(LockReaperConfig.DEFAULT_INTERVAL);
+        softly.assertThat(config.getLockReaper().getMinAge()).isEqualTo(LockReaperConfig.DEFAULT_MIN_AGE);
     }
 
     @Test
@@ -131,6 +173,78 @@ class CuratorConfigTest {
             config.setHealthCheckName("");
             assertOnePropertyViolation(validator, config, "healthCheckName");
         }
+
+        @Test
+        void shouldRequireLockMetrics() {
+            config.setLockMetrics(null);
+            assertOnePropertyViolation(validator, config, "lockMetrics");
+        }
+
+        @Test
+        void shouldValidateLockMetrics() {
+            config.getLockMetrics().setMaxDistinctPaths(0);
+            assertOnePropertyViolation(validator, config, "lockMetrics.maxDistinctPaths");
+        }
+
+        @Test
+        void shouldValidateAdaptiveLockTimeoutPercentile() {
+            config.getAdaptiveLockTimeout().setPercentile(1.5);
+            assertOnePropertyViolation(validator, config, "adaptiveLockTimeout.percentile");
+        }
+
+        @Test
+        void shouldValidateLeaderElectionCallbackThreads() {
+            config.getLeaderElection().setCallbackThreads(0);
+            assertOnePropertyViolation(validator, config, "leaderElection.callbackThreads");
+        }
+
+        @Test
+        void shouldValidateCacheInitialLoadTimeout() {
+            config.getCaches().setInitialLoadTimeout(Duration.microseconds(10));
+            assertOnePropertyViolation(validator, config, "caches.initialLoadTimeout");
+        }
+
+        @Test
+        void shouldValidateBatchingWriterMaxBatchSize() {
+            config.getBatchingWriter().setMaxBatchSize(0);
+            assertOnePropertyViolation(validator, config, "batchingWriter.maxBatchSize");
+        }
+
+        @Test
+        void shouldValidateChunkSize() {
+            config.getChunkedValues().setChunkSize(DataSize.mebibytes(1));
+            assertOnePropertyViolation(validator, config, "chunkedValues.chunkSize");
+        }
+
+        @Test
+        void shouldValidateChunkedValuesReadAhead() {
+            config.getChunkedValues().setReadAhead(0);
+            assertOnePropertyViolation(validator, config, "chunkedValues.readAhead");
+        }
+
+        @Test
+        void shouldRequireCompressionAlgorithm() {
+            config.getCompression().setAlgorithm(null);
+            assertOnePropertyViolation(validator, config, "compression.algorithm");
+        }
+
+        @Test
+        void shouldValidateLongHoldThreshold() {
+            config.getLockMetrics().setLongHoldThreshold(Duration.microseconds(10));
+            assertOnePropertyViolation(validator, config, "lockMetrics.longHoldThreshold");
+        }
+
+        @Test
+        void shouldRequireLockReaper() {
+            config.setLockReaper(null);
+            assertOnePropertyViolation(validator, config, "lockReaper");
+        }
+
+        @Test
+        void shouldValidateLockReaper() {
+            config.getLockReaper().setBatchSize(0);
+            assertOnePropertyViolation(validator, config, "lockReaper.batchSize");
+        }
     }
 
     @Nested
@@ -153,6 +267,15 @@ class CuratorConfigTest {
                     .usingRecursiveComparison()
                     .ignoringFields("zkConfigProvider")
                     .isEqualTo(original);
+            assertThat(copy.getLockMetrics()).isNotSameAs(original.getLockMetrics());
+            assertThat(copy.getAdaptiveLockTimeout()).isNotSameAs(original.getAdaptiveLockTimeout());
+            assertThat(copy.getLockReaper()).isNotSameAs(original.getLockReaper());
+            assertThat(copy.getLockQueuesTask()).isNotSameAs(original.getLockQueuesTask());
+            assertThat(copy.getLeaderElection()).isNotSameAs(original.getLeaderElection());
+            assertThat(copy.getCaches()).isNotSameAs(original.getCaches());
+            assertThat(copy.getBatchingWriter()).isNotSameAs(original.getBatchingWriter());
+            assertThat(copy.getCompression()).isNotSameAs(original.getCompression());
+            assertThat(copy.getChunkedValues()).isNotSameAs(original.getChunkedValues());
         }
     }
 
@@ -199,6 +322,23 @@ class CuratorConfigTest {
         original.setMaxSleepTime(Duration.seconds(15));
         original.setMaxRetries(10);
         original.setHealthCheckName("customCurator");
+        original.getLockMetrics().setPathTemplates(List.of("/locks/orders/{orderId}"));
+        original.getLockMetrics().setMaxDistinctPaths(25);
+        original.getLockMetrics().setLongHoldThreshold(Duration.seconds(30));
+        original.getAdaptiveLockTimeout().setPercentile(0.95);
+        original.getLockQueuesTask().setLockRoots(List.of("/locks"));
+        original.getLeaderElection().setParticipantId("node-1");
+        original.getCaches().setSubtrees(List.of("/config"));
+        original.getBatchingWriter().setEnabled(true);
+        original.getBatchingWriter().setMaxBatchSize(50);
+        original.getCompression().setAlgorithm(CompressionAlgorithm.GZIP);
+        original.getCompression().setPathAlgorithms(Map.of("/locks", CompressionAlgorithm.NONE));
+        original.getChunkedValues().setEnabled(true);
+        original.getChunkedValues().setReadAhead(8);
+        original.getChunkedValues().setGarbageSweepInterval(Duration.seconds(30));
+        original.getLockReaper().setEnabled(true);
+        original.getLockReaper().setLockRoots(List.of("/locks"));
+        original.getLockReaper().setBatchSize(50);
         return original;
     }
 
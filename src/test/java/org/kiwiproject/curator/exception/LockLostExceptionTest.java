@@ -0,0 +1,18 @@
+package org.kiwiproject.curator.exception;
+
+import static org.kiwiproject.test.junit.jupiter.StandardExceptionTests.standardConstructorTestsFor;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+
+import java.util.Collection;
+
+@DisplayName("LockLostException")
+class LockLostExceptionTest {
+
+    @TestFactory
+    Collection<DynamicTest> shouldHaveStandardConstructors() {
+        return standardConstructorTestsFor(LockLostException.class);
+    }
+}
@@ -0,0 +1,77 @@
+package org.kiwiproject.curator.health;
+
+import static org.kiwiproject.metrics.health.HealthCheckResults.SEVERITY_DETAIL;
+import static org.kiwiproject.test.assertj.dropwizard.metrics.HealthCheckResultAssertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.kiwiproject.curator.cache.CuratorCacheManager;
+import org.kiwiproject.curator.cache.ZnodeMirror;
+import org.kiwiproject.metrics.health.HealthStatus;
+
+import java.util.Map;
+
+@DisplayName("CuratorCacheHealthCheck")
+class CuratorCacheHealthCheckTest {
+
+    private CuratorCacheManager cacheManager;
+    private ZnodeMirror configMirror;
+    private ZnodeMirror flagsMirror;
+    private CuratorCacheHealthCheck healthCheck;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager = mock(CuratorCacheManager.class);
+        configMirror = newMirror("/config");
+        flagsMirror = newMirror("/flags");
+        when(cacheManager.getMirrors()).thenReturn(Map.of("/config", configMirror, "/flags", flagsMirror));
+        healthCheck = new CuratorCacheHealthCheck(cacheManager);
+    }
+
+    private static ZnodeMirror newMirror(String path) {
+        var mirror = mock(ZnodeMirror.class);
+        when(mirror.getPath()).thenReturn(path);
+        when(mirror.isInitialized()).thenReturn(true);
+        return mirror;
+    }
+
+    @Test
+    void shouldBeHealthy_WhenNoCaches() {
+        when(cacheManager.getMirrors()).thenReturn(Map.of());
+
+        assertThat(healthCheck)
+                .isHealthy()
+                .hasMessage("0 caches are in sync");
+    }
+
+    @Test
+    void shouldBeHealthy_WhenAllCachesAreInSync() {
+        assertThat(healthCheck)
+                .isHealthy()
+                .hasMessage("2 caches are in sync")
+                .hasDetail(SEVERITY_DETAIL, HealthStatus.OK.name());
+    }
+
+    @Test
+    void shouldBeUnhealthy_WhenCacheIsNotLoaded() {
+        when(flagsMirror.isInitialized()).thenReturn(false);
+
+        assertThat(healthCheck)
+                .isUnhealthy()
+                .hasMessage("Caches [/flags] have not been loaded")
+                .hasDetail(SEVERITY_DETAIL, HealthStatus.CRITICAL.name());
+    }
+
+    @Test
+    void shouldBeUnhealthy_WhenCacheIsStale() {
+        when(configMirror.stalenessMillis()).thenReturn(1_500L);
+
+        assertThat(healthCheck)
+                .isUnhealthy()
+                .hasMessage("Caches are stale: /config (1500 ms)")
+                .hasDetail(SEVERITY_DETAIL, HealthStatus.WARN.name());
+    }
+}
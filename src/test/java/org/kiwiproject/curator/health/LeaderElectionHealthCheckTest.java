@@ -0,0 +1,70 @@
+package org.kiwiproject.curator.health;
+
+import static org.kiwiproject.metrics.health.HealthCheckResults.SEVERITY_DETAIL;
+import static org.kiwiproject.test.assertj.dropwizard.metrics.HealthCheckResultAssertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.kiwiproject.curator.leader.ManagedLeaderElection;
+import org.kiwiproject.metrics.health.HealthStatus;
+
+import java.util.Optional;
+
+@DisplayName("LeaderElectionHealthCheck")
+class LeaderElectionHealthCheckTest {
+
+    private ManagedLeaderElection election;
+    private LeaderElectionHealthCheck healthCheck;
+
+    @BeforeEach
+    void setUp() {
+        election = mock(ManagedLeaderElection.class);
+        when(election.getLeaderPath()).thenReturn("/leaders/reports");
+        when(election.getParticipantId()).thenReturn("host-1:42");
+        healthCheck = new LeaderElectionHealthCheck(election);
+    }
+
+    @Test
+    void shouldBeHealthy_WhenThisParticipantIsLeader() {
+        when(election.isStarted()).thenReturn(true);
+        when(election.getLeaderId()).thenReturn(Optional.of("host-1:42"));
+        when(election.hasLeadership()).thenReturn(true);
+
+        assertThat(healthCheck)
+                .isHealthy()
+                .hasMessage("Leader of [ /leaders/reports ] is host-1:42; this participant (host-1:42) is the leader")
+                .hasDetail(SEVERITY_DETAIL, HealthStatus.OK.name());
+    }
+
+    @Test
+    void shouldBeHealthy_WhenAnotherParticipantIsLeader() {
+        when(election.isStarted()).thenReturn(true);
+        when(election.getLeaderId()).thenReturn(Optional.of("host-2:7"));
+
+        assertThat(healthCheck)
+                .isHealthy()
+                .hasMessage("Leader of [ /leaders/reports ] is host-2:7; this participant (host-1:42) is not the leader");
+    }
+
+    @Test
+    void shouldBeUnhealthy_WhenNoLeader() {
+        when(election.isStarted()).thenReturn(true);
+        when(election.getLeaderId()).thenReturn(Optional.empty());
+
+        assertThat(healthCheck)
+                .isUnhealthy()
+                .hasMessage("Leader election [ /leaders/reports ] has no leader")
+                .hasDetail(SEVERITY_DETAIL, HealthStatus.WARN.name());
+    }
+
+    @Test
+    void shouldBeUnhealthy_WhenNotStarted() {
+        assertThat(healthCheck)
+                .isUnhealthy()
+                .hasMessage("Leader election [ /leaders/reports ] is not started")
+                .hasDetail(SEVERITY_DETAIL, HealthStatus.CRITICAL.name());
+    }
+}
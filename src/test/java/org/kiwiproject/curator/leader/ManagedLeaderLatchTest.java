@@ -0,0 +1,157 @@
+package org.kiwiproject.curator.leader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.CuratorFrameworkFactory;
+import org.apache.curator.framework.recipes.leader.LeaderLatchListener;
+import org.apache.curator.retry.RetryOneTime;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.kiwiproject.test.curator.CuratorTestingServerExtension;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@DisplayName("ManagedLeaderLatch")
+class ManagedLeaderLatchTest {
+
+    @RegisterExtension
+    static final CuratorTestingServerExtension ZK_TEST_SERVER = new CuratorTestingServerExtension();
+
+    private CuratorFramework client;
+    private ExecutorService executor;
+    private MetricRegistry metrics;
+    private String latchPath;
+
+    @BeforeEach
+    void setUp() {
+        client = CuratorFrameworkFactory.newClient(ZK_TEST_SERVER.getConnectString(), new RetryOneTime(100));
+        client.start();
+        executor = Executors.newSingleThreadExecutor();
+        metrics = new MetricRegistry();
+        latchPath = "/leaders/latch-" + System.nanoTime();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        client.close();
+    }
+
+    @Test
+    void shouldRequireParticipantId() {
+        var listener = new CountingListener();
+        assertThatThrownBy(() -> new ManagedLeaderLatch(client, latchPath, " ", listener, executor, metrics))
+                .isExactlyInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldElectOneLeader_AndFailOver_WhenLeaderStops() throws Exception {
+        var firstListener = new CountingListener();
+        var secondListener = new CountingListener();
+        var first = new ManagedLeaderLatch(client, latchPath, "first", firstListener, executor, metrics);
+        var second = new ManagedLeaderLatch(client, latchPath, "second", secondListener, executor, new MetricRegistry());
+
+        first.start();
+        await().atMost(5, TimeUnit.SECONDS).until(first::hasLeadership);
+        second.start();
+        await().atMost(5, TimeUnit.SECONDS).until(() -> second.getLeaderId().isPresent());
+
+        assertThat(second.hasLeadership()).isFalse();
+        assertThat(second.getLeaderId()).contains("first");
+        assertThat(isLeaderGauge().getValue()).isOne();
+        await().atMost(5, TimeUnit.SECONDS).until(() -> firstListener.leaderCount.get() == 1);
+
+        first.stop();
+
+        assertThat(first.isStarted()).isFalse();
+        await().atMost(5, TimeUnit.SECONDS).until(second::hasLeadership);
+        await().atMost(5, TimeUnit.SECONDS).until(() -> firstListener.notLeaderCount.get() == 1);
+        await().atMost(5, TimeUnit.SECONDS).until(() -> secondListener.leaderCount.get() == 1);
+        assertThat(isLeaderGauge().getValue()).isZero();
+        assertThat(metrics.meter(prefix() + ".first.leadership-acquired").getCount()).isOne();
+        assertThat(metrics.meter(prefix() + ".first.leadership-lost").getCount()).isOne();
+
+        second.stop();
+    }
+
+    @Test
+    void shouldIgnoreRepeatedStartAndStop() throws Exception {
+        var latch = new ManagedLeaderLatch(client, latchPath, "only", new CountingListener(), executor, metrics);
+
+        latch.start();
+        latch.start();
+        await().atMost(5, TimeUnit.SECONDS).until(latch::hasLeadership);
+
+        latch.stop();
+        latch.stop();
+        assertThat(latch.isStarted()).isFalse();
+        assertThat(latch.hasLeadership()).isFalse();
+    }
+
+    @Test
+    void shouldRecordMetrics_OfEachParticipant_InSameRegistry() throws Exception {
+        var first = new ManagedLeaderLatch(client, latchPath, "first", new CountingListener(), executor, metrics);
+        var second = new ManagedLeaderLatch(client, latchPath, "second", new CountingListener(), executor, metrics);
+
+        first.start();
+        try {
+            await().atMost(5, TimeUnit.SECONDS).until(first::hasLeadership);
+            second.start();
+            await().atMost(5, TimeUnit.SECONDS).until(() -> second.getLeaderId().isPresent());
+
+            assertThat(isLeaderGauge("first").getValue()).isOne();
+            assertThat(isLeaderGauge("second").getValue()).isZero();
+        } finally {
+            first.stop();
+            second.stop();
+        }
+    }
+
+    @Test
+    void shouldRejectDuplicateParticipant_InSameRegistry() {
+        new ManagedLeaderLatch(client, latchPath, "first", new CountingListener(), executor, metrics);
+        var listener = new CountingListener();
+
+        assertThatThrownBy(() -> new ManagedLeaderLatch(client, latchPath, "first", listener, executor, metrics))
+                .isExactlyInstanceOf(IllegalArgumentException.class);
+    }
+
+    private Gauge<Integer> isLeaderGauge() {
+        return isLeaderGauge("first");
+    }
+
+    @SuppressWarnings("unchecked")
+    private Gauge<Integer> isLeaderGauge(String participantId) {
+        return (Gauge<Integer>) metrics.getGauges().get(prefix() + "." + participantId + ".is-leader");
+    }
+
+    private String prefix() {
+        return ManagedLeaderElection.class.getName() + "." + latchPath;
+    }
+
+    static class CountingListener implements LeaderLatchListener {
+        final AtomicInteger leaderCount = new AtomicInteger();
+        final AtomicInteger notLeaderCount = new AtomicInteger();
+
+        @Override
+        public void isLeader() {
+            leaderCount.incrementAndGet();
+        }
+
+        @Override
+        public void notLeader() {
+            notLeaderCount.incrementAndGet();
+        }
+    }
+}
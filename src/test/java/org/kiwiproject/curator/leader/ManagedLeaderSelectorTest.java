@@ -0,0 +1,126 @@
+package org.kiwiproject.curator.leader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import com.codahale.metrics.MetricRegistry;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.CuratorFrameworkFactory;
+import org.apache.curator.framework.recipes.leader.LeaderSelectorListenerAdapter;
+import org.apache.curator.retry.RetryOneTime;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.kiwiproject.test.curator.CuratorTestingServerExtension;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@DisplayName("ManagedLeaderSelector")
+class ManagedLeaderSelectorTest {
+
+    @RegisterExtension
+    static final CuratorTestingServerExtension ZK_TEST_SERVER = new CuratorTestingServerExtension();
+
+    private CuratorFramework client;
+    private ExecutorService firstExecutor;
+    private ExecutorService secondExecutor;
+    private MetricRegistry metrics;
+    private String leaderPath;
+
+    @BeforeEach
+    void setUp() {
+        client = CuratorFrameworkFactory.newClient(ZK_TEST_SERVER.getConnectString(), new RetryOneTime(100));
+        client.start();
+        firstExecutor = Executors.newSingleThreadExecutor();
+        secondExecutor = Executors.newSingleThreadExecutor();
+        metrics = new MetricRegistry();
+        leaderPath = "/leaders/selector-" + System.nanoTime();
+    }
+
+    @AfterEach
+    void tearDown() {
+        firstExecutor.shutdownNow();
+        secondExecutor.shutdownNow();
+        client.close();
+    }
+
+    @Test
+    void shouldRotateLeadership_AndRecordMetrics() throws Exception {
+        var leaders = Collections.synchronizedList(new ArrayList<String>());
+        var turns = new CountDownLatch(4);
+        var first = new ManagedLeaderSelector(client, leaderPath, "first",
+                new RecordingListener("first", leaders, turns), firstExecutor, metrics);
+        var second = new ManagedLeaderSelector(client, leaderPath, "second",
+                new RecordingListener("second", leaders, turns), secondExecutor, new MetricRegistry());
+
+        first.start();
+        second.start();
+        try {
+            assertThat(turns.await(10, TimeUnit.SECONDS)).isTrue();
+        } finally {
+            first.stop();
+            second.stop();
+        }
+
+        assertThat(leaders).contains("first", "second");
+        var prefix = ManagedLeaderElection.class.getName() + "." + leaderPath + ".first";
+        assertThat(metrics.meter(prefix + ".leadership-acquired").getCount()).isPositive();
+        assertThat(metrics.getGauges()).containsKey(prefix + ".is-leader");
+    }
+
+    @Test
+    void shouldInterruptLeader_WhenStopped() throws Exception {
+        var interrupted = new AtomicInteger();
+        var leading = new CountDownLatch(1);
+        var selector = new ManagedLeaderSelector(client, leaderPath, "only", new LeaderSelectorListenerAdapter() {
+            @Override
+            public void takeLeadership(CuratorFramework theClient) {
+                leading.countDown();
+                try {
+                    Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+                } catch (InterruptedException e) {
+                    interrupted.incrementAndGet();
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }, firstExecutor, metrics);
+
+        selector.start();
+        assertThat(leading.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(selector.hasLeadership()).isTrue();
+        assertThat(selector.getLeaderId()).contains("only");
+
+        selector.stop();
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> interrupted.get() == 1);
+        assertThat(selector.isStarted()).isFalse();
+    }
+
+    static class RecordingListener extends LeaderSelectorListenerAdapter {
+        private final String id;
+        private final List<String> leaders;
+        private final CountDownLatch turns;
+
+        RecordingListener(String id, List<String> leaders, CountDownLatch turns) {
+            this.id = id;
+            this.leaders = leaders;
+            this.turns = turns;
+        }
+
+        @Override
+        public void takeLeadership(CuratorFramework theClient) throws InterruptedException {
+            leaders.add(id);
+            turns.countDown();
+            Thread.sleep(20);
+        }
+    }
+}
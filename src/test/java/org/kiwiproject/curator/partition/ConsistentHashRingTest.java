@@ -0,0 +1,66 @@
+package org.kiwiproject.curator.partition;
+
+import static java.util.stream.Collectors.counting;
+import static java.util.stream.Collectors.groupingBy;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+@DisplayName("ConsistentHashRing")
+class ConsistentHashRingTest {
+
+    private static final int KEYS = 10_000;
+
+    @Test
+    void shouldRequirePositiveVirtualNodes() {
+        var members = List.of("a");
+        assertThatThrownBy(() -> new ConsistentHashRing(members, 0))
+                .isExactlyInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldHaveNoOwner_WhenEmpty() {
+        var ring = new ConsistentHashRing(List.of(), 10);
+
+        assertThat(ring.ownerOf("key")).isEmpty();
+    }
+
+    @Test
+    void shouldAssignSameOwner_RegardlessOfMemberOrder() {
+        var ring = new ConsistentHashRing(List.of("a", "b", "c"), 64);
+        var reversedRing = new ConsistentHashRing(List.of("c", "b", "a"), 64);
+
+        IntStream.range(0, KEYS).mapToObj(i -> "key-" + i)
+                .forEach(key -> assertThat(ring.ownerOf(key)).isEqualTo(reversedRing.ownerOf(key)));
+    }
+
+    @Test
+    void shouldSpreadKeys_AcrossMembers() {
+        var ring = new ConsistentHashRing(List.of("a", "b", "c", "d"), 128);
+
+        var counts = IntStream.range(0, KEYS)
+                .mapToObj(i -> ring.ownerOf("key-" + i).orElseThrow())
+                .collect(groupingBy(owner -> owner, counting()));
+
+        assertThat(counts).hasSize(4);
+        assertThat(counts.values()).allSatisfy(count -> assertThat(count).isBetween(KEYS / 8L, KEYS / 2L));
+    }
+
+    @Test
+    void shouldOnlyMoveKeysOfRemovedMember() {
+        var ring = new ConsistentHashRing(List.of("a", "b", "c", "d"), 128);
+        var smallerRing = new ConsistentHashRing(List.of("a", "b", "c"), 128);
+
+        IntStream.range(0, KEYS).mapToObj(i -> "key-" + i).forEach(key -> {
+            var owner = ring.ownerOf(key).orElseThrow();
+            if (!owner.equals("d")) {
+                assertThat(smallerRing.ownerOf(key)).contains(owner);
+            }
+        });
+    }
+}
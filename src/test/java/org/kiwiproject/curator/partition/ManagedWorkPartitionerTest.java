@@ -0,0 +1,161 @@
+package org.kiwiproject.curator.partition;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.CuratorFrameworkFactory;
+import org.apache.curator.framework.state.ConnectionState;
+import org.apache.curator.retry.RetryOneTime;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.kiwiproject.test.curator.CuratorTestingServerExtension;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+@DisplayName("ManagedWorkPartitioner")
+class ManagedWorkPartitionerTest {
+
+    @RegisterExtension
+    static final CuratorTestingServerExtension ZK_TEST_SERVER = new CuratorTestingServerExtension();
+
+    private static final int PARTITIONS = 32;
+
+    private CuratorFramework client;
+    private String groupPath;
+    private List<ManagedWorkPartitioner> partitioners;
+
+    @BeforeEach
+    void setUp() {
+        client = CuratorFrameworkFactory.newClient(ZK_TEST_SERVER.getConnectString(), new RetryOneTime(100));
+        client.start();
+        groupPath = "/workers/group-" + System.nanoTime();
+        partitioners = new ArrayList<>();
+    }
+
+    @AfterEach
+    void tearDown() {
+        partitioners.forEach(ManagedWorkPartitioner::stop);
+        client.close();
+    }
+
+    @Test
+    void shouldRequirePositivePartitionCount() {
+        assertThatThrownBy(() -> new ManagedWorkPartitioner(client, groupPath, "a", 0, assignment -> {}))
+                .isExactlyInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldMapKeys_ToPartitions() {
+        var partitioner = new ManagedWorkPartitioner(client, groupPath, "a", PARTITIONS, assignment -> {});
+
+        assertThat(partitioner.partitionOf("order-42"))
+                .isEqualTo(partitioner.partitionOf("order-42"))
+                .isBetween(0, PARTITIONS - 1);
+        assertThat(partitioner.ownsKey("order-42")).isFalse();
+    }
+
+    @Test
+    void shouldOwnAllPartitions_WhenOnlyMember() {
+        var listener = new RecordingListener();
+        var partitioner = newPartitioner("a", listener);
+
+        partitioner.start();
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> partitioner.getAssignment().owned().size() == PARTITIONS);
+        assertThat(partitioner.getAssignment().members()).containsExactly("a");
+        assertThat(partitioner.ownsPartition(0)).isTrue();
+        assertThat(listener.last().added()).hasSize(PARTITIONS);
+    }
+
+    @Test
+    void shouldRebalance_WhenMembersJoinAndLeave() {
+        var firstListener = new RecordingListener();
+        var first = newPartitioner("a", firstListener);
+        var second = newPartitioner("b", new RecordingListener());
+
+        first.start();
+        await().atMost(5, TimeUnit.SECONDS).until(() -> first.getAssignment().owned().size() == PARTITIONS);
+
+        second.start();
+        await().atMost(5, TimeUnit.SECONDS).until(() ->
+                first.getAssignment().members().size() == 2 && second.getAssignment().members().size() == 2);
+
+        var firstOwned = first.getAssignment().owned();
+        var secondOwned = second.getAssignment().owned();
+        assertThat(firstOwned).isNotEmpty().doesNotContainAnyElementsOf(secondOwned);
+        assertThat(secondOwned).isNotEmpty();
+        var allOwned = new HashSet<>(firstOwned);
+        allOwned.addAll(secondOwned);
+        assertThat(allOwned).hasSize(PARTITIONS);
+        assertThat(firstListener.last().revoked()).containsExactlyElementsOf(secondOwned);
+
+        second.stop();
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> first.getAssignment().owned().size() == PARTITIONS);
+        assertThat(firstListener.last().added()).containsExactlyElementsOf(secondOwned);
+        await().atMost(5, TimeUnit.SECONDS).until(() -> second.getAssignment().owned().isEmpty());
+    }
+
+    @Test
+    void shouldRevokeAllPartitions_WhileDisconnected_AndRebalance_WhenReconnected() {
+        var listener = new RecordingListener();
+        var partitioner = newPartitioner("a", listener);
+        partitioner.start();
+        await().atMost(5, TimeUnit.SECONDS).until(() -> partitioner.getAssignment().owned().size() == PARTITIONS);
+
+        partitioner.connectionStateChanged(client, ConnectionState.SUSPENDED);
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> partitioner.getAssignment().owned().isEmpty());
+        assertThat(listener.last().revoked()).hasSize(PARTITIONS);
+        assertThat(partitioner.ownsPartition(0)).isFalse();
+
+        partitioner.connectionStateChanged(client, ConnectionState.RECONNECTED);
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> partitioner.getAssignment().owned().size() == PARTITIONS);
+        assertThat(listener.last().added()).hasSize(PARTITIONS);
+    }
+
+    @Test
+    void shouldRevokeAllPartitions_WhenStopped() {
+        var listener = new RecordingListener();
+        var partitioner = newPartitioner("a", listener);
+        partitioner.start();
+        await().atMost(5, TimeUnit.SECONDS).until(() -> partitioner.getAssignment().owned().size() == PARTITIONS);
+
+        partitioner.stop();
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> listener.last().owned().isEmpty());
+        assertThat(listener.last().revoked()).hasSize(PARTITIONS);
+        assertThat(listener.last().members()).isEqualTo(Set.of());
+    }
+
+    private ManagedWorkPartitioner newPartitioner(String memberId, PartitionRebalanceListener listener) {
+        var partitioner = new ManagedWorkPartitioner(client, groupPath, memberId, PARTITIONS, listener);
+        partitioners.add(partitioner);
+        return partitioner;
+    }
+
+    private static class RecordingListener implements PartitionRebalanceListener {
+
+        final List<PartitionAssignment> assignments = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void onRebalance(PartitionAssignment assignment) {
+            assignments.add(assignment);
+        }
+
+        PartitionAssignment last() {
+            return assignments.get(assignments.size() - 1);
+        }
+    }
+}
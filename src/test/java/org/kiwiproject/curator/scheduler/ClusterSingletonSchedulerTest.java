@@ -0,0 +1,207 @@
+package org.kiwiproject.curator.scheduler;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+import com.codahale.metrics.MetricRegistry;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.CuratorFrameworkFactory;
+import org.apache.curator.framework.recipes.locks.InterProcessMutex;
+import org.apache.curator.retry.RetryOneTime;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.kiwiproject.curator.CuratorLockHelper;
+import org.kiwiproject.test.curator.CuratorTestingServerExtension;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+@DisplayName("ClusterSingletonScheduler")
+class ClusterSingletonSchedulerTest {
+
+    @RegisterExtension
+    static final CuratorTestingServerExtension ZK_TEST_SERVER = new CuratorTestingServerExtension();
+
+    private static final String JOB = "report";
+    private static final Duration INTERVAL = Duration.ofMillis(50);
+
+    private CuratorFramework client;
+    private CuratorLockHelper lockHelper;
+    private String rootPath;
+    private List<ClusterSingletonScheduler> schedulers;
+
+    @BeforeEach
+    void setUp() {
+        client = CuratorFrameworkFactory.newClient(ZK_TEST_SERVER.getConnectString(), new RetryOneTime(100));
+        client.start();
+        lockHelper = new CuratorLockHelper();
+        rootPath = "/scheduler/test-" + System.nanoTime();
+        schedulers = new ArrayList<>();
+    }
+
+    @AfterEach
+    void tearDown() {
+        schedulers.forEach(ClusterSingletonScheduler::stop);
+        client.close();
+    }
+
+    @Test
+    void shouldRejectDuplicateJobNames() {
+        var scheduler = newScheduler(new MetricRegistry());
+        scheduler.schedule(JOB, INTERVAL, () -> {});
+
+        assertThatThrownBy(() -> scheduler.schedule(JOB, INTERVAL, () -> {}))
+                .isExactlyInstanceOf(IllegalArgumentException.class)
+                .hasMessage("A job named report is already registered");
+    }
+
+    @Test
+    void shouldRejectJitter_NotLessThanInterval() {
+        var scheduler = newScheduler(new MetricRegistry());
+
+        assertThatThrownBy(() -> scheduler.schedule(JOB, INTERVAL, INTERVAL, () -> {}))
+                .isExactlyInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldRunJobs_OnlyOnLeader() throws Exception {
+        var firstMetrics = new MetricRegistry();
+        var secondMetrics = new MetricRegistry();
+        var first = newScheduler(firstMetrics);
+        var second = newScheduler(secondMetrics);
+        var firstRuns = new AtomicInteger();
+        var secondRuns = new AtomicInteger();
+        first.schedule(JOB, INTERVAL, firstRuns::incrementAndGet);
+        second.schedule(JOB, INTERVAL, secondRuns::incrementAndGet);
+
+        first.start();
+        await().atMost(5, TimeUnit.SECONDS).until(first::isLeader);
+        second.start();
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> firstRuns.get() >= 3);
+        assertThat(second.isLeader()).isFalse();
+        assertThat(secondRuns).hasValue(0);
+        assertThat(runs(secondMetrics)).isZero();
+        assertThat(runs(firstMetrics)).isGreaterThanOrEqualTo(3);
+
+        first.stop();
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> secondRuns.get() >= 3);
+    }
+
+    @Test
+    void shouldSkipTicks_WhenJobLockIsHeld() throws Exception {
+        var metrics = new MetricRegistry();
+        var scheduler = newScheduler(metrics);
+        var runs = new AtomicInteger();
+        scheduler.schedule(JOB, INTERVAL, runs::incrementAndGet);
+
+        var lock = new InterProcessMutex(client, rootPath + "/jobs/" + JOB + "/lock");
+        lock.acquire();
+        try {
+            scheduler.start();
+            await().atMost(5, TimeUnit.SECONDS).until(() -> skips(metrics) >= 2);
+            assertThat(runs).hasValue(0);
+        } finally {
+            lock.release();
+        }
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> runs.get() > 0);
+    }
+
+    @Test
+    void shouldRunEachTickOnce() throws Exception {
+        var metrics = new MetricRegistry();
+        var fixedClock = System.currentTimeMillis();
+        var scheduler = newScheduler(metrics, () -> fixedClock);
+        var runs = new AtomicInteger();
+        scheduler.schedule(JOB, INTERVAL, Duration.ZERO, runs::incrementAndGet);
+
+        scheduler.start();
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> skips(metrics) >= 2);
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    void shouldSkipOverlappedTicks() throws Exception {
+        var metrics = new MetricRegistry();
+        var clock = new AtomicLong(System.currentTimeMillis());
+        var scheduler = newScheduler(metrics, clock::get);
+        var runs = new AtomicInteger();
+        var skipsAtSecondRun = new AtomicLong(-1);
+        scheduler.schedule(JOB, INTERVAL, Duration.ZERO, () -> {
+            var run = runs.incrementAndGet();
+            if (run == 1) {
+                clock.addAndGet(3 * INTERVAL.toMillis());
+            } else if (run == 2) {
+                skipsAtSecondRun.set(skips(metrics));
+            }
+        });
+
+        scheduler.start();
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> runs.get() >= 2);
+        assertThat(skipsAtSecondRun).hasValue(3);
+    }
+
+    @Test
+    void shouldCountFailures_AndKeepRunning() throws Exception {
+        var metrics = new MetricRegistry();
+        var scheduler = newScheduler(metrics);
+        var attempts = new AtomicInteger();
+        scheduler.schedule(JOB, INTERVAL, () -> {
+            attempts.incrementAndGet();
+            throw new IllegalStateException("oops");
+        });
+
+        scheduler.start();
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> attempts.get() >= 2);
+        assertThat(metrics.meter(metricName("failures")).getCount()).isGreaterThanOrEqualTo(2);
+    }
+
+    @Test
+    void shouldScheduleJobs_RegisteredAfterStart() throws Exception {
+        var scheduler = newScheduler(new MetricRegistry());
+        scheduler.start();
+        var runs = new AtomicInteger();
+
+        scheduler.schedule(JOB, INTERVAL, runs::incrementAndGet);
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> runs.get() > 0);
+    }
+
+    private ClusterSingletonScheduler newScheduler(MetricRegistry metrics) {
+        return newScheduler(metrics, System::currentTimeMillis);
+    }
+
+    private ClusterSingletonScheduler newScheduler(MetricRegistry metrics, LongSupplier clock) {
+        var participantId = "node-" + schedulers.size();
+        var scheduler = new ClusterSingletonScheduler(client, lockHelper, rootPath, participantId, 1, metrics, clock);
+        schedulers.add(scheduler);
+        return scheduler;
+    }
+
+    private static long runs(MetricRegistry metrics) {
+        return metrics.timer(metricName("runs")).getCount();
+    }
+
+    private static long skips(MetricRegistry metrics) {
+        return metrics.meter(metricName("skips")).getCount();
+    }
+
+    private static String metricName(String metric) {
+        return name(ClusterSingletonScheduler.class, JOB, metric);
+    }
+}
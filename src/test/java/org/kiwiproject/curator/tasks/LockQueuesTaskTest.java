@@ -0,0 +1,82 @@
+package org.kiwiproject.curator.tasks;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import org.apache.curator.framework.CuratorFramework;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.kiwiproject.curator.CuratorLockHelper;
+import org.kiwiproject.curator.LockQueueInfo;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+@DisplayName("LockQueuesTask")
+class LockQueuesTaskTest {
+
+    private CuratorFramework client;
+    private CuratorLockHelper lockHelper;
+    private StringWriter output;
+
+    @BeforeEach
+    void setUp() {
+        client = mock(CuratorFramework.class);
+        lockHelper = mock(CuratorLockHelper.class);
+        output = new StringWriter();
+    }
+
+    @Test
+    void shouldReportLockQueues_UnderConfiguredLockRoots() {
+        var task = new LockQueuesTask(client, lockHelper, List.of("/locks"), Duration.ofSeconds(5));
+        when(lockHelper.inspectLockQueues(client, List.of("/locks"), Duration.ofSeconds(5))).thenReturn(List.of(
+                new LockQueueInfo("/locks/orders/42",
+                        List.of(participant("/locks/orders/42", 1, "10.0.0.1"),
+                                participant("/locks/orders/42", 2, "10.0.0.2")),
+                        Optional.of(Duration.ofMillis(400))),
+                new LockQueueInfo("/locks/reports",
+                        List.of(participant("/locks/reports", 7, "10.0.0.3")),
+                        Optional.empty())));
+
+        task.execute(Map.of(), new PrintWriter(output));
+
+        assertThat(output.toString()).containsSubsequence(
+                "2 lock paths with participants under [/locks]",
+                "/locks/orders/42 queueDepth=1 estimatedWait=PT0.4S",
+                "  /locks/orders/42/_c_1-lock-0000000001 owner=10.0.0.1",
+                "  /locks/orders/42/_c_2-lock-0000000002 owner=10.0.0.2",
+                "/locks/reports queueDepth=0 estimatedWait=unknown",
+                "  /locks/reports/_c_7-lock-0000000007 owner=10.0.0.3");
+    }
+
+    @Test
+    void shouldUseLockRootsFromParameters() {
+        var task = new LockQueuesTask(client, lockHelper, List.of("/locks"), Duration.ofSeconds(5));
+
+        task.execute(Map.of(LockQueuesTask.ROOT_PARAM, List.of("/other-locks")), new PrintWriter(output));
+
+        verify(lockHelper).inspectLockQueues(client, List.of("/other-locks"), Duration.ofSeconds(5));
+    }
+
+    @Test
+    void shouldNotInspect_WhenNoLockRoots() {
+        var task = new LockQueuesTask(client, lockHelper, List.of(), Duration.ofSeconds(5));
+
+        task.execute(Map.of(), new PrintWriter(output));
+
+        assertThat(output.toString()).startsWith("No lock roots are configured");
+        verifyNoInteractions(lockHelper);
+    }
+
+    private static LockQueueInfo.Participant participant(String lockPath, int sequence, String owner) {
+        return new LockQueueInfo.Participant(String.format("%s/_c_%d-lock-%010d", lockPath, sequence, sequence), owner);
+    }
+}